@@ -40,4 +40,34 @@ public interface AntlrParseService<T> {
 	 */
 	Mono<AntlrParseResult<T>> parse(Document document,
 			Function<Document, ? extends Mono<? extends AntlrParseResult<T>>> function);
+
+	/**
+	 * Notify that a document is superseded by a newer version of it, allowing
+	 * results of older versions to be dropped. Default implementation does
+	 * nothing.
+	 *
+	 * @param previous the previous version of a document
+	 * @param document the newer version of a document
+	 */
+	default void supersede(Document previous, Document document) {
+	}
+
+	/**
+	 * Invalidate cached parse results of a document and its older versions.
+	 * Results of other documents having a same uri are kept. Default
+	 * implementation does nothing.
+	 *
+	 * @param document the document
+	 */
+	default void invalidate(Document document) {
+	}
+
+	/**
+	 * Invalidate cached parse results of all documents having a uri. Default
+	 * implementation does nothing.
+	 *
+	 * @param uri the document uri
+	 */
+	default void invalidate(String uri) {
+	}
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.antlr;
+
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.atn.PredictionMode;
+
+/**
+ * Policy how {@code ANTLR} parsers predict alternatives.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public enum AntlrPredictionPolicy {
+
+	/**
+	 * Parse with a default full context {@link PredictionMode#LL} prediction.
+	 */
+	LL,
+
+	/**
+	 * Parse first with a faster {@link PredictionMode#SLL} prediction and a
+	 * {@link BailErrorStrategy} without error listeners, and parse again with
+	 * {@link PredictionMode#LL} and error listeners only if a first stage
+	 * fails. As {@code SLL} only fails for syntactically valid input with
+	 * rare grammar constructs, a second stage mostly runs for input having
+	 * syntax errors.
+	 */
+	SLL_THEN_LL;
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.antlr;
+
+import java.util.function.Function;
+
+import org.springframework.dsl.document.Document;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Function creating {@link AntlrParseResult} from a {@link Document} which is
+ * able to reuse a result of a previous version of a same document.
+ *
+ * @author Janne Valkealahti
+ *
+ * @param <T> the type of a result in {@link AntlrParseResult}
+ */
+public interface AntlrReparseFunction<T> extends Function<Document, Mono<? extends AntlrParseResult<T>>> {
+
+	/**
+	 * Parse a {@link Document} reusing a result of a previous version of it.
+	 * Previous result is only a hint and a document is parsed fully if it
+	 * cannot be reused.
+	 *
+	 * @param document the document
+	 * @param previous the result of a previous version of a document
+	 * @return the mono of a antrl parse result
+	 */
+	Mono<? extends AntlrParseResult<T>> reparse(Document document, AntlrParseResult<T> previous);
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.antlr;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Extension of an {@link AntlrFactory} declaring grammar rules from which a
+ * changed document can be reparsed without parsing a whole document.
+ * <p>
+ * A rule is restartable when its contexts can be lexed and parsed
+ * independently of surrounding tokens, which is usually a case with
+ * statements delimited by keywords or brackets. Lexer is expected to be in its
+ * default mode at both ends of a restartable context.
+ *
+ * @author Janne Valkealahti
+ *
+ * @param <L> the type of lexer
+ * @param <P> the type of parser
+ */
+public interface IncrementalAntlrFactory<L extends Lexer, P extends Parser> extends AntlrFactory<L, P> {
+
+	/**
+	 * Gets the indexes of restartable rules as defined in a generated parser,
+	 * for example {@code DOTParser.RULE_stmt}.
+	 *
+	 * @return the indexes of restartable rules
+	 */
+	Set<Integer> getRestartableRules();
+
+	/**
+	 * Parse a restartable rule with a given parser. Default implementation
+	 * invokes a generated rule method having no arguments.
+	 *
+	 * @param parser the parser
+	 * @param ruleIndex the rule index
+	 * @return the parsed rule context
+	 */
+	default ParserRuleContext parseRule(P parser, int ruleIndex) {
+		String ruleName = parser.getRuleNames()[ruleIndex];
+		Method method = ReflectionUtils.findMethod(parser.getClass(), ruleName);
+		Assert.state(method != null, () -> "No rule method found for rule " + ruleName);
+		return (ParserRuleContext) ReflectionUtils.invokeMethod(method, parser);
+	}
+}
@@ -21,6 +21,8 @@ import java.util.function.Function;
 import org.springframework.dsl.antlr.AntlrParseResult;
 import org.springframework.dsl.antlr.AntlrParseService;
 import org.springframework.dsl.document.Document;
+import org.springframework.dsl.domain.DidChangeTextDocumentParams;
+import org.springframework.dsl.domain.DidCloseTextDocumentParams;
 import org.springframework.dsl.model.LanguageId;
 import org.springframework.dsl.service.reconcile.Linter;
 import org.springframework.dsl.service.reconcile.ReconcileProblem;
@@ -68,4 +70,19 @@ public abstract class AbstractAntlrLinter<T> extends AbstractAntlrDslService<T>
 			.map(r -> r.getReconcileProblems())
 			.flatMapMany(r -> r.cache());
 	}
+
+	@Override
+	public void didClose(DidCloseTextDocumentParams params) {
+		getAntlrParseService().invalidate(params.getTextDocument().getUri());
+	}
+
+	@Override
+	public void didClose(Document document, DidCloseTextDocumentParams params) {
+		getAntlrParseService().invalidate(document);
+	}
+
+	@Override
+	public void didChange(Document previous, Document document, DidChangeTextDocumentParams params) {
+		getAntlrParseService().supersede(previous, document);
+	}
 }
@@ -15,12 +15,14 @@
  */
 package org.springframework.dsl.antlr.support;
 
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 import org.antlr.v4.runtime.Lexer;
 import org.antlr.v4.runtime.Parser;
 import org.springframework.dsl.antlr.AntlrFactory;
 import org.springframework.dsl.antlr.AntlrParseResult;
+import org.springframework.dsl.antlr.AntlrPredictionPolicy;
 import org.springframework.dsl.document.Document;
 import org.springframework.dsl.domain.CompletionItem;
 import org.springframework.dsl.domain.DocumentSymbol;
@@ -29,6 +31,7 @@ import org.springframework.dsl.domain.Position;
 import org.springframework.dsl.service.reconcile.ReconcileProblem;
 import org.springframework.dsl.support.DslUtils;
 import org.springframework.dsl.symboltable.SymbolTable;
+import org.springframework.util.Assert;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -47,6 +50,11 @@ public abstract class AbstractAntlrParseResultFunction<T, L extends Lexer, P ext
 		extends AntlrObjectSupport<L, P>
 		implements Function<Document, Mono<? extends AntlrParseResult<T>>> {
 
+	private AntlrPredictionPolicy predictionPolicy = AntlrPredictionPolicy.LL;
+	private final AtomicLong parseCount = new AtomicLong();
+	private final AtomicLong fallbackCount = new AtomicLong();
+	private AntlrDfaCache<L, P> dfaCache;
+
 	/**
 	 * Instantiates a new abstract antlr parse result function.
 	 *
@@ -95,10 +103,81 @@ public abstract class AbstractAntlrParseResultFunction<T, L extends Lexer, P ext
 		});
 	}
 
+	/**
+	 * Sets the prediction policy used with {@link #parse(Parser, Function)}.
+	 * Defaults to {@link AntlrPredictionPolicy#LL}.
+	 *
+	 * @param predictionPolicy the new prediction policy
+	 */
+	public void setPredictionPolicy(AntlrPredictionPolicy predictionPolicy) {
+		Assert.notNull(predictionPolicy, "predictionPolicy cannot be null");
+		this.predictionPolicy = predictionPolicy;
+	}
+
+	/**
+	 * Gets the prediction policy.
+	 *
+	 * @return the prediction policy
+	 */
+	public AntlrPredictionPolicy getPredictionPolicy() {
+		return predictionPolicy;
+	}
+
+	/**
+	 * Sets the dfa cache which is trimmed after parses done with
+	 * {@link #parse(Parser, Function)}.
+	 *
+	 * @param dfaCache the new dfa cache
+	 */
+	public void setDfaCache(AntlrDfaCache<L, P> dfaCache) {
+		this.dfaCache = dfaCache;
+	}
+
+	/**
+	 * Gets the number of parses done with {@link #parse(Parser, Function)}.
+	 *
+	 * @return the number of parses
+	 */
+	public long getParseCount() {
+		return parseCount.get();
+	}
+
+	/**
+	 * Gets the number of parses falling back to a second {@code LL} stage
+	 * with {@link AntlrPredictionPolicy#SLL_THEN_LL}.
+	 *
+	 * @return the number of fallbacks
+	 */
+	public long getFallbackCount() {
+		return fallbackCount.get();
+	}
+
 	protected Mono<AntlrParseResult<T>> parse(Document document) {
 		return Mono.empty();
 	}
 
+	/**
+	 * Parse with a given rule using a configured prediction policy. Error
+	 * listeners should be added to a parser before calling this method. A
+	 * configured dfa cache is trimmed after a parse.
+	 *
+	 * @param <R> the type of a parse result
+	 * @param parser the parser
+	 * @param rule the function parsing a rule
+	 * @return the result from a rule
+	 * @see AntlrUtils#parse(Parser, Function, AntlrPredictionPolicy, Runnable)
+	 */
+	protected <R> R parse(P parser, Function<P, R> rule) {
+		parseCount.incrementAndGet();
+		try {
+			return AntlrUtils.parse(parser, rule, predictionPolicy, fallbackCount::incrementAndGet);
+		} finally {
+			if (dfaCache != null) {
+				dfaCache.trim();
+			}
+		}
+	}
+
 	protected Mono<T> getResult(Mono<AntlrParseResult<T>> shared, Document document) {
 		return shared.flatMap(r -> Mono.from(r.getResult()));
 	}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.antlr.support;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.springframework.dsl.antlr.AntlrParseResult;
+import org.springframework.dsl.antlr.AntlrReparseFunction;
+import org.springframework.dsl.antlr.IncrementalAntlrFactory;
+import org.springframework.dsl.document.Document;
+import org.springframework.dsl.domain.CompletionItem;
+import org.springframework.dsl.domain.DocumentSymbol;
+import org.springframework.dsl.domain.Hover;
+import org.springframework.dsl.domain.Position;
+import org.springframework.dsl.service.reconcile.ReconcileProblem;
+import org.springframework.dsl.symboltable.SymbolTable;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Base implementation of a function creating {@link AntlrParseResult} from a
+ * {@link Document} which reparses only changed restartable rules declared in
+ * an {@link IncrementalAntlrFactory} when a result of a previous version of a
+ * document is given.
+ * <p>
+ * A parse tree given to {@link #createResult(Document, ParserRuleContext, List)}
+ * is reused and modified when a next version of a document is reparsed, thus
+ * a result should be created from it eagerly without keeping references to
+ * it. Documents parsed fully use a configured
+ * {@link #setPredictionPolicy(org.springframework.dsl.antlr.AntlrPredictionPolicy) prediction policy}.
+ *
+ * @author Janne Valkealahti
+ *
+ * @param <T> the type of a result in {@link AntlrParseResult}
+ * @param <L> the type of lexer
+ * @param <P> the type of parser
+ */
+public abstract class AbstractIncrementalAntlrParseResultFunction<T, L extends Lexer, P extends Parser>
+		extends AbstractAntlrParseResultFunction<T, L, P> implements AntlrReparseFunction<T> {
+
+	private final IncrementalAntlrParser<L, P> incrementalParser;
+
+	/**
+	 * Instantiates a new abstract incremental antlr parse result function.
+	 *
+	 * @param antlrFactory the antlr factory
+	 */
+	public AbstractIncrementalAntlrParseResultFunction(IncrementalAntlrFactory<L, P> antlrFactory) {
+		super(antlrFactory);
+		this.incrementalParser = new IncrementalAntlrParser<>(antlrFactory, p -> parse(p, this::parseTree));
+	}
+
+	@Override
+	public Mono<? extends AntlrParseResult<T>> apply(Document document) {
+		return reparse(document, null);
+	}
+
+	@Override
+	public Mono<? extends AntlrParseResult<T>> reparse(Document document, AntlrParseResult<T> previous) {
+		return Mono.defer(() -> {
+			IncrementalAntlrParser.ParseState state = null;
+			if (previous instanceof IncrementalParseResult) {
+				IncrementalAntlrParser.ParseState base = ((IncrementalParseResult<?>) previous).take();
+				if (base != null) {
+					state = incrementalParser.reparse(base, document);
+				}
+			}
+			if (state == null) {
+				state = incrementalParser.parse(document);
+			}
+			AntlrParseResult<T> result = createResult(document, state.getTree(), state.getProblems());
+			return Mono.just(new IncrementalParseResult<>(result, state));
+		});
+	}
+
+	/**
+	 * Gets the number of documents parsed fully.
+	 *
+	 * @return the number of full parses
+	 */
+	public long getFullParseCount() {
+		return incrementalParser.getFullParseCount();
+	}
+
+	/**
+	 * Gets the number of documents reparsed from a previous version.
+	 *
+	 * @return the number of incremental parses
+	 */
+	public long getIncrementalParseCount() {
+		return incrementalParser.getIncrementalParseCount();
+	}
+
+	/**
+	 * Parse a whole document using a given parser.
+	 *
+	 * @param parser the parser
+	 * @return the parse tree
+	 */
+	protected abstract ParserRuleContext parseTree(P parser);
+
+	/**
+	 * Creates a result from a parse tree of a document.
+	 *
+	 * @param document the document
+	 * @param tree the parse tree
+	 * @param problems the syntax problems
+	 * @return the antlr parse result
+	 */
+	protected abstract AntlrParseResult<T> createResult(Document document, ParserRuleContext tree,
+			List<ReconcileProblem> problems);
+
+	/**
+	 * {@link AntlrParseResult} delegating to a created result and keeping a
+	 * parse state for a reparse of a next version.
+	 */
+	private static class IncrementalParseResult<T> implements AntlrParseResult<T> {
+
+		private final AntlrParseResult<T> delegate;
+		private final AtomicReference<IncrementalAntlrParser.ParseState> state;
+
+		IncrementalParseResult(AntlrParseResult<T> delegate, IncrementalAntlrParser.ParseState state) {
+			this.delegate = delegate;
+			this.state = new AtomicReference<>(state);
+		}
+
+		IncrementalAntlrParser.ParseState take() {
+			return state.getAndSet(null);
+		}
+
+		@Override
+		public Mono<T> getResult() {
+			return delegate.getResult();
+		}
+
+		@Override
+		public Mono<SymbolTable> getSymbolTable() {
+			return delegate.getSymbolTable();
+		}
+
+		@Override
+		public Flux<ReconcileProblem> getReconcileProblems() {
+			return delegate.getReconcileProblems();
+		}
+
+		@Override
+		public Flux<CompletionItem> getCompletionItems(Position position) {
+			return delegate.getCompletionItems(position);
+		}
+
+		@Override
+		public Mono<Hover> getHover(Position position) {
+			return delegate.getHover(position);
+		}
+
+		@Override
+		public Flux<DocumentSymbol> getDocumentSymbols() {
+			return delegate.getDocumentSymbols();
+		}
+	}
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.antlr.support;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.atn.ATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dsl.antlr.AntlrFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Manager for {@code DFA} caches which generated lexers and parsers of a
+ * grammar share statically between all their instances.
+ * <p>
+ * Caches are empty when a server starts, making first parses slow until
+ * caches are filled with states for typical input. This class warms caches
+ * by parsing a sample corpus supplied by a dsl when initialised. Caches are
+ * never trimmed by {@code ANTLR} itself, thus when a number of cached states
+ * crosses a threshold, caches are cleared and warmed again from samples.
+ * Clearing happens in place while other parsers may be running which only
+ * then need to compute states again.
+ *
+ * @author Janne Valkealahti
+ *
+ * @param <L> the type of lexer
+ * @param <P> the type of parser
+ */
+public class AntlrDfaCache<L extends Lexer, P extends Parser> implements InitializingBean {
+
+	/** Default maximum number of cached states. */
+	public static final int DEFAULT_MAXIMUM_STATES = 50000;
+
+	private static final Field CONTEXT_CACHE_FIELD = contextCacheField();
+	private final AntlrFactory<L, P> antlrFactory;
+	private final Function<P, ?> entryRule;
+	private final ATNSimulator lexerSimulator;
+	private final DFA[] lexerDfa;
+	private final ATNSimulator parserSimulator;
+	private final DFA[] parserDfa;
+	private final String grammarName;
+	private final List<String> samples = new ArrayList<>();
+	private final AtomicLong clearCount = new AtomicLong();
+	private volatile int maximumStates = DEFAULT_MAXIMUM_STATES;
+
+	/**
+	 * Instantiates a new antlr dfa cache.
+	 *
+	 * @param antlrFactory the antlr factory
+	 * @param entryRule the function parsing a whole sample
+	 */
+	public AntlrDfaCache(AntlrFactory<L, P> antlrFactory, Function<P, ?> entryRule) {
+		Assert.notNull(antlrFactory, "antlrFactory must be set");
+		Assert.notNull(entryRule, "entryRule must be set");
+		this.antlrFactory = antlrFactory;
+		this.entryRule = entryRule;
+		L lexer = antlrFactory.createLexer(CharStreams.fromString(""));
+		P parser = antlrFactory.createParser(new CommonTokenStream(lexer));
+		this.lexerSimulator = lexer.getInterpreter();
+		this.lexerDfa = lexer.getInterpreter().decisionToDFA;
+		this.parserSimulator = parser.getInterpreter();
+		this.parserDfa = parser.getInterpreter().decisionToDFA;
+		this.grammarName = parser.getGrammarFileName();
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		warm();
+	}
+
+	/**
+	 * Sets the samples used to warm caches. Samples should be typical valid
+	 * input for a grammar and small enough not to cross a maximum number of
+	 * states alone.
+	 *
+	 * @param samples the new samples
+	 */
+	public void setSamples(Collection<String> samples) {
+		Assert.notNull(samples, "samples must be set");
+		synchronized (this.samples) {
+			this.samples.clear();
+			this.samples.addAll(samples);
+		}
+	}
+
+	/**
+	 * Sets the maximum number of cached lexer and parser states after which
+	 * caches are cleared and warmed again. Defaults to
+	 * {@link #DEFAULT_MAXIMUM_STATES}.
+	 *
+	 * @param maximumStates the new maximum states
+	 */
+	public void setMaximumStates(int maximumStates) {
+		Assert.isTrue(maximumStates > 0, "maximumStates must be positive");
+		this.maximumStates = maximumStates;
+	}
+
+	/**
+	 * Gets the maximum number of cached states.
+	 *
+	 * @return the maximum states
+	 */
+	public int getMaximumStates() {
+		return maximumStates;
+	}
+
+	/**
+	 * Gets the name of a grammar.
+	 *
+	 * @return the grammar name
+	 */
+	public String getGrammarName() {
+		return grammarName;
+	}
+
+	/**
+	 * Warm caches by parsing all samples.
+	 */
+	public void warm() {
+		List<String> samples;
+		synchronized (this.samples) {
+			samples = new ArrayList<>(this.samples);
+		}
+		for (String sample : samples) {
+			L lexer = antlrFactory.createLexer(CharStreams.fromString(sample));
+			lexer.removeErrorListeners();
+			P parser = antlrFactory.createParser(new CommonTokenStream(lexer));
+			parser.removeErrorListeners();
+			entryRule.apply(parser);
+		}
+	}
+
+	/**
+	 * Clear lexer and parser caches.
+	 */
+	public void clear() {
+		clearCount.incrementAndGet();
+		parserSimulator.clearDFA();
+		lexerSimulator.clearDFA();
+		clear(parserSimulator.getSharedContextCache());
+		clear(lexerSimulator.getSharedContextCache());
+	}
+
+	/**
+	 * Clear and warm caches if a number of cached states is over a maximum.
+	 *
+	 * @return true, if caches were cleared
+	 */
+	public boolean trim() {
+		if (getStateCount() <= maximumStates) {
+			return false;
+		}
+		synchronized (this) {
+			if (getStateCount() <= maximumStates) {
+				return false;
+			}
+			clear();
+			warm();
+			return true;
+		}
+	}
+
+	/**
+	 * Gets the number of cached lexer and parser states.
+	 *
+	 * @return the number of states
+	 */
+	public int getStateCount() {
+		return getLexerStateCount() + getParserStateCount();
+	}
+
+	/**
+	 * Gets the number of cached lexer states.
+	 *
+	 * @return the number of lexer states
+	 */
+	public int getLexerStateCount() {
+		return count(lexerDfa);
+	}
+
+	/**
+	 * Gets the number of cached parser states.
+	 *
+	 * @return the number of parser states
+	 */
+	public int getParserStateCount() {
+		return count(parserDfa);
+	}
+
+	/**
+	 * Gets the number of cached parser prediction contexts.
+	 *
+	 * @return the number of prediction contexts
+	 */
+	public int getContextCount() {
+		PredictionContextCache cache = parserSimulator.getSharedContextCache();
+		if (cache == null) {
+			return 0;
+		}
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	/**
+	 * Gets the number of times caches were cleared.
+	 *
+	 * @return the number of clears
+	 */
+	public long getClearCount() {
+		return clearCount.get();
+	}
+
+	private static int count(DFA[] dfas) {
+		int count = 0;
+		for (DFA dfa : dfas) {
+			count += dfa.states.size();
+		}
+		return count;
+	}
+
+	private static void clear(PredictionContextCache cache) {
+		if (cache == null || CONTEXT_CACHE_FIELD == null) {
+			return;
+		}
+		// simulators synchronize on a cache when adding contexts
+		synchronized (cache) {
+			((Map<?, ?>) ReflectionUtils.getField(CONTEXT_CACHE_FIELD, cache)).clear();
+		}
+	}
+
+	private static Field contextCacheField() {
+		Field field = ReflectionUtils.findField(PredictionContextCache.class, "cache", Map.class);
+		if (field != null) {
+			ReflectionUtils.makeAccessible(field);
+		}
+		return field;
+	}
+}
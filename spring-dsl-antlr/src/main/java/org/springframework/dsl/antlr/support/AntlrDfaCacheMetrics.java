@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.antlr.support;
+
+import java.util.Collections;
+
+import org.springframework.util.Assert;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * {@link MeterBinder} exposing cached state counts of an {@link AntlrDfaCache}
+ * tagged with a grammar name.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class AntlrDfaCacheMetrics implements MeterBinder {
+
+	private final AntlrDfaCache<?, ?> dfaCache;
+
+	/**
+	 * Instantiates a new antlr dfa cache metrics.
+	 *
+	 * @param dfaCache the dfa cache
+	 */
+	public AntlrDfaCacheMetrics(AntlrDfaCache<?, ?> dfaCache) {
+		Assert.notNull(dfaCache, "dfaCache must be set");
+		this.dfaCache = dfaCache;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Iterable<Tag> tags = Collections.singletonList(Tag.of("grammar", String.valueOf(dfaCache.getGrammarName())));
+		Gauge.builder("spring.dsl.antlr.dfa.states", dfaCache, AntlrDfaCache::getParserStateCount)
+				.tags(tags)
+				.tag("recognizer", "parser")
+				.description("Number of cached parser dfa states")
+				.register(registry);
+		Gauge.builder("spring.dsl.antlr.dfa.states", dfaCache, AntlrDfaCache::getLexerStateCount)
+				.tags(tags)
+				.tag("recognizer", "lexer")
+				.description("Number of cached lexer dfa states")
+				.register(registry);
+		Gauge.builder("spring.dsl.antlr.dfa.contexts", dfaCache, AntlrDfaCache::getContextCount)
+				.tags(tags)
+				.description("Number of cached parser prediction contexts")
+				.register(registry);
+		FunctionCounter.builder("spring.dsl.antlr.dfa.clears", dfaCache, AntlrDfaCache::getClearCount)
+				.tags(tags)
+				.description("Number of times dfa caches were cleared")
+				.register(registry);
+	}
+}
@@ -20,6 +20,7 @@ import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.Lexer;
 import org.antlr.v4.runtime.Parser;
 import org.springframework.dsl.antlr.AntlrFactory;
+import org.springframework.dsl.document.Document;
 import org.springframework.util.Assert;
 
 /**
@@ -65,4 +66,16 @@ public abstract class AntlrObjectSupport<L extends Lexer, P extends Parser> {
 		Assert.notNull(lexer, "Lexer must be set in AntlrFactory");
 		return getAntlrFactory().createParser(new CommonTokenStream(lexer));
 	}
+
+	/**
+	 * Gets the parser reading directly from a {@link Document} content without
+	 * copying it.
+	 *
+	 * @param document the document
+	 * @return the parser
+	 * @see DocumentCharStream
+	 */
+	protected P getParser(Document document) {
+		return getParser(new DocumentCharStream(document));
+	}
 }
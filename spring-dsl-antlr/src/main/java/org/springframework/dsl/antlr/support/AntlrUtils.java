@@ -15,12 +15,19 @@
  */
 package org.springframework.dsl.antlr.support;
 
-import java.io.IOException;
-import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
 
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.ANTLRErrorStrategy;
+import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
-import org.springframework.dsl.DslException;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.springframework.dsl.antlr.AntlrPredictionPolicy;
 
 /**
  * Utility functions for {@code ANTLR}.
@@ -37,10 +44,51 @@ public abstract class AntlrUtils {
 	 * @return the char stream
 	 */
 	public static CharStream stringToCharStream(String content) {
+		return CharStreams.fromString(content);
+	}
+
+	/**
+	 * Parse with a given rule using a {@link AntlrPredictionPolicy}. With
+	 * {@link AntlrPredictionPolicy#SLL_THEN_LL} error listeners of a parser
+	 * are only notified from a second stage and listeners of a lexer are
+	 * notified once as tokens are lexed only once. Parser should not have
+	 * consumed any tokens before.
+	 *
+	 * @param <P> the type of parser
+	 * @param <R> the type of a parse result
+	 * @param parser the parser
+	 * @param rule the function parsing a rule
+	 * @param policy the prediction policy
+	 * @param onFallback the callback run when falling back to a second stage
+	 * @return the result from a rule
+	 */
+	public static <P extends Parser, R> R parse(P parser, Function<P, R> rule, AntlrPredictionPolicy policy,
+			Runnable onFallback) {
+		if (policy != AntlrPredictionPolicy.SLL_THEN_LL) {
+			return rule.apply(parser);
+		}
+		List<? extends ANTLRErrorListener> listeners = new ArrayList<>(parser.getErrorListeners());
+		ANTLRErrorStrategy errorHandler = parser.getErrorHandler();
+		PredictionMode predictionMode = parser.getInterpreter().getPredictionMode();
+		parser.removeErrorListeners();
+		parser.setErrorHandler(new BailErrorStrategy());
+		parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
 		try {
-			return CharStreams.fromReader(new StringReader(content));
-		} catch (IOException e) {
-			throw new DslException(e);
+			return rule.apply(parser);
+		} catch (ParseCancellationException e) {
+			// fall through to a second stage
+		} finally {
+			listeners.forEach(parser::addErrorListener);
+			parser.setErrorHandler(errorHandler);
+			parser.getInterpreter().setPredictionMode(predictionMode);
+		}
+		if (onFallback != null) {
+			onFallback.run();
+		}
+		if (predictionMode == PredictionMode.SLL) {
+			parser.getInterpreter().setPredictionMode(PredictionMode.LL);
 		}
+		parser.reset();
+		return rule.apply(parser);
 	}
 }
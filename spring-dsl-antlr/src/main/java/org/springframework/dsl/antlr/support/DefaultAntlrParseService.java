@@ -15,22 +15,52 @@
  */
 package org.springframework.dsl.antlr.support;
 
-import java.util.function.BiFunction;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 
 import org.springframework.dsl.antlr.AntlrParseResult;
 import org.springframework.dsl.antlr.AntlrParseService;
+import org.springframework.dsl.antlr.AntlrReparseFunction;
 import org.springframework.dsl.document.Document;
+import org.springframework.dsl.document.SharedDocument;
+import org.springframework.util.Assert;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
 
-import reactor.cache.CacheMono;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Signal;
 
 /**
  * Default implementation of a {@link AntlrParseService}.
+ * <p>
+ * Results are cached per document instance, as this service is shared by all
+ * sessions and a same uri and version may have a different content in
+ * different sessions. {@link SharedDocument}s are cached per shared content
+ * instead, so that sessions having an identical document open share a single
+ * parse result.
+ * <p>
+ * Cache is bounded by a weight estimated from a length of parsed documents.
+ * Versions of a document are linked with
+ * {@link #supersede(Document, Document)} and only latest versions of it are
+ * kept. Results of a document and its older versions are dropped with
+ * {@link #invalidate(Document)}, and a parse in progress for a dropped
+ * document is not cached.
+ * <p>
+ * Concurrent requests missing a cache for a same document share a single
+ * parse in progress instead of parsing a document again.
+ * <p>
+ * If a parse function is an {@link AntlrReparseFunction}, a cached result of
+ * a latest previous version of a document is given to it as a base for a
+ * reparse.
  *
  * @author Janne Valkealahti
  *
@@ -38,41 +68,237 @@ import reactor.core.publisher.Signal;
  */
 public class DefaultAntlrParseService<T> implements AntlrParseService<T> {
 
-	private final Cache<CacheKey, Signal<? extends AntlrParseResult<T>>> cache;
+	private static final long DEFAULT_MAXIMUM_WEIGHT = 10000000;
+	private static final int DEFAULT_MAXIMUM_VERSIONS = 2;
+	private final Cache<CacheKey, CacheEntry<T>> cache;
+	private final StatsCounter statsCounter = new ConcurrentStatsCounter();
+	private final ConcurrentMap<String, Deque<CacheKey>> versions = new ConcurrentHashMap<>();
+	private final ConcurrentMap<CacheKey, Mono<Signal<AntlrParseResult<T>>>> inFlight = new ConcurrentHashMap<>();
+	private final ConcurrentMap<CacheKey, CacheKey> predecessors = new ConcurrentHashMap<>();
+	private final int maximumVersions;
 
 	/**
 	 * Instantiates a new default antlr parse service.
 	 */
 	public DefaultAntlrParseService() {
-		this.cache = Caffeine.newBuilder().build();
+		this(DEFAULT_MAXIMUM_WEIGHT, DEFAULT_MAXIMUM_VERSIONS);
+	}
+
+	/**
+	 * Instantiates a new default antlr parse service.
+	 *
+	 * @param maximumWeight the maximum number of characters in cached documents
+	 * @param maximumVersions the maximum number of cached versions of a document
+	 */
+	public DefaultAntlrParseService(long maximumWeight, int maximumVersions) {
+		Assert.isTrue(maximumWeight > 0, "maximumWeight must be positive");
+		Assert.isTrue(maximumVersions > 0, "maximumVersions must be positive");
+		this.maximumVersions = maximumVersions;
+		this.cache = Caffeine.newBuilder()
+				.maximumWeight(maximumWeight)
+				.weigher((CacheKey key, CacheEntry<T> entry) -> entry.weight)
+				.executor(Runnable::run)
+				.removalListener((CacheKey key, CacheEntry<T> entry, RemovalCause cause) -> {
+					if (cause.wasEvicted()) {
+						untrack(key);
+					}
+				})
+				.recordStats(() -> statsCounter)
+				.build();
 	}
 
 	@Override
 	public Mono<AntlrParseResult<T>> parse(Document document,
 			Function<Document, ? extends Mono<? extends AntlrParseResult<T>>> function) {
-		return CacheMono
-				.lookup(reader(cache), new CacheKey(document))
-				.onCacheMissResume(Mono.defer(() -> function.apply(document)))
-				.andWriteWith(writer(cache));
+		CacheKey key = new CacheKey(document);
+		return Mono.defer(() -> {
+			CacheEntry<T> entry = cache.getIfPresent(key);
+			if (entry != null) {
+				return Mono.just(entry.signal);
+			}
+			Mono<Signal<AntlrParseResult<T>>> shared = inFlight.computeIfAbsent(key, k -> {
+				// parse may have completed between cache lookup and here
+				return cache.asMap().containsKey(k) ? null : share(k, document, function);
+			});
+			if (shared == null) {
+				CacheEntry<T> completed = cache.asMap().get(key);
+				return completed != null ? Mono.just(completed.signal) : load(document, function).materialize();
+			}
+			return shared;
+		}).dematerialize();
+	}
+
+	@Override
+	public synchronized void supersede(Document previous, Document document) {
+		CacheKey key = new CacheKey(document);
+		CacheKey previousKey = new CacheKey(previous);
+		if (key.equals(previousKey)) {
+			return;
+		}
+		predecessors.put(key, previousKey);
+		// keep latest versions counting from a superseding document
+		CacheKey kept = key;
+		for (int i = 1; i < maximumVersions && kept != null; i++) {
+			kept = predecessors.get(kept);
+		}
+		if (kept != null) {
+			remove(predecessors.remove(kept));
+		}
+	}
+
+	@Override
+	public synchronized void invalidate(Document document) {
+		CacheKey key = new CacheKey(document);
+		remove(key);
+	}
+
+	@Override
+	public synchronized void invalidate(String uri) {
+		versions.remove(uri);
+		inFlight.keySet().removeIf(key -> key.uri.equals(uri));
+		predecessors.keySet().removeIf(key -> key.uri.equals(uri));
+		cache.asMap().keySet().removeIf(key -> key.uri.equals(uri));
 	}
 
-	private static <K, V> Function<K, Mono<Signal<? extends AntlrParseResult<V>>>> reader(
-			Cache<K, ? extends Signal<? extends AntlrParseResult<V>>> cache) {
-		return key -> Mono.justOrEmpty(cache.getIfPresent(key));
+	/**
+	 * Gets the statistics of a parse result cache.
+	 *
+	 * @return the cache statistics
+	 */
+	public CacheStats getStats() {
+		return cache.stats();
 	}
 
-	private static <K, V> BiFunction<K, Signal<? extends AntlrParseResult<V>>, Mono<Void>> writer(
-			Cache<K, ? super Signal<? extends AntlrParseResult<V>>> cache) {
-		return (key, value) -> Mono.fromRunnable(() -> cache.put(key, value));
+	/**
+	 * Gets the approximate number of cached parse results.
+	 *
+	 * @return the number of cached parse results
+	 */
+	public long getEstimatedSize() {
+		return cache.estimatedSize();
+	}
+
+	/**
+	 * Gets the number of characters in documents having a cached parse result.
+	 *
+	 * @return the weight of cached parse results
+	 */
+	public long getWeightedSize() {
+		return cache.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L);
+	}
+
+	private Mono<Signal<AntlrParseResult<T>>> share(CacheKey key, Document document,
+			Function<Document, ? extends Mono<? extends AntlrParseResult<T>>> function) {
+		AtomicReference<Mono<Signal<AntlrParseResult<T>>>> self = new AtomicReference<>();
+		// result is cached before parse is removed from in-flight parses, and
+		// only if document was not invalidated while parsing
+		Mono<Signal<AntlrParseResult<T>>> shared = Mono.defer(() -> load(document, function))
+				.materialize()
+				.doOnNext(signal -> {
+					synchronized (this) {
+						if (inFlight.get(key) == self.get()) {
+							cache.put(key, new CacheEntry<>(signal, Math.max(1, document.length())));
+							track(key);
+						}
+					}
+				})
+				.doFinally(signalType -> inFlight.remove(key, self.get()))
+				.cache();
+		self.set(shared);
+		return shared;
+	}
+
+	private void remove(CacheKey key) {
+		// drop a document with all its older versions
+		while (key != null) {
+			inFlight.remove(key);
+			cache.invalidate(key);
+			untrack(key);
+			key = predecessors.remove(key);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Mono<AntlrParseResult<T>> load(Document document,
+			Function<Document, ? extends Mono<? extends AntlrParseResult<T>>> function) {
+		long start = System.nanoTime();
+		AntlrParseResult<T> previous = function instanceof AntlrReparseFunction ? previous(document) : null;
+		Mono<? extends AntlrParseResult<T>> parse = previous != null
+				? ((AntlrReparseFunction<T>) function).reparse(document, previous)
+				: function.apply(document);
+		return parse
+				.<AntlrParseResult<T>>map(r -> r)
+				.doOnSuccess(r -> statsCounter.recordLoadSuccess(System.nanoTime() - start))
+				.doOnError(e -> statsCounter.recordLoadFailure(System.nanoTime() - start));
+	}
+
+	private AntlrParseResult<T> previous(Document document) {
+		if (document instanceof SharedDocument) {
+			return null;
+		}
+		CacheKey previousKey = predecessors.get(new CacheKey(document));
+		CacheEntry<T> linked = previousKey != null ? cache.asMap().get(previousKey) : null;
+		if (linked != null && linked.signal.isOnNext()) {
+			return linked.signal.get();
+		}
+		CacheKey[] latest = new CacheKey[1];
+		// tracked keys are only accessed within compute
+		versions.computeIfPresent(document.uri(), (uri, keys) -> {
+			for (CacheKey key : keys) {
+				if (!key.shared && key.version < document.getVersion()
+						&& (latest[0] == null || key.version > latest[0].version)) {
+					latest[0] = key;
+				}
+			}
+			return keys;
+		});
+		CacheEntry<T> entry = latest[0] != null ? cache.asMap().get(latest[0]) : null;
+		return entry != null && entry.signal.isOnNext() ? entry.signal.get() : null;
+	}
+
+	private void track(CacheKey key) {
+		versions.compute(key.uri, (uri, keys) -> {
+			Deque<CacheKey> tracked = keys != null ? keys : new ArrayDeque<>();
+			tracked.remove(key);
+			tracked.addLast(key);
+			return tracked;
+		});
+	}
+
+	private void untrack(CacheKey key) {
+		versions.computeIfPresent(key.uri, (uri, keys) -> {
+			keys.remove(key);
+			return keys.isEmpty() ? null : keys;
+		});
+	}
+
+	private static class CacheEntry<T> {
+		private final Signal<AntlrParseResult<T>> signal;
+		private final int weight;
+
+		CacheEntry(Signal<AntlrParseResult<T>> signal, int weight) {
+			this.signal = signal;
+			this.weight = weight;
+		}
 	}
 
 	private static class CacheKey {
 		private String uri;
 		private int version;
+		// document or shared content compared by identity
+		private Document content;
+		private boolean shared;
 
 		public CacheKey(Document document) {
 			this.uri = document.uri();
-			this.version = document.getVersion();
+			if (document instanceof SharedDocument) {
+				this.content = ((SharedDocument) document).getDocument();
+				this.version = -1;
+				this.shared = true;
+			} else {
+				this.content = document;
+				this.version = document.getVersion();
+			}
 		}
 
 		@Override
@@ -81,6 +307,7 @@ public class DefaultAntlrParseService<T> implements AntlrParseService<T> {
 			int result = 1;
 			result = prime * result + ((uri == null) ? 0 : uri.hashCode());
 			result = prime * result + version;
+			result = prime * result + System.identityHashCode(content);
 			return result;
 		}
 
@@ -100,6 +327,8 @@ public class DefaultAntlrParseService<T> implements AntlrParseService<T> {
 				return false;
 			if (version != other.version)
 				return false;
+			if (content != other.content)
+				return false;
 			return true;
 		}
 
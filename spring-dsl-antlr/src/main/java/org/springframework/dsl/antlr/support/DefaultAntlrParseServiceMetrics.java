@@ -0,0 +1,75 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.antlr.support;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.Assert;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * {@link MeterBinder} exposing parse result cache statistics of a
+ * {@link DefaultAntlrParseService}.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class DefaultAntlrParseServiceMetrics implements MeterBinder {
+
+	private final DefaultAntlrParseService<?> parseService;
+
+	/**
+	 * Instantiates a new default antlr parse service metrics.
+	 *
+	 * @param parseService the parse service
+	 */
+	public DefaultAntlrParseServiceMetrics(DefaultAntlrParseService<?> parseService) {
+		Assert.notNull(parseService, "parseService must be set");
+		this.parseService = parseService;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("spring.dsl.antlr.parse.cache.size", parseService, DefaultAntlrParseService::getEstimatedSize)
+				.description("Approximate number of cached parse results")
+				.register(registry);
+		Gauge.builder("spring.dsl.antlr.parse.cache.weight", parseService, DefaultAntlrParseService::getWeightedSize)
+				.description("Number of characters in documents having a cached parse result")
+				.register(registry);
+		Gauge.builder("spring.dsl.antlr.parse.cache.hit.rate", parseService, s -> s.getStats().hitRate())
+				.description("Ratio of parse requests served from a cache")
+				.register(registry);
+		FunctionCounter.builder("spring.dsl.antlr.parse.cache.hits", parseService, s -> s.getStats().hitCount())
+				.description("Number of parse requests served from a cache")
+				.register(registry);
+		FunctionCounter.builder("spring.dsl.antlr.parse.cache.misses", parseService, s -> s.getStats().missCount())
+				.description("Number of parse requests not found from a cache")
+				.register(registry);
+		FunctionCounter.builder("spring.dsl.antlr.parse.cache.evictions", parseService,
+				s -> s.getStats().evictionCount())
+				.description("Number of evicted parse results")
+				.register(registry);
+		FunctionTimer.builder("spring.dsl.antlr.parse.cache.loads", parseService, s -> s.getStats().loadCount(),
+				s -> s.getStats().totalLoadTime(), TimeUnit.NANOSECONDS)
+				.description("Time spent parsing documents missing from a cache")
+				.register(registry);
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.antlr.support;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+import org.springframework.dsl.document.Document;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * {@link CharStream} reading directly from a {@link Document} content view
+ * instead of copying a content into a {@link String} and then into an array
+ * of code points as {@code CharStreams} does.
+ * <p>
+ * Stream is indexed by {@code UTF-16} code units, same as document offsets
+ * and default {@code LSP} positions, meaning that a supplementary character
+ * is seen by a lexer as a surrogate pair. As content view of a document is
+ * immutable, stream is not affected by modifications done to a document
+ * after stream has been created.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class DocumentCharStream implements CharStream {
+
+	private final CharSequence content;
+	private final int size;
+	private final String name;
+	private int index;
+
+	/**
+	 * Instantiates a new document char stream.
+	 *
+	 * @param document the document
+	 */
+	public DocumentCharStream(Document document) {
+		this(document.contentView(), document.uri());
+	}
+
+	/**
+	 * Instantiates a new document char stream.
+	 *
+	 * @param content the content
+	 * @param name the source name
+	 */
+	public DocumentCharStream(CharSequence content, String name) {
+		Assert.notNull(content, "content cannot be null");
+		this.content = content;
+		this.size = content.length();
+		this.name = name;
+	}
+
+	@Override
+	public void consume() {
+		if (index >= size) {
+			throw new IllegalStateException("cannot consume EOF");
+		}
+		index++;
+	}
+
+	@Override
+	public int LA(int i) {
+		if (i == 0) {
+			return 0;
+		}
+		int position = i < 0 ? index + i : index + i - 1;
+		if (position < 0 || position >= size) {
+			return IntStream.EOF;
+		}
+		return content.charAt(position);
+	}
+
+	@Override
+	public int mark() {
+		return -1;
+	}
+
+	@Override
+	public void release(int marker) {
+	}
+
+	@Override
+	public int index() {
+		return index;
+	}
+
+	@Override
+	public void seek(int index) {
+		this.index = Math.min(index, size);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public String getSourceName() {
+		return StringUtils.hasText(name) ? name : IntStream.UNKNOWN_SOURCE_NAME;
+	}
+
+	@Override
+	public String getText(Interval interval) {
+		int start = interval.a;
+		int stop = Math.min(interval.b, size - 1);
+		if (start >= size || stop < start) {
+			return "";
+		}
+		return content.subSequence(start, stop + 1).toString();
+	}
+
+	@Override
+	public String toString() {
+		return content.toString();
+	}
+}
@@ -0,0 +1,405 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.antlr.support;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.ListTokenSource;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.misc.Pair;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.springframework.dsl.antlr.IncrementalAntlrFactory;
+import org.springframework.dsl.document.Document;
+import org.springframework.dsl.service.reconcile.ReconcileProblem;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Parser creating {@link ParseState}s for documents and reparsing changed
+ * documents from a {@link ParseState} of a previous version.
+ * <p>
+ * Changed text is found by comparing document contents. Tokens of a smallest
+ * context of a restartable rule enclosing a change are lexed again, the rule
+ * is parsed from those tokens alone and a new context replaces an old one in
+ * a previous parse tree. Tokens after a change are shifted in place. A parse
+ * tree and tokens of a previous state are therefore modified by a reparse and
+ * a previous state should not be used afterwards. A document is parsed fully
+ * when a previous parse had errors or when a change cannot be contained
+ * within a restartable context parsing without errors.
+ *
+ * @author Janne Valkealahti
+ *
+ * @param <L> the type of lexer
+ * @param <P> the type of parser
+ */
+class IncrementalAntlrParser<L extends Lexer, P extends Parser> {
+
+	private static final TokenFactory<IncrementalToken> TOKEN_FACTORY = new IncrementalTokenFactory();
+	private final IncrementalAntlrFactory<L, P> antlrFactory;
+	private final Function<P, ? extends ParserRuleContext> entryRule;
+	private final Set<Integer> restartableRules;
+	private final AtomicLong fullParseCount = new AtomicLong();
+	private final AtomicLong incrementalParseCount = new AtomicLong();
+
+	/**
+	 * Instantiates a new incremental antlr parser.
+	 *
+	 * @param antlrFactory the antlr factory
+	 * @param entryRule the function parsing a whole document
+	 */
+	IncrementalAntlrParser(IncrementalAntlrFactory<L, P> antlrFactory, Function<P, ? extends ParserRuleContext> entryRule) {
+		this.antlrFactory = antlrFactory;
+		this.entryRule = entryRule;
+		this.restartableRules = new HashSet<>(antlrFactory.getRestartableRules());
+	}
+
+	/**
+	 * Parse a whole document.
+	 *
+	 * @param document the document
+	 * @return the parse state
+	 */
+	ParseState parse(Document document) {
+		fullParseCount.incrementAndGet();
+		String content = document.content();
+		List<ReconcileProblem> problems = new ArrayList<>();
+		ErrorCounter lexerErrors = new ErrorCounter();
+		L lexer = antlrFactory.createLexer(new DocumentCharStream(content, document.uri()));
+		lexer.setTokenFactory(TOKEN_FACTORY);
+		lexer.addErrorListener(lexerErrors);
+		CommonTokenStream tokenStream = new CommonTokenStream(lexer);
+		P parser = antlrFactory.createParser(tokenStream);
+		parser.removeErrorListeners();
+		parser.addErrorListener(new AbstractAntlrErrorListener(problems) {
+		});
+		ParserRuleContext tree = entryRule.apply(parser);
+		tokenStream.fill();
+		List<Token> tokens = new ArrayList<>(tokenStream.getTokens());
+		boolean reusable = problems.isEmpty() && lexerErrors.count == 0
+				&& tokens.stream().allMatch(t -> t instanceof IncrementalToken);
+		return new ParseState(content, tokens, tree, problems, reusable);
+	}
+
+	/**
+	 * Reparse a changed document from a state of its previous version.
+	 *
+	 * @param previous the parse state of a previous version
+	 * @param document the document
+	 * @return the parse state or {@code null} if document needs to be parsed fully
+	 */
+	ParseState reparse(ParseState previous, Document document) {
+		if (!previous.reusable) {
+			return null;
+		}
+		String content = document.content();
+		String old = previous.content;
+		int length = Math.min(old.length(), content.length());
+		int prefix = 0;
+		while (prefix < length && old.charAt(prefix) == content.charAt(prefix)) {
+			prefix++;
+		}
+		if (prefix == old.length() && prefix == content.length()) {
+			incrementalParseCount.incrementAndGet();
+			return new ParseState(content, previous.tokens, previous.tree, previous.problems, true);
+		}
+		int suffix = 0;
+		while (suffix < length - prefix
+				&& old.charAt(old.length() - 1 - suffix) == content.charAt(content.length() - 1 - suffix)) {
+			suffix++;
+		}
+		int oldEnd = old.length() - suffix;
+		int newEnd = content.length() - suffix;
+		int delta = content.length() - old.length();
+
+		ParserRuleContext target = findRestartable(previous.tree, prefix, oldEnd);
+		if (target == null) {
+			return null;
+		}
+		Token first = target.getStart();
+		Token last = target.getStop();
+		int windowStop = last.getStopIndex() + delta;
+
+		// lex changed context alone
+		ErrorCounter errors = new ErrorCounter();
+		L lexer = antlrFactory.createLexer(new DocumentCharStream(content, document.uri()));
+		lexer.setTokenFactory(TOKEN_FACTORY);
+		lexer.removeErrorListeners();
+		lexer.addErrorListener(errors);
+		lexer.getInputStream().seek(first.getStartIndex());
+		lexer.setLine(first.getLine());
+		lexer.setCharPositionInLine(first.getCharPositionInLine());
+		List<Token> window = new ArrayList<>();
+		while (window.isEmpty() || window.get(window.size() - 1).getStopIndex() < windowStop) {
+			Token token = lexer.nextToken();
+			if (token.getType() == Token.EOF || token.getStopIndex() > windowStop
+					|| !(token instanceof IncrementalToken)) {
+				return null;
+			}
+			window.add(token);
+		}
+		if (errors.count > 0 || lexer._mode != Lexer.DEFAULT_MODE || !lexer._modeStack.isEmpty()) {
+			return null;
+		}
+
+		// parse changed context alone
+		CommonTokenStream tokenStream = new CommonTokenStream(new ListTokenSource(window));
+		P parser = antlrFactory.createParser(tokenStream);
+		parser.removeErrorListeners();
+		parser.addErrorListener(errors);
+		ParserRuleContext replacement = antlrFactory.parseRule(parser, target.getRuleIndex());
+		if (errors.count > 0 || replacement == null || replacement.exception != null
+				|| tokenStream.LA(1) != Token.EOF || replacement.getStart() == null || replacement.getStop() == null
+				|| replacement.getStart().getStartIndex() != first.getStartIndex()
+				|| replacement.getStop().getStopIndex() != windowStop) {
+			return null;
+		}
+
+		// from here on previous state is modified
+		Pair<TokenSource, CharStream> source = new Pair<>(lexer, lexer.getInputStream());
+		int from = first.getTokenIndex();
+		int to = last.getTokenIndex();
+		List<Token> tokens = new ArrayList<>(previous.tokens.size() + window.size() - (to - from + 1));
+		for (int i = 0; i < from; i++) {
+			IncrementalToken token = (IncrementalToken) previous.tokens.get(i);
+			token.setSource(source);
+			tokens.add(token);
+		}
+		for (Token token : window) {
+			((IncrementalToken) token).setTokenIndex(tokens.size());
+			tokens.add(token);
+		}
+		int lineDelta = newlines(content, prefix, newEnd) - newlines(old, prefix, oldEnd);
+		int columnDelta = column(content, newEnd) - column(old, oldEnd);
+		int nextNewline = old.indexOf('\n', oldEnd);
+		for (int i = to + 1; i < previous.tokens.size(); i++) {
+			IncrementalToken token = (IncrementalToken) previous.tokens.get(i);
+			if (nextNewline < 0 || token.getStartIndex() <= nextNewline) {
+				token.setCharPositionInLine(token.getCharPositionInLine() + columnDelta);
+			}
+			token.setSource(source);
+			token.setStartIndex(token.getStartIndex() + delta);
+			token.setStopIndex(token.getStopIndex() + delta);
+			token.setLine(token.getLine() + lineDelta);
+			token.setTokenIndex(tokens.size());
+			tokens.add(token);
+		}
+
+		ParserRuleContext parent = target.getParent();
+		replacement.setParent(parent);
+		replacement.invokingState = target.invokingState;
+		ParserRuleContext tree = replacement;
+		if (parent != null) {
+			for (int i = 0; i < parent.children.size(); i++) {
+				if (parent.children.get(i) == target) {
+					parent.children.set(i, replacement);
+				}
+			}
+			relabel(parent, target, replacement);
+			for (ParserRuleContext context = parent; context != null; context = context.getParent()) {
+				if (context.start == first) {
+					context.start = replacement.getStart();
+				}
+				if (context.stop == last) {
+					context.stop = replacement.getStop();
+				}
+				tree = context;
+			}
+		}
+		incrementalParseCount.incrementAndGet();
+		return new ParseState(content, tokens, tree, previous.problems, true);
+	}
+
+	/**
+	 * Gets the number of documents parsed fully.
+	 *
+	 * @return the number of full parses
+	 */
+	long getFullParseCount() {
+		return fullParseCount.get();
+	}
+
+	/**
+	 * Gets the number of documents reparsed from a previous version.
+	 *
+	 * @return the number of incremental parses
+	 */
+	long getIncrementalParseCount() {
+		return incrementalParseCount.get();
+	}
+
+	private ParserRuleContext findRestartable(ParserRuleContext tree, int start, int end) {
+		ParserRuleContext found = null;
+		ParserRuleContext context = tree;
+		while (context != null && context.children != null) {
+			ParserRuleContext enclosing = null;
+			for (ParseTree child : context.children) {
+				if (child instanceof ParserRuleContext && encloses((ParserRuleContext) child, start, end)) {
+					enclosing = (ParserRuleContext) child;
+					break;
+				}
+			}
+			if (enclosing != null && restartableRules.contains(enclosing.getRuleIndex())) {
+				found = enclosing;
+			}
+			context = enclosing;
+		}
+		return found;
+	}
+
+	private static boolean encloses(ParserRuleContext context, int start, int end) {
+		// first character needs to stay same, change may touch or follow last character
+		Token first = context.getStart();
+		Token last = context.getStop();
+		return first != null && last != null && first.getType() != Token.EOF
+				&& last.getTokenIndex() >= first.getTokenIndex()
+				&& first.getStartIndex() < start && end <= last.getStopIndex() + 1;
+	}
+
+	private static void relabel(ParserRuleContext parent, ParserRuleContext target, ParserRuleContext replacement) {
+		// labels of a generated context may still refer to a replaced context
+		ReflectionUtils.doWithFields(parent.getClass(), field -> {
+			ReflectionUtils.makeAccessible(field);
+			Object value = field.get(parent);
+			if (value == target) {
+				field.set(parent, replacement);
+			} else if (value instanceof List) {
+				@SuppressWarnings("unchecked")
+				List<Object> list = (List<Object>) value;
+				for (int i = 0; i < list.size(); i++) {
+					if (list.get(i) == target) {
+						list.set(i, replacement);
+					}
+				}
+			}
+		}, field -> !Modifier.isStatic(field.getModifiers())
+				&& ParserRuleContext.class.isAssignableFrom(field.getDeclaringClass())
+				&& field.getDeclaringClass() != ParserRuleContext.class);
+	}
+
+	private static int newlines(String content, int start, int end) {
+		int count = 0;
+		for (int i = start; i < end; i++) {
+			if (content.charAt(i) == '\n') {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static int column(String content, int index) {
+		return index - (content.lastIndexOf('\n', index - 1) + 1);
+	}
+
+	/**
+	 * Result of parsing a document version.
+	 */
+	static class ParseState {
+
+		private final String content;
+		private final List<Token> tokens;
+		private final ParserRuleContext tree;
+		private final List<ReconcileProblem> problems;
+		private final boolean reusable;
+
+		ParseState(String content, List<Token> tokens, ParserRuleContext tree, List<ReconcileProblem> problems,
+				boolean reusable) {
+			this.content = content;
+			this.tokens = tokens;
+			this.tree = tree;
+			this.problems = problems;
+			this.reusable = reusable;
+		}
+
+		ParserRuleContext getTree() {
+			return tree;
+		}
+
+		List<Token> getTokens() {
+			return tokens;
+		}
+
+		List<ReconcileProblem> getProblems() {
+			return problems;
+		}
+	}
+
+	private static class ErrorCounter extends BaseErrorListener {
+
+		private int count;
+
+		@Override
+		public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line, int charPositionInLine,
+				String msg, RecognitionException e) {
+			count++;
+		}
+	}
+
+	/**
+	 * Token which can be moved to a source of a newer document version.
+	 */
+	private static class IncrementalToken extends CommonToken {
+
+		private static final long serialVersionUID = 1L;
+
+		IncrementalToken(Pair<TokenSource, CharStream> source, int type, int channel, int start, int stop) {
+			super(source, type, channel, start, stop);
+		}
+
+		IncrementalToken(int type, String text) {
+			super(type, text);
+		}
+
+		void setSource(Pair<TokenSource, CharStream> source) {
+			this.source = source;
+		}
+	}
+
+	private static class IncrementalTokenFactory implements TokenFactory<IncrementalToken> {
+
+		@Override
+		public IncrementalToken create(Pair<TokenSource, CharStream> source, int type, String text, int channel,
+				int start, int stop, int line, int charPositionInLine) {
+			IncrementalToken token = new IncrementalToken(source, type, channel, start, stop);
+			token.setLine(line);
+			token.setCharPositionInLine(charPositionInLine);
+			if (text != null) {
+				token.setText(text);
+			}
+			return token;
+		}
+
+		@Override
+		public IncrementalToken create(int type, String text) {
+			return new IncrementalToken(type, text);
+		}
+	}
+}
@@ -22,7 +22,6 @@ import java.util.List;
 import java.util.Map.Entry;
 import java.util.stream.Collectors;
 
-import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.Vocabulary;
 import org.antlr.v4.runtime.atn.PredictionMode;
 import org.antlr.v4.runtime.tree.ParseTree;
@@ -52,13 +51,13 @@ class Test2AntlrParseResultFunction
 	@Override
 	protected Mono<AntlrParseResult<Object>> parse(Document document) {
 		List<ReconcileProblem> errors = new ArrayList<>();
-		Test2Grammar parser = getParser(CharStreams.fromString(document.content()));
+		Test2Grammar parser = getParser(document);
         parser.getInterpreter().setPredictionMode(PredictionMode.LL_EXACT_AMBIG_DETECTION);
         parser.removeErrorListeners();
         parser.addErrorListener(new Test2ErrorListener(errors));
         parser.definitions();
 
-        parser = getParser(CharStreams.fromString(document.content()));
+        parser = getParser(document);
 		ParseTree tree = parser.definitions();
 		Test2Visitor visitor = new Test2Visitor(errors);
 		AntlrParseResult<Object> result = visitor.visit(tree);
@@ -92,7 +91,7 @@ class Test2AntlrParseResultFunction
 
 	@Override
 	protected Flux<CompletionItem> getCompletionItems(Mono<AntlrParseResult<Object>> shared, Document document, Position position) {
-		Test2Grammar p = getParser(CharStreams.fromString(document.content()));
+		Test2Grammar p = getParser(document);
 		HashSet<Integer> preferredRules = new HashSet<>(
 				Arrays.asList(Test2Grammar.RULE_sourceId, Test2Grammar.RULE_targetId));
 		AntlrCompletionEngine completionEngine = new DefaultAntlrCompletionEngine(p, preferredRules, null);
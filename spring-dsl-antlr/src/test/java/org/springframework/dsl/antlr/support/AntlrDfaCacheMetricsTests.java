@@ -0,0 +1,51 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.antlr.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+import org.springframework.dsl.Test2Grammar;
+import org.springframework.dsl.Test2Lexer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests for {@link AntlrDfaCacheMetrics}.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class AntlrDfaCacheMetricsTests {
+
+	@Test
+	public void testMeters() {
+		AntlrDfaCache<Test2Lexer, Test2Grammar> cache = AntlrDfaCacheTests.createCache();
+		MeterRegistry registry = new SimpleMeterRegistry();
+		new AntlrDfaCacheMetrics(cache).bindTo(registry);
+		cache.clear();
+		cache.warm();
+
+		assertThat(registry.get("spring.dsl.antlr.dfa.states").tag("grammar", "Test2Grammar.g4")
+				.tag("recognizer", "parser").gauge().value()).isEqualTo(cache.getParserStateCount());
+		assertThat(registry.get("spring.dsl.antlr.dfa.states").tag("recognizer", "lexer").gauge().value())
+				.isEqualTo(cache.getLexerStateCount()).isGreaterThan(0);
+		assertThat(registry.get("spring.dsl.antlr.dfa.contexts").gauge().value())
+				.isEqualTo(cache.getContextCount());
+		assertThat(registry.get("spring.dsl.antlr.dfa.clears").functionCounter().count()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.antlr.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.Test;
+import org.springframework.dsl.Test2Grammar;
+import org.springframework.dsl.Test2Lexer;
+import org.springframework.dsl.antlr.TestAntrlUtils;
+
+/**
+ * Tests for {@link AntlrDfaCache}.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class AntlrDfaCacheTests {
+
+	static final List<String> SAMPLES = Arrays.asList(
+			"state S1 {\n  initial a;\n}\nstate S2 { end b; }\n",
+			"transition T1 {\n  source S1; target S2\n}\n");
+
+	@Test
+	public void testWarm() throws Exception {
+		AntlrDfaCache<Test2Lexer, Test2Grammar> cache = createCache();
+		cache.clear();
+		assertThat(cache.getStateCount()).isEqualTo(0);
+
+		cache.afterPropertiesSet();
+		assertThat(cache.getParserStateCount()).isGreaterThan(0);
+		assertThat(cache.getLexerStateCount()).isGreaterThan(0);
+		assertThat(cache.getContextCount()).isGreaterThan(0);
+		assertThat(cache.getGrammarName()).isEqualTo("Test2Grammar.g4");
+	}
+
+	@Test
+	public void testTrim() {
+		AntlrDfaCache<Test2Lexer, Test2Grammar> cache = createCache();
+		cache.setSamples(SAMPLES.subList(0, 1));
+		cache.clear();
+		cache.warm();
+		int warmed = cache.getStateCount();
+		assertThat(cache.trim()).isFalse();
+
+		parse(SAMPLES.get(1));
+		assertThat(cache.getStateCount()).isGreaterThan(warmed);
+		cache.setMaximumStates(warmed);
+		assertThat(cache.trim()).isTrue();
+		assertThat(cache.getStateCount()).isEqualTo(warmed);
+		assertThat(cache.getClearCount()).isEqualTo(2);
+		assertThat(cache.trim()).isFalse();
+	}
+
+	static AntlrDfaCache<Test2Lexer, Test2Grammar> createCache() {
+		AntlrDfaCache<Test2Lexer, Test2Grammar> cache = new AntlrDfaCache<>(TestAntrlUtils.TEST2_ANTRL_FACTORY,
+				Test2Grammar::definitions);
+		cache.setSamples(SAMPLES);
+		return cache;
+	}
+
+	private static void parse(String content) {
+		Test2Lexer lexer = TestAntrlUtils.TEST2_ANTRL_FACTORY.createLexer(AntlrUtils.stringToCharStream(content));
+		lexer.removeErrorListeners();
+		Test2Grammar parser = TestAntrlUtils.TEST2_ANTRL_FACTORY
+				.createParser(new CommonTokenStream(lexer));
+		parser.removeErrorListeners();
+		parser.definitions();
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.antlr.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.junit.Test;
+import org.springframework.dsl.Test2Grammar;
+import org.springframework.dsl.antlr.AntlrPredictionPolicy;
+import org.springframework.dsl.antlr.Test2ErrorListener;
+import org.springframework.dsl.antlr.TestAntrlUtils;
+import org.springframework.dsl.service.reconcile.ReconcileProblem;
+
+/**
+ * Tests for {@link AntlrUtils}.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class AntlrUtilsTests {
+
+	private static final String VALID = "state S1 {\n  initial a;\n}\ntransition T1 {\n  source S1; target S2\n}\n";
+	private static final String INVALID = "state S1 {\n  initial a;\n}\ntransition {\n  source S1 target\n}\n";
+
+	@Test
+	public void testLlPolicy() {
+		AtomicInteger fallbacks = new AtomicInteger();
+		List<ReconcileProblem> problems = new ArrayList<>();
+		Test2Grammar parser = parser(INVALID, problems);
+
+		ParserRuleContext tree = AntlrUtils.parse(parser, Test2Grammar::definitions, AntlrPredictionPolicy.LL,
+				fallbacks::incrementAndGet);
+		assertThat(tree).isNotNull();
+		assertThat(fallbacks.get()).isEqualTo(0);
+		assertThat(problems).isNotEmpty();
+	}
+
+	@Test
+	public void testSllThenLlPolicyWithValidInput() {
+		AtomicInteger fallbacks = new AtomicInteger();
+		List<ReconcileProblem> problems = new ArrayList<>();
+		Test2Grammar parser = parser(VALID, problems);
+
+		ParserRuleContext tree = AntlrUtils.parse(parser, Test2Grammar::definitions,
+				AntlrPredictionPolicy.SLL_THEN_LL, fallbacks::incrementAndGet);
+		assertThat(fallbacks.get()).isEqualTo(0);
+		assertThat(problems).isEmpty();
+		assertThat(tree.toStringTree(parser))
+				.isEqualTo(parser(VALID, problems).definitions().toStringTree(parser));
+		assertThat(parser.getErrorListeners()).hasSize(1);
+		assertThat(parser.getErrorHandler()).isInstanceOf(DefaultErrorStrategy.class)
+				.isNotInstanceOf(BailErrorStrategy.class);
+		assertThat(parser.getInterpreter().getPredictionMode()).isEqualTo(PredictionMode.LL);
+	}
+
+	@Test
+	public void testSllThenLlPolicyWithInvalidInput() {
+		AtomicInteger fallbacks = new AtomicInteger();
+		List<ReconcileProblem> expected = new ArrayList<>();
+		String expectedTree = parser(INVALID, expected).definitions().toStringTree();
+		List<ReconcileProblem> problems = new ArrayList<>();
+		Test2Grammar parser = parser(INVALID, problems);
+
+		ParserRuleContext tree = AntlrUtils.parse(parser, Test2Grammar::definitions,
+				AntlrPredictionPolicy.SLL_THEN_LL, fallbacks::incrementAndGet);
+		assertThat(fallbacks.get()).isEqualTo(1);
+		assertThat(expected).isNotEmpty();
+		assertThat(problems).hasSameSizeAs(expected);
+		assertThat(problems.get(0).getMessage()).isEqualTo(expected.get(0).getMessage());
+		assertThat(tree.toStringTree()).isEqualTo(expectedTree);
+		assertThat(parser.getErrorListeners()).hasSize(1);
+	}
+
+	private static Test2Grammar parser(String content, List<ReconcileProblem> problems) {
+		Test2Grammar parser = TestAntrlUtils.TEST2_ANTRL_FACTORY.createParser(new CommonTokenStream(
+				TestAntrlUtils.TEST2_ANTRL_FACTORY.createLexer(AntlrUtils.stringToCharStream(content))));
+		parser.removeErrorListeners();
+		parser.addErrorListener(new Test2ErrorListener(problems));
+		return parser;
+	}
+}
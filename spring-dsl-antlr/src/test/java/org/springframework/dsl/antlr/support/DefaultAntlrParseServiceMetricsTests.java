@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.antlr.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.springframework.dsl.antlr.AntlrParseResult;
+import org.springframework.dsl.document.Document;
+import org.springframework.dsl.document.TextDocument;
+import org.springframework.dsl.model.LanguageId;
+import org.springframework.dsl.service.reconcile.ReconcileProblem;
+import org.springframework.dsl.symboltable.SymbolTable;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Tests for {@link DefaultAntlrParseServiceMetrics}.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class DefaultAntlrParseServiceMetricsTests {
+
+	@Test
+	public void testMeters() {
+		DefaultAntlrParseService<String> service = new DefaultAntlrParseService<>(10, 1);
+		MeterRegistry registry = new SimpleMeterRegistry();
+		new DefaultAntlrParseServiceMetrics(service).bindTo(registry);
+
+		Document document1 = new TextDocument("uri1", LanguageId.TXT, 0, "123");
+		Document document2 = new TextDocument("uri2", LanguageId.TXT, 0, "12345678");
+		service.parse(document1, d -> Mono.just(RESULT)).block();
+		service.parse(document1, d -> Mono.just(RESULT)).block();
+		service.parse(document2, d -> Mono.just(RESULT)).block();
+
+		assertThat(registry.get("spring.dsl.antlr.parse.cache.size").gauge().value()).isEqualTo(1);
+		assertThat(registry.get("spring.dsl.antlr.parse.cache.weight").gauge().value()).isLessThanOrEqualTo(10);
+		assertThat(registry.get("spring.dsl.antlr.parse.cache.hits").functionCounter().count()).isEqualTo(1);
+		assertThat(registry.get("spring.dsl.antlr.parse.cache.misses").functionCounter().count()).isEqualTo(2);
+		assertThat(registry.get("spring.dsl.antlr.parse.cache.evictions").functionCounter().count()).isEqualTo(1);
+		assertThat(registry.get("spring.dsl.antlr.parse.cache.hit.rate").gauge().value()).isEqualTo(1d / 3);
+		assertThat(registry.get("spring.dsl.antlr.parse.cache.loads").functionTimer().count()).isEqualTo(2);
+		assertThat(registry.get("spring.dsl.antlr.parse.cache.loads").functionTimer().totalTime(TimeUnit.NANOSECONDS))
+				.isGreaterThan(0);
+	}
+
+	private static final AntlrParseResult<String> RESULT = new AntlrParseResult<String>() {
+
+		@Override
+		public Mono<String> getResult() {
+			return Mono.just("result");
+		}
+
+		@Override
+		public Mono<SymbolTable> getSymbolTable() {
+			return Mono.empty();
+		}
+
+		@Override
+		public Flux<ReconcileProblem> getReconcileProblems() {
+			return Flux.empty();
+		}
+	};
+}
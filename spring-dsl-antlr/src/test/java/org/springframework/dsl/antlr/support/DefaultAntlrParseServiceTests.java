@@ -17,11 +17,28 @@ package org.springframework.dsl.antlr.support;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.TokenStream;
 import org.junit.Test;
+import org.springframework.dsl.Test2Grammar;
+import org.springframework.dsl.Test2Lexer;
 import org.springframework.dsl.antlr.AntlrParseResult;
+import org.springframework.dsl.antlr.IncrementalAntlrFactory;
 import org.springframework.dsl.document.Document;
+import org.springframework.dsl.document.SharedDocumentStore;
 import org.springframework.dsl.document.TextDocument;
 import org.springframework.dsl.model.LanguageId;
 import org.springframework.dsl.service.reconcile.ReconcileProblem;
@@ -66,6 +83,218 @@ public class DefaultAntlrParseServiceTests {
 		assertThat(mono1.block()).isNotSameAs(mono3.block());
 	}
 
+	@Test
+	public void testSharedDocumentsParsedOnce() {
+		SharedDocumentStore store = new SharedDocumentStore();
+		Document document1 = store.acquire("uri", LanguageId.TXT, 1, "content");
+		Document document2 = store.acquire("uri", LanguageId.TXT, 5, "content");
+		Document document3 = store.acquire("uri", LanguageId.TXT, 1, "changed");
+
+		DefaultAntlrParseService<String> service = new DefaultAntlrParseService<>();
+
+		assertThat(service.parse(document1, s1).block().getResult().block()).isEqualTo("hi1");
+		assertThat(service.parse(document2, s2).block().getResult().block()).isEqualTo("hi1");
+		assertThat(service.parse(document3, s2).block().getResult().block()).isEqualTo("hi2");
+	}
+
+	@Test
+	public void testLatestVersionsKept() {
+		DefaultAntlrParseService<String> service = new DefaultAntlrParseService<>(1000, 2);
+		AtomicInteger count = new AtomicInteger();
+		Function<Document, ? extends Mono<? extends AntlrParseResult<String>>> counting = counting(count);
+
+		List<Document> documents = new ArrayList<>();
+		for (int version = 0; version < 5; version++) {
+			Document document = new TextDocument("uri", LanguageId.TXT, version, "content");
+			if (version > 0) {
+				service.supersede(documents.get(version - 1), document);
+			}
+			documents.add(document);
+			service.parse(document, counting).block();
+		}
+		assertThat(count.get()).isEqualTo(5);
+		assertThat(service.getEstimatedSize()).isEqualTo(2);
+
+		service.parse(documents.get(4), counting).block();
+		service.parse(documents.get(3), counting).block();
+		assertThat(count.get()).isEqualTo(5);
+		service.parse(documents.get(2), counting).block();
+		assertThat(count.get()).isEqualTo(6);
+		assertThat(service.getEstimatedSize()).isEqualTo(3);
+
+		service.parse(new TextDocument("other", LanguageId.TXT, 0, "content"), counting).block();
+		assertThat(service.getEstimatedSize()).isEqualTo(4);
+		assertThat(service.getWeightedSize()).isEqualTo(28);
+	}
+
+	@Test
+	public void testSameUriAndVersionInSessions() {
+		DefaultAntlrParseService<String> service = new DefaultAntlrParseService<>(1000, 2);
+		AtomicInteger count = new AtomicInteger();
+		Function<Document, ? extends Mono<? extends AntlrParseResult<String>>> counting = counting(count);
+		Document session1v1 = new TextDocument("uri", LanguageId.TXT, 1, "content1");
+		Document session1v2 = new TextDocument("uri", LanguageId.TXT, 2, "content2");
+		Document session1v3 = new TextDocument("uri", LanguageId.TXT, 3, "content3");
+		Document session2v2 = new TextDocument("uri", LanguageId.TXT, 2, "other");
+
+		service.parse(session1v1, counting).block();
+		service.supersede(session1v1, session1v2);
+		service.parse(session1v2, counting).block();
+		service.parse(session2v2, counting).block();
+		assertThat(count.get()).isEqualTo(3);
+		assertThat(service.getEstimatedSize()).isEqualTo(3);
+
+		service.supersede(session1v2, session1v3);
+		service.parse(session1v3, counting).block();
+		assertThat(service.getEstimatedSize()).isEqualTo(3);
+		service.parse(session2v2, counting).block();
+		assertThat(count.get()).isEqualTo(4);
+
+		service.invalidate(session1v3);
+		assertThat(service.getEstimatedSize()).isEqualTo(1);
+		service.parse(session2v2, counting).block();
+		assertThat(count.get()).isEqualTo(4);
+	}
+
+	@Test
+	public void testInvalidatedWhileParsingNotCached() throws Exception {
+		DefaultAntlrParseService<String> service = new DefaultAntlrParseService<>();
+		Document document = new TextDocument("uri", LanguageId.TXT, 1, "content");
+		AtomicInteger count = new AtomicInteger();
+		CountDownLatch parsing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Function<Document, ? extends Mono<? extends AntlrParseResult<String>>> slow = d -> Mono.fromCallable(() -> {
+			if (count.incrementAndGet() == 1) {
+				parsing.countDown();
+				release.await(10, TimeUnit.SECONDS);
+			}
+			return a1;
+		});
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<AntlrParseResult<String>> result = executor.submit(() -> service.parse(document, slow).block());
+			assertThat(parsing.await(10, TimeUnit.SECONDS)).isTrue();
+			service.invalidate(document);
+			release.countDown();
+			assertThat(result.get(10, TimeUnit.SECONDS)).isSameAs(a1);
+		} finally {
+			executor.shutdownNow();
+		}
+		assertThat(service.getEstimatedSize()).isEqualTo(0);
+		service.parse(document, slow).block();
+		assertThat(count.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void testMaximumWeight() {
+		DefaultAntlrParseService<String> service = new DefaultAntlrParseService<>(100, 2);
+		AtomicInteger count = new AtomicInteger();
+		Function<Document, ? extends Mono<? extends AntlrParseResult<String>>> counting = counting(count);
+
+		for (int i = 0; i < 10; i++) {
+			service.parse(new TextDocument("uri" + i, LanguageId.TXT, 0, "0123456789012345678901234"), counting)
+					.block();
+		}
+		assertThat(service.getWeightedSize()).isLessThanOrEqualTo(100);
+		assertThat(service.getStats().evictionCount()).isGreaterThanOrEqualTo(6);
+	}
+
+	@Test
+	public void testInvalidate() {
+		DefaultAntlrParseService<String> service = new DefaultAntlrParseService<>();
+		AtomicInteger count = new AtomicInteger();
+		Function<Document, ? extends Mono<? extends AntlrParseResult<String>>> counting = counting(count);
+		Document document = new TextDocument("uri", LanguageId.TXT, 1, "content");
+		Document other = new TextDocument("other", LanguageId.TXT, 1, "content");
+
+		service.parse(document, counting).block();
+		service.parse(other, counting).block();
+		service.invalidate("uri");
+		assertThat(service.getEstimatedSize()).isEqualTo(1);
+		service.parse(document, counting).block();
+		service.parse(other, counting).block();
+		assertThat(count.get()).isEqualTo(3);
+	}
+
+	@Test
+	public void testStats() {
+		DefaultAntlrParseService<String> service = new DefaultAntlrParseService<>();
+		Document document = new TextDocument("uri", LanguageId.TXT, 1, "content");
+
+		service.parse(document, s1).block();
+		service.parse(document, s1).block();
+		service.parse(document, s1).block();
+		assertThat(service.getStats().hitCount()).isEqualTo(2);
+		assertThat(service.getStats().missCount()).isEqualTo(1);
+		assertThat(service.getStats().loadSuccessCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void testConcurrentParsesCoalesced() throws Exception {
+		DefaultAntlrParseService<String> service = new DefaultAntlrParseService<>();
+		Document document = new TextDocument("uri", LanguageId.TXT, 1, "content");
+		AtomicInteger count = new AtomicInteger();
+		CountDownLatch parsing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Function<Document, ? extends Mono<? extends AntlrParseResult<String>>> slow = d -> Mono.fromCallable(() -> {
+			count.incrementAndGet();
+			parsing.countDown();
+			release.await(10, TimeUnit.SECONDS);
+			return a1;
+		});
+
+		int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<AntlrParseResult<String>>> results = new ArrayList<>();
+		try {
+			for (int i = 0; i < threads; i++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					return service.parse(document, slow).block();
+				}));
+			}
+			start.countDown();
+			assertThat(parsing.await(10, TimeUnit.SECONDS)).isTrue();
+			Thread.sleep(200);
+			release.countDown();
+			for (Future<AntlrParseResult<String>> result : results) {
+				assertThat(result.get(10, TimeUnit.SECONDS)).isSameAs(a1);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertThat(count.get()).isEqualTo(1);
+		assertThat(service.parse(document, slow).block()).isSameAs(a1);
+		assertThat(count.get()).isEqualTo(1);
+		assertThat(service.getStats().loadCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void testReparseFromPreviousVersion() {
+		DefaultAntlrParseService<String> service = new DefaultAntlrParseService<>();
+		TestIncrementalFunction function = new TestIncrementalFunction();
+		String content = "state S1 { initial a; }\nstate S2 { end b; }";
+
+		assertThat(service.parse(new TextDocument("uri", LanguageId.TXT, 1, content), function).block()
+				.getResult().block()).isEqualTo("(S1a)(S2b)");
+		assertThat(service.parse(new TextDocument("uri", LanguageId.TXT, 2, content.replace("a;", "ab;")), function)
+				.block().getResult().block()).isEqualTo("(S1ab)(S2b)");
+		assertThat(service.parse(new TextDocument("other", LanguageId.TXT, 2, content), function).block()
+				.getResult().block()).isEqualTo("(S1a)(S2b)");
+		assertThat(function.getFullParseCount()).isEqualTo(2);
+		assertThat(function.getIncrementalParseCount()).isEqualTo(1);
+	}
+
+	private static Function<Document, ? extends Mono<? extends AntlrParseResult<String>>> counting(
+			AtomicInteger count) {
+		return document -> Mono.fromSupplier(() -> {
+			count.incrementAndGet();
+			return a1;
+		});
+	}
+
 	private Function<Document, ? extends Mono<? extends AntlrParseResult<String>>> s1 = (document) -> {
 		return Mono.just(a1);
 	};
@@ -109,4 +338,48 @@ public class DefaultAntlrParseServiceTests {
 			return Flux.empty();
 		}
 	};
+
+	private static class TestIncrementalFunction
+			extends AbstractIncrementalAntlrParseResultFunction<String, Test2Lexer, Test2Grammar> {
+
+		TestIncrementalFunction() {
+			super(new IncrementalAntlrFactory<Test2Lexer, Test2Grammar>() {
+
+				@Override
+				public Test2Grammar createParser(TokenStream tokenStream) {
+					return new Test2Grammar(tokenStream);
+				}
+
+				@Override
+				public Test2Lexer createLexer(CharStream input) {
+					return new Test2Lexer(input);
+				}
+
+				@Override
+				public Set<Integer> getRestartableRules() {
+					return Collections.singleton(Test2Grammar.RULE_state);
+				}
+			});
+		}
+
+		@Override
+		protected ParserRuleContext parseTree(Test2Grammar parser) {
+			return parser.definitions();
+		}
+
+		@Override
+		protected AntlrParseResult<String> createResult(Document document, ParserRuleContext tree,
+				List<ReconcileProblem> problems) {
+			StringBuilder buf = new StringBuilder();
+			for (Test2Grammar.StateContext state : ((Test2Grammar.DefinitionsContext) tree).machineObjectList()
+					.state()) {
+				buf.append("(").append(state.id().getText());
+				for (Test2Grammar.StateParameterContext parameter : state.stateParameters().stateParameter()) {
+					buf.append(parameter.id().getText());
+				}
+				buf.append(")");
+			}
+			return AntlrParseResult.from(buf.toString());
+		}
+	}
 }
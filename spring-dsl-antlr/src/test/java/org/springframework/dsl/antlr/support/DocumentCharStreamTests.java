@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.antlr.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.misc.Interval;
+import org.junit.Test;
+import org.springframework.dsl.antlr.AntlrLinterTests;
+import org.springframework.dsl.antlr.TestAntrlUtils;
+import org.springframework.dsl.antlr.TestResourceUtils;
+import org.springframework.dsl.document.DocumentSnapshot;
+import org.springframework.dsl.document.TextDocument;
+
+/**
+ * Tests for {@link DocumentCharStream}.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class DocumentCharStreamTests {
+
+	@Test
+	public void testStreamOperations() {
+		DocumentCharStream stream = new DocumentCharStream(new TextDocument("file:///test", null, 0, "abc"));
+		assertThat(stream.size()).isEqualTo(3);
+		assertThat(stream.getSourceName()).isEqualTo("file:///test");
+		assertThat(stream.LA(1)).isEqualTo('a');
+		assertThat(stream.LA(-1)).isEqualTo(IntStream.EOF);
+		stream.consume();
+		stream.consume();
+		assertThat(stream.index()).isEqualTo(2);
+		assertThat(stream.LA(-1)).isEqualTo('b');
+		assertThat(stream.LA(1)).isEqualTo('c');
+		assertThat(stream.LA(2)).isEqualTo(IntStream.EOF);
+		assertThat(stream.getText(Interval.of(1, 5))).isEqualTo("bc");
+		stream.seek(0);
+		assertThat(stream.LA(1)).isEqualTo('a');
+		stream.seek(10);
+		assertThat(stream.index()).isEqualTo(3);
+		assertThat(stream.LA(1)).isEqualTo(IntStream.EOF);
+		assertThat(new DocumentCharStream("", null).getSourceName()).isEqualTo(IntStream.UNKNOWN_SOURCE_NAME);
+	}
+
+	@Test
+	public void testSameTokensAsStringStream() throws Exception {
+		String content = TestResourceUtils.resourceAsString(AntlrLinterTests.class, "1.test2");
+		List<Token> expected = tokens(CharStreams.fromString(content));
+
+		TextDocument document = new TextDocument("file:///test", null, 0, content);
+		assertTokens(tokens(new DocumentCharStream(document)), expected);
+		assertTokens(tokens(new DocumentCharStream(document.snapshot())), expected);
+	}
+
+	@Test
+	public void testNotAffectedByLaterChanges() {
+		TextDocument document = new TextDocument("file:///test", null, 0, "state S1");
+		DocumentSnapshot snapshot = document.snapshot();
+		CharStream fromDocument = new DocumentCharStream(document);
+		CharStream fromSnapshot = new DocumentCharStream(snapshot);
+		document.replace(0, 5, "xxx");
+		assertThat(fromDocument.getText(Interval.of(0, 7))).isEqualTo("state S1");
+		assertThat(fromSnapshot.getText(Interval.of(0, 7))).isEqualTo("state S1");
+	}
+
+	private static List<Token> tokens(CharStream input) {
+		CommonTokenStream stream = new CommonTokenStream(TestAntrlUtils.TEST2_ANTRL_FACTORY.createLexer(input));
+		stream.fill();
+		return stream.getTokens();
+	}
+
+	private static void assertTokens(List<Token> tokens, List<Token> expected) {
+		assertThat(tokens).hasSize(expected.size());
+		for (int i = 0; i < tokens.size(); i++) {
+			Token token = tokens.get(i);
+			Token other = expected.get(i);
+			assertThat(token.getType()).isEqualTo(other.getType());
+			assertThat(token.getText()).isEqualTo(other.getText());
+			assertThat(token.getLine()).isEqualTo(other.getLine());
+			assertThat(token.getCharPositionInLine()).isEqualTo(other.getCharPositionInLine());
+			assertThat(token.getStartIndex()).isEqualTo(other.getStartIndex());
+		}
+	}
+}
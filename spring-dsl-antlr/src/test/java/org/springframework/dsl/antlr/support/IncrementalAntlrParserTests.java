@@ -0,0 +1,196 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.antlr.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.junit.Test;
+import org.springframework.dsl.Test2Grammar;
+import org.springframework.dsl.Test2Lexer;
+import org.springframework.dsl.antlr.IncrementalAntlrFactory;
+import org.springframework.dsl.document.TextDocument;
+import org.springframework.dsl.model.LanguageId;
+
+/**
+ * Tests for {@link IncrementalAntlrParser}.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class IncrementalAntlrParserTests {
+
+	private static final String CONTENT =
+			"state S1 {\n" +
+			"  initial a;\n" +
+			"}\n" +
+			"transition T1 {\n" +
+			"  source S1; target S2\n" +
+			"}\n" +
+			"state S2 { end b; }\n";
+
+	@Test
+	public void testReparseWithinRestartableRule() {
+		IncrementalAntlrParser<Test2Lexer, Test2Grammar> parser = createParser();
+		IncrementalAntlrParser.ParseState state = parser.parse(document(1, CONTENT));
+		String changed = CONTENT.replace("initial a;", "initial abc;\n  end x;");
+
+		IncrementalAntlrParser.ParseState reparsed = parser.reparse(state, document(2, changed));
+		assertThat(reparsed).isNotNull();
+		assertThat(parser.getIncrementalParseCount()).isEqualTo(1);
+		assertThat(describe(reparsed)).isEqualTo(describe(parser.parse(document(3, changed))));
+		assertThat(reparsed.getTree().getText()).isEqualTo(changed.replaceAll("\\s", "") + "<EOF>");
+	}
+
+	@Test
+	public void testAppendToLastTokenOfRule() {
+		IncrementalAntlrParser<Test2Lexer, Test2Grammar> parser = createParser();
+		IncrementalAntlrParser.ParseState state = parser.parse(document(1, CONTENT));
+		String changed = CONTENT.replace("end b; }", "end b; }x");
+
+		assertThat(parser.reparse(state, document(2, changed))).isNull();
+		changed = CONTENT.replace("{ end b; }", "{ end b; end c }");
+		IncrementalAntlrParser.ParseState reparsed = parser.reparse(parser.parse(document(3, CONTENT)),
+				document(4, changed));
+		assertThat(reparsed).isNotNull();
+		assertThat(describe(reparsed)).isEqualTo(describe(parser.parse(document(5, changed))));
+	}
+
+	@Test
+	public void testChangeOutsideRestartableRule() {
+		IncrementalAntlrParser<Test2Lexer, Test2Grammar> parser = createParser();
+		IncrementalAntlrParser.ParseState state = parser.parse(document(1, CONTENT));
+
+		assertThat(parser.reparse(state, document(2, CONTENT.replace("}\ntransition", "}\n\ntransition"))))
+				.isNull();
+		assertThat(parser.getIncrementalParseCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void testNoReparseFromErrors() {
+		IncrementalAntlrParser<Test2Lexer, Test2Grammar> parser = createParser();
+		IncrementalAntlrParser.ParseState state = parser.parse(document(1, CONTENT.replace("initial a;", "initial {")));
+		assertThat(state.getProblems()).isNotEmpty();
+
+		assertThat(parser.reparse(state, document(2, CONTENT.replace("initial a;", "initial {{")))).isNull();
+		state = parser.parse(document(3, CONTENT));
+		assertThat(parser.reparse(state, document(4, CONTENT.replace("initial a;", "initial {")))).isNull();
+	}
+
+	@Test
+	public void testRandomEdits() {
+		IncrementalAntlrParser<Test2Lexer, Test2Grammar> parser = createParser();
+		Random random = new Random(23);
+		String letters = "abcxyz";
+		String alphabet = "abcxyz ;\n{}";
+		String content = CONTENT;
+		IncrementalAntlrParser.ParseState state = parser.parse(document(0, content));
+		for (int version = 1; version < 500; version++) {
+			StringBuilder buf = new StringBuilder(content);
+			int position = random.nextInt(buf.length() + 1);
+			int kind = random.nextInt(10);
+			if (kind < 2 && position < buf.length()) {
+				buf.delete(position, Math.min(buf.length(), position + 1 + random.nextInt(3)));
+			} else {
+				String chars = kind < 8 ? letters : alphabet;
+				for (int i = random.nextInt(3); i >= 0; i--) {
+					buf.insert(position, chars.charAt(random.nextInt(chars.length())));
+				}
+			}
+			if (!state.getProblems().isEmpty() && random.nextBoolean()) {
+				buf = new StringBuilder(CONTENT);
+			}
+			content = buf.toString();
+			IncrementalAntlrParser.ParseState reparsed = parser.reparse(state, document(version, content));
+			IncrementalAntlrParser.ParseState parsed = parser.parse(document(version, content));
+			if (reparsed != null) {
+				assertThat(describe(reparsed)).as(content).isEqualTo(describe(parsed));
+				state = reparsed;
+			} else {
+				state = parser.parse(document(version, content));
+			}
+		}
+		assertThat(parser.getIncrementalParseCount()).isGreaterThan(25);
+	}
+
+	private static TextDocument document(int version, String content) {
+		return new TextDocument("uri", LanguageId.TXT, version, content);
+	}
+
+	private static String describe(IncrementalAntlrParser.ParseState state) {
+		StringBuilder buf = new StringBuilder();
+		for (Token token : state.getTokens()) {
+			buf.append(describe(token)).append('\n');
+		}
+		describe(state.getTree(), buf);
+		return buf.toString();
+	}
+
+	private static void describe(ParseTree tree, StringBuilder buf) {
+		if (tree instanceof TerminalNode) {
+			buf.append(describe(((TerminalNode) tree).getSymbol()));
+			return;
+		}
+		ParserRuleContext context = (ParserRuleContext) tree;
+		assertThat(context.getParent() == null || context.getParent().children.contains(context)).isTrue();
+		buf.append('(').append(Test2Grammar.ruleNames[context.getRuleIndex()]).append(' ')
+			.append(describe(context.getStart())).append(' ').append(describe(context.getStop()));
+		for (int i = 0; i < context.getChildCount(); i++) {
+			buf.append(' ');
+			describe(context.getChild(i), buf);
+		}
+		buf.append(')');
+	}
+
+	private static String describe(Token token) {
+		if (token == null) {
+			return "null";
+		}
+		return "[" + token.getTokenIndex() + "," + token.getStartIndex() + ":" + token.getStopIndex() + "='"
+				+ token.getText() + "',<" + token.getType() + ">," + token.getChannel() + "," + token.getLine() + ":"
+				+ token.getCharPositionInLine() + "]";
+	}
+
+	private static IncrementalAntlrParser<Test2Lexer, Test2Grammar> createParser() {
+		return new IncrementalAntlrParser<>(new IncrementalAntlrFactory<Test2Lexer, Test2Grammar>() {
+
+			@Override
+			public Test2Grammar createParser(TokenStream tokenStream) {
+				return new Test2Grammar(tokenStream);
+			}
+
+			@Override
+			public Test2Lexer createLexer(CharStream input) {
+				return new Test2Lexer(input);
+			}
+
+			@Override
+			public Set<Integer> getRestartableRules() {
+				return new HashSet<>(Arrays.asList(Test2Grammar.RULE_state, Test2Grammar.RULE_transition));
+			}
+		}, Test2Grammar::definitions);
+	}
+}
@@ -20,6 +20,7 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.dsl.service.DefaultDslServiceRegistry;
 import org.springframework.dsl.service.DslServiceRegistry;
 
@@ -35,7 +36,13 @@ public class DslAutoConfiguration {
 
 	@Bean
 	@ConditionalOnMissingBean(DslServiceRegistry.class)
-	public DslServiceRegistry dslServiceRegistry() {
-		return new DefaultDslServiceRegistry();
+	public DslServiceRegistry dslServiceRegistry(Environment environment) {
+		DefaultDslServiceRegistry registry = new DefaultDslServiceRegistry();
+		registry.setCacheResults(environment.getProperty("spring.dsl.service.cache.enabled", Boolean.class, false));
+		Integer maximumSize = environment.getProperty("spring.dsl.service.cache.maximum-size", Integer.class);
+		if (maximumSize != null) {
+			registry.setCacheMaximumSize(maximumSize);
+		}
+		return registry;
 	}
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.document;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.dsl.domain.DidChangeTextDocumentParams;
+import org.springframework.dsl.domain.Range;
+import org.springframework.dsl.domain.TextDocumentContentChangeEvent;
+import org.springframework.dsl.domain.VersionedTextDocumentIdentifier;
+
+/**
+ * Benchmarks applying a {@link DidChangeTextDocumentParams} having multiple
+ * ranges, like ones sent from a multi cursor edit, as a batch compared to
+ * applying each change separately.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DocumentChangeBenchmark {
+
+	private static final int LINES = 10000;
+
+	@Param({ "1", "10", "1000" })
+	public int ranges;
+
+	private String content;
+	private DidChangeTextDocumentParams batch;
+	private List<DidChangeTextDocumentParams> singles;
+	private TextDocument textDocument;
+	private DocumentSnapshot snapshot;
+
+	@Setup(Level.Trial)
+	public void setupChanges() {
+		StringBuilder buf = new StringBuilder();
+		for (int i = 0; i < LINES; i++) {
+			buf.append("line ").append(i).append('\n');
+		}
+		content = buf.toString();
+
+		// descending order, the way editors send multi cursor changes
+		List<TextDocumentContentChangeEvent> changes = new ArrayList<>();
+		int step = LINES / ranges;
+		for (int i = ranges - 1; i >= 0; i--) {
+			changes.add(new TextDocumentContentChangeEvent(Range.from(i * step, 0, i * step, 4), 4, "text"));
+		}
+		batch = params(1, changes);
+		singles = new ArrayList<>();
+		for (int i = 0; i < changes.size(); i++) {
+			singles.add(params(i + 1, Collections.singletonList(changes.get(i))));
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void setupDocument() {
+		textDocument = new TextDocument("uri", null, 0, content);
+		snapshot = new DocumentSnapshot("uri", null, 0, content);
+	}
+
+	@Benchmark
+	public TextDocument textDocumentBatch() {
+		textDocument.apply(batch);
+		return textDocument;
+	}
+
+	@Benchmark
+	public TextDocument textDocumentSequential() {
+		for (DidChangeTextDocumentParams params : singles) {
+			textDocument.apply(params);
+		}
+		return textDocument;
+	}
+
+	@Benchmark
+	public DocumentSnapshot snapshotBatch() {
+		return snapshot.apply(1, batch.getContentChanges());
+	}
+
+	@Benchmark
+	public DocumentSnapshot snapshotSequential() {
+		DocumentSnapshot s = snapshot;
+		for (DidChangeTextDocumentParams params : singles) {
+			s = s.apply(params.getTextDocument().getVersion(), params.getContentChanges());
+		}
+		return s;
+	}
+
+	private static DidChangeTextDocumentParams params(int version, List<TextDocumentContentChangeEvent> changes) {
+		DidChangeTextDocumentParams params = new DidChangeTextDocumentParams();
+		VersionedTextDocumentIdentifier identifier = new VersionedTextDocumentIdentifier(version);
+		identifier.setUri("uri");
+		params.setTextDocument(identifier);
+		params.setContentChanges(changes);
+		return params;
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.document.linetracker;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks comparing {@link DefaultLineTracker} in a tree mode, in a mode
+ * where list based tracker is converted into a tree on first modification and
+ * {@link ArrayLineTracker}.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LineTrackerBenchmark {
+
+	private static final int EDITS = 100;
+
+	@Param({ "tree", "list", "array" })
+	public String tracker;
+
+	@Param({ "1000", "100000", "1000000" })
+	public int lines;
+
+	private String text;
+	private int[] editOffsets;
+
+	@Setup(Level.Trial)
+	public void setupText() {
+		StringBuilder buf = new StringBuilder();
+		for (int i = 0; i < lines; i++) {
+			buf.append("line ").append(i).append('\n');
+		}
+		text = buf.toString();
+		Random random = new Random(0);
+		editOffsets = new int[EDITS];
+		for (int i = 0; i < EDITS; i++) {
+			editOffsets[i] = random.nextInt(text.length());
+		}
+	}
+
+	@Benchmark
+	public LineTracker bulkLoad() {
+		LineTracker tracker = createTracker();
+		tracker.set(text);
+		return tracker;
+	}
+
+	@Benchmark
+	public LineTracker bulkLoadAndRandomEdits() {
+		LineTracker tracker = createTracker();
+		tracker.set(text);
+		for (int i = 0; i < EDITS; i++) {
+			tracker.replace(editOffsets[i], 0, i % 2 == 0 ? "x" : "\n");
+		}
+		return tracker;
+	}
+
+	@Benchmark
+	public int bulkLoadAndRandomLookups() {
+		LineTracker tracker = createTracker();
+		tracker.set(text);
+		int sum = 0;
+		for (int i = 0; i < EDITS; i++) {
+			int line = tracker.getLineNumberOfOffset(editOffsets[i]);
+			sum += tracker.getLineOffset(line);
+		}
+		return sum;
+	}
+
+	private LineTracker createTracker() {
+		if ("array".equals(tracker)) {
+			return new ArrayLineTracker();
+		}
+		return new DefaultLineTracker("tree".equals(tracker));
+	}
+}
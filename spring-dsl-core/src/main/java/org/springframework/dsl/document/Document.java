@@ -59,6 +59,17 @@ public interface Document {
 	 */
 	String content();
 
+	/**
+	 * Gets a read-only view of a full content of a document. Opposed to
+	 * {@link #content()} implementation may return a view without copying the
+	 * content into a new {@link String}.
+	 *
+	 * @return the content view
+	 */
+	default CharSequence contentView() {
+		return content();
+	}
+
 	/**
 	 * Gets a length of a document.
 	 *
@@ -133,6 +144,53 @@ public interface Document {
 	 */
 	int toOffset(Position position);
 
+	/**
+	 * Gets an offset from a given position where a character in a position is
+	 * counted using a given {@link PositionEncoding}.
+	 *
+	 * @param position the position
+	 * @param encoding the position encoding
+	 * @return the offset
+	 */
+	default int toOffset(Position position, PositionEncoding encoding) {
+		int line = position.getLine();
+		if (encoding == null || encoding == PositionEncoding.UTF16 || isAscii(line)) {
+			return toOffset(position);
+		}
+		int start = toOffset(Position.from(line, 0));
+		int end = line + 1 < lineCount() ? toOffset(Position.from(line + 1, 0)) : length();
+		return start + encoding.toCharIndex(contentView(), start, end, position.getCharacter());
+	}
+
+	/**
+	 * Gets a position from a given offset where a character in a position is
+	 * counted using a given {@link PositionEncoding}.
+	 *
+	 * @param offset the offset
+	 * @param encoding the position encoding
+	 * @return the position
+	 */
+	default Position toPosition(int offset, PositionEncoding encoding) {
+		Position position = toPosition(offset);
+		if (encoding == null || encoding == PositionEncoding.UTF16 || isAscii(position.getLine())) {
+			return position;
+		}
+		int start = offset - position.getCharacter();
+		return Position.from(position.getLine(), encoding.toColumn(contentView(), start, offset));
+	}
+
+	/**
+	 * Checks if a given line is known to contain only {@code ASCII} characters
+	 * in which case all {@link PositionEncoding}s count characters equally.
+	 * Returning {@code false} only means that a line needs to be scanned.
+	 *
+	 * @param line the line
+	 * @return true, if line is known to contain only {@code ASCII} characters
+	 */
+	default boolean isAscii(int line) {
+		return false;
+	}
+
 	/**
 	 * Checks if a given position is in bounds for a current document.
 	 *
@@ -148,6 +206,17 @@ public interface Document {
 	 */
 	String getDefaultLineDelimiter();
 
+	/**
+	 * Gets a {@link DocumentMetadata} for a current version of this document.
+	 * Default implementation scans a whole content on every call, thus
+	 * implementations are expected to cache it.
+	 *
+	 * @return the document metadata
+	 */
+	default DocumentMetadata metadata() {
+		return DocumentMetadata.of(this);
+	}
+
 	/**
 	 * Create a valid position so that it always lies within
 	 * bounds of a document content.
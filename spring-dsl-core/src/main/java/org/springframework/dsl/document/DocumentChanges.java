@@ -0,0 +1,187 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.document;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.dsl.domain.Position;
+import org.springframework.dsl.domain.Range;
+import org.springframework.dsl.domain.TextDocumentContentChangeEvent;
+
+/**
+ * Support class converting a list of {@link TextDocumentContentChangeEvent}s
+ * into non-overlapping edits relative to an original document, which allows
+ * applying all changes without resolving positions against intermediate
+ * documents.
+ * <p>
+ * Change events are applied in order and a range of each change is relative
+ * to a document produced by a previous change. If ranges are either all
+ * descending or all ascending without overlaps, positions can be mapped back
+ * into an original document without applying changes. Otherwise changes
+ * need to be applied one by one.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+final class DocumentChanges {
+
+	private DocumentChanges() {
+	}
+
+	/**
+	 * Plan edits for a given changes.
+	 *
+	 * @param document the original document
+	 * @param changes the content changes
+	 * @return edits sorted by ascending offset or {@code null} if changes
+	 *         cannot be applied as a batch
+	 */
+	static List<Edit> plan(Document document, List<TextDocumentContentChangeEvent> changes) {
+		if (changes.size() < 2) {
+			return null;
+		}
+		List<Edit> edits = new ArrayList<>(changes.size());
+		Boolean descending = null;
+		Edit previous = null;
+
+		for (TextDocumentContentChangeEvent change : changes) {
+			Range range = change.getRange();
+			if (range == null) {
+				// full sync
+				return null;
+			}
+			String text = change.getText() != null ? change.getText() : "";
+			Position start = range.getStart();
+			Position end = range.getEnd();
+			if (previous != null && descending == null) {
+				descending = compare(end, previous.startLine, previous.startCharacter) <= 0;
+			}
+
+			Edit edit;
+			if (previous == null || descending) {
+				// everything before a previous change is as in original
+				if (previous != null && compare(end, previous.startLine, previous.startCharacter) > 0) {
+					return null;
+				}
+				edit = new Edit(document.toOffset(start), document.toOffset(end), text, start, end);
+			} else {
+				// everything after a previous change is as in original but
+				// shifted by what previous change inserted
+				if (compare(start, previous.insertedEndLine, previous.insertedEndCharacter) < 0) {
+					return null;
+				}
+				if (joins(document, previous)) {
+					return null;
+				}
+				Position s = previous.map(start);
+				Position e = previous.map(end);
+				edit = new Edit(document.toOffset(s), document.toOffset(e), text, start, e);
+			}
+			if (edit.start > edit.end || edit.end > document.length()
+					|| (previous != null && (descending ? edit.end > previous.start : edit.start < previous.end))) {
+				return null;
+			}
+			edits.add(edit);
+			previous = edit;
+		}
+		if (descending) {
+			Collections.reverse(edits);
+		}
+		return edits;
+	}
+
+	/**
+	 * Checks if an edit may join or split a {@code \r\n} delimiter at its
+	 * boundaries which would change line structure outside of an edit.
+	 */
+	private static boolean joins(Document document, Edit edit) {
+		String text = edit.text;
+		int length = document.length();
+		if (edit.start > 0 && document.charAt(edit.start - 1) == '\r') {
+			// edit starting in a middle of '\r\n' or inserting '\n' after '\r'
+			char first = !text.isEmpty() ? text.charAt(0) : (edit.end < length ? document.charAt(edit.end) : 0);
+			if (first == '\n' || (edit.start < length && document.charAt(edit.start) == '\n')) {
+				return true;
+			}
+		}
+		if (edit.end < length && document.charAt(edit.end) == '\n') {
+			// edit ending in a middle of '\r\n' or inserting '\r' before '\n'
+			char last = !text.isEmpty() ? text.charAt(text.length() - 1)
+					: (edit.start > 0 ? document.charAt(edit.start - 1) : 0);
+			if (last == '\r' || (edit.end > 0 && document.charAt(edit.end - 1) == '\r')) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int compare(Position position, int line, int character) {
+		return position.getLine() != line ? Integer.compare(position.getLine(), line)
+				: Integer.compare(position.getCharacter(), character);
+	}
+
+	/**
+	 * Single edit replacing a region of an original content.
+	 */
+	static final class Edit {
+
+		final int start;
+		final int end;
+		final String text;
+		final int startLine;
+		final int startCharacter;
+		// end of inserted text in a document after this edit and its
+		// corresponding position in a document before this edit
+		final int insertedEndLine;
+		final int insertedEndCharacter;
+		final Position originalEnd;
+
+		Edit(int start, int end, String text, Position startPosition, Position originalEnd) {
+			this.start = start;
+			this.end = end;
+			this.text = text;
+			this.startLine = startPosition.getLine();
+			this.startCharacter = startPosition.getCharacter();
+			this.originalEnd = originalEnd;
+			int newlines = 0;
+			int lastLineStart = 0;
+			for (int i = 0; i < text.length(); i++) {
+				char c = text.charAt(i);
+				if (c == '\n' || (c == '\r' && (i + 1 == text.length() || text.charAt(i + 1) != '\n'))) {
+					newlines++;
+					lastLineStart = i + 1;
+				}
+			}
+			this.insertedEndLine = startLine + newlines;
+			this.insertedEndCharacter = newlines == 0 ? startCharacter + text.length() : text.length() - lastLineStart;
+		}
+
+		/**
+		 * Map a position after this edit in a document after this edit into a
+		 * position in a document before this edit.
+		 */
+		Position map(Position position) {
+			if (position.getLine() == insertedEndLine) {
+				return Position.from(originalEnd.getLine(),
+						originalEnd.getCharacter() + position.getCharacter() - insertedEndCharacter);
+			}
+			return Position.from(position.getLine() - insertedEndLine + originalEnd.getLine(),
+					position.getCharacter());
+		}
+	}
+}
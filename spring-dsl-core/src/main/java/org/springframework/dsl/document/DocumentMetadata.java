@@ -0,0 +1,179 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.document;
+
+/**
+ * Immutable summary of a {@link Document} content at a particular version
+ * providing information services would otherwise need to scan a whole
+ * content for, like a line delimiter style or a longest line.
+ *
+ * @author Janne Valkealahti
+ * @see Document#metadata()
+ *
+ */
+public final class DocumentMetadata {
+
+	private final int version;
+	private final int length;
+	private final int lineCount;
+	private final int maxLineLength;
+	private final boolean ascii;
+	private final String lineDelimiter;
+
+	DocumentMetadata(int version, int length, int lineCount, int maxLineLength, boolean ascii,
+			String lineDelimiter) {
+		this.version = version;
+		this.length = length;
+		this.lineCount = lineCount;
+		this.maxLineLength = maxLineLength;
+		this.ascii = ascii;
+		this.lineDelimiter = lineDelimiter;
+	}
+
+	/**
+	 * Creates a metadata for a given document by scanning its content.
+	 *
+	 * @param document the document
+	 * @return the document metadata
+	 */
+	public static DocumentMetadata of(Document document) {
+		CharSequence content = document.contentView();
+		int length = content.length();
+		int lineCount = 1;
+		int maxLineLength = 0;
+		int lineStart = 0;
+		boolean ascii = true;
+		String lineDelimiter = null;
+		for (int i = 0; i < length; i++) {
+			char c = content.charAt(i);
+			if (c == '\r' || c == '\n') {
+				int delimiterLength = c == '\r' && i + 1 < length && content.charAt(i + 1) == '\n' ? 2 : 1;
+				if (lineDelimiter == null) {
+					lineDelimiter = delimiterLength == 2 ? "\r\n" : String.valueOf(c);
+				}
+				maxLineLength = Math.max(maxLineLength, i - lineStart);
+				i += delimiterLength - 1;
+				lineStart = i + 1;
+				lineCount++;
+			} else if (c > 0x7f) {
+				ascii = false;
+			}
+		}
+		maxLineLength = Math.max(maxLineLength, length - lineStart);
+		return new DocumentMetadata(document.getVersion(), length, lineCount, maxLineLength, ascii, lineDelimiter);
+	}
+
+	/**
+	 * Gets the document version this metadata was created for.
+	 *
+	 * @return the version
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Gets the content length.
+	 *
+	 * @return the content length
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Gets the number of lines.
+	 *
+	 * @return the number of lines
+	 */
+	public int getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * Gets the length of a longest line not counting its delimiter.
+	 *
+	 * @return the length of a longest line
+	 */
+	public int getMaxLineLength() {
+		return maxLineLength;
+	}
+
+	/**
+	 * Checks if content contains only {@code ASCII} characters.
+	 *
+	 * @return true, if content contains only {@code ASCII} characters
+	 */
+	public boolean isAscii() {
+		return ascii;
+	}
+
+	/**
+	 * Gets the delimiter of a first line which is considered to be a line
+	 * delimiter style of a document.
+	 *
+	 * @return the line delimiter or {@code null} if content doesn't have any
+	 */
+	public String getLineDelimiter() {
+		return lineDelimiter;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + version;
+		result = prime * result + length;
+		result = prime * result + lineCount;
+		result = prime * result + maxLineLength;
+		result = prime * result + (ascii ? 1231 : 1237);
+		result = prime * result + ((lineDelimiter == null) ? 0 : lineDelimiter.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		DocumentMetadata other = (DocumentMetadata) obj;
+		if (version != other.version)
+			return false;
+		if (length != other.length)
+			return false;
+		if (lineCount != other.lineCount)
+			return false;
+		if (maxLineLength != other.maxLineLength)
+			return false;
+		if (ascii != other.ascii)
+			return false;
+		if (lineDelimiter == null) {
+			if (other.lineDelimiter != null)
+				return false;
+		} else if (!lineDelimiter.equals(other.lineDelimiter))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "DocumentMetadata [version=" + version + ", length=" + length + ", lineCount=" + lineCount
+				+ ", maxLineLength=" + maxLineLength + ", ascii=" + ascii + "]";
+	}
+}
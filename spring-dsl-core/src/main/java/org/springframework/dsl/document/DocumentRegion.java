@@ -219,6 +219,28 @@ public class DocumentRegion implements CharSequence, Region {
 		return pieces.toArray(new DocumentRegion[pieces.size()]);
 	}
 
+	/**
+	 * Creates a {@link DocumentRegionCursor} iterating over same tokens as
+	 * {@link #split(char)} without creating a region for every token.
+	 *
+	 * @param delimiter the delimiter
+	 * @return the cursor
+	 */
+	public DocumentRegionCursor tokenize(char delimiter) {
+		return new DocumentRegionCursor(this, delimiter);
+	}
+
+	/**
+	 * Creates a {@link DocumentRegionCursor} iterating over same tokens as
+	 * {@link #split(Pattern)} without creating a region for every token.
+	 *
+	 * @param delimiter the delimiter
+	 * @return the cursor
+	 */
+	public DocumentRegionCursor tokenize(Pattern delimiter) {
+		return new DocumentRegionCursor(this, delimiter);
+	}
+
 	/**
 	 * Removes a single occurrence of pat from the start of this region.
 	 */
@@ -321,6 +343,28 @@ public class DocumentRegion implements CharSequence, Region {
 		return false;
 	}
 
+	/**
+	 * Checks if this region has a same content as a given
+	 * {@link CharSequence} without converting this region into a
+	 * {@link String}.
+	 */
+	public boolean contentEquals(CharSequence string) {
+		return contentEquals(this, string);
+	}
+
+	static boolean contentEquals(CharSequence a, CharSequence b) {
+		int len = a.length();
+		if (len != b.length()) {
+			return false;
+		}
+		for (int i = 0; i < len; i++) {
+			if (a.charAt(i) != b.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Take documentRegion at the end of
 	 */
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.document;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.dsl.document.linetracker.Region;
+import org.springframework.dsl.domain.Range;
+
+/**
+ * Mutable cursor over tokens of a {@link DocumentRegion}. Unlike
+ * {@link DocumentRegion#split(Pattern)} which creates a new region for every
+ * token, cursor is advanced with {@link #next()} and represents a current
+ * token until next call. Token can be materialized as a
+ * {@link DocumentRegion} with {@link #toRegion()} if it needs to be kept.
+ * <p>
+ * Cursor is only meant to be used as a lookup probe. Its
+ * {@link #equals(Object)} accepts any {@link CharSequence} having same
+ * content and its hash code is same as it would be for a {@link String},
+ * meaning a cursor can be passed to {@code contains} or {@code get} of hash
+ * based collections of strings, which call {@code equals} of a probe,
+ * without creating a new {@link String} for every token. Equality is not
+ * symmetric as {@link String#equals(Object)} never accepts a cursor, thus
+ * a cursor should not be compared from a side of stored elements, like with
+ * sorted collections or {@code equals} of collections. As cursor is
+ * mutable, it should never be used as a key stored into a collection.
+ *
+ * @author Janne Valkealahti
+ * @see DocumentRegion#tokenize(Pattern)
+ * @see DocumentRegion#tokenize(char)
+ *
+ */
+public class DocumentRegionCursor implements CharSequence, Region {
+
+	private final Document document;
+	private final CharSequence content;
+	private final int regionEnd;
+	private final Matcher matcher;
+	private final char delimiter;
+	private int position;
+	private int start;
+	private int end;
+	private int hash;
+
+	DocumentRegionCursor(DocumentRegion region, Pattern delimiter) {
+		this(region, delimiter, (char) 0);
+	}
+
+	DocumentRegionCursor(DocumentRegion region, char delimiter) {
+		this(region, null, delimiter);
+	}
+
+	private DocumentRegionCursor(DocumentRegion region, Pattern pattern, char delimiter) {
+		this.document = region.document;
+		this.content = region.document.contentView();
+		this.regionEnd = region.end;
+		this.matcher = pattern != null ? pattern.matcher(content).region(region.start, region.end) : null;
+		this.delimiter = delimiter;
+		this.position = region.start;
+		this.start = region.start;
+		this.end = region.start;
+	}
+
+	/**
+	 * Advance cursor to a next token. Same as with
+	 * {@link DocumentRegion#split(Pattern)}, tokens between adjacent delimiters
+	 * and the last token are returned even if those are empty.
+	 *
+	 * @return true, if cursor was advanced to a next token
+	 */
+	public boolean next() {
+		if (position < 0) {
+			return false;
+		}
+		int tokenEnd;
+		int nextPosition;
+		if (matcher != null) {
+			if (matcher.find()) {
+				tokenEnd = matcher.start();
+				nextPosition = matcher.end();
+			} else {
+				tokenEnd = regionEnd;
+				nextPosition = -1;
+			}
+		} else {
+			tokenEnd = position;
+			while (tokenEnd < regionEnd && content.charAt(tokenEnd) != delimiter) {
+				tokenEnd++;
+			}
+			nextPosition = tokenEnd < regionEnd ? tokenEnd + 1 : -1;
+		}
+		start = position;
+		end = tokenEnd;
+		position = nextPosition;
+		hash = 0;
+		return true;
+	}
+
+	/**
+	 * Removes leading and trailing whitespace from a current token.
+	 *
+	 * @return this cursor
+	 */
+	public DocumentRegionCursor trim() {
+		while (start < end && Character.isWhitespace(content.charAt(start))) {
+			start++;
+		}
+		while (end > start && Character.isWhitespace(content.charAt(end - 1))) {
+			end--;
+		}
+		hash = 0;
+		return this;
+	}
+
+	/**
+	 * Creates a new {@link DocumentRegion} from a current token.
+	 *
+	 * @return the document region
+	 */
+	public DocumentRegion toRegion() {
+		return new DocumentRegion(document, start, end);
+	}
+
+	/**
+	 * Gets a range of a current token.
+	 *
+	 * @return the range
+	 */
+	public Range toRange() {
+		return document.toRange(start, end - start);
+	}
+
+	/**
+	 * Get the start of a current token relative to the document.
+	 *
+	 * @return the start offset
+	 */
+	public int getStart() {
+		return start;
+	}
+
+	/**
+	 * Get the end of a current token relative to the document.
+	 *
+	 * @return the end offset
+	 */
+	public int getEnd() {
+		return end;
+	}
+
+	/**
+	 * Checks if a current token has a same content as a given
+	 * {@link CharSequence}.
+	 *
+	 * @param other the other char sequence
+	 * @return true, if content is equal
+	 */
+	public boolean contentEquals(CharSequence other) {
+		return DocumentRegion.contentEquals(this, other);
+	}
+
+	@Override
+	public int getOffset() {
+		return start;
+	}
+
+	@Override
+	public int getLength() {
+		return end - start;
+	}
+
+	@Override
+	public int length() {
+		return end - start;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= end - start) {
+			throw new IndexOutOfBoundsException("" + index);
+		}
+		return content.charAt(start + index);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return toRegion().subSequence(start, end);
+	}
+
+	@Override
+	public int hashCode() {
+		int h = hash;
+		if (h == 0) {
+			for (int i = start; i < end; i++) {
+				h = 31 * h + content.charAt(i);
+			}
+			hash = h;
+		}
+		return h;
+	}
+
+	/**
+	 * Checks if a current token has a same content as a given
+	 * {@link CharSequence}. Not symmetric, see class documentation.
+	 *
+	 * @param obj the object to compare
+	 * @return true, if a given object is a char sequence with same content
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof CharSequence && contentEquals((CharSequence) obj);
+	}
+
+	@Override
+	public String toString() {
+		return content.subSequence(start, end).toString();
+	}
+}
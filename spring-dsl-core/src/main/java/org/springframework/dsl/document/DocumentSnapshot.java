@@ -0,0 +1,255 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.document;
+
+import java.util.List;
+
+import org.springframework.dsl.domain.Position;
+import org.springframework.dsl.domain.Range;
+import org.springframework.dsl.domain.TextDocumentContentChangeEvent;
+import org.springframework.dsl.model.LanguageId;
+
+/**
+ * Immutable {@link Document} representing a content of a document at a
+ * particular version. Content is kept in a {@link Rope} which also acts as a
+ * line index, thus a snapshot created from its predecessor shares all
+ * untouched content with it.
+ * <p>
+ * As a snapshot never changes, it can be freely shared between threads
+ * without any locking.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public final class DocumentSnapshot implements Document {
+
+	private final String uri;
+	private final LanguageId languageId;
+	private final int version;
+	private final Rope rope;
+	// computed lazily, racy but always the same result
+	private DocumentMetadata metadata;
+
+	/**
+	 * Instantiates a new document snapshot.
+	 *
+	 * @param uri the uri
+	 * @param languageId the language id
+	 * @param version the version
+	 * @param content the content
+	 */
+	public DocumentSnapshot(String uri, LanguageId languageId, int version, CharSequence content) {
+		this.uri = uri;
+		this.languageId = languageId;
+		this.version = version;
+		this.rope = Rope.of(content);
+	}
+
+	@Override
+	public String uri() {
+		return uri;
+	}
+
+	@Override
+	public LanguageId languageId() {
+		return languageId;
+	}
+
+	@Override
+	public int getVersion() {
+		return version;
+	}
+
+	@Override
+	public String content() {
+		return rope.toString();
+	}
+
+	@Override
+	public Rope contentView() {
+		return rope;
+	}
+
+	@Override
+	public int length() {
+		return rope.length();
+	}
+
+	@Override
+	public int lineCount() {
+		return rope.getNumberOfLines();
+	}
+
+	@Override
+	public int caret(Position position) {
+		return rope.getLineOffset(position.getLine()) + position.getCharacter();
+	}
+
+	@Override
+	public char charAt(int offset) {
+		if (offset >= 0 && offset < rope.length()) {
+			return rope.charAt(offset);
+		}
+		throw new BadLocationException("Offset location not in bounds, offset=" + offset + " text length=" + rope.length());
+	}
+
+	@Override
+	public char charAtPosition(Position position) {
+		return charAt(caret(position));
+	}
+
+	@Override
+	public String content(int start, int length) {
+		try {
+			return rope.substring(start, start + length);
+		} catch (Exception e) {
+			throw new BadLocationException("Error processing subtext", e);
+		}
+	}
+
+	@Override
+	public Position toPosition(int offset) {
+		int line = rope.getLineOfOffset(offset);
+		return Position.from(line, offset - rope.getLineOffset(line));
+	}
+
+	@Override
+	public int toOffset(Position position) {
+		int line = position.getLine();
+		if (line == rope.getNumberOfLines()) {
+			return rope.length() + position.getCharacter();
+		}
+		return rope.getLineOffset(line) + position.getCharacter();
+	}
+
+	@Override
+	public boolean isAscii(int line) {
+		if (line < 0 || line >= rope.getNumberOfLines()) {
+			return false;
+		}
+		int start = rope.getLineOffset(line);
+		return rope.isAscii(start, start + rope.getLineLength(line));
+	}
+
+	@Override
+	public boolean positionInBounds(Position position) {
+		int offset = caret(position);
+		return offset >= 0 && offset < rope.length();
+	}
+
+	@Override
+	public String getDefaultLineDelimiter() {
+		if (rope.getNumberOfLines() > 1) {
+			return rope.getLineDelimiter(0);
+		}
+		return System.getProperty("line.separator");
+	}
+
+	@Override
+	public DocumentMetadata metadata() {
+		DocumentMetadata m = metadata;
+		if (m == null) {
+			m = DocumentMetadata.of(this);
+			metadata = m;
+		}
+		return m;
+	}
+
+	@Override
+	public Position validatePosition(Position position) {
+		int line = Math.max(Math.min(position.getLine(), rope.getNumberOfLines() - 1), 0);
+		int character = Math.min(position.getCharacter(), rope.getLineLength(line) - 1);
+		return Position.from(line, character < 0 ? 0 : character);
+	}
+
+	@Override
+	public Range toRange(int offset, int length) {
+		int end = Math.min(offset + length, rope.length());
+		Range range = new Range();
+		range.setStart(toPosition(offset));
+		range.setEnd(toPosition(end));
+		return range;
+	}
+
+	/**
+	 * Creates a new snapshot having a given content.
+	 *
+	 * @param version the new version
+	 * @param content the new content
+	 * @return the new snapshot
+	 */
+	public DocumentSnapshot withContent(int version, CharSequence content) {
+		return new DocumentSnapshot(uri, languageId, version, content);
+	}
+
+	/**
+	 * Creates a new snapshot where a region of a content is replaced with a
+	 * given text. Version is kept as is.
+	 *
+	 * @param start the start offset
+	 * @param length the length of a replaced region
+	 * @param text the replacement text
+	 * @return the new snapshot
+	 */
+	public DocumentSnapshot replace(int start, int length, String text) {
+		try {
+			return new DocumentSnapshot(uri, languageId, version, rope.replace(start, start + length, text));
+		} catch (IndexOutOfBoundsException e) {
+			throw new BadLocationException("Error replacing text", e);
+		}
+	}
+
+	/**
+	 * Creates a new snapshot by applying content changes in order. Ranges in a
+	 * change are relative to a content produced by a previous change. If ranges
+	 * don't overlap and are sorted, all changes are resolved against this
+	 * snapshot and applied as a batch.
+	 *
+	 * @param version the new version
+	 * @param changes the content changes
+	 * @return the new snapshot
+	 */
+	public DocumentSnapshot apply(int version, List<TextDocumentContentChangeEvent> changes) {
+		List<DocumentChanges.Edit> edits = DocumentChanges.plan(this, changes);
+		if (edits != null) {
+			Rope r = rope;
+			for (int i = edits.size() - 1; i >= 0; i--) {
+				DocumentChanges.Edit edit = edits.get(i);
+				r = r.replace(edit.start, edit.end, edit.text);
+			}
+			return new DocumentSnapshot(uri, languageId, version, r);
+		}
+		DocumentSnapshot snapshot = this;
+		for (TextDocumentContentChangeEvent change : changes) {
+			Range range = change.getRange();
+			if (range == null) {
+				// full sync mode
+				snapshot = snapshot.withContent(version, change.getText());
+			} else {
+				int start = snapshot.toOffset(range.getStart());
+				int end = snapshot.toOffset(range.getEnd());
+				snapshot = snapshot.replace(start, end - start, change.getText());
+			}
+		}
+		return snapshot.version == version ? snapshot
+				: new DocumentSnapshot(uri, languageId, version, snapshot.rope);
+	}
+
+	@Override
+	public String toString() {
+		return "DocumentSnapshot(uri=" + uri + "[" + version + "],\n" + rope + "\n)";
+	}
+}
@@ -0,0 +1,520 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.document;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Objects;
+
+import org.springframework.dsl.domain.Position;
+import org.springframework.dsl.domain.Range;
+import org.springframework.dsl.model.LanguageId;
+
+/**
+ * Read-only {@link Document} backed by a {@code UTF-8} encoded file mapped into
+ * memory. Content is not copied into a heap, instead only offsets where lines
+ * start are kept in an {@code int} array, meaning that a heap usage of a
+ * document is relative to its line count instead of its length.
+ * <p>
+ * Characters on lines having only {@code ASCII} characters are read directly
+ * from a mapped buffer while lines having other characters are decoded on
+ * demand, last decoded line being cached. Same as with other documents,
+ * offsets and positions are counted in {@code UTF-16} code units.
+ * <p>
+ * Document is meant for large files which are not modified. Content is
+ * read from a file on every access, thus if a file is modified on a disk
+ * a document silently returns a new content and if a file is truncated,
+ * reading a mapping past a new end of a file faults. Such faults are
+ * rethrown as {@link IllegalStateException}s instead of an
+ * {@link InternalError}. Owners of a document should check
+ * {@link #isModified()} and stop using a document once it returns
+ * {@code true}.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public final class MappedDocument implements Document {
+
+	private final String uri;
+	private final LanguageId languageId;
+	private final int version;
+	private final ByteBuffer buffer;
+	private final int length;
+	// char offsets of line starts
+	private final int[] lineStarts;
+	// byte offsets of line starts, null if all lines are ascii
+	private final int[] lineByteStarts;
+	private final BitSet nonAsciiLines;
+	// file attributes when mapped, null if not mapped from a file
+	private final Path path;
+	private final BasicFileAttributes attributes;
+	private final ContentView contentView = new ContentView();
+	private volatile DecodedLine decoded;
+	private volatile DocumentMetadata metadata;
+	// last line found from an offset, racy but always validated
+	private int lineHint;
+
+	/**
+	 * Instantiates a new mapped document.
+	 *
+	 * @param uri the uri
+	 * @param languageId the language id
+	 * @param version the version
+	 * @param buffer the buffer having utf-8 encoded content
+	 * @throws MalformedInputException if buffer is not valid utf-8
+	 */
+	MappedDocument(String uri, LanguageId languageId, int version, ByteBuffer buffer)
+			throws MalformedInputException {
+		this(uri, languageId, version, buffer, null, null);
+	}
+
+	private MappedDocument(String uri, LanguageId languageId, int version, ByteBuffer buffer, Path path,
+			BasicFileAttributes attributes) throws MalformedInputException {
+		this.path = path;
+		this.attributes = attributes;
+		this.uri = uri;
+		this.languageId = languageId;
+		this.version = version;
+		this.buffer = buffer;
+
+		int size = buffer.limit();
+		int[] starts = new int[64];
+		int[] byteStarts = new int[64];
+		int lines = 1;
+		BitSet nonAscii = new BitSet();
+		int chars = 0;
+		int i = 0;
+		while (i < size) {
+			int b = buffer.get(i) & 0xff;
+			if (b < 0x80) {
+				i++;
+				chars++;
+				if (b == '\n' || b == '\r') {
+					if (b == '\r' && i < size && buffer.get(i) == '\n') {
+						i++;
+						chars++;
+					}
+					if (lines == starts.length) {
+						starts = Arrays.copyOf(starts, lines * 2);
+						byteStarts = Arrays.copyOf(byteStarts, lines * 2);
+					}
+					starts[lines] = chars;
+					byteStarts[lines] = i;
+					lines++;
+				}
+				continue;
+			}
+			int continuation;
+			if (b >= 0xc2 && b <= 0xdf) {
+				continuation = 1;
+				chars++;
+			} else if (b >= 0xe0 && b <= 0xef) {
+				continuation = 2;
+				chars++;
+			} else if (b >= 0xf0 && b <= 0xf4) {
+				// supplementary character is a surrogate pair
+				continuation = 3;
+				chars += 2;
+			} else {
+				throw new MalformedInputException(1);
+			}
+			if (i + continuation >= size) {
+				throw new MalformedInputException(size - i);
+			}
+			for (int k = 1; k <= continuation; k++) {
+				if ((buffer.get(i + k) & 0xc0) != 0x80) {
+					throw new MalformedInputException(k);
+				}
+			}
+			// same as a decoder, reject overlong encodings, surrogates and
+			// values over U+10FFFF which would otherwise decode as U+FFFD
+			int second = buffer.get(i + 1) & 0xff;
+			if ((b == 0xe0 && second < 0xa0) || (b == 0xed && second > 0x9f)
+					|| (b == 0xf0 && second < 0x90) || (b == 0xf4 && second > 0x8f)) {
+				throw new MalformedInputException(1);
+			}
+			nonAscii.set(lines - 1);
+			i += continuation + 1;
+		}
+
+		this.length = chars;
+		this.lineStarts = Arrays.copyOf(starts, lines);
+		if (nonAscii.isEmpty()) {
+			this.lineByteStarts = null;
+			this.nonAsciiLines = null;
+		} else {
+			this.lineByteStarts = Arrays.copyOf(byteStarts, lines);
+			this.nonAsciiLines = nonAscii;
+		}
+	}
+
+	/**
+	 * Creates a new {@link MappedDocument} by mapping a given file into a
+	 * memory.
+	 *
+	 * @param uri the uri
+	 * @param languageId the language id
+	 * @param version the version
+	 * @param path the path to a utf-8 encoded file
+	 * @return the mapped document
+	 * @throws IOException if file cannot be mapped or is not valid utf-8
+	 */
+	public static MappedDocument map(String uri, LanguageId languageId, int version, Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("File too large to map, size=" + size);
+			}
+			if (size != attributes.size()) {
+				throw new IOException("File modified while mapping, size=" + size);
+			}
+			MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, size);
+			try {
+				return new MappedDocument(uri, languageId, version, buffer, path, attributes);
+			} catch (InternalError e) {
+				throw new IOException("File truncated while mapping", e);
+			}
+		}
+	}
+
+	/**
+	 * Checks if a mapped file has been modified, replaced or deleted after
+	 * this document was created. Always {@code false} if a document was not
+	 * mapped from a file.
+	 *
+	 * @return true, if file has been modified
+	 */
+	public boolean isModified() {
+		if (path == null) {
+			return false;
+		}
+		try {
+			BasicFileAttributes current = Files.readAttributes(path, BasicFileAttributes.class);
+			return current.size() != attributes.size()
+					|| !Objects.equals(current.lastModifiedTime(), attributes.lastModifiedTime())
+					|| !Objects.equals(current.fileKey(), attributes.fileKey());
+		} catch (IOException e) {
+			return true;
+		}
+	}
+
+	@Override
+	public String uri() {
+		return uri;
+	}
+
+	@Override
+	public LanguageId languageId() {
+		return languageId;
+	}
+
+	@Override
+	public int getVersion() {
+		return version;
+	}
+
+	@Override
+	public String content() {
+		return content(0, length);
+	}
+
+	@Override
+	public CharSequence contentView() {
+		return contentView;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public int lineCount() {
+		return lineStarts.length;
+	}
+
+	@Override
+	public int caret(Position position) {
+		return getLineOffset(position.getLine()) + position.getCharacter();
+	}
+
+	@Override
+	public char charAt(int offset) {
+		if (offset < 0 || offset >= length) {
+			throw new BadLocationException("Offset location not in bounds, offset=" + offset + " text length=" + length);
+		}
+		int line = getLineOfOffset(offset);
+		if (isAsciiLineInternal(line)) {
+			return (char) byteAt(byteStart(line) + offset - lineStarts[line]);
+		}
+		return decode(line)[offset - lineStarts[line]];
+	}
+
+	@Override
+	public char charAtPosition(Position position) {
+		return charAt(caret(position));
+	}
+
+	@Override
+	public String content(int start, int length) {
+		int end = start + length;
+		if (start < 0 || length < 0 || end > this.length) {
+			throw new BadLocationException("Region not in bounds, start=" + start + " length=" + length);
+		}
+		StringBuilder buf = new StringBuilder(length);
+		int offset = start;
+		int line = offset < this.length ? getLineOfOffset(offset) : 0;
+		while (offset < end) {
+			int lineStart = lineStarts[line];
+			int chunkEnd = Math.min(end, lineEnd(line));
+			if (isAsciiLineInternal(line)) {
+				int byteOffset = byteStart(line) + offset - lineStart;
+				for (int i = offset; i < chunkEnd; i++) {
+					buf.append((char) byteAt(byteOffset++));
+				}
+			} else {
+				buf.append(decode(line), offset - lineStart, chunkEnd - offset);
+			}
+			offset = chunkEnd;
+			line++;
+		}
+		return buf.toString();
+	}
+
+	@Override
+	public Position toPosition(int offset) {
+		int line = getLineOfOffset(offset);
+		return Position.from(line, offset - lineStarts[line]);
+	}
+
+	@Override
+	public int toOffset(Position position) {
+		int line = position.getLine();
+		if (line == lineStarts.length) {
+			return length + position.getCharacter();
+		}
+		return getLineOffset(line) + position.getCharacter();
+	}
+
+	@Override
+	public boolean isAscii(int line) {
+		return line >= 0 && line < lineStarts.length && isAsciiLineInternal(line);
+	}
+
+	@Override
+	public boolean positionInBounds(Position position) {
+		int offset = caret(position);
+		return offset >= 0 && offset < length;
+	}
+
+	@Override
+	public String getDefaultLineDelimiter() {
+		String delimiter = lineDelimiter(0);
+		return delimiter != null ? delimiter : System.getProperty("line.separator");
+	}
+
+	@Override
+	public DocumentMetadata metadata() {
+		DocumentMetadata m = metadata;
+		if (m == null) {
+			// line structure is already known, no need to decode content
+			int maxLineLength = 0;
+			for (int line = 0; line < lineStarts.length; line++) {
+				String delimiter = lineDelimiter(line);
+				int lineLength = lineEnd(line) - lineStarts[line] - (delimiter != null ? delimiter.length() : 0);
+				maxLineLength = Math.max(maxLineLength, lineLength);
+			}
+			m = new DocumentMetadata(version, length, lineStarts.length, maxLineLength,
+					nonAsciiLines == null || nonAsciiLines.isEmpty(), lineDelimiter(0));
+			metadata = m;
+		}
+		return m;
+	}
+
+	@Override
+	public Position validatePosition(Position position) {
+		int line = Math.max(Math.min(position.getLine(), lineStarts.length - 1), 0);
+		int character = Math.min(position.getCharacter(), lineEnd(line) - lineStarts[line] - 1);
+		return Position.from(line, character < 0 ? 0 : character);
+	}
+
+	@Override
+	public Range toRange(int offset, int length) {
+		int end = Math.min(offset + length, this.length);
+		Range range = new Range();
+		range.setStart(toPosition(offset));
+		range.setEnd(toPosition(end));
+		return range;
+	}
+
+	/**
+	 * Gets a line of a given offset.
+	 *
+	 * @param offset the offset
+	 * @return the line
+	 * @throws BadLocationException if offset is not in bounds
+	 */
+	public int getLineOfOffset(int offset) {
+		if (offset < 0 || offset > length) {
+			throw new BadLocationException("Offset not in bounds, offset=" + offset + " length=" + length);
+		}
+		int hint = lineHint;
+		if (offset >= lineStarts[hint] && offset < lineEnd(hint)) {
+			return hint;
+		}
+		if (hint + 1 < lineStarts.length && offset >= lineStarts[hint + 1] && offset < lineEnd(hint + 1)) {
+			lineHint = hint + 1;
+			return hint + 1;
+		}
+		int line = Arrays.binarySearch(lineStarts, offset);
+		if (line < 0) {
+			line = -line - 2;
+		}
+		lineHint = line;
+		return line;
+	}
+
+	/**
+	 * Gets an offset where a given line starts.
+	 *
+	 * @param line the line
+	 * @return the line offset
+	 * @throws BadLocationException if line is not in bounds
+	 */
+	public int getLineOffset(int line) {
+		if (line < 0 || line >= lineStarts.length) {
+			throw new BadLocationException("Line not in bounds, line=" + line + " lines=" + lineStarts.length);
+		}
+		return lineStarts[line];
+	}
+
+	@Override
+	public String toString() {
+		return "MappedDocument(uri=" + uri + "[" + version + "], length=" + length + ", lines=" + lineStarts.length + ")";
+	}
+
+	private boolean isAsciiLineInternal(int line) {
+		return nonAsciiLines == null || !nonAsciiLines.get(line);
+	}
+
+	private String lineDelimiter(int line) {
+		if (line + 1 >= lineStarts.length) {
+			return null;
+		}
+		int end = byteStart(line + 1);
+		if (byteAt(end - 1) == '\r') {
+			return "\r";
+		}
+		return end > 1 && byteAt(end - 2) == '\r' ? "\r\n" : "\n";
+	}
+
+	private int lineEnd(int line) {
+		return line + 1 < lineStarts.length ? lineStarts[line + 1] : length;
+	}
+
+	private int byteStart(int line) {
+		return lineByteStarts != null ? lineByteStarts[line] : lineStarts[line];
+	}
+
+	private int byteEnd(int line) {
+		return line + 1 < lineStarts.length ? byteStart(line + 1) : buffer.limit();
+	}
+
+	private char[] decode(int line) {
+		DecodedLine d = decoded;
+		if (d != null && d.line == line) {
+			return d.chars;
+		}
+		ByteBuffer slice = buffer.duplicate();
+		slice.limit(byteEnd(line));
+		slice.position(byteStart(line));
+		CharBuffer chars;
+		try {
+			chars = StandardCharsets.UTF_8.decode(slice);
+		} catch (InternalError e) {
+			throw truncated(e);
+		}
+		d = new DecodedLine(line, new char[chars.remaining()]);
+		chars.get(d.chars);
+		decoded = d;
+		return d.chars;
+	}
+
+	private byte byteAt(int index) {
+		try {
+			return buffer.get(index);
+		} catch (InternalError e) {
+			// fault from a mapping of a truncated file
+			throw truncated(e);
+		}
+	}
+
+	private IllegalStateException truncated(InternalError e) {
+		return new IllegalStateException("Unable to read mapped document [" + uri
+				+ "], file may have been truncated", e);
+	}
+
+	private static class DecodedLine {
+
+		final int line;
+		final char[] chars;
+
+		DecodedLine(int line, char[] chars) {
+			this.line = line;
+			this.chars = chars;
+		}
+	}
+
+	/**
+	 * {@link CharSequence} view over a document content.
+	 */
+	private class ContentView implements CharSequence {
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return MappedDocument.this.charAt(index);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return content(start, end - start);
+		}
+
+		@Override
+		public String toString() {
+			return content();
+		}
+	}
+}
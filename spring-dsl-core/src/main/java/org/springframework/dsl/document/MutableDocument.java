@@ -0,0 +1,62 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.document;
+
+import org.springframework.dsl.domain.DidChangeTextDocumentParams;
+
+/**
+ * Extension of a {@link Document} which content can be modified. Used by a
+ * {@link org.springframework.dsl.service.DocumentStateTracker} to keep a
+ * document in sync with a client while readers get an immutable
+ * {@link DocumentSnapshot} of it.
+ *
+ * @author Janne Valkealahti
+ * @see MutableDocumentFactory
+ *
+ */
+public interface MutableDocument extends Document {
+
+	/**
+	 * Apply changes from a {@link DidChangeTextDocumentParams}. Changes are
+	 * ignored if a version in params is not newer than a current version.
+	 *
+	 * @param params the change params
+	 */
+	void apply(DidChangeTextDocumentParams params);
+
+	/**
+	 * Replace a region of a content with a given text.
+	 *
+	 * @param start the start offset
+	 * @param length the length of a replaced region
+	 * @param text the replacement text
+	 */
+	void replace(int start, int length, String text);
+
+	/**
+	 * Sets a full content of a document.
+	 *
+	 * @param content the new content
+	 */
+	void setText(String content);
+
+	/**
+	 * Gets an immutable snapshot of a current state of this document.
+	 *
+	 * @return the document snapshot
+	 */
+	DocumentSnapshot snapshot();
+}
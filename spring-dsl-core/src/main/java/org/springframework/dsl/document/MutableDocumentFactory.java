@@ -0,0 +1,41 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.document;
+
+import org.springframework.dsl.model.LanguageId;
+
+/**
+ * Factory creating a {@link MutableDocument}. Constructors of
+ * {@link TextDocument} and {@link RopeDocument} can be used as a factory
+ * as is, i.e. {@code RopeDocument::new}.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+@FunctionalInterface
+public interface MutableDocumentFactory {
+
+	/**
+	 * Creates a new {@link MutableDocument}.
+	 *
+	 * @param uri the document uri
+	 * @param languageId the language id
+	 * @param version the initial version
+	 * @param content the initial content
+	 * @return the mutable document
+	 */
+	MutableDocument create(String uri, LanguageId languageId, int version, String content);
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.document;
+
+/**
+ * Encodings used to count characters in a {@link org.springframework.dsl.domain.Position}.
+ * {@code LSP} defaults to {@code UTF-16} which matches how java counts
+ * characters in a {@link String}, while clients can negotiate to count
+ * characters in {@code UTF-8} bytes or in {@code UTF-32} code points.
+ * <p>
+ * Conversion of a column to a char index and back needs to scan a line unless
+ * line is known to contain only {@code ASCII} characters in which case all
+ * encodings are equal.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public enum PositionEncoding {
+
+	/** Character offsets count {@code UTF-8} code units, i.e. bytes. */
+	UTF8("utf-8"),
+
+	/** Character offsets count {@code UTF-16} code units, i.e. java chars. */
+	UTF16("utf-16"),
+
+	/** Character offsets count {@code UTF-32} code units, i.e. code points. */
+	UTF32("utf-32");
+
+	private final String value;
+
+	PositionEncoding(String value) {
+		this.value = value;
+	}
+
+	/**
+	 * Gets the value of an encoding as used in {@code LSP}.
+	 *
+	 * @return the encoding value
+	 */
+	public String getValue() {
+		return value;
+	}
+
+	/**
+	 * Gets a {@code PositionEncoding} by its {@code LSP} value, defaulting to
+	 * {@link #UTF16} if value is not known.
+	 *
+	 * @param value the encoding value
+	 * @return the position encoding
+	 */
+	public static PositionEncoding of(String value) {
+		for (PositionEncoding encoding : values()) {
+			if (encoding.value.equalsIgnoreCase(value)) {
+				return encoding;
+			}
+		}
+		return UTF16;
+	}
+
+	/**
+	 * Convert a column in this encoding into a char index relative to a start
+	 * of a line. Column pointing into a middle of a character is rounded down
+	 * and column past end of a line is extended as is.
+	 *
+	 * @param text the text
+	 * @param start the start index of a line
+	 * @param end the end index of a line
+	 * @param column the column in this encoding
+	 * @return the char index relative to a start
+	 */
+	public int toCharIndex(CharSequence text, int start, int end, int column) {
+		if (this == UTF16) {
+			return column;
+		}
+		int index = start;
+		int units = 0;
+		while (index < end && units < column) {
+			int codePoint = Character.codePointAt(text, index);
+			int count = units(codePoint);
+			if (units + count > column) {
+				return index - start;
+			}
+			units += count;
+			index += Character.charCount(codePoint);
+		}
+		return index - start + (column - units);
+	}
+
+	/**
+	 * Convert chars between given indexes into a column in this encoding.
+	 *
+	 * @param text the text
+	 * @param start the start index of a line
+	 * @param end the end index
+	 * @return the column in this encoding
+	 */
+	public int toColumn(CharSequence text, int start, int end) {
+		if (this == UTF16) {
+			return end - start;
+		}
+		int index = start;
+		int units = 0;
+		while (index < end) {
+			int codePoint = Character.codePointAt(text, index);
+			units += units(codePoint);
+			index += Character.charCount(codePoint);
+		}
+		return units;
+	}
+
+	/**
+	 * Checks if chars between given indexes are all {@code ASCII}.
+	 *
+	 * @param text the text
+	 * @param start the start index, inclusive
+	 * @param end the end index, exclusive
+	 * @return true, if all chars are {@code ASCII}
+	 */
+	public static boolean isAscii(CharSequence text, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (text.charAt(i) >= 0x80) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int units(int codePoint) {
+		switch (this) {
+		case UTF8:
+			return codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+		case UTF32:
+			return 1;
+		default:
+			return Character.charCount(codePoint);
+		}
+	}
+}
@@ -0,0 +1,618 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.document;
+
+/**
+ * Immutable {@link CharSequence} backed by a persistent height balanced binary
+ * tree of short string leaves.
+ * <p>
+ * Every modifying operation returns a new {@code Rope} sharing all untouched
+ * subtrees with its predecessor, so that edits, sub sequences and
+ * concatenations perform in <i>O(log n)</i> without copying the content.
+ * Nodes also keep track of line delimiters which makes a rope usable as its
+ * own line index. Line delimiters are the same as in
+ * {@link org.springframework.dsl.document.linetracker.DefaultLineTracker},
+ * that is {@code \r}, {@code \n} and {@code \r\n}.
+ * <p>
+ * A {@link String} is only created when {@link #toString()} or
+ * {@link #substring(int, int)} is called.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public final class Rope implements CharSequence {
+
+	/** Maximum number of characters kept in a single leaf. */
+	static final int MAX_LEAF = 512;
+
+	private static final Leaf EMPTY_LEAF = new Leaf("");
+
+	/** Empty rope. */
+	public static final Rope EMPTY = new Rope(EMPTY_LEAF);
+
+	private final Node root;
+
+	/**
+	 * Last leaf accessed via {@link #charAt(int)}. Sequential scans, like the
+	 * ones done by a {@link java.util.regex.Pattern}, hit this most of the time.
+	 */
+	private volatile Segment segment;
+
+	private Rope(Node root) {
+		this.root = root;
+	}
+
+	/**
+	 * Creates a {@code Rope} from a {@link CharSequence}.
+	 *
+	 * @param content the content
+	 * @return the rope
+	 */
+	public static Rope of(CharSequence content) {
+		if (content == null || content.length() == 0) {
+			return EMPTY;
+		}
+		if (content instanceof Rope) {
+			return (Rope) content;
+		}
+		return new Rope(build(content, 0, content.length()));
+	}
+
+	@Override
+	public int length() {
+		return root.length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= root.length) {
+			throw new IndexOutOfBoundsException("index=" + index + " length=" + root.length);
+		}
+		Segment s = segment;
+		if (s != null && index >= s.start && index < s.start + s.leaf.length) {
+			return s.leaf.text.charAt(index - s.start);
+		}
+		Node node = root;
+		int start = 0;
+		while (node instanceof Concat) {
+			Concat c = (Concat) node;
+			if (index - start < c.left.length) {
+				node = c.left;
+			} else {
+				start += c.left.length;
+				node = c.right;
+			}
+		}
+		Leaf leaf = (Leaf) node;
+		segment = new Segment(leaf, start);
+		return leaf.text.charAt(index - start);
+	}
+
+	@Override
+	public Rope subSequence(int start, int end) {
+		checkRange(start, end);
+		if (start == 0 && end == root.length) {
+			return this;
+		}
+		return new Rope(sub(root, start, end));
+	}
+
+	/**
+	 * Gets a {@link String} between given offsets.
+	 *
+	 * @param start the start offset, inclusive
+	 * @param end the end offset, exclusive
+	 * @return the string
+	 */
+	public String substring(int start, int end) {
+		checkRange(start, end);
+		StringBuilder buf = new StringBuilder(end - start);
+		append(root, start, end, buf);
+		return buf.toString();
+	}
+
+	/**
+	 * Copies characters between given offsets into a destination array.
+	 *
+	 * @param start the start offset, inclusive
+	 * @param end the end offset, exclusive
+	 * @param dst the destination array
+	 * @param dstBegin the start offset in the destination array
+	 */
+	public void getChars(int start, int end, char[] dst, int dstBegin) {
+		checkRange(start, end);
+		getChars(root, start, end, dst, dstBegin);
+	}
+
+	/**
+	 * Replace a region of this rope with a given text and return a new
+	 * {@code Rope}. This rope is left untouched.
+	 *
+	 * @param start the start offset, inclusive
+	 * @param end the end offset, exclusive
+	 * @param text the replacement text
+	 * @return the new rope
+	 */
+	public Rope replace(int start, int end, CharSequence text) {
+		checkRange(start, end);
+		Node replacement = text == null || text.length() == 0 ? EMPTY_LEAF
+				: text instanceof Rope ? ((Rope) text).root : build(text, 0, text.length());
+		Node node = join(join(sub(root, 0, start), replacement), sub(root, end, root.length));
+		return new Rope(node);
+	}
+
+	/**
+	 * Insert a text into a given offset and return a new {@code Rope}.
+	 *
+	 * @param offset the offset
+	 * @param text the text to insert
+	 * @return the new rope
+	 */
+	public Rope insert(int offset, CharSequence text) {
+		return replace(offset, offset, text);
+	}
+
+	/**
+	 * Delete a region and return a new {@code Rope}.
+	 *
+	 * @param start the start offset, inclusive
+	 * @param end the end offset, exclusive
+	 * @return the new rope
+	 */
+	public Rope delete(int start, int end) {
+		return replace(start, end, null);
+	}
+
+	/**
+	 * Append a text to the end of this rope and return a new {@code Rope}.
+	 *
+	 * @param text the text to append
+	 * @return the new rope
+	 */
+	public Rope append(CharSequence text) {
+		return replace(root.length, root.length, text);
+	}
+
+	/**
+	 * Gets the number of lines. A rope always has at least one line and a
+	 * trailing line delimiter starts a new empty line.
+	 *
+	 * @return the number of lines
+	 */
+	public int getNumberOfLines() {
+		return root.breaks + 1;
+	}
+
+	/**
+	 * Gets an offset of the first character of a line.
+	 *
+	 * @param line the line
+	 * @return the offset of the line
+	 * @throws BadLocationException if line is not in bounds
+	 */
+	public int getLineOffset(int line) {
+		if (line < 0 || line > root.breaks) {
+			throw new BadLocationException("Line not in bounds, line=" + line + " lines=" + getNumberOfLines());
+		}
+		return line == 0 ? 0 : delimiterEnd(root, line);
+	}
+
+	/**
+	 * Gets a length of a line including its line delimiter.
+	 *
+	 * @param line the line
+	 * @return the line length
+	 * @throws BadLocationException if line is not in bounds
+	 */
+	public int getLineLength(int line) {
+		int start = getLineOffset(line);
+		int end = line < root.breaks ? delimiterEnd(root, line + 1) : root.length;
+		return end - start;
+	}
+
+	/**
+	 * Gets a length of a line excluding its line delimiter.
+	 *
+	 * @param line the line
+	 * @return the line length without delimiter
+	 * @throws BadLocationException if line is not in bounds
+	 */
+	public int getPureLineLength(int line) {
+		String delimiter = getLineDelimiter(line);
+		return getLineLength(line) - (delimiter != null ? delimiter.length() : 0);
+	}
+
+	/**
+	 * Gets a line delimiter of a given line or {@code null} if line has no
+	 * delimiter, meaning it is the last line.
+	 *
+	 * @param line the line
+	 * @return the line delimiter or {@code null}
+	 * @throws BadLocationException if line is not in bounds
+	 */
+	public String getLineDelimiter(int line) {
+		if (line < 0 || line > root.breaks) {
+			throw new BadLocationException("Line not in bounds, line=" + line + " lines=" + getNumberOfLines());
+		}
+		if (line == root.breaks) {
+			return null;
+		}
+		int end = delimiterEnd(root, line + 1);
+		char c = charAt(end - 1);
+		if (c == '\n') {
+			return end > 1 && charAt(end - 2) == '\r' ? "\r\n" : "\n";
+		}
+		return "\r";
+	}
+
+	/**
+	 * Gets a line number where a given offset belongs to. Offset of a line
+	 * delimiter belongs to a line it is closing and offset equal to length of
+	 * a rope belongs to the last line.
+	 *
+	 * @param offset the offset
+	 * @return the line number
+	 * @throws BadLocationException if offset is not in bounds
+	 */
+	public int getLineOfOffset(int offset) {
+		if (offset < 0 || offset > root.length) {
+			throw new BadLocationException("Offset not in bounds, offset=" + offset + " length=" + root.length);
+		}
+		return delimitersBefore(root, offset);
+	}
+
+	/**
+	 * Checks if chars between given offsets are all {@code ASCII}. Subtrees
+	 * known to be {@code ASCII} are not scanned.
+	 *
+	 * @param start the start offset, inclusive
+	 * @param end the end offset, exclusive
+	 * @return true, if all chars are {@code ASCII}
+	 */
+	public boolean isAscii(int start, int end) {
+		checkRange(start, end);
+		return isAscii(root, start, end);
+	}
+
+	@Override
+	public String toString() {
+		return substring(0, root.length);
+	}
+
+	/**
+	 * Checks if content of this rope equals to content of a given
+	 * {@link CharSequence}.
+	 *
+	 * @param other the other char sequence
+	 * @return true, if content is equal
+	 */
+	public boolean contentEquals(CharSequence other) {
+		if (other == null || other.length() != root.length) {
+			return false;
+		}
+		if (other == this || (other instanceof Rope && ((Rope) other).root == root)) {
+			return true;
+		}
+		for (int i = 0; i < root.length; i++) {
+			if (charAt(i) != other.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets a height of an underlying tree, mostly for testing purposes.
+	 *
+	 * @return the height of the tree
+	 */
+	int height() {
+		return root.height;
+	}
+
+	private void checkRange(int start, int end) {
+		if (start < 0 || end > root.length || start > end) {
+			throw new IndexOutOfBoundsException("start=" + start + " end=" + end + " length=" + root.length);
+		}
+	}
+
+	/**
+	 * Builds a balanced tree from a char sequence by splitting it into leaves.
+	 */
+	private static Node build(CharSequence text, int start, int end) {
+		int len = end - start;
+		if (len <= MAX_LEAF) {
+			return new Leaf(text.subSequence(start, end).toString());
+		}
+		int leaves = (len + MAX_LEAF - 1) / MAX_LEAF;
+		int mid = start + (leaves / 2) * MAX_LEAF;
+		return new Concat(build(text, start, mid), build(text, mid, end));
+	}
+
+	private static Node sub(Node node, int start, int end) {
+		if (start == 0 && end == node.length) {
+			return node;
+		}
+		if (start >= end) {
+			return EMPTY_LEAF;
+		}
+		if (node instanceof Leaf) {
+			return new Leaf(((Leaf) node).text.substring(start, end));
+		}
+		Concat c = (Concat) node;
+		int ll = c.left.length;
+		if (end <= ll) {
+			return sub(c.left, start, end);
+		}
+		if (start >= ll) {
+			return sub(c.right, start - ll, end - ll);
+		}
+		return join(sub(c.left, start, ll), sub(c.right, 0, end - ll));
+	}
+
+	private static boolean isAscii(Node node, int start, int end) {
+		if (start >= end || node.ascii) {
+			return true;
+		}
+		if (node instanceof Leaf) {
+			return PositionEncoding.isAscii(((Leaf) node).text, start, end);
+		}
+		Concat c = (Concat) node;
+		int ll = c.left.length;
+		if (start < ll && !isAscii(c.left, start, Math.min(end, ll))) {
+			return false;
+		}
+		return end <= ll || isAscii(c.right, Math.max(start - ll, 0), end - ll);
+	}
+
+	private static void append(Node node, int start, int end, StringBuilder buf) {
+		if (start >= end) {
+			return;
+		}
+		if (node instanceof Leaf) {
+			buf.append(((Leaf) node).text, start, end);
+			return;
+		}
+		Concat c = (Concat) node;
+		int ll = c.left.length;
+		if (start < ll) {
+			append(c.left, start, Math.min(end, ll), buf);
+		}
+		if (end > ll) {
+			append(c.right, Math.max(start - ll, 0), end - ll, buf);
+		}
+	}
+
+	private static void getChars(Node node, int start, int end, char[] dst, int dstBegin) {
+		if (start >= end) {
+			return;
+		}
+		if (node instanceof Leaf) {
+			((Leaf) node).text.getChars(start, end, dst, dstBegin);
+			return;
+		}
+		Concat c = (Concat) node;
+		int ll = c.left.length;
+		if (start < ll) {
+			getChars(c.left, start, Math.min(end, ll), dst, dstBegin);
+		}
+		if (end > ll) {
+			int from = Math.max(start - ll, 0);
+			getChars(c.right, from, end - ll, dst, dstBegin + (from + ll - start));
+		}
+	}
+
+	/**
+	 * Joins two trees keeping the result height balanced. Adjacent short leaves
+	 * are merged so that typing doesn't fragment the tree into single
+	 * character leaves.
+	 */
+	private static Node join(Node a, Node b) {
+		if (a.length == 0) {
+			return b;
+		}
+		if (b.length == 0) {
+			return a;
+		}
+		if (a instanceof Leaf && b instanceof Leaf) {
+			if (a.length + b.length <= MAX_LEAF) {
+				return new Leaf(((Leaf) a).text + ((Leaf) b).text);
+			}
+			return new Concat(a, b);
+		}
+		if (a.height > b.height + 1 || (b instanceof Leaf && rightmost(a).length + b.length <= MAX_LEAF)) {
+			Concat c = (Concat) a;
+			return balance(c.left, join(c.right, b));
+		}
+		if (b.height > a.height + 1 || (a instanceof Leaf && leftmost(b).length + a.length <= MAX_LEAF)) {
+			Concat c = (Concat) b;
+			return balance(join(a, c.left), c.right);
+		}
+		return new Concat(a, b);
+	}
+
+	private static Node balance(Node l, Node r) {
+		int diff = l.height - r.height;
+		if (diff > 1) {
+			Concat c = (Concat) l;
+			if (c.left.height >= c.right.height) {
+				return new Concat(c.left, balance(c.right, r));
+			}
+			Concat cr = (Concat) c.right;
+			return new Concat(new Concat(c.left, cr.left), balance(cr.right, r));
+		}
+		if (diff < -1) {
+			Concat c = (Concat) r;
+			if (c.right.height >= c.left.height) {
+				return new Concat(balance(l, c.left), c.right);
+			}
+			Concat cl = (Concat) c.left;
+			return new Concat(balance(l, cl.left), new Concat(cl.right, c.right));
+		}
+		return new Concat(l, r);
+	}
+
+	private static Leaf rightmost(Node node) {
+		while (node instanceof Concat) {
+			node = ((Concat) node).right;
+		}
+		return (Leaf) node;
+	}
+
+	private static Leaf leftmost(Node node) {
+		while (node instanceof Concat) {
+			node = ((Concat) node).left;
+		}
+		return (Leaf) node;
+	}
+
+	/**
+	 * Returns {@code 1} if a {@code \r\n} delimiter is split between two
+	 * adjacent nodes, {@code 0} otherwise.
+	 */
+	private static int joint(Node left, Node right) {
+		return left.last == '\r' && right.first == '\n' ? 1 : 0;
+	}
+
+	/**
+	 * Gets a number of line delimiters ending at or before a given offset
+	 * which is the same as a line number of that offset.
+	 */
+	private static int delimitersBefore(Node node, int offset) {
+		int count = 0;
+		while (node instanceof Concat) {
+			Concat c = (Concat) node;
+			int ll = c.left.length;
+			int j = joint(c.left, c.right);
+			if (offset <= ll) {
+				// trailing '\r' of left is not a delimiter on its own if followed by '\n'
+				if (j == 1 && offset == ll) {
+					count--;
+				}
+				node = c.left;
+			} else {
+				count += c.left.breaks - j;
+				offset -= ll;
+				node = c.right;
+			}
+		}
+		String text = ((Leaf) node).text;
+		int len = text.length();
+		for (int i = 0; i < offset; i++) {
+			char ch = text.charAt(i);
+			if (ch == '\n' || (ch == '\r' && (i + 1 >= len || text.charAt(i + 1) != '\n'))) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Gets an exclusive end offset of a n'th line delimiter counting from
+	 * {@code 1}.
+	 */
+	private static int delimiterEnd(Node node, int n) {
+		int offset = 0;
+		while (node instanceof Concat) {
+			Concat c = (Concat) node;
+			int j = joint(c.left, c.right);
+			int before = c.left.breaks - j;
+			if (n <= before) {
+				node = c.left;
+			} else if (j == 1 && n == before + 1) {
+				return offset + c.left.length + 1;
+			} else {
+				n -= before;
+				offset += c.left.length;
+				node = c.right;
+			}
+		}
+		String text = ((Leaf) node).text;
+		int len = text.length();
+		for (int i = 0; i < len; i++) {
+			char ch = text.charAt(i);
+			if (ch == '\n' || (ch == '\r' && (i + 1 >= len || text.charAt(i + 1) != '\n'))) {
+				if (--n == 0) {
+					return offset + i + 1;
+				}
+			}
+		}
+		throw new IllegalStateException("Bug! Delimiter not found");
+	}
+
+	private static abstract class Node {
+		final int length;
+		final int breaks;
+		final int height;
+		final char first;
+		final char last;
+		final boolean ascii;
+
+		Node(int length, int breaks, int height, char first, char last, boolean ascii) {
+			this.length = length;
+			this.breaks = breaks;
+			this.height = height;
+			this.first = first;
+			this.last = last;
+			this.ascii = ascii;
+		}
+	}
+
+	private static final class Leaf extends Node {
+		final String text;
+
+		Leaf(String text) {
+			super(text.length(), countBreaks(text), 0, text.isEmpty() ? 0 : text.charAt(0),
+					text.isEmpty() ? 0 : text.charAt(text.length() - 1),
+					PositionEncoding.isAscii(text, 0, text.length()));
+			this.text = text;
+		}
+
+		private static int countBreaks(String text) {
+			int count = 0;
+			int len = text.length();
+			for (int i = 0; i < len; i++) {
+				char ch = text.charAt(i);
+				if (ch == '\n' || (ch == '\r' && (i + 1 >= len || text.charAt(i + 1) != '\n'))) {
+					count++;
+				}
+			}
+			return count;
+		}
+	}
+
+	private static final class Concat extends Node {
+		final Node left;
+		final Node right;
+
+		Concat(Node left, Node right) {
+			super(left.length + right.length, left.breaks + right.breaks - joint(left, right),
+					Math.max(left.height, right.height) + 1, left.first, right.last, left.ascii && right.ascii);
+			this.left = left;
+			this.right = right;
+		}
+	}
+
+	private static final class Segment {
+		final Leaf leaf;
+		final int start;
+
+		Segment(Leaf leaf, int start) {
+			this.leaf = leaf;
+			this.start = start;
+		}
+	}
+}
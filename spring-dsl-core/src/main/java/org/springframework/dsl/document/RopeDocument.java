@@ -0,0 +1,201 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.document;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dsl.domain.DidChangeTextDocumentParams;
+import org.springframework.dsl.domain.Position;
+import org.springframework.dsl.domain.Range;
+import org.springframework.dsl.model.LanguageId;
+
+/**
+ * {@link MutableDocument} implementation keeping its content in a
+ * {@link Rope}. As a rope keeps track of line delimiters, no separate line
+ * tracker is needed and changes are applied in <i>O(log n)</i>.
+ * <p>
+ * State is kept in a {@link DocumentSnapshot} which is replaced on every
+ * modification. Modifications are synchronized while reads delegate to a
+ * current snapshot, meaning a single read never sees a partially applied
+ * change and {@link #snapshot()} is a constant time operation.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class RopeDocument implements MutableDocument {
+
+	private static final Logger log = LoggerFactory.getLogger(RopeDocument.class);
+	private volatile DocumentSnapshot snapshot;
+
+	/**
+	 * Instantiates a new rope document.
+	 *
+	 * @param content the content
+	 */
+	public RopeDocument(String content) {
+		this(null, null, 0, content);
+	}
+
+	/**
+	 * Instantiates a new rope document.
+	 *
+	 * @param uri the uri
+	 * @param languageId the language id
+	 * @param version the version
+	 * @param content the content
+	 */
+	public RopeDocument(String uri, LanguageId languageId, int version, String content) {
+		this.snapshot = new DocumentSnapshot(uri, languageId, version, content);
+	}
+
+	@Override
+	public DocumentSnapshot snapshot() {
+		return snapshot;
+	}
+
+	@Override
+	public String uri() {
+		return snapshot.uri();
+	}
+
+	@Override
+	public LanguageId languageId() {
+		return snapshot.languageId();
+	}
+
+	@Override
+	public int getVersion() {
+		return snapshot.getVersion();
+	}
+
+	@Override
+	public String content() {
+		return snapshot.content();
+	}
+
+	@Override
+	public Rope contentView() {
+		return snapshot.contentView();
+	}
+
+	@Override
+	public int length() {
+		return snapshot.length();
+	}
+
+	@Override
+	public int lineCount() {
+		return snapshot.lineCount();
+	}
+
+	@Override
+	public int caret(Position position) {
+		return snapshot.caret(position);
+	}
+
+	@Override
+	public char charAt(int offset) {
+		return snapshot.charAt(offset);
+	}
+
+	@Override
+	public char charAtPosition(Position position) {
+		return snapshot.charAtPosition(position);
+	}
+
+	@Override
+	public String content(int start, int length) {
+		return snapshot.content(start, length);
+	}
+
+	@Override
+	public Position toPosition(int offset) {
+		return snapshot.toPosition(offset);
+	}
+
+	@Override
+	public int toOffset(Position position) {
+		return snapshot.toOffset(position);
+	}
+
+	@Override
+	public int toOffset(Position position, PositionEncoding encoding) {
+		return snapshot.toOffset(position, encoding);
+	}
+
+	@Override
+	public Position toPosition(int offset, PositionEncoding encoding) {
+		return snapshot.toPosition(offset, encoding);
+	}
+
+	@Override
+	public boolean isAscii(int line) {
+		return snapshot.isAscii(line);
+	}
+
+	@Override
+	public boolean positionInBounds(Position position) {
+		return snapshot.positionInBounds(position);
+	}
+
+	@Override
+	public String getDefaultLineDelimiter() {
+		return snapshot.getDefaultLineDelimiter();
+	}
+
+	@Override
+	public DocumentMetadata metadata() {
+		return snapshot.metadata();
+	}
+
+	@Override
+	public Position validatePosition(Position position) {
+		return snapshot.validatePosition(position);
+	}
+
+	@Override
+	public Range toRange(int offset, int length) {
+		return snapshot.toRange(offset, length);
+	}
+
+	@Override
+	public synchronized void setText(String content) {
+		this.snapshot = snapshot.withContent(snapshot.getVersion(), content);
+	}
+
+	@Override
+	public synchronized void replace(int start, int length, String text) {
+		this.snapshot = snapshot.replace(start, length, text);
+	}
+
+	@Override
+	public synchronized void apply(DidChangeTextDocumentParams params) {
+		int version = snapshot.getVersion();
+		int newVersion = params.getTextDocument().getVersion();
+		if (version < newVersion) {
+			log.trace("Number of changes {}", params.getContentChanges().size());
+			this.snapshot = snapshot.apply(newVersion, params.getContentChanges());
+		} else {
+			log.warn("Change event with bad version ignored, current {} new {}: {}", version, newVersion, params);
+		}
+	}
+
+	@Override
+	public String toString() {
+		DocumentSnapshot s = snapshot;
+		return "RopeDocument(uri=" + s.uri() + "[" + s.getVersion() + "],\n" + s.contentView() + "\n)";
+	}
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.document;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.dsl.domain.Position;
+import org.springframework.dsl.domain.Range;
+import org.springframework.dsl.model.LanguageId;
+
+/**
+ * Read-only {@link Document} giving a session its own view with its own
+ * version into a content shared via a {@link SharedDocumentStore}. All other
+ * operations delegate to a shared document.
+ *
+ * @author Janne Valkealahti
+ * @see SharedDocumentStore
+ *
+ */
+public final class SharedDocument implements Document {
+
+	private final Document document;
+	private final int version;
+	private final SharedDocumentStore.Key key;
+	private final AtomicBoolean released = new AtomicBoolean();
+	private DocumentMetadata metadata;
+
+	SharedDocument(Document document, int version, SharedDocumentStore.Key key) {
+		this.document = document;
+		this.version = version;
+		this.key = key;
+	}
+
+	/**
+	 * Gets the shared document this view delegates to. A same instance is
+	 * returned from all views having an identical content.
+	 *
+	 * @return the shared document
+	 */
+	public Document getDocument() {
+		return document;
+	}
+
+	@Override
+	public String uri() {
+		return document.uri();
+	}
+
+	@Override
+	public LanguageId languageId() {
+		return document.languageId();
+	}
+
+	@Override
+	public int getVersion() {
+		return version;
+	}
+
+	@Override
+	public String content() {
+		return document.content();
+	}
+
+	@Override
+	public CharSequence contentView() {
+		return document.contentView();
+	}
+
+	@Override
+	public int length() {
+		return document.length();
+	}
+
+	@Override
+	public int caret(Position position) {
+		return document.caret(position);
+	}
+
+	@Override
+	public int lineCount() {
+		return document.lineCount();
+	}
+
+	@Override
+	public char charAt(int offset) {
+		return document.charAt(offset);
+	}
+
+	@Override
+	public char charAtPosition(Position position) {
+		return document.charAtPosition(position);
+	}
+
+	@Override
+	public String content(int start, int length) {
+		return document.content(start, length);
+	}
+
+	@Override
+	public Position toPosition(int offset) {
+		return document.toPosition(offset);
+	}
+
+	@Override
+	public int toOffset(Position position) {
+		return document.toOffset(position);
+	}
+
+	@Override
+	public int toOffset(Position position, PositionEncoding encoding) {
+		return document.toOffset(position, encoding);
+	}
+
+	@Override
+	public Position toPosition(int offset, PositionEncoding encoding) {
+		return document.toPosition(offset, encoding);
+	}
+
+	@Override
+	public boolean isAscii(int line) {
+		return document.isAscii(line);
+	}
+
+	@Override
+	public boolean positionInBounds(Position position) {
+		return document.positionInBounds(position);
+	}
+
+	@Override
+	public String getDefaultLineDelimiter() {
+		return document.getDefaultLineDelimiter();
+	}
+
+	@Override
+	public DocumentMetadata metadata() {
+		DocumentMetadata m = metadata;
+		if (m == null) {
+			DocumentMetadata shared = document.metadata();
+			m = new DocumentMetadata(version, shared.getLength(), shared.getLineCount(), shared.getMaxLineLength(),
+					shared.isAscii(), shared.getLineDelimiter());
+			metadata = m;
+		}
+		return m;
+	}
+
+	@Override
+	public Position validatePosition(Position position) {
+		return document.validatePosition(position);
+	}
+
+	@Override
+	public Range toRange(int offset, int length) {
+		return document.toRange(offset, length);
+	}
+
+	@Override
+	public String toString() {
+		return "SharedDocument(uri=" + uri() + "[" + version + "])";
+	}
+
+	SharedDocumentStore.Key getKey() {
+		return key;
+	}
+
+	boolean release() {
+		return released.compareAndSet(false, true);
+	}
+}
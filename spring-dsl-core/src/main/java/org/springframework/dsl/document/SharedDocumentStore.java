@@ -0,0 +1,167 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.document;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.dsl.model.LanguageId;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Server wide store of immutable documents keyed by an uri and a hash of a
+ * content, allowing multiple sessions having a same document open to share a
+ * single copy of it. Sessions get {@link SharedDocument} views keeping their
+ * own versions, while every view with an identical content delegates to a same
+ * {@link DocumentSnapshot}.
+ * <p>
+ * Shared documents are reference counted and dropped from a store when a
+ * last view is released.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class SharedDocumentStore {
+
+	private final Map<Key, Entry> documents = new HashMap<>();
+
+	/**
+	 * Acquire a view into a shared document having a given content, creating a
+	 * shared document if it doesn't exist.
+	 *
+	 * @param uri the uri
+	 * @param languageId the language id
+	 * @param version the version of a view
+	 * @param content the content
+	 * @return the shared document view
+	 */
+	public SharedDocument acquire(String uri, LanguageId languageId, int version, String content) {
+		Assert.notNull(content, "content must be set");
+		Key key = new Key(uri, content);
+		synchronized (documents) {
+			Entry entry = documents.get(key);
+			if (entry == null) {
+				entry = new Entry(new DocumentSnapshot(uri, languageId, 0, content));
+				documents.put(key, entry);
+			} else if (!ObjectUtils.nullSafeEquals(languageId, entry.document.languageId())
+					|| !content.contentEquals(entry.document.contentView())) {
+				// hash collision or other language, not shared
+				return new SharedDocument(new DocumentSnapshot(uri, languageId, 0, content), version, null);
+			}
+			entry.references++;
+			return new SharedDocument(entry.document, version, key);
+		}
+	}
+
+	/**
+	 * Release a view acquired from this store. Releasing a same view more than
+	 * once has no effect.
+	 *
+	 * @param document the shared document view
+	 */
+	public void release(SharedDocument document) {
+		Assert.notNull(document, "document must be set");
+		if (document.getKey() == null || !document.release()) {
+			return;
+		}
+		synchronized (documents) {
+			Entry entry = documents.get(document.getKey());
+			if (entry != null && entry.document == document.getDocument() && --entry.references <= 0) {
+				documents.remove(document.getKey());
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of shared documents.
+	 *
+	 * @return the number of shared documents
+	 */
+	public int getDocumentCount() {
+		synchronized (documents) {
+			return documents.size();
+		}
+	}
+
+	/**
+	 * Gets the number of references to a shared document with a given content.
+	 *
+	 * @param uri the uri
+	 * @param content the content
+	 * @return the number of references
+	 */
+	public int getReferenceCount(String uri, String content) {
+		synchronized (documents) {
+			Entry entry = documents.get(new Key(uri, content));
+			return entry != null ? entry.references : 0;
+		}
+	}
+
+	private static class Entry {
+
+		final DocumentSnapshot document;
+		int references;
+
+		Entry(DocumentSnapshot document) {
+			this.document = document;
+		}
+	}
+
+	static class Key {
+
+		private final String uri;
+		private final int hash;
+		private final int length;
+
+		Key(String uri, String content) {
+			this.uri = uri;
+			this.hash = content.hashCode();
+			this.length = content.length();
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + ((uri == null) ? 0 : uri.hashCode());
+			result = prime * result + hash;
+			result = prime * result + length;
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			Key other = (Key) obj;
+			if (uri == null) {
+				if (other.uri != null)
+					return false;
+			} else if (!uri.equals(other.uri))
+				return false;
+			if (hash != other.hash)
+				return false;
+			if (length != other.length)
+				return false;
+			return true;
+		}
+	}
+}
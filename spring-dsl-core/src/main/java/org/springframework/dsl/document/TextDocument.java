@@ -15,8 +15,8 @@
  */
 package org.springframework.dsl.document;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,6 +29,7 @@ import org.springframework.dsl.domain.Range;
 import org.springframework.dsl.domain.TextDocumentContentChangeEvent;
 import org.springframework.dsl.domain.TextDocumentIdentifier;
 import org.springframework.dsl.model.LanguageId;
+import org.springframework.util.Assert;
 
 import javolution.text.Text;
 
@@ -40,10 +41,9 @@ import javolution.text.Text;
  * @author Janne Valkealahti
  *
  */
-public class TextDocument implements Document {
+public class TextDocument implements MutableDocument {
 
 	private static final Logger log = LoggerFactory.getLogger(TextDocument.class);
-	private static final Pattern NEWLINE = Pattern.compile("\\r(\\n)?|\\n");
 
 	//TODO: should try to avoid haveing any methods returning String
 	//      This defeats the point of using javaolution.Text (i.e. converion into
@@ -55,11 +55,21 @@ public class TextDocument implements Document {
 	//      - representing a read-only snapshot of the document contents.
 	//      - replace line tracker with something better.
 
-	private LineTracker lineTracker = new DefaultLineTracker();
+	private final Supplier<LineTracker> lineTrackerSupplier;
+	private final LineTracker lineTracker;
 	private final LanguageId languageId;
 	private final String uri;
 	private Text text = new Text("");
 	private int version;
+	// rope mirroring text, created lazily when first snapshot is requested
+	private Rope rope;
+	private DocumentSnapshot snapshot;
+	// state behind metadata, computed when first requested and from that
+	// point onwards updated on every change, -1 when not known
+	private int nonAsciiCount = -1;
+	private int maxLineLength = -1;
+	private int maxLineLengthCount;
+	private DocumentMetadata metadata;
 
 	public TextDocument(String content) {
 		this(null, null, 0, content);
@@ -70,6 +80,25 @@ public class TextDocument implements Document {
 	}
 
 	public TextDocument(String uri, LanguageId languageId, int version, String text) {
+		this(uri, languageId, version, text, DefaultLineTracker::new);
+	}
+
+	/**
+	 * Instantiates a new text document using a {@link LineTracker} from a given
+	 * supplier, i.e. {@code ArrayLineTracker::new} for a tracker with a more
+	 * compact memory footprint.
+	 *
+	 * @param uri the uri
+	 * @param languageId the language id
+	 * @param version the version
+	 * @param text the text
+	 * @param lineTrackerSupplier the line tracker supplier
+	 */
+	public TextDocument(String uri, LanguageId languageId, int version, String text,
+			Supplier<LineTracker> lineTrackerSupplier) {
+		Assert.notNull(lineTrackerSupplier, "lineTrackerSupplier must be set");
+		this.lineTrackerSupplier = lineTrackerSupplier;
+		this.lineTracker = lineTrackerSupplier.get();
 		this.uri = uri;
 		this.languageId = languageId;
 		this.version = version;
@@ -80,6 +109,8 @@ public class TextDocument implements Document {
 		this.uri = other.uri;
 		this.languageId = other.languageId();
 		this.text = other.text;
+		this.lineTrackerSupplier = other.lineTrackerSupplier;
+		this.lineTracker = lineTrackerSupplier.get();
 		this.lineTracker.set(text.toString());
 		this.version = other.version;
 	}
@@ -104,6 +135,11 @@ public class TextDocument implements Document {
 		return getText().toString();
 	}
 
+	@Override
+	public CharSequence contentView() {
+		return getText();
+	}
+
 	@Override
 	public int caret(Position position) {
 		return lineTracker.getLineOffset(position.getLine()) + position.getCharacter();
@@ -124,19 +160,33 @@ public class TextDocument implements Document {
 		return text;
 	}
 
+	@Override
 	public synchronized void setText(String content) {
 		this.text = new Text(content);
 		this.lineTracker.set(content);
+		this.rope = null;
+		this.snapshot = null;
+		this.nonAsciiCount = -1;
+		this.maxLineLength = -1;
+		this.metadata = null;
 	}
 
+	@Override
 	public synchronized void apply(DidChangeTextDocumentParams params) {
 		int newVersion = params.getTextDocument().getVersion();
 		if (version < newVersion) {
 			log.trace("Number of changes {}", params.getContentChanges().size());
-			for (TextDocumentContentChangeEvent change : params.getContentChanges()) {
-				apply(change);
+			List<DocumentChanges.Edit> edits = DocumentChanges.plan(this, params.getContentChanges());
+			if (edits != null) {
+				apply(edits);
+			} else {
+				for (TextDocumentContentChangeEvent change : params.getContentChanges()) {
+					apply(change);
+				}
 			}
 			this.version = newVersion;
+			this.snapshot = null;
+			this.metadata = null;
 		} else {
 			log.warn("Change event with bad version ignored, current {} new {}: {}", version, newVersion, params);
 		}
@@ -193,11 +243,34 @@ public class TextDocument implements Document {
 
 	@Override
 	public String getDefaultLineDelimiter() {
-		Matcher newlineFinder = NEWLINE.matcher(text);
-		if (newlineFinder.find()) {
-			return text.subtext(newlineFinder.start(), newlineFinder.end()).toString();
+		String delimiter = metadata().getLineDelimiter();
+		return delimiter != null ? delimiter : System.getProperty("line.separator");
+	}
+
+	/**
+	 * Gets a {@link DocumentMetadata} for a current version. Metadata is computed
+	 * on a first call and from that point onwards updated incrementally by
+	 * looking only lines touched by a change.
+	 *
+	 * @return the document metadata
+	 */
+	@Override
+	public synchronized DocumentMetadata metadata() {
+		if (metadata == null) {
+			if (nonAsciiCount < 0) {
+				nonAsciiCount = countNonAscii(text, 0, text.length());
+			}
+			if (maxLineLength < 0) {
+				maxLineLengthCount = 0;
+				for (int line = 0; line < lineTracker.getNumberOfLines(); line++) {
+					addLineLength(lineTracker.getLineInformation(line).getLength());
+				}
+			}
+			int lines = lineTracker.getNumberOfLines();
+			metadata = new DocumentMetadata(version, text.length(), lines, maxLineLength, nonAsciiCount == 0,
+					lines > 1 ? lineTracker.getLineDelimiter(0) : null);
 		}
-		return System.getProperty("line.separator");
+		return metadata;
 	}
 
 	@Override
@@ -226,6 +299,15 @@ public class TextDocument implements Document {
 		return lineStart + position.getCharacter();
 	}
 
+	@Override
+	public boolean isAscii(int line) {
+		try {
+			return lineTracker.isAsciiLine(line);
+		} catch (BadLocationException e) {
+			return false;
+		}
+	}
+
 	@Override
 	public Position validatePosition(Position position) {
 		int adjustedLineCount = Math.min(position.getLine(), lineTracker.getNumberOfLines());
@@ -251,12 +333,29 @@ public class TextDocument implements Document {
 		return lineTracker.getLineOffset(line);
 	}
 
+	@Override
 	public synchronized void replace(int start, int len, String ins) {
-		int end = start+len;
-		text = text
-			.delete(start, end)
-			.insert(start, new Text(ins));
-		lineTracker.replace(start, len, ins);
+		replaceInternal(start, start+len, ins);
+		snapshot = null;
+	}
+
+	/**
+	 * Gets a {@link DocumentSnapshot} of this document. Snapshot is backed by a
+	 * {@link Rope} which is created on a first call and from that point
+	 * onwards kept in sync with modifications, so subsequent snapshots share
+	 * structure with previous ones.
+	 *
+	 * @return the document snapshot
+	 */
+	@Override
+	public synchronized DocumentSnapshot snapshot() {
+		if (snapshot == null) {
+			if (rope == null) {
+				rope = Rope.of(text);
+			}
+			snapshot = new DocumentSnapshot(uri, languageId, version, rope);
+		}
+		return snapshot;
 	}
 
 	public synchronized TextDocument copy() {
@@ -274,8 +373,84 @@ public class TextDocument implements Document {
 		return null;
 	}
 
+	/**
+	 * Apply non-overlapping edits resolved against a current content. Edits are
+	 * applied from the last to the first so that offsets of edits not yet
+	 * applied stay valid.
+	 *
+	 * @param edits the edits sorted by ascending offset
+	 */
+	private void apply(List<DocumentChanges.Edit> edits) {
+		for (int i = edits.size() - 1; i >= 0; i--) {
+			DocumentChanges.Edit edit = edits.get(i);
+			replaceInternal(edit.start, edit.end, edit.text);
+		}
+		snapshot = null;
+	}
+
+	private void replaceInternal(int start, int end, String ins) {
+		if (nonAsciiCount >= 0) {
+			nonAsciiCount += countNonAscii(ins, 0, ins.length()) - countNonAscii(text, start, end);
+		}
+		// lines around a change are included as a change may join or split
+		// a delimiter at its boundaries
+		int firstLine = 0;
+		int lastLine = -1;
+		int lines = lineTracker.getNumberOfLines();
+		if (maxLineLength >= 0) {
+			firstLine = Math.max(lineTracker.getLineNumberOfOffset(start) - 1, 0);
+			lastLine = Math.min(lineTracker.getLineNumberOfOffset(end) + 1, lines - 1);
+			for (int line = firstLine; line <= lastLine; line++) {
+				if (lineTracker.getLineInformation(line).getLength() == maxLineLength) {
+					maxLineLengthCount--;
+				}
+			}
+		}
+
+		text = text
+			.delete(start, end)
+			.insert(start, new Text(ins));
+		lineTracker.replace(start, end - start, ins);
+		if (rope != null) {
+			rope = rope.replace(start, end, ins);
+		}
+		metadata = null;
+
+		if (maxLineLength >= 0) {
+			lastLine += lineTracker.getNumberOfLines() - lines;
+			for (int line = firstLine; line <= lastLine; line++) {
+				addLineLength(lineTracker.getLineInformation(line).getLength());
+			}
+			if (maxLineLengthCount == 0) {
+				// longest line is gone, find a new one when needed
+				maxLineLength = -1;
+			}
+		}
+	}
+
+	private void addLineLength(int length) {
+		if (length > maxLineLength) {
+			maxLineLength = length;
+			maxLineLengthCount = 1;
+		} else if (length == maxLineLength) {
+			maxLineLengthCount++;
+		}
+	}
+
+	private static int countNonAscii(CharSequence chars, int start, int end) {
+		int count = 0;
+		for (int i = start; i < end; i++) {
+			if (chars.charAt(i) > 0x7f) {
+				count++;
+			}
+		}
+		return count;
+	}
+
 	private void apply(TextDocumentContentChangeEvent change) {
-		log.trace("Old content before apply is '{}'", content());
+		if (log.isTraceEnabled()) {
+			log.trace("Old content before apply is '{}'", content());
+		}
 		Range range = change.getRange();
 		if (range == null) {
 			//full sync mode
@@ -285,7 +460,9 @@ public class TextDocument implements Document {
 			int end = toOffset(range.getEnd());
 			replace(start, end-start, change.getText());
 		}
-		log.trace("New content after apply is '{}'", content());
+		if (log.isTraceEnabled()) {
+			log.trace("New content after apply is '{}'", content());
+		}
 	}
 
 	private int startOfLine(int line) {
@@ -94,27 +94,31 @@ public abstract class AbstractLineTracker implements LineTracker/*, LineTrackerE
 	/**
 	 * The implementation that this tracker delegates to.
 	 */
-	private LineTracker delegate= new ListLineTracker() {
-		@Override
-		public String[] getLegalLineDelimiters() {
-			return AbstractLineTracker.this.getLegalLineDelimiters();
-		}
-
-		@Override
-		protected DelimiterInfo nextDelimiterInfo(String text, int offset) {
-			return AbstractLineTracker.this.nextDelimiterInfo(text, offset);
-		}
-	};
+	private LineTracker delegate;
 
 	/**
 	 * Whether the delegate needs conversion when the line structure is modified.
 	 */
-	private boolean needsConversion= true;
+	private boolean needsConversion;
 
 	/**
-	 * Creates a new line tracker.
+	 * Creates a new line tracker keeping lines in a {@link TreeLineTracker}.
 	 */
 	protected AbstractLineTracker() {
+		this(true);
+	}
+
+	/**
+	 * Creates a new line tracker. In a tree mode lines are always kept in a
+	 * {@link TreeLineTracker} which is built directly on {@link #set(String)}.
+	 * Otherwise lines are kept in a {@link ListLineTracker} which is converted
+	 * into a {@link TreeLineTracker} on a first modification.
+	 *
+	 * @param tree the flag to use a tree mode
+	 */
+	protected AbstractLineTracker(boolean tree) {
+		this.needsConversion = !tree;
+		this.delegate = tree ? createTreeLineTracker() : createListLineTracker();
 	}
 
 	@Override
@@ -167,6 +171,11 @@ public abstract class AbstractLineTracker implements LineTracker/*, LineTrackerE
 		return delegate.getNumberOfLines(offset, length);
 	}
 
+	@Override
+	public boolean isAsciiLine(int line) {
+		return delegate.isAsciiLine(line);
+	}
+
 	@Override
 	public void set(String text) {
 		delegate.set(text);
@@ -175,7 +184,47 @@ public abstract class AbstractLineTracker implements LineTracker/*, LineTrackerE
 	@Override
 	public void replace(int offset, int length, String text) throws BadLocationException {
 		checkImplementation();
-		delegate.replace(offset, length, text);
+		// delimiters touching a replaced region may get joined or split, i.e.
+		// '\r' followed by inserted '\n' becomes '\r\n', so expand a region
+		// over those delimiters to get them scanned again with the new text.
+		int start = offset;
+		int end = offset + length;
+		String prefix = null;
+		String suffix = null;
+		if (start > 0) {
+			int line = delegate.getLineNumberOfOffset(start - 1);
+			String delimiter = delegate.getLineDelimiter(line);
+			if (delimiter != null) {
+				int delimiterStart = delegate.getLineOffset(line) + delegate.getLineLength(line) - delimiter.length();
+				if (start - 1 >= delimiterStart) {
+					prefix = delimiter.substring(0, start - delimiterStart);
+					start = delimiterStart;
+				}
+			}
+		}
+		int line = delegate.getLineNumberOfOffset(end);
+		String delimiter = delegate.getLineDelimiter(line);
+		if (delimiter != null) {
+			int delimiterEnd = delegate.getLineOffset(line) + delegate.getLineLength(line);
+			if (end >= delimiterEnd - delimiter.length() && end < delimiterEnd) {
+				suffix = delimiter.substring(delimiter.length() - (delimiterEnd - end));
+				end = delimiterEnd;
+			}
+		}
+		if (prefix != null || suffix != null) {
+			StringBuilder buf = new StringBuilder();
+			if (prefix != null) {
+				buf.append(prefix);
+			}
+			if (text != null) {
+				buf.append(text);
+			}
+			if (suffix != null) {
+				buf.append(suffix);
+			}
+			text = buf.toString();
+		}
+		delegate.replace(start, end - start, text);
 	}
 
 	/**
@@ -198,6 +247,34 @@ public abstract class AbstractLineTracker implements LineTracker/*, LineTrackerE
 		}
 	}
 
+	private LineTracker createListLineTracker() {
+		return new ListLineTracker() {
+			@Override
+			public String[] getLegalLineDelimiters() {
+				return AbstractLineTracker.this.getLegalLineDelimiters();
+			}
+
+			@Override
+			protected DelimiterInfo nextDelimiterInfo(String text, int offset) {
+				return AbstractLineTracker.this.nextDelimiterInfo(text, offset);
+			}
+		};
+	}
+
+	private LineTracker createTreeLineTracker() {
+		return new TreeLineTracker() {
+			@Override
+			public String[] getLegalLineDelimiters() {
+				return AbstractLineTracker.this.getLegalLineDelimiters();
+			}
+
+			@Override
+			protected DelimiterInfo nextDelimiterInfo(String text, int offset) {
+				return AbstractLineTracker.this.nextDelimiterInfo(text, offset);
+			}
+		};
+	}
+
 	/**
 	 * Returns the information about the first delimiter found in the given text starting at the
 	 * given offset.
@@ -0,0 +1,330 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.document.linetracker;
+
+import java.util.Arrays;
+
+import org.springframework.dsl.document.BadLocationException;
+import org.springframework.dsl.document.PositionEncoding;
+
+/**
+ * {@link LineTracker} keeping line start offsets in a growable {@code int}
+ * array and line delimiters in a side {@code byte} array instead of having an
+ * object per line. The line tracker considers the three common line delimiters
+ * which are '\n', '\r', '\r\n'.
+ * <p>
+ * Arrays work as a gap buffer where a gap is moved to a location of a
+ * modification. Offsets before a gap are absolute while offsets after a gap
+ * are kept relative to the end of a text, thus a modification only needs to
+ * move entries between a previous and a current modification and to change
+ * entries of modified lines. Lines of an offset are found using a binary
+ * search.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class ArrayLineTracker implements LineTracker {
+
+	private static final int NONE = 0;
+	private static final int CR = 1;
+	private static final int LF = 2;
+	private static final int CRLF = 3;
+	private static final int DELIMITER_MASK = 0x3;
+	private static final int NON_ASCII = 0x4;
+	private static final String[] DELIMITER_STRINGS = { null, "\r", "\n", "\r\n" };
+	private static final int MIN_CAPACITY = 16;
+
+	// line starts, before a gap absolute and after a gap relative to text end
+	private int[] starts;
+	// delimiter code and non-ascii flag of a line
+	private byte[] flags;
+	private int gapStart;
+	private int gapEnd;
+	private int textLength;
+
+	/**
+	 * Instantiates a new array line tracker.
+	 */
+	public ArrayLineTracker() {
+		set("");
+	}
+
+	@Override
+	public String[] getLegalLineDelimiters() {
+		return Arrays.copyOf(DefaultLineTracker.DELIMITERS, DefaultLineTracker.DELIMITERS.length);
+	}
+
+	@Override
+	public String getLineDelimiter(int line) throws BadLocationException {
+		checkLine(line);
+		return DELIMITER_STRINGS[delimiter(line)];
+	}
+
+	@Override
+	public int computeNumberOfLines(String text) {
+		int count = 0;
+		int length = text.length();
+		for (int i = 0; i < length; i++) {
+			char c = text.charAt(i);
+			if (c == '\n' || (c == '\r' && (i + 1 == length || text.charAt(i + 1) != '\n'))) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public int getNumberOfLines() {
+		return starts.length - (gapEnd - gapStart);
+	}
+
+	@Override
+	public int getNumberOfLines(int offset, int length) throws BadLocationException {
+		if (offset < 0 || offset + length > textLength) {
+			throw new BadLocationException("Position not in bounds");
+		}
+		if (length == 0) {
+			return 1;
+		}
+		return getLineNumberOfOffset(offset + length) - getLineNumberOfOffset(offset) + 1;
+	}
+
+	@Override
+	public int getLineOffset(int line) throws BadLocationException {
+		checkLine(line);
+		return start(line);
+	}
+
+	@Override
+	public int getLineLength(int line) throws BadLocationException {
+		checkLine(line);
+		return end(line) - start(line);
+	}
+
+	@Override
+	public int getLineNumberOfOffset(int offset) throws BadLocationException {
+		if (offset < 0 || offset > textLength) {
+			throw new BadLocationException("Offset location not in bounds");
+		}
+		int low = 0;
+		int high = getNumberOfLines() - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (start(mid) <= offset) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	@Override
+	public Region getLineInformationOfOffset(int offset) throws BadLocationException {
+		return getLineInformation(getLineNumberOfOffset(offset));
+	}
+
+	@Override
+	public Region getLineInformation(int line) throws BadLocationException {
+		checkLine(line);
+		int start = start(line);
+		int delimiter = delimiter(line);
+		return new DefaultRegion(start, end(line) - start - (delimiter == CRLF ? 2 : delimiter == NONE ? 0 : 1));
+	}
+
+	@Override
+	public boolean isAsciiLine(int line) {
+		checkLine(line);
+		return (flags[index(line)] & NON_ASCII) == 0;
+	}
+
+	@Override
+	public void set(String text) {
+		if (text == null) {
+			text = "";
+		}
+		int capacity = Math.max(MIN_CAPACITY, computeNumberOfLines(text) + 1);
+		starts = new int[capacity];
+		flags = new byte[capacity];
+		gapStart = 0;
+		gapEnd = capacity;
+		textLength = text.length();
+		insertLines(text, 0, 0, NONE, true, true);
+	}
+
+	@Override
+	public void replace(int offset, int length, String text) throws BadLocationException {
+		if (offset < 0 || length < 0 || offset + length > textLength) {
+			throw new BadLocationException("Region not in bounds, offset=" + offset + " length=" + length);
+		}
+		if (text == null) {
+			text = "";
+		}
+
+		// delimiters touching a replaced region may get joined or split, i.e.
+		// '\r' followed by inserted '\n' becomes '\r\n', so expand a region
+		// over those delimiters to get them scanned again with the new text.
+		int start = offset;
+		int end = offset + length;
+		String prefix = null;
+		String suffix = null;
+		if (start > 0) {
+			int line = getLineNumberOfOffset(start - 1);
+			int delimiter = delimiter(line);
+			if (delimiter != NONE) {
+				int delimiterStart = end(line) - DELIMITER_STRINGS[delimiter].length();
+				if (start - 1 >= delimiterStart) {
+					prefix = DELIMITER_STRINGS[delimiter].substring(0, start - delimiterStart);
+					start = delimiterStart;
+				}
+			}
+		}
+		int line = getLineNumberOfOffset(end);
+		int delimiter = delimiter(line);
+		if (delimiter != NONE) {
+			int delimiterEnd = end(line);
+			int delimiterLength = DELIMITER_STRINGS[delimiter].length();
+			if (end >= delimiterEnd - delimiterLength && end < delimiterEnd) {
+				suffix = DELIMITER_STRINGS[delimiter].substring(delimiterLength - (delimiterEnd - end));
+				end = delimiterEnd;
+			}
+		}
+		if (prefix != null || suffix != null) {
+			text = (prefix != null ? prefix : "") + text + (suffix != null ? suffix : "");
+		}
+
+		// replace lines from a first to a last modified line with lines
+		// scanned from a new text, old lines after a gap are kept relative
+		// to a text end and thus don't need to be updated
+		int firstLine = getLineNumberOfOffset(start);
+		int lastLine = getLineNumberOfOffset(end);
+		int firstStart = start(firstLine);
+		int lastDelimiter = delimiter(lastLine);
+		boolean firstAscii = isAsciiLine(firstLine);
+		boolean lastAscii = isAsciiLine(lastLine);
+		moveGap(firstLine);
+		gapEnd += lastLine - firstLine + 1;
+		textLength += text.length() - (end - start);
+		insertLines(text, start, firstStart, lastDelimiter, firstAscii, lastAscii);
+	}
+
+	/**
+	 * Insert lines into a gap. A first line starts from a given offset and
+	 * continues with a given text, new lines start after delimiters found from
+	 * a text and a last line ends with a given delimiter.
+	 *
+	 * @param text the text
+	 * @param textOffset the offset of a text
+	 * @param firstStart the start offset of a first line
+	 * @param lastDelimiter the delimiter of a last line
+	 * @param firstAscii the flag if a part of a first line before a text is ascii
+	 * @param lastAscii the flag if a part of a last line after a text is ascii
+	 */
+	private void insertLines(String text, int textOffset, int firstStart, int lastDelimiter, boolean firstAscii,
+			boolean lastAscii) {
+		int length = text.length();
+		int lineStart = firstStart;
+		int segmentStart = 0;
+		boolean ascii = firstAscii;
+		int i = 0;
+		while (i < length) {
+			char c = text.charAt(i++);
+			int delimiter;
+			if (c == '\n') {
+				delimiter = LF;
+			} else if (c == '\r') {
+				if (i < length && text.charAt(i) == '\n') {
+					delimiter = CRLF;
+					i++;
+				} else {
+					delimiter = CR;
+				}
+			} else {
+				continue;
+			}
+			addLine(lineStart, delimiter, ascii && PositionEncoding.isAscii(text, segmentStart, i));
+			lineStart = textOffset + i;
+			segmentStart = i;
+			ascii = true;
+		}
+		addLine(lineStart, lastDelimiter, ascii && lastAscii && PositionEncoding.isAscii(text, segmentStart, length));
+	}
+
+	private void addLine(int start, int delimiter, boolean ascii) {
+		if (gapStart == gapEnd) {
+			grow();
+		}
+		starts[gapStart] = start;
+		flags[gapStart] = (byte) (delimiter | (ascii ? 0 : NON_ASCII));
+		gapStart++;
+	}
+
+	/**
+	 * Move gap to start from a given line. Entries moved over a gap are
+	 * converted between absolute and relative offsets.
+	 *
+	 * @param line the line
+	 */
+	private void moveGap(int line) {
+		while (gapStart > line) {
+			gapStart--;
+			gapEnd--;
+			starts[gapEnd] = textLength - starts[gapStart];
+			flags[gapEnd] = flags[gapStart];
+		}
+		while (gapStart < line) {
+			starts[gapStart] = textLength - starts[gapEnd];
+			flags[gapStart] = flags[gapEnd];
+			gapStart++;
+			gapEnd++;
+		}
+	}
+
+	private void grow() {
+		int capacity = starts.length;
+		int newCapacity = Math.max(MIN_CAPACITY, capacity + (capacity >> 1));
+		int tail = capacity - gapEnd;
+		int[] newStarts = Arrays.copyOf(starts, newCapacity);
+		byte[] newFlags = Arrays.copyOf(flags, newCapacity);
+		System.arraycopy(starts, gapEnd, newStarts, newCapacity - tail, tail);
+		System.arraycopy(flags, gapEnd, newFlags, newCapacity - tail, tail);
+		starts = newStarts;
+		flags = newFlags;
+		gapEnd = newCapacity - tail;
+	}
+
+	private void checkLine(int line) {
+		if (line < 0 || line >= getNumberOfLines()) {
+			throw new BadLocationException("Line not in bounds");
+		}
+	}
+
+	private int index(int line) {
+		return line < gapStart ? line : line + gapEnd - gapStart;
+	}
+
+	private int delimiter(int line) {
+		return flags[index(line)] & DELIMITER_MASK;
+	}
+
+	private int start(int line) {
+		return line < gapStart ? starts[line] : textLength - starts[line + gapEnd - gapStart];
+	}
+
+	private int end(int line) {
+		return line + 1 < getNumberOfLines() ? start(line + 1) : textLength;
+	}
+}
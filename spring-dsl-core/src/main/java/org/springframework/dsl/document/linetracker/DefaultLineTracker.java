@@ -41,6 +41,17 @@ public class DefaultLineTracker extends AbstractLineTracker {
 	public DefaultLineTracker() {
 	}
 
+	/**
+	 * Creates a standard line tracker either in a tree mode or in a mode where
+	 * list based tracker is converted to tree based tracker on a first
+	 * modification.
+	 *
+	 * @param tree the flag to use a tree mode
+	 */
+	public DefaultLineTracker(boolean tree) {
+		super(tree);
+	}
+
 	@Override
 	public String[] getLegalLineDelimiters() {
 		return Arrays.copyOf(DELIMITERS, DELIMITERS.length);
@@ -29,6 +29,7 @@ final class Line implements Region {
 	public final String delimiter;
 	public int offset;
 	public int length;
+	public boolean ascii = true;
 
 	/**
 	 * Creates a new Line.
@@ -120,6 +120,22 @@ public interface LineTracker {
 	 */
 	Region getLineInformation(int line);
 
+	/**
+	 * Checks if a given line is known to contain only {@code ASCII} characters.
+	 * Trackers keep this information conservatively, meaning {@code false}
+	 * tells that a line may contain other characters.
+	 * <p>
+	 * Default implementation returns {@code false} as a tracker does not
+	 * have access to a tracked text, thus callers fall back to inspecting
+	 * text of a line.
+	 *
+	 * @param line the line
+	 * @return true, if line is known to contain only {@code ASCII} characters
+	 */
+	default boolean isAsciiLine(int line) {
+		return false;
+	}
+
 	/**
 	 * Informs the line tracker about the specified change in the tracked text.
 	 *
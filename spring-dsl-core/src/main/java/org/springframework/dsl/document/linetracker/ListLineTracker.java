@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.dsl.document.BadLocationException;
+import org.springframework.dsl.document.PositionEncoding;
 import org.springframework.dsl.document.linetracker.AbstractLineTracker.DelimiterInfo;
 
 /**
@@ -316,11 +317,12 @@ abstract class ListLineTracker implements LineTracker {
 
 			int index = delimiterInfo.delimiterIndex + (delimiterInfo.delimiterLength - 1);
 
+			Line line = new Line(offset + start, offset + index, delimiterInfo.delimiter);
+			line.ascii = PositionEncoding.isAscii(text, start, index + 1);
 			if (insertPosition + count >= linesList.size()) {
-				linesList.add(new Line(offset + start, offset + index, delimiterInfo.delimiter));
+				linesList.add(line);
 			} else {
-				linesList.add(insertPosition + count,
-						new Line(offset + start, offset + index, delimiterInfo.delimiter));
+				linesList.add(insertPosition + count, line);
 			}
 
 			++count;
@@ -335,8 +337,11 @@ abstract class ListLineTracker implements LineTracker {
 				int delta = text.length() - start;
 				l.offset -= delta;
 				l.length += delta;
+				l.ascii &= PositionEncoding.isAscii(text, start, text.length());
 			} else {
-				linesList.add(new Line(offset + start, offset + text.length() - 1, null));
+				Line line = new Line(offset + start, offset + text.length() - 1, null);
+				line.ascii = PositionEncoding.isAscii(text, start, text.length());
+				linesList.add(line);
 				++count;
 			}
 		}
@@ -344,6 +349,15 @@ abstract class ListLineTracker implements LineTracker {
 		return count;
 	}
 
+	@Override
+	public final boolean isAsciiLine(int line) {
+		int lines = linesList.size();
+		if (line < 0 || line > lines) {
+			throw new BadLocationException("Line not in bounds");
+		}
+		return line == lines || linesList.get(line).ascii;
+	}
+
 	@Override
 	public final void replace(int position, int length, String text) throws BadLocationException {
 		throw new UnsupportedOperationException();
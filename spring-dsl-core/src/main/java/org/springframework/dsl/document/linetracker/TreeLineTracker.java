@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.ListIterator;
 
 import org.springframework.dsl.document.BadLocationException;
+import org.springframework.dsl.document.PositionEncoding;
 import org.springframework.dsl.document.linetracker.AbstractLineTracker.DelimiterInfo;
 import org.springframework.util.Assert;
 
@@ -123,6 +124,8 @@ abstract class TreeLineTracker implements LineTracker {
 		Node right;
 		/** The balance factor. */
 		byte balance;
+		/** Whether this line is known to contain only ascii characters. */
+		boolean ascii = true;
 
 		@Override
 		public final String toString() {
@@ -189,6 +192,7 @@ abstract class TreeLineTracker implements LineTracker {
 		}
 		int length = line.length;
 		fRoot = new Node(length, delim);
+		fRoot.ascii = line.ascii;
 		Node node = fRoot;
 
 		for (int i = 1; i < n; i++) {
@@ -199,6 +203,7 @@ abstract class TreeLineTracker implements LineTracker {
 			}
 			length = line.length;
 			node = insertAfter(node, length, delim);
+			node.ascii = line.ascii;
 		}
 
 		if (node.delimiter != NO_DELIM) {
@@ -663,6 +668,10 @@ abstract class TreeLineTracker implements LineTracker {
 		if (ASSERT)
 			Assert.isTrue(last != null, "");
 
+		// affected lines get content from first, last and inserted text
+		boolean ascii = first.ascii && last.ascii
+				&& (text == null || PositionEncoding.isAscii(text, 0, text.length()));
+
 		int firstLineDelta = firstNodeOffset + first.length - offset;
 		if (first == last) {
 			replaceInternal(first, text, length, firstLineDelta);
@@ -670,6 +679,12 @@ abstract class TreeLineTracker implements LineTracker {
 			replaceFromTo(first, last, text, length, firstLineDelta);
 		}
 
+		Node affected = nodeByOffset(offset);
+		for (int i = text == null ? 0 : computeNumberOfLines(text); i >= 0 && affected != null; i--) {
+			affected.ascii = ascii;
+			affected = successor(affected);
+		}
+
 		if (ASSERT)
 			checkTree();
 	}
@@ -1119,6 +1134,11 @@ abstract class TreeLineTracker implements LineTracker {
 	 */
 	protected abstract DelimiterInfo nextDelimiterInfo(String text, int offset);
 
+	@Override
+	public final boolean isAsciiLine(int line) {
+		return nodeByLine(line).ascii;
+	}
+
 	@Override
 	public final String getLineDelimiter(int line) throws BadLocationException {
 		Node node = nodeByLine(line);
@@ -1272,14 +1292,79 @@ abstract class TreeLineTracker implements LineTracker {
 //		return null;
 //	}
 
+	/**
+	 * Sets the text by building a balanced tree directly from it. Number of
+	 * lines is counted first which then allows to create nodes in order while
+	 * scanning line delimiters, thus no intermediate structures are needed and
+	 * the whole operation is linear to the length of the text.
+	 */
 	@Override
 	public final void set(String text) {
-		fRoot = new Node(0, NO_DELIM);
-		try {
-			replace(0, 0, text);
-		} catch (BadLocationException x) {
-			throw new InternalError();
+		if (text == null) {
+			text = "";
+		}
+		int lines = computeNumberOfLines(text) + 1;
+		fRoot = build(text, lines, null, new int[2]);
+
+		if (ASSERT)
+			checkTree();
+	}
+
+	/**
+	 * Builds a balanced subtree of a given number of lines reading lines from a
+	 * text in order. Scanning state is kept in a {@code state} where
+	 * {@code state[0]} is a current offset in a text and {@code state[1]} a
+	 * number of lines read so far.
+	 *
+	 * @param text the text
+	 * @param count the number of lines in a subtree
+	 * @param parent the parent node
+	 * @param state the scanning state
+	 * @return the root of a subtree, <code>null</code> if count is zero
+	 */
+	private Node build(String text, int count, Node parent, int[] state) {
+		if (count == 0) {
+			return null;
+		}
+		int leftCount = (count - 1) / 2;
+		int rightCount = count - 1 - leftCount;
+		int subtreeOffset = state[0];
+
+		Node left = build(text, leftCount, null, state);
+
+		int lineOffset = state[0];
+		DelimiterInfo info = nextDelimiterInfo(text, lineOffset);
+		Node node;
+		if (info == null) {
+			node = new Node(text.length() - lineOffset, NO_DELIM);
+			state[0] = text.length();
+		} else {
+			int end = info.delimiterIndex + info.delimiterLength;
+			node = new Node(end - lineOffset, info.delimiter);
+			state[0] = end;
 		}
+		node.ascii = PositionEncoding.isAscii(text, lineOffset, state[0]);
+		node.parent = parent;
+		node.left = left;
+		node.line = leftCount;
+		node.offset = lineOffset - subtreeOffset;
+		if (left != null) {
+			left.parent = node;
+		}
+		node.right = build(text, rightCount, node, state);
+		node.balance = (byte) (height(rightCount) - height(leftCount));
+		return node;
+	}
+
+	/**
+	 * Gets a height of a subtree having given number of nodes when built by
+	 * {@link #build(String, int, Node, int[])}.
+	 *
+	 * @param count the number of nodes
+	 * @return the height of a subtree
+	 */
+	private static int height(int count) {
+		return 32 - Integer.numberOfLeadingZeros(count);
 	}
 
 	@Override
@@ -15,6 +15,9 @@
  */
 package org.springframework.dsl.model;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
@@ -22,13 +25,20 @@ import org.springframework.util.ObjectUtils;
 /**
  * Instead of working with a plain {@code String} as a {@code languageId}, in
  * this class we also keep a generic name of the language.
+ * <p>
+ * First language id defined for an identifier via static factory methods
+ * taking a description is kept as a canonical instance, returned from
+ * {@link #languageId(String)} and {@link #intern()}. This allows lookups to
+ * rely on identity when language ids come from documents.
  *
  * @author Janne Valkealahti
  *
  */
 public class LanguageId {
 
-	public static final LanguageId ALL = languageId("*");
+	private static final ConcurrentMap<String, LanguageId> INTERNED = new ConcurrentHashMap<>();
+
+	public static final LanguageId ALL = languageId("*").intern();
 	public static final LanguageId TXT = languageId("txt", "Plaintext");
 	public static final LanguageId BAT = languageId("bat", "Windows Bat");
 	public static final LanguageId BIBTEX = languageId("bibtex", "BibTeX");
@@ -109,13 +119,15 @@ public class LanguageId {
 	}
 
 	/**
-	 * Gets a {@link LanguageId} with identifier.
+	 * Gets a {@link LanguageId} with identifier. Returns a canonical instance
+	 * if one has been defined for an identifier.
 	 *
 	 * @param identifier the identifier
 	 * @return the language id
 	 */
 	public static LanguageId languageId(String identifier) {
-		return languageId(identifier, null, null);
+		LanguageId interned = identifier != null ? INTERNED.get(identifier) : null;
+		return interned != null ? interned : new LanguageId(identifier, null, null);
 	}
 
 	/**
@@ -138,7 +150,20 @@ public class LanguageId {
 	 * @return the language id
 	 */
 	public static LanguageId languageId(String identifier, String language, String[] compatible) {
-		return new LanguageId(identifier, language, compatible);
+		LanguageId languageId = new LanguageId(identifier, language, compatible);
+		INTERNED.putIfAbsent(identifier, languageId);
+		return languageId;
+	}
+
+	/**
+	 * Gets a canonical instance of this language id. This instance becomes
+	 * canonical if there is none for its identifier.
+	 *
+	 * @return the canonical language id
+	 */
+	public LanguageId intern() {
+		LanguageId interned = INTERNED.putIfAbsent(identifier, this);
+		return interned != null ? interned : this;
 	}
 	
 	/**
@@ -159,6 +184,15 @@ public class LanguageId {
 		return description;
 	}
 
+	/**
+	 * Gets the identifiers of compatible languages.
+	 *
+	 * @return the compatible language identifiers
+	 */
+	public String[] getCompatible() {
+		return compatible.clone();
+	}
+
 	/**
 	 * Indicates if a given {@link LanguageId} is compatible.
 	 *
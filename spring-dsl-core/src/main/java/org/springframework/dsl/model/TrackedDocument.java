@@ -15,32 +15,128 @@
  */
 package org.springframework.dsl.model;
 
-import org.springframework.dsl.document.TextDocument;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.springframework.dsl.document.Document;
+import org.springframework.dsl.document.DocumentSnapshot;
+import org.springframework.dsl.document.MutableDocument;
+import org.springframework.dsl.document.MutableDocumentFactory;
+import org.springframework.dsl.domain.DidChangeTextDocumentParams;
+
+/**
+ * Holder for a {@link MutableDocument} tracked by a
+ * {@link org.springframework.dsl.service.DocumentStateTracker}. Latest
+ * {@link DocumentSnapshot} of a document is published via an atomic reference
+ * so that readers never need to lock the mutable document.
+ * <p>
+ * A tracked document can also start from a read-only {@link Document}, like
+ * a {@link org.springframework.dsl.document.MappedDocument}, in which case a
+ * mutable document is created only when first changes are applied.
+ *
+ * @author Janne Valkealahti
+ *
+ */
 public class TrackedDocument {
 
-	private final TextDocument doc;
+	private final MutableDocumentFactory documentFactory;
+	private final AtomicReference<Document> snapshot;
+	private MutableDocument doc;
 	private int openCount = 0;
 
-	public TrackedDocument(TextDocument doc) {
+	public TrackedDocument(MutableDocument doc) {
 		this.doc = doc;
+		this.documentFactory = null;
+		this.snapshot = new AtomicReference<>(doc.snapshot());
+	}
+
+	/**
+	 * Instantiates a new tracked document for a read-only document.
+	 *
+	 * @param document the read-only document
+	 * @param documentFactory the factory used to create a mutable document
+	 */
+	public TrackedDocument(Document document, MutableDocumentFactory documentFactory) {
+		this.doc = null;
+		this.documentFactory = documentFactory;
+		this.snapshot = new AtomicReference<>(document);
 	}
 
-	public TextDocument getDocument() {
+	/**
+	 * Gets the mutable document, creating it from a read-only document if
+	 * needed.
+	 *
+	 * @return the mutable document
+	 */
+	public synchronized MutableDocument getDocument() {
+		if (doc == null) {
+			Document d = snapshot.get();
+			doc = documentFactory.create(d.uri(), d.languageId(), d.getVersion(), d.content());
+		}
 		return doc;
 	}
 
-	public TrackedDocument open() {
+	/**
+	 * Checks if this tracked document is still backed by a read-only document.
+	 *
+	 * @return true, if read-only
+	 */
+	public synchronized boolean isReadOnly() {
+		return doc == null;
+	}
+
+	/**
+	 * Gets the latest published snapshot.
+	 *
+	 * @return the document snapshot
+	 */
+	public Document getSnapshot() {
+		return snapshot.get();
+	}
+
+	/**
+	 * Apply changes to a tracked document and publish its new state as a
+	 * snapshot.
+	 *
+	 * @param params the change params
+	 * @return the published snapshot
+	 */
+	public synchronized DocumentSnapshot apply(DidChangeTextDocumentParams params) {
+		MutableDocument doc = getDocument();
+		doc.apply(params);
+		DocumentSnapshot s = doc.snapshot();
+		snapshot.set(s);
+		return s;
+	}
+
+	/**
+	 * Increment an open count of this document.
+	 *
+	 * @return this tracked document
+	 */
+	public synchronized TrackedDocument open() {
 		openCount++;
 		return this;
 	}
 
-	public boolean close() {
-		openCount--;
-		return openCount <= 0;
+	/**
+	 * Decrement an open count of this document.
+	 *
+	 * @return true, if this was a last close
+	 */
+	public synchronized boolean close() {
+		if (openCount > 0) {
+			openCount--;
+			return openCount == 0;
+		}
+		return false;
 	}
 
-	public int getOpenCount() {
+	/**
+	 * Gets the open count.
+	 *
+	 * @return the open count
+	 */
+	public synchronized int getOpenCount() {
 		return openCount;
 	}
 
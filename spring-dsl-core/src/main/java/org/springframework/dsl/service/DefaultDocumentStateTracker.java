@@ -15,41 +15,203 @@
  */
 package org.springframework.dsl.service;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dsl.document.BadLocationException;
 import org.springframework.dsl.document.Document;
+import org.springframework.dsl.document.MappedDocument;
+import org.springframework.dsl.document.MutableDocumentFactory;
+import org.springframework.dsl.document.RopeDocument;
+import org.springframework.dsl.document.SharedDocument;
+import org.springframework.dsl.document.SharedDocumentStore;
 import org.springframework.dsl.document.TextDocument;
 import org.springframework.dsl.domain.DidChangeTextDocumentParams;
 import org.springframework.dsl.domain.DidCloseTextDocumentParams;
 import org.springframework.dsl.domain.DidOpenTextDocumentParams;
 import org.springframework.dsl.domain.DidSaveTextDocumentParams;
+import org.springframework.dsl.domain.TextDocumentIdentifier;
 import org.springframework.dsl.domain.TextDocumentItem;
 import org.springframework.dsl.domain.VersionedTextDocumentIdentifier;
 import org.springframework.dsl.domain.WillSaveTextDocumentParams;
 import org.springframework.dsl.model.LanguageId;
 import org.springframework.dsl.model.TrackedDocument;
+import org.springframework.util.Assert;
 
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
 
 /**
+ * Default implementation of a {@link DocumentStateTracker}. Tracked documents
+ * are created using a {@link MutableDocumentFactory} which defaults to
+ * {@link RopeDocument}, whose snapshots are its own state and thus are
+ * published without copying a content. A {@link TextDocument} keeps a rope
+ * mirroring its content once a first snapshot is taken, doubling memory and
+ * a cost of every change.
+ * <p>
+ * Documents returned from this tracker are immutable
+ * {@link org.springframework.dsl.document.DocumentSnapshot}s published after
+ * every change, thus readers never see a document while it is modified.
+ * <p>
+ * If a {@link #setMappedDocumentThreshold(long) mapped document threshold} is
+ * set, {@code file:} documents having a size over it are opened as read-only
+ * {@link MappedDocument}s until those are changed, if a content sent by a
+ * client is same as in a file. Such documents are released when a last
+ * {@code didClose} for them is received, or when a file is found to be
+ * modified on a disk, as a content a client has can then no longer be
+ * known.
+ * <p>
+ * Documents are tracked in a concurrent map, so reads never lock. Opens are
+ * reference counted and on a last {@code didClose} a document is moved into a
+ * cache of closed documents, bounded by a
+ * {@link #setMaxCachedCharacters(long) character budget}, from which least
+ * recently used documents are evicted. A closed document is reused if it is
+ * opened again with a same version and content.
+ * <p>
+ * If a {@link SharedDocumentStore} is set, opened documents are views into a
+ * content shared with other trackers using a same store until those are
+ * changed, at which point a tracker gets its own copy. As a store is shared,
+ * a tracker should be {@link #dispose() disposed} when a session using it
+ * ends so that documents a client never closed are released.
  *
  * @author Kris De Volder
  * @author Janne Valkealahti
  *
  */
-public class DefaultDocumentStateTracker implements DocumentStateTracker {
+public class DefaultDocumentStateTracker implements DocumentStateTracker, Disposable {
 
 	private static final Logger log = LoggerFactory.getLogger(DefaultDocumentStateTracker.class);
-	private Map<String, TrackedDocument> documents = new HashMap<>();
+	private final MutableDocumentFactory documentFactory;
+	private final Map<String, TrackedDocument> documents = new ConcurrentHashMap<>();
+	// closed documents in access order, guarded by this
+	private final LinkedHashMap<String, TrackedDocument> closedDocuments = new LinkedHashMap<>(16, 0.75f, true);
+	private long closedCharacters;
+	private long maxCachedCharacters = 1000000;
+	private long mappedDocumentThreshold = -1;
+	private SharedDocumentStore sharedDocumentStore;
+	private volatile boolean disposed;
+
+	/**
+	 * Instantiates a new default document state tracker using
+	 * {@link RopeDocument} for tracked documents.
+	 */
+	public DefaultDocumentStateTracker() {
+		this(RopeDocument::new);
+	}
+
+	/**
+	 * Instantiates a new default document state tracker using a given
+	 * {@link MutableDocumentFactory} for tracked documents.
+	 *
+	 * @param documentFactory the document factory
+	 */
+	public DefaultDocumentStateTracker(MutableDocumentFactory documentFactory) {
+		Assert.notNull(documentFactory, "documentFactory must be set");
+		this.documentFactory = documentFactory;
+	}
+
+	/**
+	 * Sets the size in bytes over which documents having a {@code file:} uri
+	 * are opened as {@link MappedDocument}s. Negative value disables mapped
+	 * documents which is a default.
+	 *
+	 * @param mappedDocumentThreshold the mapped document threshold
+	 */
+	public void setMappedDocumentThreshold(long mappedDocumentThreshold) {
+		this.mappedDocumentThreshold = mappedDocumentThreshold;
+	}
+
+	/**
+	 * Sets the shared document store where opened documents are shared with
+	 * other trackers.
+	 *
+	 * @param sharedDocumentStore the shared document store
+	 */
+	public void setSharedDocumentStore(SharedDocumentStore sharedDocumentStore) {
+		this.sharedDocumentStore = sharedDocumentStore;
+	}
+
+	/**
+	 * Sets the maximum number of characters kept in closed documents. When a
+	 * budget is exceeded, least recently used closed documents are evicted.
+	 * Zero disables caching of closed documents. Defaults to {@code 1000000}.
+	 *
+	 * @param maxCachedCharacters the max cached characters
+	 */
+	public void setMaxCachedCharacters(long maxCachedCharacters) {
+		this.maxCachedCharacters = maxCachedCharacters;
+	}
+
+	/**
+	 * Gets the number of tracked documents, including cached closed documents.
+	 *
+	 * @return the number of tracked documents
+	 */
+	public int getDocumentCount() {
+		return documents.size();
+	}
+
+	/**
+	 * Gets the number of tracked documents which are currently closed.
+	 *
+	 * @return the number of closed documents
+	 */
+	public synchronized int getClosedDocumentCount() {
+		return closedDocuments.size();
+	}
+
+	/**
+	 * Gets the total number of characters in tracked documents.
+	 *
+	 * @return the number of characters
+	 */
+	public long getCharacterCount() {
+		long count = 0;
+		for (TrackedDocument trackedDocument : documents.values()) {
+			count += trackedDocument.getSnapshot().length();
+		}
+		return count;
+	}
+
+	/**
+	 * Stop tracking all documents and release those shared in a
+	 * {@link SharedDocumentStore}.
+	 */
+	@Override
+	public synchronized void dispose() {
+		disposed = true;
+		for (TrackedDocument trackedDocument : documents.values()) {
+			releaseSharedDocument(trackedDocument.getSnapshot());
+		}
+		documents.clear();
+		closedDocuments.clear();
+		closedCharacters = 0;
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return disposed;
+	}
 
 	@Override
 	public Document getDocument(String uri) {
 		TrackedDocument trackedDocument = documents.get(uri);
-		return trackedDocument != null ? trackedDocument.getDocument() : null;
+		if (trackedDocument == null || releaseModifiedDocument(uri, trackedDocument)) {
+			return null;
+		}
+		if (trackedDocument.getOpenCount() <= 0) {
+			touchClosedDocument(uri);
+		}
+		return trackedDocument.getSnapshot();
 	}
 
 	@Override
@@ -67,7 +229,7 @@ public class DefaultDocumentStateTracker implements DocumentStateTracker {
 		String text = textDocument.getText();
 
 		TrackedDocument trackedDocument = createDocument(uri, languageId, version, text).open();
-		return Mono.just(trackedDocument.getDocument());
+		return Mono.just(trackedDocument.getSnapshot());
 	}
 
 	@Override
@@ -76,12 +238,22 @@ public class DefaultDocumentStateTracker implements DocumentStateTracker {
 		String url = identifier.getUri();
 		if (url != null) {
 			TrackedDocument trackedDocument = documents.get(url);
+			if (trackedDocument == null) {
+				log.warn("Change for document [{}] which is not tracked", url);
+				return Mono.empty();
+			}
+			if (releaseModifiedDocument(url, trackedDocument)) {
+				return Mono.empty();
+			}
 
 			try {
-				TextDocument doc = trackedDocument.getDocument();
-				doc.apply(params);
-				return Mono.just(doc);
-
+				Document previous = trackedDocument.getSnapshot();
+				Document document = trackedDocument.apply(params);
+				if (previous instanceof SharedDocument) {
+					// tracked document has now its own copy
+					releaseSharedDocument(previous);
+				}
+				return Mono.just(document);
 			} catch (BadLocationException e) {
 				log.error("", e);
 			}
@@ -98,12 +270,10 @@ public class DefaultDocumentStateTracker implements DocumentStateTracker {
 	@Override
 	public Mono<Document> didClose(DidCloseTextDocumentParams params) {
 		log.debug("didClose {}", params);
-//		TextDocumentIdentifier identifier = params.getTextDocument();
-//		String url = identifier.getUri();
-//		if (url != null) {
-//			TrackedDocument trackedDocument = documents.get(url);
-//		}
-
+		TextDocumentIdentifier identifier = params.getTextDocument();
+		if (identifier != null && identifier.getUri() != null) {
+			closeDocument(identifier.getUri());
+		}
 		return Mono.empty();
 	}
 
@@ -125,11 +295,101 @@ public class DefaultDocumentStateTracker implements DocumentStateTracker {
 	private synchronized TrackedDocument createDocument(String url, LanguageId languageId, int version, String text) {
 		TrackedDocument trackedDocument = documents.get(url);
 		if (trackedDocument != null) {
-			log.warn("Creating document [{}] but it already exists. Reusing existing!", url);
-			return trackedDocument;
+			if (trackedDocument.getOpenCount() > 0) {
+				log.warn("Creating document [{}] but it already exists. Reusing existing!", url);
+				return trackedDocument;
+			}
+			closedDocuments.remove(url);
+			Document snapshot = trackedDocument.getSnapshot();
+			closedCharacters -= snapshot.length();
+			if (snapshot.getVersion() == version && text != null && text.contentEquals(snapshot.contentView())) {
+				log.debug("Reusing closed document [{}]", url);
+				return trackedDocument;
+			}
+		}
+		MappedDocument mappedDocument = mapDocument(url, languageId, version, text);
+		if (mappedDocument != null) {
+			trackedDocument = new TrackedDocument(mappedDocument, documentFactory);
+		} else if (sharedDocumentStore != null && text != null) {
+			trackedDocument = new TrackedDocument(sharedDocumentStore.acquire(url, languageId, version, text),
+					documentFactory);
+		} else {
+			trackedDocument = new TrackedDocument(documentFactory.create(url, languageId, version, text));
 		}
-		trackedDocument = new TrackedDocument(new TextDocument(url, languageId, version, text));
 		documents.put(url, trackedDocument);
 		return trackedDocument;
 	}
+
+	private synchronized void closeDocument(String url) {
+		TrackedDocument trackedDocument = documents.get(url);
+		if (trackedDocument == null || !trackedDocument.close()) {
+			return;
+		}
+		int length = trackedDocument.getSnapshot().length();
+		if (trackedDocument.isReadOnly() || maxCachedCharacters <= 0 || length > maxCachedCharacters) {
+			log.debug("Releasing document [{}]", url);
+			documents.remove(url);
+			releaseSharedDocument(trackedDocument.getSnapshot());
+			return;
+		}
+		closedDocuments.put(url, trackedDocument);
+		closedCharacters += length;
+		Iterator<Map.Entry<String, TrackedDocument>> iterator = closedDocuments.entrySet().iterator();
+		while (closedCharacters > maxCachedCharacters && iterator.hasNext()) {
+			Map.Entry<String, TrackedDocument> entry = iterator.next();
+			log.debug("Evicting closed document [{}]", entry.getKey());
+			closedCharacters -= entry.getValue().getSnapshot().length();
+			documents.remove(entry.getKey());
+			iterator.remove();
+		}
+	}
+
+	private void releaseSharedDocument(Document document) {
+		if (sharedDocumentStore != null && document instanceof SharedDocument) {
+			sharedDocumentStore.release((SharedDocument) document);
+		}
+	}
+
+	/**
+	 * Release a document still backed by a {@link MappedDocument} if its file
+	 * has been modified as a mapping would then return a content a client
+	 * does not have, or fault if a file was truncated. Read-only documents are
+	 * never kept as closed documents.
+	 */
+	private boolean releaseModifiedDocument(String url, TrackedDocument trackedDocument) {
+		Document snapshot = trackedDocument.getSnapshot();
+		if (!(snapshot instanceof MappedDocument) || !trackedDocument.isReadOnly()
+				|| !((MappedDocument) snapshot).isModified()) {
+			return false;
+		}
+		log.warn("File of mapped document [{}] was modified on a disk, document is no longer tracked", url);
+		documents.remove(url, trackedDocument);
+		return true;
+	}
+
+	private synchronized void touchClosedDocument(String url) {
+		closedDocuments.get(url);
+	}
+
+	private MappedDocument mapDocument(String url, LanguageId languageId, int version, String text) {
+		if (mappedDocumentThreshold < 0 || url == null || !url.startsWith("file:")) {
+			return null;
+		}
+		try {
+			Path path = Paths.get(URI.create(url));
+			if (!Files.isRegularFile(path) || Files.size(path) < mappedDocumentThreshold) {
+				return null;
+			}
+			MappedDocument document = MappedDocument.map(url, languageId, version, path);
+			// client may have unsaved changes not in a file
+			if (text != null && (text.length() != document.length() || !text.contentEquals(document.contentView()))) {
+				log.debug("Not mapping document [{}] as content differs from a file", url);
+				return null;
+			}
+			return document;
+		} catch (IOException | IllegalArgumentException e) {
+			log.debug("Unable to map document [{}]", url, e);
+			return null;
+		}
+	}
 }
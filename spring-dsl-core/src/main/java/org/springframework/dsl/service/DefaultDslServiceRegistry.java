@@ -16,76 +16,109 @@
 package org.springframework.dsl.service;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.dsl.document.Document;
 import org.springframework.dsl.model.LanguageId;
+import org.springframework.dsl.service.cache.AbstractCachingDslService;
+import org.springframework.dsl.service.cache.CachedResults;
+import org.springframework.dsl.service.cache.CachingCompletioner;
+import org.springframework.dsl.service.cache.CachingHoverer;
+import org.springframework.dsl.service.cache.CachingSymbolizer;
 import org.springframework.dsl.service.reconcile.Reconciler;
 import org.springframework.dsl.service.symbol.Symbolizer;
+import org.springframework.util.ClassUtils;
 
 /**
  * Default implementation of a {@link DslServiceRegistry} which resolves
  * services from an {@link ApplicationContext}.
+ * <p>
+ * Results of {@link Hoverer}, {@link Completioner} and {@link Symbolizer}
+ * services annotated with {@link CachedResults}, or of all of those services
+ * if {@link #setCacheResults(boolean)} is enabled, are cached per document
+ * by decorating resolved services. Cached results of a document are dropped
+ * with {@link #invalidate(Document)}.
  *
  * @author Janne Valkealahti
  *
  */
 public class DefaultDslServiceRegistry implements DslServiceRegistry, ApplicationContextAware {
 
+	private static final int DEFAULT_CACHE_MAXIMUM_SIZE = 100;
+	private boolean cacheResults;
+	private int cacheMaximumSize = DEFAULT_CACHE_MAXIMUM_SIZE;
 	private List<Completioner> completioners;
 	private List<Hoverer> hoverers;
 	private List<Reconciler> reconcilers;
 	private List<Symbolizer> symbolizers;
 	private List<Renamer> renamers;
+	private DispatchTable<Completioner> completionerTable;
+	private DispatchTable<Hoverer> hovererTable;
+	private DispatchTable<Reconciler> reconcilerTable;
+	private DispatchTable<Symbolizer> symbolizerTable;
+	private DispatchTable<Renamer> renamerTable;
 
 	@Override
 	public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
 		initServices(applicationContext);
 	}
 
+	/**
+	 * Sets if results of all hoverers, completioners and symbolizers are
+	 * cached. Services annotated with {@link CachedResults} are always cached.
+	 *
+	 * @param cacheResults the flag caching all results
+	 */
+	public void setCacheResults(boolean cacheResults) {
+		this.cacheResults = cacheResults;
+	}
+
+	/**
+	 * Sets the maximum number of cached results per service.
+	 *
+	 * @param cacheMaximumSize the maximum number of cached results
+	 */
+	public void setCacheMaximumSize(int cacheMaximumSize) {
+		this.cacheMaximumSize = cacheMaximumSize;
+	}
+
 	@Override
 	public List<Completioner> getCompletioners(LanguageId languageId) {
-		return completioners
-				.stream()
-				.filter(competioner -> competioner.getSupportedLanguageIds().contains(languageId))
-				.collect(Collectors.toList());
+		return completionerTable.get(languageId);
 	}
 
 	@Override
 	public List<Hoverer> getHoverers(LanguageId languageId) {
-		return hoverers
-				.stream()
-				.filter(competioner -> competioner.getSupportedLanguageIds().contains(languageId))
-				.collect(Collectors.toList());
+		return hovererTable.get(languageId);
 	}
 
 	@Override
 	public List<Reconciler> getReconcilers(LanguageId languageId) {
-		return reconcilers
-				.stream()
-				.filter(reconciler -> reconciler.getSupportedLanguageIds().contains(languageId))
-				.collect(Collectors.toList());
+		return reconcilerTable.get(languageId);
 	}
 
 	@Override
 	public List<Symbolizer> getSymbolizers(LanguageId languageId) {
-		return symbolizers
-				.stream()
-				.filter(symbolizer -> symbolizer.getSupportedLanguageIds().contains(languageId))
-				.collect(Collectors.toList());
+		return symbolizerTable.get(languageId);
 	}
 
 	@Override
 	public List<Renamer> getRenamers(LanguageId languageId) {
-		return renamers
-				.stream()
-				.filter(renamer -> renamer.getSupportedLanguageIds().contains(languageId))
-				.collect(Collectors.toList());
+		return renamerTable.get(languageId);
 	}
 
 	@Override
@@ -113,6 +146,13 @@ public class DefaultDslServiceRegistry implements DslServiceRegistry, Applicatio
 		return renamers;
 	}
 
+	@Override
+	public void invalidate(Document document) {
+		invalidate(completioners, document);
+		invalidate(hoverers, document);
+		invalidate(symbolizers, document);
+	}
+
 	protected void initServices(ApplicationContext applicationContext) {
 		Map<String, Completioner> completionerBeans = BeanFactoryUtils.beansOfTypeIncludingAncestors(applicationContext,
 				Completioner.class, true, false);
@@ -124,10 +164,93 @@ public class DefaultDslServiceRegistry implements DslServiceRegistry, Applicatio
 				Symbolizer.class, true, false);
 		Map<String, Renamer> renamerBeans = BeanFactoryUtils.beansOfTypeIncludingAncestors(applicationContext,
 				Renamer.class, true, false);
-		this.completioners = new ArrayList<>(completionerBeans.values());
-		this.hoverers = new ArrayList<>(hovererBeans.values());
+		this.completioners = cached(completionerBeans.values(), CachingCompletioner::new);
+		this.hoverers = cached(hovererBeans.values(), CachingHoverer::new);
 		this.reconcilers = new ArrayList<>(reconcilerBeans.values());
-		this.symbolizers = new ArrayList<>(symbolizerBeans.values());
+		this.symbolizers = cached(symbolizerBeans.values(), CachingSymbolizer::new);
 		this.renamers = new ArrayList<>(renamerBeans.values());
+		this.completionerTable = new DispatchTable<>(completioners);
+		this.hovererTable = new DispatchTable<>(hoverers);
+		this.reconcilerTable = new DispatchTable<>(reconcilers);
+		this.symbolizerTable = new DispatchTable<>(symbolizers);
+		this.renamerTable = new DispatchTable<>(renamers);
+	}
+
+	private <T extends DslService> List<T> cached(Collection<T> services, BiFunction<T, Integer, T> decorator) {
+		List<T> resolved = new ArrayList<>(services.size());
+		for (T service : services) {
+			CachedResults annotation = AnnotationUtils.findAnnotation(ClassUtils.getUserClass(service),
+					CachedResults.class);
+			if (annotation != null) {
+				int maximumSize = annotation.maximumSize() > 0 ? annotation.maximumSize() : cacheMaximumSize;
+				resolved.add(decorator.apply(service, maximumSize));
+			} else if (cacheResults) {
+				resolved.add(decorator.apply(service, cacheMaximumSize));
+			} else {
+				resolved.add(service);
+			}
+		}
+		return resolved;
+	}
+
+	private static void invalidate(List<? extends DslService> services, Document document) {
+		if (services == null) {
+			return;
+		}
+		for (DslService service : services) {
+			if (service instanceof AbstractCachingDslService) {
+				((AbstractCachingDslService<?, ?>) service).getCache().invalidate(document);
+			}
+		}
+	}
+
+	/**
+	 * Services resolved per {@link LanguageId} once. Keys are all supported
+	 * language ids of services together with their compatible language ids,
+	 * and any other language id gets services supporting
+	 * {@link LanguageId#ALL}. Canonical language ids are looked up by
+	 * identity.
+	 */
+	private static class DispatchTable<T extends DslService> {
+
+		private final Map<LanguageId, List<T>> identities = new IdentityHashMap<>();
+		private final Map<String, List<T>> identifiers = new HashMap<>();
+		private final List<T> fallback;
+
+		DispatchTable(List<T> services) {
+			Set<LanguageId> languageIds = new LinkedHashSet<>();
+			for (T service : services) {
+				for (LanguageId languageId : service.getSupportedLanguageIds()) {
+					languageIds.add(languageId.intern());
+					for (String compatible : languageId.getCompatible()) {
+						languageIds.add(LanguageId.languageId(compatible).intern());
+					}
+				}
+			}
+			for (LanguageId languageId : languageIds) {
+				List<T> supporting = supporting(services, languageId);
+				identities.put(languageId, supporting);
+				identifiers.put(languageId.getIdentifier(), supporting);
+			}
+			this.fallback = supporting(services, null);
+		}
+
+		List<T> get(LanguageId languageId) {
+			if (languageId == null) {
+				return Collections.emptyList();
+			}
+			List<T> services = identities.get(languageId);
+			if (services == null) {
+				services = identifiers.getOrDefault(languageId.getIdentifier(), fallback);
+			}
+			return services;
+		}
+
+		private static <T extends DslService> List<T> supporting(List<T> services, LanguageId languageId) {
+			return Collections.unmodifiableList(services.stream()
+					.filter(service -> service.getSupportedLanguageIds().stream()
+							.anyMatch(l -> languageId != null ? l.isCompatibleWith(languageId) : LanguageId.ALL.equals(l)))
+					.collect(Collectors.toList()));
+		}
 	}
 }
@@ -17,6 +17,7 @@ package org.springframework.dsl.service;
 
 import java.util.List;
 
+import org.springframework.dsl.document.Document;
 import org.springframework.dsl.model.LanguageId;
 import org.springframework.dsl.service.reconcile.Reconciler;
 import org.springframework.dsl.service.symbol.Symbolizer;
@@ -24,6 +25,10 @@ import org.springframework.dsl.service.symbol.Symbolizer;
 /**
  * A generic registry for services which can be requested by a {@link LanguageId}.
  *
+ * Services for a language id are those having a supported language id
+ * {@link LanguageId#isCompatibleWith(LanguageId) compatible} with it,
+ * including services supporting {@link LanguageId#ALL}.
+ *
  * @author Janne Valkealahti
  *
  */
@@ -103,4 +108,14 @@ public interface DslServiceRegistry {
 	 * @return the renamers
 	 */
 	List<Renamer> getRenamers(LanguageId languageId);
+
+	/**
+	 * Invalidate results which services have cached for a document, i.e. when
+	 * a document is changed or closed. Results of other documents having a same
+	 * uri, like ones in other sessions, are kept.
+	 *
+	 * @param document the document
+	 */
+	default void invalidate(Document document) {
+	}
 }
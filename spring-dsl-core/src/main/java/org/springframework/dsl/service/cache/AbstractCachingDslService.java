@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.service.cache;
+
+import java.util.List;
+
+import org.springframework.dsl.model.LanguageId;
+import org.springframework.dsl.service.DslService;
+import org.springframework.util.Assert;
+
+/**
+ * Base implementation of a {@link DslService} decorating another service and
+ * caching its results in a {@link DocumentResultCache}.
+ *
+ * @author Janne Valkealahti
+ *
+ * @param <T> the type of a decorated service
+ * @param <V> the type of a cached result
+ */
+public abstract class AbstractCachingDslService<T extends DslService, V> implements DslService {
+
+	private final T delegate;
+	private final DocumentResultCache<V> cache;
+
+	/**
+	 * Instantiates a new abstract caching dsl service.
+	 *
+	 * @param delegate the decorated service
+	 * @param maximumSize the maximum number of cached results
+	 */
+	protected AbstractCachingDslService(T delegate, int maximumSize) {
+		Assert.notNull(delegate, "delegate must be set");
+		this.delegate = delegate;
+		this.cache = new DocumentResultCache<>(maximumSize);
+	}
+
+	@Override
+	public List<LanguageId> getSupportedLanguageIds() {
+		return delegate.getSupportedLanguageIds();
+	}
+
+	/**
+	 * Gets the decorated service.
+	 *
+	 * @return the decorated service
+	 */
+	public T getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * Gets the cache of results.
+	 *
+	 * @return the cache of results
+	 */
+	public DocumentResultCache<V> getCache() {
+		return cache;
+	}
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.service.cache;
+
+import org.springframework.dsl.document.Document;
+import org.springframework.dsl.domain.CompletionItem;
+import org.springframework.dsl.domain.Position;
+import org.springframework.dsl.service.Completioner;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * {@link Completioner} caching completion items of a decorated
+ * {@link Completioner} per document version and position.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class CachingCompletioner extends AbstractCachingDslService<Completioner, Flux<CompletionItem>>
+		implements Completioner {
+
+	/**
+	 * Instantiates a new caching completioner.
+	 *
+	 * @param delegate the decorated completioner
+	 * @param maximumSize the maximum number of cached completions
+	 */
+	public CachingCompletioner(Completioner delegate, int maximumSize) {
+		super(delegate, maximumSize);
+	}
+
+	@Override
+	public Flux<CompletionItem> complete(Document document, Position position) {
+		Position key = Position.from(position);
+		return getCache().get(document, key, () -> getDelegate().complete(document, position)
+				.doOnError(e -> getCache().invalidate(document, key))
+				.cache());
+	}
+}
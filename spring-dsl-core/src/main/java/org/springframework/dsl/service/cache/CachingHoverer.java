@@ -0,0 +1,51 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.service.cache;
+
+import org.springframework.dsl.document.Document;
+import org.springframework.dsl.domain.Hover;
+import org.springframework.dsl.domain.Position;
+import org.springframework.dsl.service.Hoverer;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link Hoverer} caching hovers of a decorated {@link Hoverer} per document
+ * version and position.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class CachingHoverer extends AbstractCachingDslService<Hoverer, Mono<Hover>> implements Hoverer {
+
+	/**
+	 * Instantiates a new caching hoverer.
+	 *
+	 * @param delegate the decorated hoverer
+	 * @param maximumSize the maximum number of cached hovers
+	 */
+	public CachingHoverer(Hoverer delegate, int maximumSize) {
+		super(delegate, maximumSize);
+	}
+
+	@Override
+	public Mono<Hover> hover(Document document, Position position) {
+		Position key = Position.from(position);
+		return getCache().get(document, key, () -> getDelegate().hover(document, position)
+				.doOnError(e -> getCache().invalidate(document, key))
+				.cache());
+	}
+}
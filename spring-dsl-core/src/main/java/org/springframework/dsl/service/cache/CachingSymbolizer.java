@@ -0,0 +1,50 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.service.cache;
+
+import org.springframework.dsl.document.Document;
+import org.springframework.dsl.domain.DocumentSymbol;
+import org.springframework.dsl.service.symbol.Symbolizer;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * {@link Symbolizer} caching symbols of a decorated {@link Symbolizer} per
+ * document version.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class CachingSymbolizer extends AbstractCachingDslService<Symbolizer, Flux<DocumentSymbol>>
+		implements Symbolizer {
+
+	/**
+	 * Instantiates a new caching symbolizer.
+	 *
+	 * @param delegate the decorated symbolizer
+	 * @param maximumSize the maximum number of cached symbolizations
+	 */
+	public CachingSymbolizer(Symbolizer delegate, int maximumSize) {
+		super(delegate, maximumSize);
+	}
+
+	@Override
+	public Flux<DocumentSymbol> symbolize(Document document) {
+		return getCache().get(document, null, () -> getDelegate().symbolize(document)
+				.doOnError(e -> getCache().invalidate(document, null))
+				.cache());
+	}
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.service.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import org.springframework.dsl.document.Document;
+import org.springframework.dsl.document.SharedDocument;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Bounded cache of results computed for a {@link Document}. Results are keyed
+ * by a document uri, version, a document instance and a given key like a
+ * position. Documents are compared by identity as a cache is shared by all
+ * sessions and a same uri and version may have a different content in
+ * different sessions or after a document is reopened. {@link SharedDocument}s
+ * are compared by their shared content, so that sessions having an identical
+ * document open share results.
+ * <p>
+ * Cached results keep their documents reachable, thus results of a document
+ * are dropped with {@link #invalidate(Document)} when it is superseded by a
+ * newer version or closed. Least recently used results are evicted when a
+ * maximum size is reached.
+ *
+ * @author Janne Valkealahti
+ *
+ * @param <V> the type of a cached result
+ */
+public class DocumentResultCache<V> {
+
+	private final Map<Key, V> results;
+
+	/**
+	 * Instantiates a new document result cache.
+	 *
+	 * @param maximumSize the maximum number of cached results
+	 */
+	public DocumentResultCache(int maximumSize) {
+		Assert.isTrue(maximumSize > 0, "maximumSize must be positive");
+		this.results = new LinkedHashMap<Key, V>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, V> eldest) {
+				return size() > maximumSize;
+			}
+		};
+	}
+
+	/**
+	 * Gets a cached result for a document or computes it using a given
+	 * supplier.
+	 *
+	 * @param document the document
+	 * @param key the key within a document, may be {@code null}
+	 * @param supplier the supplier computing a result
+	 * @return the cached or computed result
+	 */
+	public V get(Document document, Object key, Supplier<V> supplier) {
+		Key cacheKey = new Key(document, key);
+		synchronized (this) {
+			V result = results.get(cacheKey);
+			if (result != null) {
+				return result;
+			}
+		}
+		V result = supplier.get();
+		synchronized (this) {
+			V existing = results.putIfAbsent(cacheKey, result);
+			return existing != null ? existing : result;
+		}
+	}
+
+	/**
+	 * Removes a cached result of a document.
+	 *
+	 * @param document the document
+	 * @param key the key within a document, may be {@code null}
+	 */
+	public synchronized void invalidate(Document document, Object key) {
+		results.remove(new Key(document, key));
+	}
+
+	/**
+	 * Removes all cached results of a document. Results of other documents
+	 * having a same uri are kept.
+	 *
+	 * @param document the document
+	 */
+	public synchronized void invalidate(Document document) {
+		Object content = Key.content(document);
+		results.keySet().removeIf(k -> k.content == content);
+	}
+
+	/**
+	 * Removes all cached results of a document uri.
+	 *
+	 * @param uri the document uri
+	 */
+	public synchronized void invalidate(String uri) {
+		results.keySet().removeIf(k -> k.uri.equals(uri));
+	}
+
+	/**
+	 * Gets the number of cached results.
+	 *
+	 * @return the number of cached results
+	 */
+	public synchronized int size() {
+		return results.size();
+	}
+
+	private static class Key {
+
+		final String uri;
+		final int version;
+		// content compared by identity
+		final Object content;
+		final Object key;
+
+		Key(Document document, Object key) {
+			this.uri = document.uri();
+			this.version = document instanceof SharedDocument ? -1 : document.getVersion();
+			this.content = content(document);
+			this.key = key;
+		}
+
+		static Object content(Document document) {
+			return document instanceof SharedDocument ? ((SharedDocument) document).getDocument() : document;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(uri, version, System.identityHashCode(content), key);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return version == other.version && content == other.content && uri.equals(other.uri)
+					&& ObjectUtils.nullSafeEquals(key, other.key);
+		}
+	}
+}
@@ -15,21 +15,36 @@
  */
 package org.springframework.dsl.service.reconcile;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.dsl.document.Document;
 import org.springframework.dsl.domain.Diagnostic;
 import org.springframework.dsl.domain.DiagnosticSeverity;
+import org.springframework.dsl.domain.DidChangeTextDocumentParams;
+import org.springframework.dsl.domain.DidCloseTextDocumentParams;
+import org.springframework.dsl.domain.Position;
 import org.springframework.dsl.domain.PublishDiagnosticsParams;
+import org.springframework.dsl.domain.Range;
 import org.springframework.dsl.model.LanguageId;
 import org.springframework.dsl.service.AbstractDslService;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 /**
  * Default implementation of a {@link Reconciler} delegating to know
@@ -37,15 +52,35 @@ import reactor.core.publisher.Mono;
  * changes and calls {@link Linter} to validate document contents. This
  * reconciler supports all language id's as it dispatches to all available
  * linters which handles their own support for languages.
+ * <p>
+ * By default linters are subscribed on a calling thread one after another.
+ * When {@link #setParallelism(int) parallelism} is set, every linter is run on
+ * its own worker of a bounded scheduler and problems are merged as they
+ * arrive, making reconcile to take as long as the slowest linter instead of
+ * all linters together. Optional {@link #setLinterTimeout(Duration) timeout}
+ * stops waiting for a single linter and time spent in every linter is kept in
+ * {@link #getLinterStatistics()}.
+ * <p>
+ * Diagnostics of an {@link IncrementalLinter} are kept per document when
+ * collected via {@link #collectDiagnostics(Document)}. Changes passed to
+ * {@link #didChange(Document, Document, DidChangeTextDocumentParams)} move kept
+ * diagnostics and only changed lines are linted again on a next collect.
+ * Kept diagnostics are tied to a document instance they were created or moved
+ * for, as this reconciler is shared by all sessions and a same uri may have a
+ * different content in different sessions.
  *
  * @author Kris De Volder
  * @author Janne Valkealahti
  *
  */
-public class DefaultReconciler extends AbstractDslService implements Reconciler {
+public class DefaultReconciler extends AbstractDslService implements Reconciler, DisposableBean {
 
 	private static final Logger log = LoggerFactory.getLogger(DefaultReconciler.class);
 	private final List<Linter> linters;
+	private final Map<Linter, LinterStatistics> statistics = new ConcurrentHashMap<>();
+	private Scheduler scheduler;
+	private Duration linterTimeout;
+	private final Map<String, IncrementalLintState> incrementalStates = new ConcurrentHashMap<>();
 
 	/**
 	 * Instantiates a new simple reconciler.
@@ -57,16 +92,52 @@ public class DefaultReconciler extends AbstractDslService implements Reconciler
 		this.linters = linters != null ? linters : new ArrayList<Linter>();
 	}
 
+	/**
+	 * Sets the number of linters run in parallel. Zero or negative value
+	 * disables parallel execution and linters are run on a calling thread.
+	 *
+	 * @param parallelism the parallelism
+	 */
+	public void setParallelism(int parallelism) {
+		Scheduler previous = this.scheduler;
+		this.scheduler = parallelism > 0 ? Schedulers.newParallel("linter", parallelism, true) : null;
+		if (previous != null) {
+			previous.dispose();
+		}
+	}
+
+	/**
+	 * Sets the time a single linter is allowed to run. Problems from a linter
+	 * not completing in time are no longer waited for. Linters running on a
+	 * calling thread can only be timed out between emitted problems.
+	 *
+	 * @param linterTimeout the linter timeout
+	 */
+	public void setLinterTimeout(Duration linterTimeout) {
+		this.linterTimeout = linterTimeout;
+	}
+
+	/**
+	 * Gets statistics of linters which have been run by this reconciler.
+	 *
+	 * @return the linter statistics
+	 */
+	public Map<Linter, LinterStatistics> getLinterStatistics() {
+		return Collections.unmodifiableMap(statistics);
+	}
+
+	@Override
+	public void destroy() {
+		setParallelism(0);
+	}
+
 	@Override
 	public Flux<PublishDiagnosticsParams> reconcile(Document document) {
 		log.debug("Reconciling {}", document);
 
 		return Flux.fromIterable(linters)
 			.filter(linter -> linter.getSupportedLanguageIds().contains(document.languageId()))
-			.map(linter -> {
-				return linter.lint(document);
-			})
-			.flatMap(r -> r)
+			.flatMap(linter -> lint(linter, document))
 			.filter(p -> getDiagnosticSeverity(p) != null)
 			.flatMap(p -> toDiagnostic(document, p))
 			.map(d -> {
@@ -74,19 +145,196 @@ public class DefaultReconciler extends AbstractDslService implements Reconciler
 			});
 	}
 
+	/**
+	 * Collects diagnostics of every linter into its own list and copies those
+	 * once into a list sized to hold all of them.
+	 */
+	@Override
+	public Mono<PublishDiagnosticsParams> collectDiagnostics(Document document) {
+		log.debug("Reconciling {}", document);
+
+		return Flux.fromIterable(linters)
+			.filter(linter -> linter.getSupportedLanguageIds().contains(document.languageId()))
+			.flatMap(linter -> collect(linter, document))
+			.filter(diagnostics -> !diagnostics.isEmpty())
+			.collectList()
+			.filter(results -> !results.isEmpty())
+			.map(results -> new PublishDiagnosticsParams(document.uri(), merge(results)));
+	}
+
+	/**
+	 * Handles changes of a document which is changed in place, thus is its
+	 * own previous document.
+	 */
+	@Override
+	public void didChange(Document document, DidChangeTextDocumentParams params) {
+		didChange(document, document, params);
+	}
+
+	@Override
+	public void didChange(Document previous, Document document, DidChangeTextDocumentParams params) {
+		if (previous == null) {
+			return;
+		}
+		IncrementalLintState state = incrementalStates.get(document.uri());
+		if (state != null) {
+			state.change(previous, document, params.getTextDocument().getVersion(), params.getContentChanges());
+		}
+		for (Linter linter : linters) {
+			if (linter.getSupportedLanguageIds().contains(document.languageId())) {
+				linter.didChange(previous, document, params);
+			}
+		}
+	}
+
+	@Override
+	public void didClose(DidCloseTextDocumentParams params) {
+		incrementalStates.remove(params.getTextDocument().getUri());
+		for (Linter linter : linters) {
+			linter.didClose(params);
+		}
+	}
+
+	@Override
+	public void didClose(Document document, DidCloseTextDocumentParams params) {
+		incrementalStates.computeIfPresent(document.uri(), (uri, state) -> state.discard(document) ? null : state);
+		for (Linter linter : linters) {
+			linter.didClose(document, params);
+		}
+	}
+
+	private Mono<List<Diagnostic>> collect(Linter linter, Document document) {
+		if (!(linter instanceof IncrementalLinter)) {
+			return toDiagnostics(lint(linter, document)).collectList();
+		}
+		IncrementalLinter incrementalLinter = (IncrementalLinter) linter;
+		return Mono.defer(() -> {
+			IncrementalLintState state = incrementalStates.computeIfAbsent(document.uri(),
+					uri -> new IncrementalLintState());
+			IncrementalLintState.Plan plan = state.plan(incrementalLinter, document);
+			AtomicBoolean timedOut = new AtomicBoolean();
+			Mono<List<Diagnostic>> diagnostics;
+			if (plan.isFull()) {
+				diagnostics = toDiagnostics(
+						lint(linter, document, () -> linter.lint(document), () -> timedOut.set(true)))
+					.collectList();
+			} else {
+				log.debug("Linting lines of {} with {}", document.uri(), linter);
+				diagnostics = toDiagnostics(lint(linter, document,
+						() -> lintDirty(incrementalLinter, document, plan.getDirty()), () -> timedOut.set(true)))
+					.collectList()
+					.map(fresh -> {
+						List<Diagnostic> merged = new ArrayList<>(plan.getDiagnostics().size() + fresh.size());
+						merged.addAll(plan.getDiagnostics());
+						merged.addAll(fresh);
+						return merged;
+					});
+			}
+			return diagnostics
+				.doOnNext(list -> {
+					if (timedOut.get()) {
+						state.discard(incrementalLinter);
+					} else {
+						state.update(incrementalLinter, plan, list);
+					}
+				});
+		});
+	}
+
+	private Flux<ReconcileProblem> lintDirty(IncrementalLinter linter, Document document, List<int[]> dirty) {
+		int lineCount = document.lineCount();
+		return Flux.fromIterable(dirty)
+			.filter(interval -> interval[0] < lineCount)
+			.concatMap(interval -> {
+				int from = interval[0];
+				int to = Math.min(interval[1], lineCount - 1);
+				Position end = to + 1 < lineCount ? Position.from(to + 1, 0) : document.toPosition(document.length());
+				return linter.lint(document, Range.from(Position.from(from, 0), end))
+					.filter(problem -> {
+						int line = problem.getRange().getStart().getLine();
+						return line >= from && line <= to;
+					});
+			});
+	}
+
+	private Flux<Diagnostic> toDiagnostics(Flux<ReconcileProblem> problems) {
+		return problems
+			.handle((problem, sink) -> {
+				DiagnosticSeverity severity = getDiagnosticSeverity(problem);
+				if (severity != null) {
+					sink.next(createDiagnostic(problem, severity));
+				}
+			});
+	}
+
+	private static List<Diagnostic> merge(List<List<Diagnostic>> results) {
+		if (results.size() == 1) {
+			return results.get(0);
+		}
+		int size = 0;
+		for (List<Diagnostic> diagnostics : results) {
+			size += diagnostics.size();
+		}
+		List<Diagnostic> merged = new ArrayList<>(size);
+		for (List<Diagnostic> diagnostics : results) {
+			merged.addAll(diagnostics);
+		}
+		return merged;
+	}
+
+	private Flux<ReconcileProblem> lint(Linter linter, Document document) {
+		return lint(linter, document, () -> linter.lint(document), null);
+	}
+
+	private Flux<ReconcileProblem> lint(Linter linter, Document document, Supplier<Flux<ReconcileProblem>> source,
+			Runnable onTimeout) {
+		LinterStatistics linterStatistics = statistics.computeIfAbsent(linter, l -> new LinterStatistics());
+		Flux<ReconcileProblem> problems = Flux.defer(() -> {
+			long start = System.nanoTime();
+			Runnable record = () -> {
+				long elapsed = System.nanoTime() - start;
+				linterStatistics.record(elapsed);
+				log.debug("Linter {} took {}ms for {}", linter, elapsed / 1000000, document.uri());
+			};
+			return source.get()
+				.doOnTerminate(record)
+				.doOnCancel(record);
+		});
+		Scheduler scheduler = this.scheduler;
+		if (scheduler != null) {
+			problems = problems.subscribeOn(scheduler);
+		}
+		Duration linterTimeout = this.linterTimeout;
+		if (linterTimeout != null) {
+			problems = problems.takeUntilOther(Mono.delay(linterTimeout)
+				.doOnNext(t -> {
+					linterStatistics.timeouts.increment();
+					if (onTimeout != null) {
+						onTimeout.run();
+					}
+					log.warn("Linter {} timed out after {} for {}", linter, linterTimeout, document.uri());
+				}));
+		}
+		return problems;
+	}
+
 	private Mono<Diagnostic> toDiagnostic(Document document, ReconcileProblem problem) {
 		DiagnosticSeverity severity = getDiagnosticSeverity(problem);
 		if (severity != null) {
-				Diagnostic d = new Diagnostic();
-				d.setRange(problem.getRange());
-				d.setCode(problem.getType() != null ? problem.getType().getCode() : null);
-				d.setMessage(problem.getMessage());
-				d.setSeverity(getDiagnosticSeverity(problem));
-				return Mono.just(d);
+			return Mono.just(createDiagnostic(problem, severity));
 		}
 		return Mono.empty();
 	}
 
+	private Diagnostic createDiagnostic(ReconcileProblem problem, DiagnosticSeverity severity) {
+		Diagnostic d = new Diagnostic();
+		d.setRange(problem.getRange());
+		d.setCode(problem.getType() != null ? problem.getType().getCode() : null);
+		d.setMessage(problem.getMessage());
+		d.setSeverity(severity);
+		return d;
+	}
+
 	protected DiagnosticSeverity getDiagnosticSeverity(ReconcileProblem problem) {
 		if (problem.getType() == null) {
 			// TODO: can we really default to error, check spec?
@@ -108,4 +356,63 @@ public class DefaultReconciler extends AbstractDslService implements Reconciler
 			throw new IllegalStateException("Bug! Missing switch case?");
 		}
 	}
+
+	/**
+	 * Statistics of time spent in a single {@link Linter}.
+	 */
+	public static class LinterStatistics {
+
+		private final LongAdder count = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final AtomicLong maxNanos = new AtomicLong();
+		private final LongAdder timeouts = new LongAdder();
+
+		void record(long nanos) {
+			count.increment();
+			totalNanos.add(nanos);
+			maxNanos.accumulateAndGet(nanos, Math::max);
+		}
+
+		/**
+		 * Gets the number of times a linter has been run.
+		 *
+		 * @return the count
+		 */
+		public long getCount() {
+			return count.sum();
+		}
+
+		/**
+		 * Gets the total time spent in a linter.
+		 *
+		 * @return the total time
+		 */
+		public Duration getTotalTime() {
+			return Duration.ofNanos(totalNanos.sum());
+		}
+
+		/**
+		 * Gets the longest time spent in a single linter run.
+		 *
+		 * @return the max time
+		 */
+		public Duration getMaxTime() {
+			return Duration.ofNanos(maxNanos.get());
+		}
+
+		/**
+		 * Gets the number of times a linter has timed out.
+		 *
+		 * @return the timeout count
+		 */
+		public long getTimeoutCount() {
+			return timeouts.sum();
+		}
+
+		@Override
+		public String toString() {
+			return "LinterStatistics [count=" + getCount() + ", totalTime=" + getTotalTime() + ", maxTime="
+					+ getMaxTime() + ", timeouts=" + getTimeoutCount() + "]";
+		}
+	}
 }
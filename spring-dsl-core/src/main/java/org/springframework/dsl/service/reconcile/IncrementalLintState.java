@@ -0,0 +1,302 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.service.reconcile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.dsl.document.Document;
+import org.springframework.dsl.domain.Diagnostic;
+import org.springframework.dsl.domain.Range;
+import org.springframework.dsl.domain.TextDocumentContentChangeEvent;
+
+/**
+ * Diagnostics of {@link IncrementalLinter}s for a single document together
+ * with lines changed after those were created. Changes move diagnostics on
+ * untouched lines and mark touched lines dirty, to be linted again.
+ * <p>
+ * Diagnostics are kept for a document instance they were created for and
+ * only changes applied to that instance move them along to a changed
+ * document. Diagnostics of other documents having a same uri are never
+ * reused.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+class IncrementalLintState {
+
+	private final Map<IncrementalLinter, LinterState> linters = new HashMap<>();
+	private long generation;
+
+	/**
+	 * Apply changes of a document. Only diagnostics kept for a previous
+	 * document are changed. If line count of a changed document is not what
+	 * changes would give, like when a change joins or splits a {@code \r\n}
+	 * delimiter, diagnostics are discarded.
+	 *
+	 * @param previous the document changes were applied to
+	 * @param document the document after changes
+	 * @param version the version of a document after changes
+	 * @param changes the changes
+	 */
+	synchronized void change(Document previous, Document document, Integer version,
+			List<TextDocumentContentChangeEvent> changes) {
+		generation++;
+		List<LinterState> states = new ArrayList<>(linters.size());
+		for (LinterState state : linters.values()) {
+			if (state.document == previous) {
+				states.add(state);
+			}
+		}
+		if (states.isEmpty()) {
+			return;
+		}
+		int delta = 0;
+		for (TextDocumentContentChangeEvent change : changes) {
+			Range range = change.getRange();
+			if (range == null || version == null) {
+				linters.values().removeAll(states);
+				return;
+			}
+			int startLine = range.getStart().getLine();
+			int endLine = range.getEnd().getLine();
+			int newEndLine = startLine + countLines(change.getText());
+			delta += newEndLine - endLine;
+			for (LinterState state : states) {
+				state.change(startLine, endLine, newEndLine);
+			}
+		}
+		int lineCount = document.lineCount();
+		for (LinterState state : states) {
+			if (state.lineCount + delta != lineCount) {
+				linters.values().remove(state);
+			} else {
+				state.document = document;
+				state.version = version;
+				state.lineCount = lineCount;
+			}
+		}
+	}
+
+	/**
+	 * Plan a lint for a linter. Returned plan has no kept diagnostics if
+	 * document needs to be linted fully.
+	 *
+	 * @param linter the linter
+	 * @param document the document to lint
+	 * @return the plan
+	 */
+	synchronized Plan plan(IncrementalLinter linter, Document document) {
+		int version = document.getVersion();
+		int lineCount = document.lineCount();
+		LinterState state = linters.get(linter);
+		if (state == null || state.document != document || state.version != version
+				|| state.lineCount != lineCount) {
+			return new Plan(generation, document, version, lineCount, null, null);
+		}
+		return new Plan(generation, document, version, lineCount, state.diagnostics, state.dirty);
+	}
+
+	/**
+	 * Store diagnostics of a linter. Diagnostics are not stored if document
+	 * changed after a lint was planned.
+	 *
+	 * @param linter the linter
+	 * @param plan the plan used to lint
+	 * @param diagnostics the diagnostics of a whole document
+	 */
+	synchronized void update(IncrementalLinter linter, Plan plan, List<Diagnostic> diagnostics) {
+		if (plan.generation == generation) {
+			linters.put(linter,
+					new LinterState(plan.document, plan.version, plan.lineCount, diagnostics, Collections.emptyList()));
+		} else {
+			linters.remove(linter);
+		}
+	}
+
+	/**
+	 * Discard diagnostics of a linter, causing a next lint to be full.
+	 *
+	 * @param linter the linter
+	 */
+	synchronized void discard(IncrementalLinter linter) {
+		linters.remove(linter);
+	}
+
+	/**
+	 * Discard diagnostics kept for a document.
+	 *
+	 * @param document the document
+	 * @return true, if no diagnostics are kept anymore
+	 */
+	synchronized boolean discard(Document document) {
+		linters.values().removeIf(state -> state.document == document);
+		return linters.isEmpty();
+	}
+
+	private static int countLines(String text) {
+		int count = 0;
+		if (text != null) {
+			for (int i = 0; i < text.length(); i++) {
+				char c = text.charAt(i);
+				if (c == '\n' || (c == '\r' && (i + 1 == text.length() || text.charAt(i + 1) != '\n'))) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	static boolean contains(List<int[]> intervals, int line) {
+		for (int[] interval : intervals) {
+			if (line < interval[0]) {
+				return false;
+			} else if (line <= interval[1]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static Diagnostic shift(Diagnostic diagnostic, int delta) {
+		if (delta == 0) {
+			return diagnostic;
+		}
+		Range range = diagnostic.getRange();
+		return new Diagnostic(
+				Range.from(range.getStart().getLine() + delta, range.getStart().getCharacter(),
+						range.getEnd().getLine() + delta, range.getEnd().getCharacter()),
+				diagnostic.getSeverity(), diagnostic.getCode(), diagnostic.getSource(), diagnostic.getMessage());
+	}
+
+	/**
+	 * Plan of a single lint, either full or for dirty lines.
+	 */
+	static class Plan {
+
+		private final long generation;
+		private final Document document;
+		private final int version;
+		private final int lineCount;
+		private final List<Diagnostic> diagnostics;
+		private final List<int[]> dirty;
+
+		Plan(long generation, Document document, int version, int lineCount, List<Diagnostic> diagnostics,
+				List<int[]> dirty) {
+			this.generation = generation;
+			this.document = document;
+			this.version = version;
+			this.lineCount = lineCount;
+			this.diagnostics = diagnostics;
+			this.dirty = dirty;
+		}
+
+		boolean isFull() {
+			return diagnostics == null;
+		}
+
+		/**
+		 * Gets diagnostics on lines which are not dirty.
+		 *
+		 * @return the kept diagnostics
+		 */
+		List<Diagnostic> getDiagnostics() {
+			return diagnostics;
+		}
+
+		/**
+		 * Gets sorted and non overlapping dirty line intervals, both ends
+		 * inclusive.
+		 *
+		 * @return the dirty line intervals
+		 */
+		List<int[]> getDirty() {
+			return dirty;
+		}
+	}
+
+	private static class LinterState {
+
+		Document document;
+		int version;
+		int lineCount;
+		List<Diagnostic> diagnostics;
+		List<int[]> dirty;
+
+		LinterState(Document document, int version, int lineCount, List<Diagnostic> diagnostics, List<int[]> dirty) {
+			this.document = document;
+			this.version = version;
+			this.lineCount = lineCount;
+			this.diagnostics = diagnostics;
+			this.dirty = dirty;
+		}
+
+		void change(int startLine, int endLine, int newEndLine) {
+			int delta = newEndLine - endLine;
+			int from = startLine;
+			int to = newEndLine;
+			List<Diagnostic> kept = new ArrayList<>(diagnostics.size());
+			for (Diagnostic diagnostic : diagnostics) {
+				int start = diagnostic.getRange().getStart().getLine();
+				int end = diagnostic.getRange().getEnd().getLine();
+				if (end < startLine) {
+					kept.add(diagnostic);
+				} else if (start > endLine) {
+					kept.add(shift(diagnostic, delta));
+				} else if (start < startLine) {
+					// spans into a changed line, lint again from where it starts
+					from = Math.min(from, start);
+				}
+			}
+			List<int[]> lines = new ArrayList<>(dirty.size() + 1);
+			for (int[] interval : dirty) {
+				if (interval[1] < startLine) {
+					lines.add(interval);
+				} else if (interval[0] > endLine) {
+					lines.add(new int[] { interval[0] + delta, interval[1] + delta });
+				} else {
+					from = Math.min(from, interval[0]);
+					if (interval[1] > endLine) {
+						to = Math.max(to, interval[1] + delta);
+					}
+				}
+			}
+			lines.add(new int[] { from, to });
+			lines.sort(Comparator.comparingInt(interval -> interval[0]));
+			List<int[]> merged = new ArrayList<>(lines.size());
+			for (int[] interval : lines) {
+				int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+				if (last != null && interval[0] <= last[1] + 1) {
+					merged.set(merged.size() - 1, new int[] { last[0], Math.max(last[1], interval[1]) });
+				} else {
+					merged.add(interval);
+				}
+			}
+			List<Diagnostic> clean = new ArrayList<>(kept.size());
+			for (Diagnostic diagnostic : kept) {
+				if (!contains(merged, diagnostic.getRange().getStart().getLine())) {
+					clean.add(diagnostic);
+				}
+			}
+			this.diagnostics = clean;
+			this.dirty = merged;
+		}
+	}
+}
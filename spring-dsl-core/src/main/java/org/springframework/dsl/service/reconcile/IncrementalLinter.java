@@ -0,0 +1,46 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.service.reconcile;
+
+import org.springframework.dsl.document.Document;
+import org.springframework.dsl.domain.Range;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * {@link Linter} which is able to lint only a part of a {@link Document}. Used
+ * with line oriented languages where a problem on a line only depends on a
+ * content of that line. When a document changes, {@link DefaultReconciler}
+ * keeps problems on lines which were not touched, moves them by the number of
+ * added or removed lines and asks this linter to lint only changed lines.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public interface IncrementalLinter extends Linter {
+
+	/**
+	 * Lint lines of a {@link Document} within a given {@link Range}. Range
+	 * always starts from a beginning of a line and ends to a beginning of a
+	 * next line or to an end of a document. Only problems starting within a
+	 * range are used.
+	 *
+	 * @param document the document to lint
+	 * @param range the range of lines to lint
+	 * @return a {@link Flux} of {@link ReconcileProblem}s
+	 */
+	Flux<ReconcileProblem> lint(Document document, Range range);
+}
@@ -16,6 +16,8 @@
 package org.springframework.dsl.service.reconcile;
 
 import org.springframework.dsl.document.Document;
+import org.springframework.dsl.domain.DidChangeTextDocumentParams;
+import org.springframework.dsl.domain.DidCloseTextDocumentParams;
 import org.springframework.dsl.service.DslService;
 
 import reactor.core.publisher.Flux;
@@ -36,4 +38,36 @@ public interface Linter extends DslService {
 	 * @return a {@link Flux} of {@link ReconcileProblem}s
 	 */
 	Flux<ReconcileProblem> lint(Document document);
+
+	/**
+	 * Notify that a document has been closed allowing linter to release state
+	 * kept for it. Default implementation does nothing.
+	 *
+	 * @param params the {@link DidCloseTextDocumentParams}
+	 */
+	default void didClose(DidCloseTextDocumentParams params) {
+	}
+
+	/**
+	 * Notify that a document of a session has been closed allowing linter to
+	 * release state kept only for that document. Default implementation
+	 * delegates to {@link #didClose(DidCloseTextDocumentParams)}.
+	 *
+	 * @param document the closed document
+	 * @param params the {@link DidCloseTextDocumentParams}
+	 */
+	default void didClose(Document document, DidCloseTextDocumentParams params) {
+		didClose(params);
+	}
+
+	/**
+	 * Notify that a document has been changed, allowing linter to release
+	 * state kept for older versions of it. Default implementation does nothing.
+	 *
+	 * @param previous the document before changes
+	 * @param document the document with changes applied
+	 * @param params the {@link DidChangeTextDocumentParams}
+	 */
+	default void didChange(Document previous, Document document, DidChangeTextDocumentParams params) {
+	}
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.service.reconcile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.dsl.domain.Diagnostic;
+import org.springframework.dsl.domain.PublishDiagnosticsParams;
+
+/**
+ * Keeps track of diagnostics last published per document {@code uri} in order to
+ * skip publishing a same set of diagnostics again, like after whitespace
+ * edits. Diagnostics are compared without caring about their order.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class PublishedDiagnostics {
+
+	private static final Comparator<Diagnostic> ORDER = Comparator
+			.<Diagnostic, Integer>comparing(d -> d.getRange() != null ? d.getRange().getStart().getLine() : -1)
+			.thenComparing(d -> d.getRange() != null ? d.getRange().getStart().getCharacter() : -1)
+			.thenComparing(d -> d.getRange() != null ? d.getRange().getEnd().getLine() : -1)
+			.thenComparing(d -> d.getRange() != null ? d.getRange().getEnd().getCharacter() : -1)
+			.thenComparing(Diagnostic::getSeverity, Comparator.nullsFirst(Comparator.naturalOrder()))
+			.thenComparing(Diagnostic::getCode, Comparator.nullsFirst(Comparator.naturalOrder()))
+			.thenComparing(Diagnostic::getSource, Comparator.nullsFirst(Comparator.naturalOrder()))
+			.thenComparing(Diagnostic::getMessage, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+	private final Map<String, List<Diagnostic>> published = new ConcurrentHashMap<>();
+
+	/**
+	 * Update diagnostics of a document and tell if those differ from
+	 * diagnostics previously published for a same document.
+	 *
+	 * @param params the diagnostics about to be published
+	 * @return true if diagnostics changed and should be published
+	 */
+	public boolean update(PublishDiagnosticsParams params) {
+		List<Diagnostic> diagnostics = normalize(params.getDiagnostics());
+		boolean[] changed = new boolean[1];
+		published.compute(params.getUri(), (uri, previous) -> {
+			changed[0] = !diagnostics.equals(previous);
+			return diagnostics;
+		});
+		return changed[0];
+	}
+
+	/**
+	 * Forget diagnostics of a document, causing next diagnostics to be
+	 * published.
+	 *
+	 * @param uri the document uri
+	 */
+	public void remove(String uri) {
+		published.remove(uri);
+	}
+
+	/**
+	 * Gets the number of documents having published diagnostics.
+	 *
+	 * @return the document count
+	 */
+	public int getDocumentCount() {
+		return published.size();
+	}
+
+	private static List<Diagnostic> normalize(List<Diagnostic> diagnostics) {
+		if (diagnostics == null || diagnostics.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<Diagnostic> normalized = new ArrayList<>(diagnostics);
+		normalized.sort(ORDER);
+		return normalized;
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.service.reconcile;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dsl.document.Document;
+import org.springframework.util.Assert;
+
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Schedules reconciles of documents so that bursts of changes result only one
+ * reconcile. A reconcile for a document uri is started after a debounce window
+ * has passed without newer changes. Scheduling a newer version of a document
+ * cancels a pending or running reconcile of older versions and a result is
+ * published only if it belongs to a latest scheduled version.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class ReconcileScheduler implements Disposable {
+
+	private static final Logger log = LoggerFactory.getLogger(ReconcileScheduler.class);
+	private final Map<String, Task> tasks = new ConcurrentHashMap<>();
+	private final Duration debounce;
+	private final Scheduler scheduler;
+	private volatile boolean disposed;
+
+	/**
+	 * Instantiates a new reconcile scheduler. Reconciles are run on an
+	 * {@link Schedulers#elastic() elastic} scheduler as parsing a document
+	 * may block and would otherwise starve a shared cpu bound parallel
+	 * scheduler.
+	 *
+	 * @param debounce the debounce window
+	 */
+	public ReconcileScheduler(Duration debounce) {
+		this(debounce, Schedulers.elastic());
+	}
+
+	/**
+	 * Instantiates a new reconcile scheduler.
+	 *
+	 * @param debounce the debounce window
+	 * @param scheduler the scheduler used for waiting a debounce window and
+	 *                  running a reconcile
+	 */
+	public ReconcileScheduler(Duration debounce, Scheduler scheduler) {
+		Assert.notNull(debounce, "debounce must be set");
+		Assert.isTrue(!debounce.isNegative(), "debounce cannot be negative");
+		Assert.notNull(scheduler, "scheduler must be set");
+		this.debounce = debounce;
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Schedule a reconcile of a document.
+	 *
+	 * @param <T> the type of a reconcile result
+	 * @param document the document
+	 * @param reconcile the function reconciling a document
+	 * @param publisher the function publishing a result of a reconcile
+	 */
+	public <T> void schedule(Document document, Function<Document, ? extends Mono<T>> reconcile,
+			Function<? super T, ? extends Mono<Void>> publisher) {
+		Assert.notNull(document, "document must be set");
+		if (disposed) {
+			return;
+		}
+		String uri = document.uri();
+		Task task = new Task(document.getVersion());
+		Task previous = tasks.put(uri, task);
+		if (previous != null) {
+			log.debug("Cancelling reconcile of {} version {}", uri, previous.version);
+			previous.dispose();
+		}
+		task.update(Mono.delay(debounce, scheduler)
+				.then(Mono.defer(() -> reconcile.apply(document)))
+				.filter(result -> tasks.get(uri) == task)
+				.flatMap(result -> publisher.apply(result))
+				.doFinally(signal -> tasks.remove(uri, task))
+				.subscribe(null, e -> log.error("Reconcile of {} failed", uri, e)));
+	}
+
+	/**
+	 * Cancel a pending or running reconcile of a document.
+	 *
+	 * @param uri the document uri
+	 */
+	public void cancel(String uri) {
+		Task task = tasks.remove(uri);
+		if (task != null) {
+			task.dispose();
+		}
+	}
+
+	/**
+	 * Checks if there is a pending or running reconcile of a document.
+	 *
+	 * @param uri the document uri
+	 * @return true, if reconcile is scheduled
+	 */
+	public boolean isScheduled(String uri) {
+		return tasks.containsKey(uri);
+	}
+
+	@Override
+	public void dispose() {
+		disposed = true;
+		for (String uri : tasks.keySet()) {
+			cancel(uri);
+		}
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return disposed;
+	}
+
+	private static class Task {
+
+		final int version;
+		final Disposable.Swap disposable = Disposables.swap();
+
+		Task(int version) {
+			this.version = version;
+		}
+
+		void update(Disposable next) {
+			disposable.update(next);
+		}
+
+		void dispose() {
+			disposable.dispose();
+		}
+	}
+}
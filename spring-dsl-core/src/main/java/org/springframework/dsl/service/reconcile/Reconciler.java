@@ -15,7 +15,13 @@
  */
 package org.springframework.dsl.service.reconcile;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.dsl.document.Document;
+import org.springframework.dsl.domain.Diagnostic;
+import org.springframework.dsl.domain.DidChangeTextDocumentParams;
+import org.springframework.dsl.domain.DidCloseTextDocumentParams;
 import org.springframework.dsl.domain.PublishDiagnosticsParams;
 import org.springframework.dsl.service.DslService;
 
@@ -42,4 +48,64 @@ public interface Reconciler extends DslService {
 	 * @return a {@link Mono} indicating reconcile operation completion
 	 */
 	Flux<PublishDiagnosticsParams> reconcile(Document document);
+
+	/**
+	 * Reconcile a {@link Document} and collect all diagnostics into a single
+	 * {@link PublishDiagnosticsParams}. Returned {@link Mono} is empty if
+	 * there are no diagnostics.
+	 *
+	 * @param document the document
+	 * @return a {@link Mono} of collected {@link PublishDiagnosticsParams}
+	 */
+	default Mono<PublishDiagnosticsParams> collectDiagnostics(Document document) {
+		return reconcile(document)
+				.<List<Diagnostic>>collect(ArrayList::new, (diagnostics, params) -> diagnostics.addAll(params.getDiagnostics()))
+				.filter(diagnostics -> !diagnostics.isEmpty())
+				.map(diagnostics -> new PublishDiagnosticsParams(document.uri(), diagnostics));
+	}
+
+	/**
+	 * Notify about changes of a document before it is reconciled. Allows
+	 * reconciler to keep diagnostics of unchanged parts of a document.
+	 *
+	 * @param document the document with changes applied
+	 * @param params the {@link DidChangeTextDocumentParams}
+	 */
+	default void didChange(Document document, DidChangeTextDocumentParams params) {
+	}
+
+	/**
+	 * Notify about changes of a document before it is reconciled. A previous
+	 * document is the one changes were applied to, allowing reconciler to tell
+	 * apart documents having a same uri in different sessions.
+	 *
+	 * @param previous the document before changes
+	 * @param document the document with changes applied
+	 * @param params the {@link DidChangeTextDocumentParams}
+	 */
+	default void didChange(Document previous, Document document, DidChangeTextDocumentParams params) {
+		didChange(document, params);
+	}
+
+	/**
+	 * Notify about a document being closed. Allows reconciler to forget state
+	 * kept for a document.
+	 *
+	 * @param params the {@link DidCloseTextDocumentParams}
+	 */
+	default void didClose(DidCloseTextDocumentParams params) {
+	}
+
+	/**
+	 * Notify about a document of a session being closed. Allows reconciler to
+	 * forget state kept only for that document, leaving a same uri open in
+	 * other sessions intact. Default implementation delegates to
+	 * {@link #didClose(DidCloseTextDocumentParams)}.
+	 *
+	 * @param document the closed document
+	 * @param params the {@link DidCloseTextDocumentParams}
+	 */
+	default void didClose(Document document, DidCloseTextDocumentParams params) {
+		didClose(params);
+	}
 }
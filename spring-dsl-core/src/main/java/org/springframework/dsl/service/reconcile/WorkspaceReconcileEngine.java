@@ -0,0 +1,266 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.service.reconcile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dsl.document.Document;
+import org.springframework.dsl.document.MappedDocument;
+import org.springframework.dsl.domain.DidCloseTextDocumentParams;
+import org.springframework.dsl.domain.PublishDiagnosticsParams;
+import org.springframework.dsl.domain.TextDocumentIdentifier;
+import org.springframework.dsl.model.LanguageId;
+import org.springframework.dsl.service.DslServiceRegistry;
+import org.springframework.util.Assert;
+
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Engine reconciling every file under workspace roots in a background.
+ * Files are matched to a {@link LanguageId} by their extension, mapped into a
+ * {@link MappedDocument} and passed to {@link Reconciler}s from a
+ * {@link DslServiceRegistry}. Diagnostics are published as soon as a file is
+ * reconciled.
+ * <p>
+ * Work is done on low priority threads and is throttled not to slow down
+ * interactive requests. Next file is not started until there has been no
+ * {@link #notifyActivity() activity} for a quiet period. Open documents are
+ * left for interactive reconcile and are not published from a background.
+ * <p>
+ * Background documents have a {@link #BACKGROUND_VERSION} so that results
+ * cached per document uri and version never mix with documents opened by a
+ * client.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class WorkspaceReconcileEngine implements Disposable {
+
+	/**
+	 * Version of documents reconciled in a background. Clients never use
+	 * negative versions.
+	 */
+	public static final int BACKGROUND_VERSION = -1;
+	private static final Logger log = LoggerFactory.getLogger(WorkspaceReconcileEngine.class);
+	private final DslServiceRegistry registry;
+	private final Map<String, LanguageId> extensions;
+	private final List<Path> roots;
+	private final Set<String> openDocuments = ConcurrentHashMap.newKeySet();
+	private final AtomicLong quietUntil = new AtomicLong(System.nanoTime());
+	private final AtomicInteger reconciledCount = new AtomicInteger();
+	private final Disposable.Swap task = Disposables.swap();
+	private int parallelism = 1;
+	private Duration quietPeriod = Duration.ofMillis(500);
+	private ExecutorService executor;
+
+	/**
+	 * Instantiates a new workspace reconcile engine.
+	 *
+	 * @param registry the dsl service registry
+	 * @param extensions the language ids keyed by file extension
+	 * @param roots the workspace roots
+	 */
+	public WorkspaceReconcileEngine(DslServiceRegistry registry, Map<String, LanguageId> extensions, List<Path> roots) {
+		Assert.notNull(registry, "registry must be set");
+		Assert.notNull(extensions, "extensions must be set");
+		Assert.notNull(roots, "roots must be set");
+		this.registry = registry;
+		this.extensions = extensions;
+		this.roots = roots;
+	}
+
+	/**
+	 * Sets the number of files reconciled at a same time.
+	 *
+	 * @param parallelism the parallelism
+	 */
+	public void setParallelism(int parallelism) {
+		Assert.isTrue(parallelism > 0, "parallelism must be positive");
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Sets the time without activity needed before a next file is reconciled.
+	 *
+	 * @param quietPeriod the quiet period
+	 */
+	public void setQuietPeriod(Duration quietPeriod) {
+		Assert.notNull(quietPeriod, "quietPeriod must be set");
+		this.quietPeriod = quietPeriod;
+	}
+
+	/**
+	 * Start reconciling workspace roots. Any previously started reconcile is
+	 * cancelled.
+	 *
+	 * @param publisher the function publishing diagnostics of a file
+	 */
+	public synchronized void start(Function<PublishDiagnosticsParams, ? extends Mono<Void>> publisher) {
+		if (executor == null) {
+			AtomicInteger threads = new AtomicInteger();
+			executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+				Thread thread = new Thread(runnable, "workspace-reconcile-" + threads.incrementAndGet());
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			});
+		}
+		Scheduler scheduler = Schedulers.fromExecutorService(executor);
+		log.debug("Reconciling workspace roots {}", roots);
+		task.update(Flux.fromIterable(roots)
+			.concatMapIterable(root -> scan(root))
+			.subscribeOn(scheduler)
+			.flatMap(path -> awaitQuiet().then(reconcile(path, scheduler)), parallelism)
+			.concatMap(params -> publisher.apply(params)
+				.onErrorResume(e -> {
+					log.debug("Unable to publish diagnostics for {}", params.getUri(), e);
+					return Mono.empty();
+				}))
+			.subscribe(null, e -> log.warn("Workspace reconcile failed", e),
+					() -> log.debug("Reconciled {} workspace files", reconciledCount.get())));
+	}
+
+	/**
+	 * Notify about an interactive activity, delaying background work for a
+	 * quiet period.
+	 */
+	public void notifyActivity() {
+		quietUntil.set(System.nanoTime() + quietPeriod.toNanos());
+	}
+
+	/**
+	 * Notify about an opened document, which is then not reconciled in a
+	 * background.
+	 *
+	 * @param uri the document uri
+	 */
+	public void open(String uri) {
+		openDocuments.add(uri);
+		notifyActivity();
+	}
+
+	/**
+	 * Notify about a closed document.
+	 *
+	 * @param uri the document uri
+	 */
+	public void close(String uri) {
+		openDocuments.remove(uri);
+	}
+
+	/**
+	 * Gets the number of files reconciled.
+	 *
+	 * @return the reconciled count
+	 */
+	public int getReconciledCount() {
+		return reconciledCount.get();
+	}
+
+	@Override
+	public synchronized void dispose() {
+		task.dispose();
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return task.isDisposed();
+	}
+
+	private List<Path> scan(Path root) {
+		try (Stream<Path> paths = Files.walk(root)) {
+			return paths
+				.filter(path -> Files.isRegularFile(path))
+				.filter(path -> extensions.containsKey(extension(path)))
+				.collect(Collectors.toList());
+		} catch (IOException | UncheckedIOException e) {
+			log.warn("Unable to scan workspace root {}", root, e);
+			return Collections.emptyList();
+		}
+	}
+
+	private Mono<Void> awaitQuiet() {
+		return Mono.defer(() -> {
+			long wait = quietUntil.get() - System.nanoTime();
+			if (wait > 0) {
+				return Mono.delay(Duration.ofNanos(wait)).then(awaitQuiet());
+			}
+			return Mono.empty();
+		});
+	}
+
+	private Mono<PublishDiagnosticsParams> reconcile(Path path, Scheduler scheduler) {
+		String uri = path.toUri().toString();
+		LanguageId languageId = extensions.get(extension(path));
+		return Mono.fromCallable(() -> openDocuments.contains(uri) ? null : MappedDocument.map(uri, languageId, BACKGROUND_VERSION, path))
+			.subscribeOn(scheduler)
+			.flatMap(document -> reconcile(document))
+			.doOnNext(params -> reconciledCount.incrementAndGet())
+			.filter(params -> !params.getDiagnostics().isEmpty() && !openDocuments.contains(uri))
+			.onErrorResume(e -> {
+				log.debug("Unable to reconcile {}", path, e);
+				return Mono.empty();
+			});
+	}
+
+	private Mono<PublishDiagnosticsParams> reconcile(Document document) {
+		DidCloseTextDocumentParams close = new DidCloseTextDocumentParams(new TextDocumentIdentifier(document.uri()));
+		// document may have been opened while reconciling and closing it would
+		// drop state of an interactive document
+		return Flux.fromIterable(registry.getReconcilers(document.languageId()))
+			.concatMap(reconciler -> reconciler.collectDiagnostics(document)
+				.doFinally(signal -> {
+					if (!openDocuments.contains(document.uri())) {
+						reconciler.didClose(document, close);
+					}
+				}))
+			.flatMapIterable(PublishDiagnosticsParams::getDiagnostics)
+			.collectList()
+			.map(diagnostics -> new PublishDiagnosticsParams(document.uri(), diagnostics));
+	}
+
+	private static String extension(Path path) {
+		String name = path.getFileName().toString();
+		int index = name.lastIndexOf('.');
+		return index < 0 ? name : name.substring(index + 1);
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.document;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+import org.springframework.dsl.domain.DidChangeTextDocumentParams;
+import org.springframework.dsl.domain.Range;
+import org.springframework.dsl.domain.TextDocumentContentChangeEvent;
+import org.springframework.dsl.domain.VersionedTextDocumentIdentifier;
+
+/**
+ * Tests for {@link DocumentChanges}.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class DocumentChangesTests {
+
+	private final static String[] PIECES = new String[] { "a", "bc", "\n", "\r", "\r\n", "foo\n" };
+
+	@Test
+	public void testDescendingIsBatched() {
+		DocumentSnapshot snapshot = new DocumentSnapshot("uri", null, 0, "line1\nline2\nline3");
+		List<TextDocumentContentChangeEvent> changes = Arrays.asList(
+				new TextDocumentContentChangeEvent(Range.from(2, 0, 2, 0), 0, "x"),
+				new TextDocumentContentChangeEvent(Range.from(1, 0, 1, 0), 0, "x"),
+				new TextDocumentContentChangeEvent(Range.from(0, 0, 0, 0), 0, "x"));
+		List<DocumentChanges.Edit> edits = DocumentChanges.plan(snapshot, changes);
+		assertThat(edits).hasSize(3);
+		assertThat(edits.get(0).start).isEqualTo(0);
+		assertThat(edits.get(2).start).isEqualTo(12);
+		assertThat(snapshot.apply(1, changes).content()).isEqualTo("xline1\nxline2\nxline3");
+	}
+
+	@Test
+	public void testAscendingIsBatched() {
+		DocumentSnapshot snapshot = new DocumentSnapshot("uri", null, 0, "line1\nline2\nline3");
+		List<TextDocumentContentChangeEvent> changes = Arrays.asList(
+				new TextDocumentContentChangeEvent(Range.from(0, 0, 0, 0), 0, "x\ny"),
+				new TextDocumentContentChangeEvent(Range.from(2, 0, 2, 0), 0, "x"),
+				new TextDocumentContentChangeEvent(Range.from(3, 0, 3, 5), 5, "z"));
+		List<DocumentChanges.Edit> edits = DocumentChanges.plan(snapshot, changes);
+		assertThat(edits).hasSize(3);
+		assertThat(snapshot.apply(1, changes).content()).isEqualTo("x\nyline1\nxline2\nz");
+	}
+
+	@Test
+	public void testOverlappingIsNotBatched() {
+		DocumentSnapshot snapshot = new DocumentSnapshot("uri", null, 0, "line1\nline2\nline3");
+		List<TextDocumentContentChangeEvent> changes = Arrays.asList(
+				new TextDocumentContentChangeEvent(Range.from(1, 0, 1, 3), 3, "x"),
+				new TextDocumentContentChangeEvent(Range.from(0, 2, 1, 1), 5, "y"));
+		assertThat(DocumentChanges.plan(snapshot, changes)).isNull();
+		assertThat(DocumentChanges.plan(snapshot,
+				Arrays.asList(new TextDocumentContentChangeEvent(null, 0, "x"), changes.get(0)))).isNull();
+	}
+
+	@Test
+	public void testRandomBatches() {
+		Random random = new Random(4);
+		for (int round = 0; round < 300; round++) {
+			StringBuilder buf = new StringBuilder();
+			for (int i = random.nextInt(50); i > 0; i--) {
+				buf.append(PIECES[random.nextInt(PIECES.length)]);
+			}
+			String content = buf.toString();
+			List<TextDocumentContentChangeEvent> changes = randomChanges(random, content, round % 3);
+
+			RopeDocument expected = new RopeDocument("uri", null, 0, content);
+			int version = 1;
+			for (TextDocumentContentChangeEvent change : changes) {
+				expected.apply(params(version++, Collections.singletonList(change)));
+			}
+
+			TextDocument textDocument = new TextDocument("uri", null, 0, content);
+			textDocument.snapshot();
+			textDocument.apply(params(1, changes));
+			DocumentSnapshot snapshot = new DocumentSnapshot("uri", null, 0, content).apply(1, changes);
+
+			assertThat(textDocument.content()).isEqualTo(expected.content());
+			assertThat(snapshot.content()).isEqualTo(expected.content());
+			assertThat(textDocument.snapshot().content()).isEqualTo(expected.content());
+			assertThat(textDocument.lineCount()).isEqualTo(expected.lineCount());
+			for (int line = 0; line < expected.lineCount(); line++) {
+				assertThat(textDocument.getLineOffset(line)).isEqualTo(expected.snapshot().contentView().getLineOffset(line));
+			}
+		}
+	}
+
+	/**
+	 * Creates non-overlapping changes in descending (mode 0), ascending (mode 1)
+	 * or random (mode 2) order.
+	 */
+	private static List<TextDocumentContentChangeEvent> randomChanges(Random random, String content, int mode) {
+		TreeSet<Integer> offsets = new TreeSet<>();
+		for (int i = random.nextInt(10) * 2; i > 0; i--) {
+			offsets.add(random.nextInt(content.length() + 1));
+		}
+		List<int[]> regions = new ArrayList<>();
+		Integer[] sorted = offsets.toArray(new Integer[0]);
+		for (int i = 0; i + 1 < sorted.length; i += 2) {
+			regions.add(new int[] { sorted[i], sorted[i + 1] });
+		}
+		if (mode == 0) {
+			Collections.reverse(regions);
+		} else if (mode == 2) {
+			Collections.shuffle(regions, random);
+		}
+
+		// compute ranges against a document where previous changes are applied
+		List<TextDocumentContentChangeEvent> changes = new ArrayList<>();
+		RopeDocument document = new RopeDocument("uri", null, 0, content);
+		List<int[]> applied = new ArrayList<>();
+		int version = 1;
+		for (int[] region : regions) {
+			int start = region[0];
+			int end = region[1];
+			for (int[] a : applied) {
+				if (a[0] < region[0]) {
+					start += a[2];
+					end += a[2];
+				}
+			}
+			String text = random.nextBoolean() ? "" : PIECES[random.nextInt(PIECES.length)];
+			TextDocumentContentChangeEvent change = new TextDocumentContentChangeEvent(
+					document.toRange(start, end - start), end - start, text);
+			changes.add(change);
+			document.apply(params(version++, Collections.singletonList(change)));
+			applied.add(new int[] { region[0], region[1], text.length() - (end - start) });
+		}
+		return changes;
+	}
+
+	private static DidChangeTextDocumentParams params(int version, List<TextDocumentContentChangeEvent> changes) {
+		DidChangeTextDocumentParams params = new DidChangeTextDocumentParams();
+		VersionedTextDocumentIdentifier identifier = new VersionedTextDocumentIdentifier(version);
+		identifier.setUri("uri");
+		params.setTextDocument(identifier);
+		params.setContentChanges(changes);
+		return params;
+	}
+}
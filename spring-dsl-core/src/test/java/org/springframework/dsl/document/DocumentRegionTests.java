@@ -17,6 +17,11 @@ package org.springframework.dsl.document;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import org.junit.Test;
@@ -51,4 +56,54 @@ public class DocumentRegionTests {
 		assertThat(documentRegions[1].toRange()).isEqualTo(Range.from(1, 0, 1, 5));
 		assertThat(documentRegions[2].toRange()).isEqualTo(Range.from(2, 0, 2, 5));
 	}
+
+	@Test
+	public void testCursorMatchesSplit() {
+		Document document = new TextDocument("a, b,,c ,\n d e,");
+		Pattern pattern = Pattern.compile(",");
+		assertCursor(new DocumentRegion(document).split(pattern), new DocumentRegion(document).tokenize(pattern));
+		assertCursor(new DocumentRegion(document).split(','), new DocumentRegion(document).tokenize(','));
+		assertCursor(new DocumentRegion(document, 3, 9).split(','), new DocumentRegion(document, 3, 9).tokenize(','));
+		assertCursor(new DocumentRegion(TDOC3).split(Pattern.compile("[^\\w]+")),
+				new DocumentRegion(TDOC3).tokenize(Pattern.compile("[^\\w]+")));
+		assertCursor(new DocumentRegion(document, 0, 0).split(','), new DocumentRegion(document, 0, 0).tokenize(','));
+	}
+
+	@Test
+	public void testCursorTrim() {
+		Document document = new TextDocument(" a ,  ,b");
+		DocumentRegionCursor cursor = new DocumentRegion(document).tokenize(',');
+		List<String> tokens = new ArrayList<>();
+		while (cursor.next()) {
+			tokens.add(cursor.trim().toString());
+		}
+		assertThat(tokens).containsExactly("a", "", "b");
+	}
+
+	@Test
+	public void testCursorLookup() {
+		Set<CharSequence> words = new HashSet<>(Arrays.asList("line1", "line3"));
+		DocumentRegionCursor cursor = new DocumentRegion(TDOC3).tokenize(Pattern.compile("[^\\w]+"));
+		List<Range> found = new ArrayList<>();
+		while (cursor.next()) {
+			if (words.contains(cursor)) {
+				found.add(cursor.toRange());
+			}
+		}
+		assertThat(found).containsExactly(Range.from(0, 0, 0, 5), Range.from(2, 0, 2, 5));
+		assertThat(new DocumentRegion(TDOC3, 0, 5).contentEquals("line1")).isTrue();
+		assertThat(new DocumentRegion(TDOC3, 0, 5).contentEquals("line2")).isFalse();
+	}
+
+	private static void assertCursor(DocumentRegion[] expected, DocumentRegionCursor cursor) {
+		List<String> tokens = new ArrayList<>();
+		while (cursor.next()) {
+			assertThat(cursor.hashCode()).isEqualTo(cursor.toString().hashCode());
+			assertThat(cursor.contentEquals(cursor.toRegion())).isTrue();
+			assertThat(cursor.toRange()).isEqualTo(expected[tokens.size()].toRange());
+			tokens.add(cursor.toString());
+		}
+		assertThat(cursor.next()).isFalse();
+		assertThat(tokens).containsExactly(Arrays.stream(expected).map(DocumentRegion::toString).toArray(String[]::new));
+	}
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.document;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.springframework.dsl.domain.Position;
+import org.springframework.dsl.domain.Range;
+import org.springframework.dsl.domain.TextDocumentContentChangeEvent;
+import org.springframework.dsl.model.LanguageId;
+
+/**
+ * Tests for {@link DocumentSnapshot}.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class DocumentSnapshotTests {
+
+	@Test
+	public void testApplyKeepsPredecessorIntact() {
+		DocumentSnapshot snapshot1 = new DocumentSnapshot("uri", LanguageId.TXT, 1, "line1\nline2\n");
+		DocumentSnapshot snapshot2 = snapshot1.apply(2, Arrays.asList(
+				new TextDocumentContentChangeEvent(Range.from(0, 0, 0, 5), 5, "hello"),
+				new TextDocumentContentChangeEvent(Range.from(1, 5, 1, 5), 0, "!")));
+
+		assertThat(snapshot1.getVersion()).isEqualTo(1);
+		assertThat(snapshot1.content()).isEqualTo("line1\nline2\n");
+		assertThat(snapshot2.getVersion()).isEqualTo(2);
+		assertThat(snapshot2.content()).isEqualTo("hello\nline2!\n");
+		assertThat(snapshot2.uri()).isEqualTo("uri");
+		assertThat(snapshot2.languageId()).isEqualTo(LanguageId.TXT);
+		assertThat(snapshot2.lineCount()).isEqualTo(3);
+		assertThat(snapshot2.toPosition(12)).isEqualTo(Position.from(1, 6));
+	}
+
+	@Test
+	public void testFullSync() {
+		DocumentSnapshot snapshot1 = new DocumentSnapshot("uri", LanguageId.TXT, 1, "foo");
+		DocumentSnapshot snapshot2 = snapshot1.apply(2,
+				Arrays.asList(new TextDocumentContentChangeEvent(null, 0, "bar\r\n")));
+		assertThat(snapshot2.content()).isEqualTo("bar\r\n");
+		assertThat(snapshot2.getDefaultLineDelimiter()).isEqualTo("\r\n");
+		assertThat(snapshot1.content()).isEqualTo("foo");
+	}
+
+	@Test
+	public void testValidatePosition() {
+		DocumentSnapshot snapshot = new DocumentSnapshot("uri", LanguageId.TXT, 1, "line1\nline2");
+		assertThat(snapshot.validatePosition(Position.from(5, 5))).isEqualTo(Position.from(1, 4));
+		assertThat(snapshot.validatePosition(Position.from(0, 10))).isEqualTo(Position.from(0, 5));
+		assertThat(snapshot.validatePosition(Position.from(-1, -1))).isEqualTo(Position.from(0, 0));
+	}
+}
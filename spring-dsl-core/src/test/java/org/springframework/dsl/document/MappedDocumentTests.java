@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.document;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.dsl.domain.Position;
+
+public class MappedDocumentTests {
+
+	private final static String[] PIECES = new String[] { "a", "bc", "\n", "\r", "\r\n", "foo\n", "\u00e4", "\u20ac",
+			"\ud83d\ude00" };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testMapFile() throws Exception {
+		File file = folder.newFile("test.txt");
+		Files.write(file.toPath(), "line1\nline\u00e42\r\nline3".getBytes(StandardCharsets.UTF_8));
+		MappedDocument document = MappedDocument.map("file:///test.txt", null, 1, file.toPath());
+
+		assertThat(document.length()).isEqualTo(19);
+		assertThat(document.lineCount()).isEqualTo(3);
+		assertThat(document.content()).isEqualTo("line1\nline\u00e42\r\nline3");
+		assertThat(document.content(6, 6)).isEqualTo("line\u00e42");
+		assertThat(document.charAt(10)).isEqualTo('\u00e4');
+		assertThat(document.charAt(14)).isEqualTo('l');
+		assertThat(document.toOffset(Position.from(2, 2))).isEqualTo(16);
+		assertThat(document.toPosition(16)).isEqualTo(Position.from(2, 2));
+		assertThat(document.isAscii(0)).isTrue();
+		assertThat(document.isAscii(1)).isFalse();
+		assertThat(document.getDefaultLineDelimiter()).isEqualTo("\n");
+		assertThat(document.contentView().subSequence(6, 12).toString()).isEqualTo("line\u00e42");
+		assertThatThrownBy(() -> document.charAt(19)).isInstanceOf(BadLocationException.class);
+	}
+
+	@Test
+	public void testMalformedInput() {
+		ByteBuffer buffer = ByteBuffer.wrap(new byte[] { 'a', (byte) 0xc3 });
+		assertThatThrownBy(() -> new MappedDocument(null, null, 0, buffer)).isInstanceOf(MalformedInputException.class);
+	}
+
+	@Test
+	public void testRejectsSequencesDecoderReplaces() {
+		byte[][] inputs = new byte[][] {
+			{ 'a', (byte) 0xed, (byte) 0xa0, (byte) 0x80 },
+			{ (byte) 0xc0, (byte) 0xaf },
+			{ (byte) 0xe0, (byte) 0x80, (byte) 0xaf },
+			{ (byte) 0xf0, (byte) 0x80, (byte) 0x80, (byte) 0xaf },
+			{ (byte) 0xf4, (byte) 0x90, (byte) 0x80, (byte) 0x80 } };
+		for (byte[] input : inputs) {
+			assertThatThrownBy(() -> new MappedDocument(null, null, 0, ByteBuffer.wrap(input)))
+					.isInstanceOf(MalformedInputException.class);
+		}
+		ByteBuffer valid = ByteBuffer.wrap(new byte[] { (byte) 0xed, (byte) 0x9f, (byte) 0xbf, (byte) 0xf4,
+				(byte) 0x8f, (byte) 0xbf, (byte) 0xbf });
+		assertThatCode(() -> new MappedDocument(null, null, 0, valid)).doesNotThrowAnyException();
+	}
+
+	@Test
+	public void testSameAsSnapshot() throws Exception {
+		Random random = new Random(8);
+		for (int round = 0; round < 200; round++) {
+			StringBuilder buf = new StringBuilder();
+			for (int i = random.nextInt(50); i > 0; i--) {
+				buf.append(PIECES[random.nextInt(PIECES.length)]);
+			}
+			String content = buf.toString();
+			ByteBuffer buffer = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+			MappedDocument document = new MappedDocument(null, null, 0, buffer);
+			DocumentSnapshot expected = new DocumentSnapshot(null, null, 0, content);
+
+			assertThat(document.content()).isEqualTo(content);
+			assertThat(document.length()).isEqualTo(expected.length());
+			assertThat(document.lineCount()).isEqualTo(expected.lineCount());
+			assertThat(document.getDefaultLineDelimiter()).isEqualTo(expected.getDefaultLineDelimiter());
+			assertThat(document.metadata()).isEqualTo(expected.metadata());
+			for (int line = 0; line < expected.lineCount(); line++) {
+				Position position = Position.from(line, 0);
+				assertThat(document.toOffset(position)).isEqualTo(expected.toOffset(position));
+				assertThat(document.validatePosition(Position.from(line, 100)))
+						.isEqualTo(expected.validatePosition(Position.from(line, 100)));
+			}
+			for (int offset = 0; offset <= content.length(); offset++) {
+				assertThat(document.toPosition(offset)).isEqualTo(expected.toPosition(offset));
+				if (offset < content.length()) {
+					assertThat(document.charAt(offset)).isEqualTo(content.charAt(offset));
+				}
+			}
+			int start = content.isEmpty() ? 0 : random.nextInt(content.length());
+			int length = random.nextInt(content.length() - start + 1);
+			assertThat(document.content(start, length)).isEqualTo(content.substring(start, start + length));
+		}
+	}
+}
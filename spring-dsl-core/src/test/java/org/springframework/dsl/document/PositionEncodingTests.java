@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.document;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+import org.springframework.dsl.domain.Position;
+
+/**
+ * Tests for {@link PositionEncoding}.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class PositionEncodingTests {
+
+	// 'a', a-umlaut (2 bytes), euro sign (3 bytes), emoji (4 bytes, surrogate pair), 'b'
+	private final static String LINE = "a\u00e4\u20ac\ud83d\ude00b";
+	private final static String DOC = "hello\n" + LINE + "\nworld";
+
+	@Test
+	public void testOf() {
+		assertThat(PositionEncoding.of("utf-8")).isEqualTo(PositionEncoding.UTF8);
+		assertThat(PositionEncoding.of("UTF-32")).isEqualTo(PositionEncoding.UTF32);
+		assertThat(PositionEncoding.of(null)).isEqualTo(PositionEncoding.UTF16);
+	}
+
+	@Test
+	public void testColumns() {
+		int end = LINE.length();
+		assertThat(PositionEncoding.UTF16.toColumn(LINE, 0, end)).isEqualTo(6);
+		assertThat(PositionEncoding.UTF8.toColumn(LINE, 0, end)).isEqualTo(11);
+		assertThat(PositionEncoding.UTF32.toColumn(LINE, 0, end)).isEqualTo(5);
+
+		assertThat(PositionEncoding.UTF8.toCharIndex(LINE, 0, end, 3)).isEqualTo(2);
+		assertThat(PositionEncoding.UTF8.toCharIndex(LINE, 0, end, 6)).isEqualTo(3);
+		assertThat(PositionEncoding.UTF8.toCharIndex(LINE, 0, end, 10)).isEqualTo(5);
+		// middle of a character is rounded down
+		assertThat(PositionEncoding.UTF8.toCharIndex(LINE, 0, end, 2)).isEqualTo(1);
+		assertThat(PositionEncoding.UTF32.toCharIndex(LINE, 0, end, 4)).isEqualTo(5);
+		assertThat(PositionEncoding.UTF32.toCharIndex(LINE, 0, end, 7)).isEqualTo(8);
+	}
+
+	@Test
+	public void testTextDocument() {
+		assertDocument(new TextDocument(DOC));
+	}
+
+	@Test
+	public void testDocumentSnapshot() {
+		assertDocument(new DocumentSnapshot(null, null, 0, DOC));
+		assertDocument(new RopeDocument(DOC));
+	}
+
+	@Test
+	public void testAsciiFlagsAfterEdits() {
+		TextDocument document = new TextDocument(DOC);
+		assertThat(document.isAscii(0)).isTrue();
+		assertThat(document.isAscii(1)).isFalse();
+		assertThat(document.isAscii(2)).isTrue();
+		document.replace(0, 0, "\u00e4");
+		assertThat(document.isAscii(0)).isFalse();
+		assertThat(document.isAscii(2)).isTrue();
+		assertDocument(new TextDocument(DOC));
+	}
+
+	private static void assertDocument(Document document) {
+		assertThat(document.isAscii(0)).isTrue();
+		assertThat(document.isAscii(1)).isFalse();
+		assertThat(document.toOffset(Position.from(0, 3), PositionEncoding.UTF8)).isEqualTo(3);
+		assertThat(document.toOffset(Position.from(1, 6), PositionEncoding.UTF8)).isEqualTo(9);
+		assertThat(document.toOffset(Position.from(1, 4), PositionEncoding.UTF32)).isEqualTo(11);
+		assertThat(document.toOffset(Position.from(1, 4), PositionEncoding.UTF16)).isEqualTo(10);
+		assertThat(document.toPosition(11, PositionEncoding.UTF8)).isEqualTo(Position.from(1, 10));
+		assertThat(document.toPosition(11, PositionEncoding.UTF32)).isEqualTo(Position.from(1, 4));
+		assertThat(document.toPosition(11, PositionEncoding.UTF16)).isEqualTo(Position.from(1, 5));
+		assertThat(document.toPosition(15, PositionEncoding.UTF8)).isEqualTo(Position.from(2, 2));
+	}
+}
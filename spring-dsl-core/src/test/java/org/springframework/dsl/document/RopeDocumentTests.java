@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.document;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+import org.springframework.dsl.domain.DidChangeTextDocumentParams;
+import org.springframework.dsl.domain.Position;
+import org.springframework.dsl.domain.Range;
+import org.springframework.dsl.domain.TextDocumentContentChangeEvent;
+import org.springframework.dsl.domain.VersionedTextDocumentIdentifier;
+
+/**
+ * Tests for {@link RopeDocument}.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class RopeDocumentTests {
+
+	@Test
+	public void testSimpleContent() {
+		RopeDocument document = new RopeDocument(TextDocumentTests.DOC1);
+		assertThat(document.content()).isEqualTo(TextDocumentTests.DOC1);
+		assertThat(document.contentView()).isInstanceOf(Rope.class);
+		assertThat(document.contentView().toString()).isEqualTo(TextDocumentTests.DOC1);
+	}
+
+	@Test
+	public void testPositionsAndRanges() {
+		RopeDocument document = new RopeDocument(TextDocumentTests.DOC2);
+		assertThat(document.caret(new Position(1, 0))).isEqualTo(6);
+		assertThat(document.toPosition(6)).isEqualTo(Position.from(1, 0));
+		assertThat(document.toPosition(7)).isEqualTo(Position.from(1, 1));
+		assertThat(document.toRange(0, 7)).isEqualTo(Range.from(0, 0, 1, 1));
+		assertThat(document.lineCount()).isEqualTo(3);
+		assertThat(document.getDefaultLineDelimiter()).isEqualTo("\n");
+		assertThat(document.charAtPosition(Position.from(1, 4))).isEqualTo('2');
+	}
+
+	@Test
+	public void testApplyChanges() {
+		RopeDocument document = new RopeDocument("uri", null, 0, "line1\nline2\n");
+		Rope before = document.contentView();
+		document.apply(changeParams(1, new TextDocumentContentChangeEvent(Range.from(1, 0, 1, 5), 5, "hello")));
+		assertThat(document.content()).isEqualTo("line1\nhello\n");
+		assertThat(document.getVersion()).isEqualTo(1);
+		assertThat(before.toString()).isEqualTo("line1\nline2\n");
+
+		// old version is ignored
+		document.apply(changeParams(1, new TextDocumentContentChangeEvent(Range.from(0, 0, 0, 0), 0, "x")));
+		assertThat(document.content()).isEqualTo("line1\nhello\n");
+	}
+
+	@Test
+	public void testRandomChanges() {
+		Random random = new Random(2);
+		String[] pieces = new String[] { "a", "bc", "\n", "\r", "\r\n", "foo\n" };
+		String expected = "";
+		RopeDocument document = new RopeDocument("uri", null, 0, "");
+		for (int version = 1; version < 500; version++) {
+			int start = random.nextInt(expected.length() + 1);
+			int end = start + random.nextInt(Math.min(expected.length() - start, 10) + 1);
+			StringBuilder text = new StringBuilder();
+			for (int j = random.nextInt(4); j > 0; j--) {
+				text.append(pieces[random.nextInt(pieces.length)]);
+			}
+			Range range = document.toRange(start, end - start);
+			document.apply(changeParams(version,
+					new TextDocumentContentChangeEvent(range, end - start, text.toString())));
+			expected = expected.substring(0, start) + text + expected.substring(end);
+			assertThat(document.content()).isEqualTo(expected);
+			assertThat(document.getVersion()).isEqualTo(version);
+			int offset = random.nextInt(expected.length() + 1);
+			assertThat(document.toOffset(document.toPosition(offset))).isEqualTo(offset);
+		}
+	}
+
+	private static DidChangeTextDocumentParams changeParams(int version, TextDocumentContentChangeEvent... events) {
+		DidChangeTextDocumentParams params = new DidChangeTextDocumentParams();
+		VersionedTextDocumentIdentifier identifier = new VersionedTextDocumentIdentifier(version);
+		identifier.setUri("uri");
+		params.setTextDocument(identifier);
+		params.setContentChanges(Arrays.asList(events));
+		return params;
+	}
+}
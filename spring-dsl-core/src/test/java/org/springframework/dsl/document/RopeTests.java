@@ -0,0 +1,170 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.document;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link Rope}.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class RopeTests {
+
+	@Test
+	public void testEmpty() {
+		Rope rope = Rope.of("");
+		assertThat(rope.length()).isEqualTo(0);
+		assertThat(rope.toString()).isEqualTo("");
+		assertThat(rope.getNumberOfLines()).isEqualTo(1);
+		assertThat(rope.getLineOffset(0)).isEqualTo(0);
+		assertThat(rope.getLineLength(0)).isEqualTo(0);
+		assertThat(rope.getLineDelimiter(0)).isNull();
+		assertThat(rope.getLineOfOffset(0)).isEqualTo(0);
+	}
+
+	@Test
+	public void testSimpleEdits() {
+		Rope rope = Rope.of("hello");
+		Rope rope2 = rope.insert(5, " world");
+		assertThat(rope.toString()).isEqualTo("hello");
+		assertThat(rope2.toString()).isEqualTo("hello world");
+		assertThat(rope2.delete(0, 6).toString()).isEqualTo("world");
+		assertThat(rope2.replace(0, 5, "bye").toString()).isEqualTo("bye world");
+		assertThat(rope2.append("!").toString()).isEqualTo("hello world!");
+		assertThat(rope2.subSequence(6, 11).toString()).isEqualTo("world");
+		assertThat(rope2.substring(6, 11)).isEqualTo("world");
+		assertThat(rope2.contentEquals("hello world")).isTrue();
+		assertThat(rope2.contentEquals("hello")).isFalse();
+	}
+
+	@Test
+	public void testLines() {
+		Rope rope = Rope.of("line1\nline2\r\nline3\rline4\n");
+		assertThat(rope.getNumberOfLines()).isEqualTo(5);
+		assertThat(rope.getLineOffset(0)).isEqualTo(0);
+		assertThat(rope.getLineOffset(1)).isEqualTo(6);
+		assertThat(rope.getLineOffset(2)).isEqualTo(13);
+		assertThat(rope.getLineOffset(3)).isEqualTo(19);
+		assertThat(rope.getLineOffset(4)).isEqualTo(25);
+		assertThat(rope.getLineDelimiter(0)).isEqualTo("\n");
+		assertThat(rope.getLineDelimiter(1)).isEqualTo("\r\n");
+		assertThat(rope.getLineDelimiter(2)).isEqualTo("\r");
+		assertThat(rope.getLineDelimiter(4)).isNull();
+		assertThat(rope.getLineLength(1)).isEqualTo(7);
+		assertThat(rope.getPureLineLength(1)).isEqualTo(5);
+		assertThat(rope.getLineOfOffset(11)).isEqualTo(1);
+		assertThat(rope.getLineOfOffset(12)).isEqualTo(1);
+		assertThat(rope.getLineOfOffset(13)).isEqualTo(2);
+		assertThat(rope.getLineOfOffset(25)).isEqualTo(4);
+		assertThatThrownBy(() -> rope.getLineOffset(5)).isInstanceOf(BadLocationException.class);
+		assertThatThrownBy(() -> rope.getLineOfOffset(26)).isInstanceOf(BadLocationException.class);
+	}
+
+	@Test
+	public void testCrLfSplitAcrossEdits() {
+		Rope rope = Rope.of("a\rb");
+		assertThat(rope.getNumberOfLines()).isEqualTo(2);
+		rope = rope.replace(2, 3, "\nb");
+		assertThat(rope.toString()).isEqualTo("a\r\nb");
+		assertThat(rope.getNumberOfLines()).isEqualTo(2);
+		assertThat(rope.getLineOffset(1)).isEqualTo(3);
+		assertThat(rope.getLineDelimiter(0)).isEqualTo("\r\n");
+	}
+
+	@Test
+	public void testLargeContentIsBalanced() {
+		StringBuilder buf = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			buf.append("line").append(i).append(i % 3 == 0 ? "\r\n" : "\n");
+		}
+		Rope rope = Rope.of(buf);
+		assertThat(rope.toString()).isEqualTo(buf.toString());
+		assertThat(rope.getNumberOfLines()).isEqualTo(20001);
+		assertThat(rope.height()).isLessThan(20);
+		for (int i = 0; i < 1000; i++) {
+			rope = rope.insert((i * 7919) % rope.length(), "x");
+		}
+		assertThat(rope.length()).isEqualTo(buf.length() + 1000);
+		assertThat(rope.height()).isLessThan(24);
+	}
+
+	@Test
+	public void testGetChars() {
+		StringBuilder buf = new StringBuilder();
+		for (int i = 0; i < 3000; i++) {
+			buf.append((char) ('a' + (i % 26)));
+		}
+		Rope rope = Rope.of(buf);
+		char[] chars = new char[1000];
+		rope.getChars(1000, 2000, chars, 0);
+		assertThat(new String(chars)).isEqualTo(buf.substring(1000, 2000));
+	}
+
+	@Test
+	public void testRandomEditsAgainstString() {
+		Random random = new Random(1);
+		String[] pieces = new String[] { "a", "bc", "\n", "\r", "\r\n", "xyz\n", "12345678901234567890" };
+		String expected = "";
+		Rope rope = Rope.EMPTY;
+		for (int i = 0; i < 3000; i++) {
+			int start = random.nextInt(expected.length() + 1);
+			int end = start + random.nextInt(Math.min(expected.length() - start, 40) + 1);
+			StringBuilder text = new StringBuilder();
+			int count = random.nextInt(i % 100 == 0 ? 200 : 4);
+			for (int j = 0; j < count; j++) {
+				text.append(pieces[random.nextInt(pieces.length)]);
+			}
+			expected = expected.substring(0, start) + text + expected.substring(end);
+			rope = rope.replace(start, end, text);
+			if (i % 50 == 0) {
+				assertLines(rope, expected);
+			}
+		}
+		assertLines(rope, expected);
+	}
+
+	private static void assertLines(Rope rope, String expected) {
+		assertThat(rope.toString()).isEqualTo(expected);
+		List<Integer> starts = new ArrayList<>();
+		starts.add(0);
+		for (int i = 0; i < expected.length(); i++) {
+			char c = expected.charAt(i);
+			if (c == '\n' || (c == '\r' && (i + 1 == expected.length() || expected.charAt(i + 1) != '\n'))) {
+				starts.add(i + 1);
+			}
+		}
+		assertThat(rope.getNumberOfLines()).isEqualTo(starts.size());
+		for (int line = 0; line < starts.size(); line++) {
+			assertThat(rope.getLineOffset(line)).isEqualTo(starts.get(line));
+		}
+		int line = 0;
+		for (int offset = 0; offset <= expected.length(); offset++) {
+			while (line + 1 < starts.size() && starts.get(line + 1) <= offset) {
+				line++;
+			}
+			assertThat(rope.getLineOfOffset(offset)).isEqualTo(line);
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.document;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+import org.springframework.dsl.domain.Position;
+import org.springframework.dsl.model.LanguageId;
+
+/**
+ * Tests for {@link SharedDocumentStore}.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class SharedDocumentStoreTests {
+
+	@Test
+	public void testIdenticalContentIsShared() {
+		SharedDocumentStore store = new SharedDocumentStore();
+		SharedDocument document1 = store.acquire("uri", LanguageId.TXT, 1, "line1\nline2");
+		SharedDocument document2 = store.acquire("uri", LanguageId.TXT, 3, "line1\nline2");
+		SharedDocument document3 = store.acquire("uri", LanguageId.TXT, 1, "line1");
+		SharedDocument document4 = store.acquire("other", LanguageId.TXT, 1, "line1");
+
+		assertThat(document1.getDocument()).isSameAs(document2.getDocument());
+		assertThat(document1.getDocument()).isNotSameAs(document3.getDocument());
+		assertThat(document3.getDocument()).isNotSameAs(document4.getDocument());
+		assertThat(store.getDocumentCount()).isEqualTo(3);
+		assertThat(store.getReferenceCount("uri", "line1\nline2")).isEqualTo(2);
+
+		assertThat(document1.getVersion()).isEqualTo(1);
+		assertThat(document2.getVersion()).isEqualTo(3);
+		assertThat(document2.metadata().getVersion()).isEqualTo(3);
+		assertThat(document2.metadata().getLineCount()).isEqualTo(2);
+		assertThat(document2.content()).isEqualTo("line1\nline2");
+		assertThat(document2.toOffset(Position.from(1, 0))).isEqualTo(6);
+	}
+
+	@Test
+	public void testRelease() {
+		SharedDocumentStore store = new SharedDocumentStore();
+		SharedDocument document1 = store.acquire("uri", LanguageId.TXT, 1, "content");
+		SharedDocument document2 = store.acquire("uri", LanguageId.TXT, 1, "content");
+
+		store.release(document1);
+		store.release(document1);
+		assertThat(store.getReferenceCount("uri", "content")).isEqualTo(1);
+		store.release(document2);
+		assertThat(store.getReferenceCount("uri", "content")).isEqualTo(0);
+		assertThat(store.getDocumentCount()).isEqualTo(0);
+
+		SharedDocument document3 = store.acquire("uri", LanguageId.TXT, 1, "content");
+		assertThat(document3.getDocument()).isNotSameAs(document1.getDocument());
+	}
+}
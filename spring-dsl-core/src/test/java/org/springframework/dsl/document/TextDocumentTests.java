@@ -17,7 +17,10 @@ package org.springframework.dsl.document;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.Random;
+
 import org.junit.Test;
+import org.springframework.dsl.document.linetracker.ArrayLineTracker;
 import org.springframework.dsl.domain.Position;
 import org.springframework.dsl.domain.Range;
 
@@ -86,4 +89,73 @@ public class TextDocumentTests {
 		textDocument = new TextDocument(DOC3);
 		assertThat(textDocument.lineCount()).isEqualTo(4);
 	}
+
+	@Test
+	public void testArrayLineTracker() {
+		TextDocument textDocument = new TextDocument("uri", null, 0, DOC3, ArrayLineTracker::new);
+		assertThat(textDocument.lineCount()).isEqualTo(4);
+		assertThat(textDocument.toPosition(12)).isEqualTo(Position.from(2, 0));
+		textDocument.replace(6, 5, "hello\r\nworld");
+		assertThat(textDocument.content()).isEqualTo("line1\nhello\r\nworld\nline3\n");
+		assertThat(textDocument.lineCount()).isEqualTo(5);
+		assertThat(textDocument.toOffset(Position.from(2, 0))).isEqualTo(13);
+		assertThat(textDocument.toRange(13, 5)).isEqualTo(Range.from(2, 0, 2, 5));
+		assertThat(textDocument.snapshot().lineCount()).isEqualTo(5);
+	}
+
+	@Test
+	public void testMetadata() {
+		TextDocument textDocument = new TextDocument(DOC3);
+		DocumentMetadata metadata = textDocument.metadata();
+		assertThat(metadata.getLineCount()).isEqualTo(4);
+		assertThat(metadata.getMaxLineLength()).isEqualTo(5);
+		assertThat(metadata.getLineDelimiter()).isEqualTo("\n");
+		assertThat(metadata.isAscii()).isTrue();
+		assertThat(textDocument.metadata()).isSameAs(metadata);
+
+		textDocument.replace(0, 0, "\u00e4\r\n");
+		metadata = textDocument.metadata();
+		assertThat(metadata.getLineCount()).isEqualTo(5);
+		assertThat(metadata.getLineDelimiter()).isEqualTo("\r\n");
+		assertThat(metadata.isAscii()).isFalse();
+		assertThat(textDocument.getDefaultLineDelimiter()).isEqualTo("\r\n");
+	}
+
+	@Test
+	public void testMetadataRandomReplace() {
+		String[] pieces = new String[] { "a", "bc", "\u00e4", "\n", "\r", "\r\n", "foo\n", "longer line" };
+		Random random = new Random(5);
+		for (boolean array : new boolean[] { false, true }) {
+			TextDocument textDocument = array ? new TextDocument(null, null, 0, "", ArrayLineTracker::new)
+					: new TextDocument("");
+			textDocument.metadata();
+			for (int i = 0; i < 1000; i++) {
+				String content = textDocument.content();
+				int start = random.nextInt(content.length() + 1);
+				int length = random.nextInt(Math.min(content.length() - start, 20) + 1);
+				StringBuilder ins = new StringBuilder();
+				for (int j = random.nextInt(3); j > 0; j--) {
+					ins.append(pieces[random.nextInt(pieces.length)]);
+				}
+				textDocument.replace(start, length, ins.toString());
+				if (i % 3 == 0) {
+					DocumentMetadata expected = DocumentMetadata.of(new DocumentSnapshot(null, null, 0,
+							textDocument.content()));
+					assertThat(textDocument.metadata()).isEqualTo(expected);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testSnapshots() {
+		TextDocument textDocument = new TextDocument(DOC2);
+		DocumentSnapshot snapshot1 = textDocument.snapshot();
+		assertThat(textDocument.snapshot()).isSameAs(snapshot1);
+		textDocument.replace(0, 5, "hello");
+		DocumentSnapshot snapshot2 = textDocument.snapshot();
+		assertThat(snapshot1.content()).isEqualTo(DOC2);
+		assertThat(snapshot2.content()).isEqualTo("hello\nline2\n");
+		assertThat(snapshot2.lineCount()).isEqualTo(textDocument.lineCount());
+	}
 }
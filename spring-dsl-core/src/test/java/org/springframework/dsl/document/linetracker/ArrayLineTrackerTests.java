@@ -0,0 +1,135 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.document.linetracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.springframework.dsl.document.BadLocationException;
+
+/**
+ * Tests for {@link ArrayLineTracker}.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class ArrayLineTrackerTests {
+
+	@Test
+	public void testLineScheme() {
+		assertLines("", 0, 0);
+		assertLines("a", 0, 1);
+		assertLines("\n", 0, 1, 1, 0);
+		assertLines("a\n", 0, 2, 2, 0);
+		assertLines("a\nb", 0, 2, 2, 1);
+		assertLines("a\nbc\n", 0, 2, 2, 3, 5, 0);
+		assertLines("a\r\nb\rc", 0, 3, 3, 2, 5, 1);
+	}
+
+	@Test
+	public void testLineInformation() {
+		ArrayLineTracker tracker = new ArrayLineTracker();
+		tracker.set("line1\r\nline2\nline3");
+		assertThat(tracker.getLineInformation(0).getOffset()).isEqualTo(0);
+		assertThat(tracker.getLineInformation(0).getLength()).isEqualTo(5);
+		assertThat(tracker.getLineInformationOfOffset(9).getOffset()).isEqualTo(7);
+		assertThat(tracker.getLineInformationOfOffset(9).getLength()).isEqualTo(5);
+		assertThat(tracker.getLineDelimiter(0)).isEqualTo("\r\n");
+		assertThat(tracker.getLineDelimiter(2)).isNull();
+		assertThat(tracker.getNumberOfLines(0, 8)).isEqualTo(2);
+		assertThat(tracker.computeNumberOfLines("a\r\nb\rc\n")).isEqualTo(3);
+		assertThatThrownBy(() -> tracker.getLineOffset(3)).isInstanceOf(BadLocationException.class);
+		assertThatThrownBy(() -> tracker.getLineNumberOfOffset(19)).isInstanceOf(BadLocationException.class);
+	}
+
+	@Test
+	public void testGrowAndShift() {
+		ArrayLineTracker tracker = new ArrayLineTracker();
+		StringBuilder buf = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			String line = "line" + i + "\n";
+			tracker.replace(buf.length(), 0, line);
+			buf.append(line);
+			// keep moving a gap between end and start
+			tracker.replace(0, 0, "");
+		}
+		DefaultLineTracker expected = new DefaultLineTracker();
+		expected.set(buf.toString());
+		DefaultLineTrackerTests.assertSameLines(tracker, expected);
+	}
+
+	@Test
+	public void testRandomReplaceMatchesSet() {
+		Random random = new Random(5);
+		String[] pieces = new String[] { "a", "bc", "\n", "\r", "foo\n", "\r\n", "\u00e4" };
+		String text = "";
+		ArrayLineTracker tracker = new ArrayLineTracker();
+		tracker.set(text);
+		for (int i = 0; i < 2000; i++) {
+			int start = random.nextInt(text.length() + 1);
+			int end = start + random.nextInt(Math.min(text.length() - start, 10) + 1);
+			StringBuilder ins = new StringBuilder();
+			for (int j = random.nextInt(4); j > 0; j--) {
+				ins.append(pieces[random.nextInt(pieces.length)]);
+			}
+			tracker.replace(start, end - start, ins.toString());
+			text = text.substring(0, start) + ins + text.substring(end);
+			DefaultLineTracker expected = new DefaultLineTracker();
+			expected.set(text);
+			DefaultLineTrackerTests.assertSameLines(tracker, expected);
+			for (int offset = 0; offset <= text.length(); offset++) {
+				assertThat(tracker.getLineNumberOfOffset(offset)).isEqualTo(expected.getLineNumberOfOffset(offset));
+			}
+			for (int line = 0; line < expected.getNumberOfLines(); line++) {
+				Region region = expected.getLineInformation(line);
+				assertThat(tracker.getLineInformation(line).getOffset()).isEqualTo(region.getOffset());
+				assertThat(tracker.getLineInformation(line).getLength()).isEqualTo(region.getLength());
+			}
+		}
+	}
+
+	@Test
+	public void testAsciiLines() {
+		ArrayLineTracker tracker = new ArrayLineTracker();
+		tracker.set("line1\nl\u00e4ne2\nline3");
+		assertThat(tracker.isAsciiLine(0)).isTrue();
+		assertThat(tracker.isAsciiLine(1)).isFalse();
+		assertThat(tracker.isAsciiLine(2)).isTrue();
+
+		tracker.replace(2, 0, "x\ny");
+		assertThat(tracker.isAsciiLine(0)).isTrue();
+		assertThat(tracker.isAsciiLine(1)).isTrue();
+		assertThat(tracker.isAsciiLine(2)).isFalse();
+		assertThat(tracker.isAsciiLine(3)).isTrue();
+
+		tracker.replace(tracker.getLineOffset(3), 0, "\u20ac");
+		assertThat(tracker.isAsciiLine(2)).isFalse();
+		assertThat(tracker.isAsciiLine(3)).isFalse();
+	}
+
+	private static void assertLines(String text, int... offsetsAndLengths) {
+		ArrayLineTracker tracker = new ArrayLineTracker();
+		tracker.set(text);
+		assertThat(tracker.getNumberOfLines()).isEqualTo(offsetsAndLengths.length / 2);
+		for (int i = 0; i < offsetsAndLengths.length / 2; i++) {
+			assertThat(tracker.getLineOffset(i)).isEqualTo(offsetsAndLengths[i * 2]);
+			assertThat(tracker.getLineLength(i)).isEqualTo(offsetsAndLengths[i * 2 + 1]);
+		}
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.document.linetracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link DefaultLineTracker}.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class DefaultLineTrackerTests {
+
+	@Test
+	public void testLineScheme() {
+		assertLines("", 0, 0);
+		assertLines("a", 0, 1);
+		assertLines("\n", 0, 1, 1, 0);
+		assertLines("a\n", 0, 2, 2, 0);
+		assertLines("a\nb", 0, 2, 2, 1);
+		assertLines("a\nbc\n", 0, 2, 2, 3, 5, 0);
+		assertLines("a\r\nb\rc", 0, 3, 3, 2, 5, 1);
+	}
+
+	@Test
+	public void testSetMatchesListMode() {
+		StringBuilder buf = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			buf.append("line").append(i).append(i % 3 == 0 ? "\r\n" : i % 5 == 0 ? "\r" : "\n");
+			DefaultLineTracker tree = new DefaultLineTracker();
+			DefaultLineTracker list = new DefaultLineTracker(false);
+			tree.set(buf.toString());
+			list.set(buf.toString());
+			assertSameLines(tree, list);
+		}
+	}
+
+	@Test
+	public void testReplaceAfterSet() {
+		DefaultLineTracker tracker = new DefaultLineTracker();
+		tracker.set("line1\nline2\nline3");
+		tracker.replace(6, 5, "hello\nworld");
+		assertThat(tracker.getNumberOfLines()).isEqualTo(4);
+		assertThat(tracker.getLineOffset(2)).isEqualTo(12);
+		assertThat(tracker.getLineOffset(3)).isEqualTo(18);
+		assertThat(tracker.getLineNumberOfOffset(17)).isEqualTo(2);
+	}
+
+	@Test
+	public void testRandomReplaceMatchesSet() {
+		Random random = new Random(3);
+		String[] pieces = new String[] { "a", "bc", "\n", "\r", "foo\n", "\r\n" };
+		String text = "";
+		DefaultLineTracker tracker = new DefaultLineTracker();
+		tracker.set(text);
+		for (int i = 0; i < 1000; i++) {
+			int start = random.nextInt(text.length() + 1);
+			int end = start + random.nextInt(Math.min(text.length() - start, 10) + 1);
+			StringBuilder ins = new StringBuilder();
+			for (int j = random.nextInt(4); j > 0; j--) {
+				ins.append(pieces[random.nextInt(pieces.length)]);
+			}
+			tracker.replace(start, end - start, ins.toString());
+			text = text.substring(0, start) + ins + text.substring(end);
+			DefaultLineTracker expected = new DefaultLineTracker();
+			expected.set(text);
+			assertSameLines(tracker, expected);
+		}
+	}
+
+	@Test
+	public void testAsciiLines() {
+		for (boolean tree : new boolean[] { true, false }) {
+			DefaultLineTracker tracker = new DefaultLineTracker(tree);
+			tracker.set("line1\nl\u00e4ne2\nline3");
+			assertThat(tracker.isAsciiLine(0)).isTrue();
+			assertThat(tracker.isAsciiLine(1)).isFalse();
+			assertThat(tracker.isAsciiLine(2)).isTrue();
+
+			tracker.replace(2, 0, "x\ny");
+			assertThat(tracker.isAsciiLine(0)).isTrue();
+			assertThat(tracker.isAsciiLine(1)).isTrue();
+			assertThat(tracker.isAsciiLine(2)).isFalse();
+			assertThat(tracker.isAsciiLine(3)).isTrue();
+
+			tracker.replace(tracker.getLineOffset(3), 0, "\u20ac");
+			assertThat(tracker.isAsciiLine(2)).isFalse();
+			assertThat(tracker.isAsciiLine(3)).isFalse();
+		}
+	}
+
+	private static void assertLines(String text, int... offsetsAndLengths) {
+		for (boolean tree : new boolean[] { true, false }) {
+			DefaultLineTracker tracker = new DefaultLineTracker(tree);
+			tracker.set(text);
+			assertThat(tracker.getNumberOfLines()).isEqualTo(offsetsAndLengths.length / 2);
+			for (int i = 0; i < offsetsAndLengths.length / 2; i++) {
+				assertThat(tracker.getLineOffset(i)).isEqualTo(offsetsAndLengths[i * 2]);
+				assertThat(tracker.getLineLength(i)).isEqualTo(offsetsAndLengths[i * 2 + 1]);
+			}
+		}
+	}
+
+	static void assertSameLines(LineTracker actual, LineTracker expected) {
+		assertThat(actual.getNumberOfLines()).isEqualTo(expected.getNumberOfLines());
+		for (int i = 0; i < expected.getNumberOfLines(); i++) {
+			assertThat(actual.getLineOffset(i)).isEqualTo(expected.getLineOffset(i));
+			assertThat(actual.getLineLength(i)).isEqualTo(expected.getLineLength(i));
+			assertThat(actual.getLineDelimiter(i)).isEqualTo(expected.getLineDelimiter(i));
+			if (actual.isAsciiLine(i)) {
+				assertThat(expected.isAsciiLine(i)).isTrue();
+			}
+		}
+	}
+}
@@ -43,4 +43,18 @@ public class LanguageIdTests {
 		assertThat(LanguageId.GIT_COMMIT.isCompatibleWith(LanguageId.GIT_REBASE)).isTrue();
 		assertThat(LanguageId.GIT_REBASE.isCompatibleWith(LanguageId.GIT_COMMIT)).isTrue();
 	}
+
+	@Test
+	public void testIntern() {
+		assertThat(LanguageId.languageId("txt")).isSameAs(LanguageId.TXT);
+		assertThat(new LanguageId("txt", null).intern()).isSameAs(LanguageId.TXT);
+		assertThat(LanguageId.languageId("*")).isSameAs(LanguageId.ALL);
+		assertThat(LanguageId.languageId("txt", "Other")).isNotSameAs(LanguageId.TXT);
+		assertThat(LanguageId.languageId("txt")).isSameAs(LanguageId.TXT);
+
+		LanguageId custom = new LanguageId("testintern", "Test Intern");
+		assertThat(LanguageId.languageId("testintern")).isNotSameAs(custom);
+		assertThat(custom.intern()).isSameAs(custom);
+		assertThat(LanguageId.languageId("testintern")).isSameAs(custom);
+	}
 }
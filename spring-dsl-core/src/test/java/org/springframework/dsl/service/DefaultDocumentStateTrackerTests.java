@@ -17,14 +17,28 @@ package org.springframework.dsl.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Arrays;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.dsl.document.Document;
+import org.springframework.dsl.document.DocumentSnapshot;
+import org.springframework.dsl.document.MappedDocument;
+import org.springframework.dsl.document.Rope;
+import org.springframework.dsl.document.RopeDocument;
+import org.springframework.dsl.document.SharedDocument;
+import org.springframework.dsl.document.SharedDocumentStore;
 import org.springframework.dsl.domain.DidChangeTextDocumentParams;
+import org.springframework.dsl.domain.DidCloseTextDocumentParams;
 import org.springframework.dsl.domain.DidOpenTextDocumentParams;
 import org.springframework.dsl.domain.Position;
 import org.springframework.dsl.domain.Range;
 import org.springframework.dsl.domain.TextDocumentContentChangeEvent;
+import org.springframework.dsl.domain.TextDocumentIdentifier;
 import org.springframework.dsl.domain.TextDocumentItem;
 import org.springframework.dsl.domain.VersionedTextDocumentIdentifier;
 import org.springframework.dsl.model.LanguageId;
@@ -32,6 +46,9 @@ import org.springframework.dsl.service.DefaultDocumentStateTracker;
 
 public class DefaultDocumentStateTrackerTests {
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	@Test
 	public void testSimpleDocumentChangeFlow() {
 		DefaultDocumentStateTracker tracker = new DefaultDocumentStateTracker();
@@ -82,4 +99,240 @@ public class DefaultDocumentStateTrackerTests {
 //		assertThat(tracker.getDocument("uri1")).isNotNull();
 //		assertThat(tracker.getDocument("uri1").get()).isEqualTo("12");
 	}
+
+	@Test
+	public void testRopeDocumentFactory() {
+		DefaultDocumentStateTracker tracker = new DefaultDocumentStateTracker(RopeDocument::new);
+
+		TextDocumentItem textDocumentItem = new TextDocumentItem("uri1", LanguageId.TXT.getIdentifier(), 0, "1");
+		tracker.didOpen(new DidOpenTextDocumentParams(textDocumentItem));
+		Document document1 = tracker.getDocument("uri1");
+		assertThat(document1).isInstanceOf(DocumentSnapshot.class);
+
+		DidChangeTextDocumentParams didChangeParams = new DidChangeTextDocumentParams();
+		VersionedTextDocumentIdentifier identifier = new VersionedTextDocumentIdentifier(1);
+		identifier.setUri("uri1");
+		didChangeParams.setTextDocument(identifier);
+		didChangeParams.setContentChanges(Arrays.asList(
+				new TextDocumentContentChangeEvent(new Range(new Position(0, 1), new Position(0, 1)), 0, "2")));
+
+		tracker.didChange(didChangeParams);
+		assertThat(tracker.getDocument("uri1").content()).isEqualTo("12");
+		assertThat(tracker.getDocument("uri1").contentView()).isInstanceOf(Rope.class);
+		assertThat(tracker.getDocument("uri1").getVersion()).isEqualTo(1);
+		assertThat(document1.content()).isEqualTo("1");
+		assertThat(document1.getVersion()).isEqualTo(0);
+	}
+
+	@Test
+	public void testDocumentsAreSnapshots() {
+		DefaultDocumentStateTracker tracker = new DefaultDocumentStateTracker();
+
+		TextDocumentItem textDocumentItem = new TextDocumentItem("uri1", LanguageId.TXT.getIdentifier(), 0, "1");
+		Document document1 = tracker.didOpen(new DidOpenTextDocumentParams(textDocumentItem)).block();
+
+		DidChangeTextDocumentParams didChangeParams = new DidChangeTextDocumentParams();
+		VersionedTextDocumentIdentifier identifier = new VersionedTextDocumentIdentifier(1);
+		identifier.setUri("uri1");
+		didChangeParams.setTextDocument(identifier);
+		didChangeParams.setContentChanges(Arrays.asList(
+				new TextDocumentContentChangeEvent(new Range(new Position(0, 1), new Position(0, 1)), 0, "2")));
+		Document document2 = tracker.didChange(didChangeParams).block();
+
+		assertThat(document1.content()).isEqualTo("1");
+		assertThat(document1.getVersion()).isEqualTo(0);
+		assertThat(document2.content()).isEqualTo("12");
+		assertThat(document2.getVersion()).isEqualTo(1);
+		assertThat(tracker.getDocument("uri1")).isSameAs(document2);
+	}
+
+	@Test
+	public void testMappedDocument() throws Exception {
+		File file = folder.newFile("test.txt");
+		Files.write(file.toPath(), "line1\nline2".getBytes(StandardCharsets.UTF_8));
+		String uri = file.toURI().toString();
+		DefaultDocumentStateTracker tracker = new DefaultDocumentStateTracker();
+		tracker.setMappedDocumentThreshold(0);
+
+		TextDocumentItem textDocumentItem = new TextDocumentItem(uri, LanguageId.TXT.getIdentifier(), 0, "line1\nline2");
+		tracker.didOpen(new DidOpenTextDocumentParams(textDocumentItem));
+		tracker.didOpen(new DidOpenTextDocumentParams(textDocumentItem));
+		assertThat(tracker.getDocument(uri)).isInstanceOf(MappedDocument.class);
+		assertThat(tracker.getDocument(uri).content()).isEqualTo("line1\nline2");
+
+		DidCloseTextDocumentParams didCloseParams = new DidCloseTextDocumentParams(new TextDocumentIdentifier(uri));
+		tracker.didClose(didCloseParams);
+		assertThat(tracker.getDocument(uri)).isInstanceOf(MappedDocument.class);
+		tracker.didClose(didCloseParams);
+		assertThat(tracker.getDocument(uri)).isNull();
+
+		// content not matching a file is not mapped
+		textDocumentItem = new TextDocumentItem(uri, LanguageId.TXT.getIdentifier(), 0, "line1");
+		tracker.didOpen(new DidOpenTextDocumentParams(textDocumentItem));
+		assertThat(tracker.getDocument(uri)).isInstanceOf(DocumentSnapshot.class);
+	}
+
+	@Test
+	public void testMappedDocumentWithUnsavedContent() throws Exception {
+		File file = folder.newFile("test.txt");
+		Files.write(file.toPath(), "line1\nline2".getBytes(StandardCharsets.UTF_8));
+		String uri = file.toURI().toString();
+		DefaultDocumentStateTracker tracker = new DefaultDocumentStateTracker();
+		tracker.setMappedDocumentThreshold(0);
+
+		// same length but different content is not mapped
+		TextDocumentItem textDocumentItem = new TextDocumentItem(uri, LanguageId.TXT.getIdentifier(), 0, "line1\nline3");
+		tracker.didOpen(new DidOpenTextDocumentParams(textDocumentItem));
+		assertThat(tracker.getDocument(uri)).isInstanceOf(DocumentSnapshot.class);
+		assertThat(tracker.getDocument(uri).content()).isEqualTo("line1\nline3");
+	}
+
+	@Test
+	public void testMappedDocumentFileModified() throws Exception {
+		File file = folder.newFile("test.txt");
+		Files.write(file.toPath(), "line1\nline2".getBytes(StandardCharsets.UTF_8));
+		String uri = file.toURI().toString();
+		DefaultDocumentStateTracker tracker = new DefaultDocumentStateTracker();
+		tracker.setMappedDocumentThreshold(0);
+
+		TextDocumentItem textDocumentItem = new TextDocumentItem(uri, LanguageId.TXT.getIdentifier(), 0, "line1\nline2");
+		tracker.didOpen(new DidOpenTextDocumentParams(textDocumentItem));
+		assertThat(tracker.getDocument(uri)).isInstanceOf(MappedDocument.class);
+		assertThat(((MappedDocument) tracker.getDocument(uri)).isModified()).isFalse();
+
+		// truncated file is no longer read through a mapping
+		Files.write(file.toPath(), "line1".getBytes(StandardCharsets.UTF_8));
+		assertThat(tracker.getDocument(uri)).isNull();
+		assertThat(tracker.getDocumentCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void testMappedDocumentChanged() throws Exception {
+		File file = folder.newFile("test.txt");
+		Files.write(file.toPath(), "1".getBytes(StandardCharsets.UTF_8));
+		String uri = file.toURI().toString();
+		DefaultDocumentStateTracker tracker = new DefaultDocumentStateTracker();
+		tracker.setMappedDocumentThreshold(0);
+
+		TextDocumentItem textDocumentItem = new TextDocumentItem(uri, LanguageId.TXT.getIdentifier(), 0, "1");
+		Document document1 = tracker.didOpen(new DidOpenTextDocumentParams(textDocumentItem)).block();
+		assertThat(document1).isInstanceOf(MappedDocument.class);
+
+		DidChangeTextDocumentParams didChangeParams = new DidChangeTextDocumentParams();
+		VersionedTextDocumentIdentifier identifier = new VersionedTextDocumentIdentifier(1);
+		identifier.setUri(uri);
+		didChangeParams.setTextDocument(identifier);
+		didChangeParams.setContentChanges(Arrays.asList(
+				new TextDocumentContentChangeEvent(new Range(new Position(0, 1), new Position(0, 1)), 0, "2")));
+		Document document2 = tracker.didChange(didChangeParams).block();
+
+		assertThat(document2).isInstanceOf(DocumentSnapshot.class);
+		assertThat(document2.content()).isEqualTo("12");
+		assertThat(document1.content()).isEqualTo("1");
+
+		// changed documents are kept after close
+		tracker.didClose(new DidCloseTextDocumentParams(new TextDocumentIdentifier(uri)));
+		assertThat(tracker.getDocument(uri)).isSameAs(document2);
+	}
+
+	@Test
+	public void testClosedDocumentsAreCached() {
+		DefaultDocumentStateTracker tracker = new DefaultDocumentStateTracker();
+		tracker.setMaxCachedCharacters(10);
+
+		Document document1 = open(tracker, "uri1", 0, "12345");
+		open(tracker, "uri1", 0, "12345");
+		open(tracker, "uri2", 0, "12345");
+		assertThat(tracker.getDocumentCount()).isEqualTo(2);
+		assertThat(tracker.getCharacterCount()).isEqualTo(10);
+
+		close(tracker, "uri1");
+		assertThat(tracker.getClosedDocumentCount()).isEqualTo(0);
+		close(tracker, "uri1");
+		close(tracker, "uri1");
+		assertThat(tracker.getClosedDocumentCount()).isEqualTo(1);
+		assertThat(tracker.getDocument("uri1")).isSameAs(document1);
+
+		// same content is reused when opened again
+		assertThat(open(tracker, "uri1", 0, "12345")).isSameAs(document1);
+		assertThat(tracker.getClosedDocumentCount()).isEqualTo(0);
+
+		// changed content replaces a closed document
+		close(tracker, "uri1");
+		Document document2 = open(tracker, "uri1", 1, "123");
+		assertThat(document2).isNotSameAs(document1);
+		assertThat(document2.content()).isEqualTo("123");
+		assertThat(tracker.getCharacterCount()).isEqualTo(8);
+	}
+
+	@Test
+	public void testClosedDocumentsAreEvicted() {
+		DefaultDocumentStateTracker tracker = new DefaultDocumentStateTracker();
+		tracker.setMaxCachedCharacters(10);
+
+		open(tracker, "uri1", 0, "12345");
+		open(tracker, "uri2", 0, "12345");
+		open(tracker, "uri3", 0, "12345");
+		open(tracker, "uri4", 0, "12345678901");
+		close(tracker, "uri1");
+		close(tracker, "uri2");
+		// uri1 becomes most recently used
+		assertThat(tracker.getDocument("uri1")).isNotNull();
+		close(tracker, "uri3");
+		assertThat(tracker.getDocument("uri2")).isNull();
+		assertThat(tracker.getDocument("uri1")).isNotNull();
+		assertThat(tracker.getDocument("uri3")).isNotNull();
+		assertThat(tracker.getClosedDocumentCount()).isEqualTo(2);
+
+		// larger than a whole budget
+		close(tracker, "uri4");
+		assertThat(tracker.getDocument("uri4")).isNull();
+		assertThat(tracker.getDocumentCount()).isEqualTo(2);
+
+		tracker.setMaxCachedCharacters(0);
+		open(tracker, "uri5", 0, "");
+		close(tracker, "uri5");
+		assertThat(tracker.getDocument("uri5")).isNull();
+	}
+
+	@Test
+	public void testSharedDocuments() {
+		SharedDocumentStore store = new SharedDocumentStore();
+		DefaultDocumentStateTracker tracker1 = new DefaultDocumentStateTracker();
+		DefaultDocumentStateTracker tracker2 = new DefaultDocumentStateTracker();
+		tracker1.setSharedDocumentStore(store);
+		tracker2.setSharedDocumentStore(store);
+
+		Document document1 = open(tracker1, "uri1", 0, "1");
+		Document document2 = open(tracker2, "uri1", 3, "1");
+		assertThat(document1).isInstanceOf(SharedDocument.class);
+		assertThat(((SharedDocument) document1).getDocument()).isSameAs(((SharedDocument) document2).getDocument());
+		assertThat(document2.getVersion()).isEqualTo(3);
+		assertThat(store.getReferenceCount("uri1", "1")).isEqualTo(2);
+
+		// changed document gets its own copy
+		DidChangeTextDocumentParams didChangeParams = new DidChangeTextDocumentParams();
+		VersionedTextDocumentIdentifier identifier = new VersionedTextDocumentIdentifier(1);
+		identifier.setUri("uri1");
+		didChangeParams.setTextDocument(identifier);
+		didChangeParams.setContentChanges(Arrays.asList(
+				new TextDocumentContentChangeEvent(new Range(new Position(0, 1), new Position(0, 1)), 0, "2")));
+		Document document3 = tracker1.didChange(didChangeParams).block();
+		assertThat(document3.content()).isEqualTo("12");
+		assertThat(tracker2.getDocument("uri1").content()).isEqualTo("1");
+		assertThat(store.getReferenceCount("uri1", "1")).isEqualTo(1);
+
+		close(tracker2, "uri1");
+		assertThat(tracker2.getDocument("uri1")).isNull();
+		assertThat(store.getDocumentCount()).isEqualTo(0);
+	}
+
+	private static Document open(DefaultDocumentStateTracker tracker, String uri, int version, String text) {
+		TextDocumentItem textDocumentItem = new TextDocumentItem(uri, LanguageId.TXT.getIdentifier(), version, text);
+		return tracker.didOpen(new DidOpenTextDocumentParams(textDocumentItem)).block();
+	}
+
+	private static void close(DefaultDocumentStateTracker tracker, String uri) {
+		tracker.didClose(new DidCloseTextDocumentParams(new TextDocumentIdentifier(uri)));
+	}
 }
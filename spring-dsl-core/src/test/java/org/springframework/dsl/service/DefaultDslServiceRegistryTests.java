@@ -0,0 +1,154 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.dsl.document.Document;
+import org.springframework.dsl.document.TextDocument;
+import org.springframework.dsl.domain.Hover;
+import org.springframework.dsl.domain.Position;
+import org.springframework.dsl.model.LanguageId;
+import org.springframework.dsl.service.cache.CachedResults;
+import org.springframework.dsl.service.cache.CachingHoverer;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Tests for {@link DefaultDslServiceRegistry}.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class DefaultDslServiceRegistryTests {
+
+	@Test
+	public void testHoverersByLanguageId() {
+		TestHoverer all = new TestHoverer(LanguageId.ALL);
+		TestHoverer txt = new TestHoverer(LanguageId.TXT);
+		TestHoverer perl = new TestHoverer(LanguageId.PERL);
+		DefaultDslServiceRegistry registry = createRegistry(all, txt, perl);
+
+		assertThat(registry.getHoverers(LanguageId.TXT)).containsExactlyInAnyOrder(all, txt);
+		assertThat(registry.getHoverers(LanguageId.languageId("txt"))).containsExactlyInAnyOrder(all, txt);
+		assertThat(registry.getHoverers(new LanguageId("txt", null))).containsExactlyInAnyOrder(all, txt);
+		assertThat(registry.getHoverers(LanguageId.PERL6)).containsExactlyInAnyOrder(all, perl);
+		assertThat(registry.getHoverers(LanguageId.BAT)).containsExactly(all);
+		assertThat(registry.getHoverers(LanguageId.languageId("unknown"))).containsExactly(all);
+		assertThat(registry.getHoverers(null)).isEmpty();
+		assertThat(registry.getCompletioners(LanguageId.TXT)).isEmpty();
+	}
+
+	@Test
+	public void testSameAsFiltering() {
+		TestHoverer all = new TestHoverer(LanguageId.ALL);
+		TestHoverer txt = new TestHoverer(LanguageId.TXT);
+		TestHoverer gitCommit = new TestHoverer(LanguageId.GIT_COMMIT);
+		TestHoverer jvm = new TestHoverer(LanguageId.JAVA, LanguageId.GROOVY);
+		DefaultDslServiceRegistry registry = createRegistry(all, txt, gitCommit, jvm);
+		List<LanguageId> languageIds = Arrays.asList(LanguageId.ALL, LanguageId.TXT, LanguageId.GIT_COMMIT,
+				LanguageId.GIT_REBASE, LanguageId.JAVA, LanguageId.GROOVY, LanguageId.C, LanguageId.languageId("x"));
+
+		for (LanguageId languageId : languageIds) {
+			assertThat(registry.getHoverers(languageId)).as(languageId.getIdentifier())
+				.containsExactlyInAnyOrderElementsOf(Arrays.asList(all, txt, gitCommit, jvm).stream()
+					.filter(h -> h.getSupportedLanguageIds().stream().anyMatch(l -> l.isCompatibleWith(languageId)))
+					.collect(Collectors.toList()));
+		}
+	}
+
+	@Test
+	public void testCachedResults() {
+		TestHoverer plain = new TestHoverer(LanguageId.TXT);
+		CachedTestHoverer cached = new CachedTestHoverer(LanguageId.TXT);
+		DefaultDslServiceRegistry registry = createRegistry(plain, cached);
+
+		assertThat(registry.getHoverers(LanguageId.TXT)).hasSize(2).contains(plain);
+		assertThat(registry.getHoverers()).filteredOn(h -> h instanceof CachingHoverer)
+			.extracting(h -> ((CachingHoverer) h).getDelegate()).containsExactly(cached);
+
+		registry = createRegistry(true, plain, cached);
+		assertThat(registry.getHoverers(LanguageId.TXT)).hasSize(2).allMatch(h -> h instanceof CachingHoverer);
+		assertThat(registry.getHoverers()).extracting(h -> ((CachingHoverer) h).getDelegate())
+			.containsExactlyInAnyOrder(plain, cached);
+	}
+
+	@Test
+	public void testInvalidateCachedResults() {
+		DefaultDslServiceRegistry registry = createRegistry(new CachedTestHoverer(LanguageId.TXT));
+		CachingHoverer hoverer = (CachingHoverer) registry.getHoverers().get(0);
+		Document document = new TextDocument("uri", LanguageId.TXT, 1, "a");
+		Document other = new TextDocument("uri", LanguageId.TXT, 1, "a");
+
+		hoverer.hover(document, Position.from(0, 0));
+		assertThat(hoverer.getCache().size()).isEqualTo(1);
+		registry.invalidate(other);
+		assertThat(hoverer.getCache().size()).isEqualTo(1);
+		registry.invalidate(document);
+		assertThat(hoverer.getCache().size()).isEqualTo(0);
+	}
+
+	private static DefaultDslServiceRegistry createRegistry(Hoverer... hoverers) {
+		return createRegistry(false, hoverers);
+	}
+
+	private static DefaultDslServiceRegistry createRegistry(boolean cacheResults, Hoverer... hoverers) {
+		GenericApplicationContext context = new GenericApplicationContext();
+		for (int i = 0; i < hoverers.length; i++) {
+			Hoverer hoverer = hoverers[i];
+			context.registerBean("hoverer" + i, Hoverer.class, () -> hoverer);
+		}
+		context.refresh();
+		DefaultDslServiceRegistry registry = new DefaultDslServiceRegistry();
+		registry.setCacheResults(cacheResults);
+		registry.setApplicationContext(context);
+		context.close();
+		return registry;
+	}
+
+	private static class TestHoverer implements Hoverer {
+
+		private final List<LanguageId> languageIds;
+
+		TestHoverer(LanguageId... languageIds) {
+			this.languageIds = Arrays.asList(languageIds);
+		}
+
+		@Override
+		public List<LanguageId> getSupportedLanguageIds() {
+			return languageIds;
+		}
+
+		@Override
+		public Mono<Hover> hover(Document document, Position position) {
+			return Mono.empty();
+		}
+	}
+
+	@CachedResults(maximumSize = 10)
+	private static class CachedTestHoverer extends TestHoverer {
+
+		CachedTestHoverer(LanguageId... languageIds) {
+			super(languageIds);
+		}
+	}
+}
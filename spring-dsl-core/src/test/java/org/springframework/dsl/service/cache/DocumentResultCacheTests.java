@@ -0,0 +1,162 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.service.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.springframework.dsl.document.Document;
+import org.springframework.dsl.document.SharedDocument;
+import org.springframework.dsl.document.SharedDocumentStore;
+import org.springframework.dsl.document.TextDocument;
+import org.springframework.dsl.domain.Hover;
+import org.springframework.dsl.domain.Position;
+import org.springframework.dsl.model.LanguageId;
+import org.springframework.dsl.service.Hoverer;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Tests for {@link DocumentResultCache} and caching services.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class DocumentResultCacheTests {
+
+	@Test
+	public void testCachedPerVersion() {
+		DocumentResultCache<String> cache = new DocumentResultCache<>(10);
+		AtomicInteger count = new AtomicInteger();
+		Document v1 = new TextDocument("uri", LanguageId.TXT, 1, "a");
+		Document v2 = new TextDocument("uri", LanguageId.TXT, 2, "ab");
+
+		assertThat(cache.get(v1, "k", () -> "v1-" + count.incrementAndGet())).isEqualTo("v1-1");
+		assertThat(cache.get(v1, "k", () -> "v1-" + count.incrementAndGet())).isEqualTo("v1-1");
+		assertThat(cache.get(v1, null, () -> "v1-" + count.incrementAndGet())).isEqualTo("v1-2");
+		assertThat(cache.size()).isEqualTo(2);
+
+		assertThat(cache.get(v2, "k", () -> "v2-" + count.incrementAndGet())).isEqualTo("v2-3");
+		assertThat(cache.size()).isEqualTo(3);
+
+		assertThat(cache.get(v1, "k", () -> "v1-" + count.incrementAndGet())).isEqualTo("v1-1");
+		assertThat(cache.size()).isEqualTo(3);
+
+		cache.invalidate("uri");
+		assertThat(cache.size()).isEqualTo(0);
+		assertThat(cache.get(v1, "k", () -> "v1-" + count.incrementAndGet())).isEqualTo("v1-4");
+	}
+
+	@Test
+	public void testCachedPerDocumentInstance() {
+		DocumentResultCache<String> cache = new DocumentResultCache<>(10);
+		AtomicInteger count = new AtomicInteger();
+		Document session1 = new TextDocument("uri", LanguageId.TXT, 1, "a");
+		Document session2 = new TextDocument("uri", LanguageId.TXT, 1, "b");
+		Document reopened = new TextDocument("uri", LanguageId.TXT, 0, "c");
+
+		assertThat(cache.get(session1, "k", () -> "a-" + count.incrementAndGet())).isEqualTo("a-1");
+		assertThat(cache.get(session2, "k", () -> "b-" + count.incrementAndGet())).isEqualTo("b-2");
+		assertThat(cache.get(reopened, "k", () -> "c-" + count.incrementAndGet())).isEqualTo("c-3");
+		assertThat(cache.get(session1, "k", () -> "a-" + count.incrementAndGet())).isEqualTo("a-1");
+		assertThat(cache.get(session2, "k", () -> "b-" + count.incrementAndGet())).isEqualTo("b-2");
+		assertThat(cache.get(reopened, "k", () -> "c-" + count.incrementAndGet())).isEqualTo("c-3");
+		assertThat(cache.size()).isEqualTo(3);
+	}
+
+	@Test
+	public void testInvalidateDocument() {
+		DocumentResultCache<String> cache = new DocumentResultCache<>(10);
+		Document session1 = new TextDocument("uri", LanguageId.TXT, 1, "a");
+		Document session2 = new TextDocument("uri", LanguageId.TXT, 1, "b");
+		Document session1v2 = new TextDocument("uri", LanguageId.TXT, 2, "ab");
+		cache.get(session1, "k", () -> "a");
+		cache.get(session1, null, () -> "a");
+		cache.get(session2, "k", () -> "b");
+
+		cache.invalidate(session1v2);
+		assertThat(cache.size()).isEqualTo(3);
+		cache.invalidate(session1);
+		assertThat(cache.size()).isEqualTo(1);
+		assertThat(cache.get(session2, "k", () -> "x")).isEqualTo("b");
+	}
+
+	@Test
+	public void testSharedDocumentsShareResults() {
+		DocumentResultCache<String> cache = new DocumentResultCache<>(10);
+		AtomicInteger count = new AtomicInteger();
+		SharedDocumentStore store = new SharedDocumentStore();
+		SharedDocument session1 = store.acquire("uri", LanguageId.TXT, 1, "a");
+		SharedDocument session2 = store.acquire("uri", LanguageId.TXT, 3, "a");
+
+		assertThat(cache.get(session1, "k", () -> "a-" + count.incrementAndGet())).isEqualTo("a-1");
+		assertThat(cache.get(session2, "k", () -> "a-" + count.incrementAndGet())).isEqualTo("a-1");
+		assertThat(cache.size()).isEqualTo(1);
+	}
+
+	@Test
+	public void testMaximumSize() {
+		DocumentResultCache<Integer> cache = new DocumentResultCache<>(3);
+		Document document = new TextDocument("uri", LanguageId.TXT, 1, "a");
+		for (int i = 0; i < 10; i++) {
+			int value = i;
+			cache.get(document, i, () -> value);
+		}
+		assertThat(cache.size()).isEqualTo(3);
+		assertThat(cache.get(document, 9, () -> -1)).isEqualTo(9);
+		assertThat(cache.get(document, 0, () -> -1)).isEqualTo(-1);
+	}
+
+	@Test
+	public void testCachingHoverer() {
+		AtomicInteger count = new AtomicInteger();
+		Hoverer delegate = new Hoverer() {
+
+			@Override
+			public List<LanguageId> getSupportedLanguageIds() {
+				return Arrays.asList(LanguageId.TXT);
+			}
+
+			@Override
+			public Mono<Hover> hover(Document document, Position position) {
+				return Mono.fromSupplier(() -> {
+					int i = count.incrementAndGet();
+					if (position.getLine() == 1 && i == 1) {
+						throw new IllegalStateException("failed");
+					}
+					return Hover.hover().contents().value(Integer.toString(i)).and().build();
+				});
+			}
+		};
+		CachingHoverer hoverer = new CachingHoverer(delegate, 10);
+		Document v1 = new TextDocument("uri", LanguageId.TXT, 1, "a\nb");
+		Document v2 = new TextDocument("uri", LanguageId.TXT, 2, "a\nbc");
+
+		assertThat(hoverer.getSupportedLanguageIds()).containsExactly(LanguageId.TXT);
+		assertThatThrownBy(() -> hoverer.hover(v1, Position.from(1, 0)).block()).hasMessage("failed");
+		assertThat(hoverer.hover(v1, Position.from(1, 0)).block().getContents().getValue()).isEqualTo("2");
+		assertThat(hoverer.hover(v1, Position.from(1, 0)).block().getContents().getValue()).isEqualTo("2");
+		assertThat(hoverer.hover(v1, Position.from(0, 0)).block().getContents().getValue()).isEqualTo("3");
+		assertThat(hoverer.hover(v2, Position.from(1, 0)).block().getContents().getValue()).isEqualTo("4");
+		assertThat(hoverer.hover(v2, Position.from(1, 0)).block().getContents().getValue()).isEqualTo("4");
+		assertThat(count.get()).isEqualTo(4);
+	}
+}
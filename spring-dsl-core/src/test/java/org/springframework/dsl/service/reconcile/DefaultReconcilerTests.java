@@ -17,16 +17,25 @@ package org.springframework.dsl.service.reconcile;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import java.util.stream.Collectors;
 
 import org.junit.Test;
 import org.springframework.dsl.document.Document;
 import org.springframework.dsl.document.TextDocument;
+import org.springframework.dsl.domain.DidChangeTextDocumentParams;
+import org.springframework.dsl.domain.DidCloseTextDocumentParams;
 import org.springframework.dsl.domain.PublishDiagnosticsParams;
 import org.springframework.dsl.domain.Range;
+import org.springframework.dsl.domain.TextDocumentContentChangeEvent;
+import org.springframework.dsl.domain.TextDocumentIdentifier;
+import org.springframework.dsl.domain.VersionedTextDocumentIdentifier;
 import org.springframework.dsl.model.LanguageId;
+import org.springframework.dsl.service.reconcile.DefaultReconciler.LinterStatistics;
 
 import reactor.core.publisher.Flux;
 
@@ -76,4 +85,289 @@ public class DefaultReconcilerTests {
 		List<PublishDiagnosticsParams> lints = reconcile.toStream().collect(Collectors.toList());
 		assertThat(lints).hasSize(1);
 	}
+
+	@Test
+	public void testParallelLinters() throws Exception {
+		List<Linter> linters = Arrays.asList(new SleepingLinter(400), new SleepingLinter(400), new SleepingLinter(400));
+		DefaultReconciler reconciler = new DefaultReconciler(linters);
+		reconciler.setParallelism(3);
+		try {
+			TextDocument document = new TextDocument("", LanguageId.TXT, 0, "");
+			long start = System.nanoTime();
+			List<PublishDiagnosticsParams> lints = reconciler.reconcile(document).collectList().block();
+			long elapsed = (System.nanoTime() - start) / 1000000;
+
+			assertThat(lints).hasSize(3);
+			assertThat(elapsed).isLessThan(1000);
+			for (Linter linter : linters) {
+				LinterStatistics statistics = reconciler.getLinterStatistics().get(linter);
+				assertThat(statistics.getCount()).isEqualTo(1);
+				assertThat(statistics.getTotalTime()).isGreaterThanOrEqualTo(Duration.ofMillis(400));
+			}
+		} finally {
+			reconciler.destroy();
+		}
+	}
+
+	@Test
+	public void testLinterTimeout() throws Exception {
+		Linter slow = new TestLinter(Flux.never());
+		Linter fast = new SleepingLinter(0);
+		DefaultReconciler reconciler = new DefaultReconciler(Arrays.asList(slow, fast));
+		reconciler.setParallelism(2);
+		reconciler.setLinterTimeout(Duration.ofMillis(200));
+		try {
+			TextDocument document = new TextDocument("", LanguageId.TXT, 0, "");
+			List<PublishDiagnosticsParams> lints = reconciler.reconcile(document).collectList()
+					.block(Duration.ofSeconds(5));
+
+			assertThat(lints).hasSize(1);
+			assertThat(reconciler.getLinterStatistics().get(slow).getTimeoutCount()).isEqualTo(1);
+			assertThat(reconciler.getLinterStatistics().get(fast).getTimeoutCount()).isEqualTo(0);
+		} finally {
+			reconciler.destroy();
+		}
+	}
+
+	@Test
+	public void testSequentialLintersRecordStatistics() {
+		Linter linter = new SleepingLinter(0);
+		DefaultReconciler reconciler = new DefaultReconciler(Arrays.asList(linter));
+		TextDocument document = new TextDocument("", LanguageId.TXT, 0, "");
+		reconciler.reconcile(document).blockLast();
+		reconciler.reconcile(document).blockLast();
+
+		assertThat(reconciler.getLinterStatistics().get(linter).getCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void testCollectDiagnostics() {
+		Linter linter1 = new TestLinter(Flux.just(problem(), problem()));
+		Linter linter2 = new TestLinter(Flux.just(problem()));
+		Linter linter3 = new TestLinter(Flux.empty());
+		DefaultReconciler reconciler = new DefaultReconciler(Arrays.asList(linter1, linter2, linter3));
+		TextDocument document = new TextDocument("uri", LanguageId.TXT, 0, "");
+		PublishDiagnosticsParams params = reconciler.collectDiagnostics(document).block();
+
+		assertThat(params.getUri()).isEqualTo("uri");
+		assertThat(params.getDiagnostics()).hasSize(3);
+	}
+
+	@Test
+	public void testCollectNoDiagnostics() {
+		DefaultReconciler reconciler = new DefaultReconciler(Arrays.asList(new TestLinter(Flux.empty())));
+		TextDocument document = new TextDocument("uri", LanguageId.TXT, 0, "");
+
+		assertThat(reconciler.collectDiagnostics(document).blockOptional()).isEmpty();
+	}
+
+	@Test
+	public void testIncrementalLinter() {
+		XLinter linter = new XLinter();
+		DefaultReconciler reconciler = new DefaultReconciler(Arrays.asList(linter));
+		TextDocument document = new TextDocument("uri", LanguageId.TXT, 1, "x\na\nx\nb");
+
+		assertThat(lines(reconciler.collectDiagnostics(document).block())).containsExactly(0, 2);
+		assertThat(linter.ranges).containsExactly((Range) null);
+
+		linter.ranges.clear();
+		change(reconciler, document, 2, Range.from(1, 0, 1, 0), "\n");
+		assertThat(lines(reconciler.collectDiagnostics(document).block())).containsExactly(0, 3);
+		assertThat(linter.ranges).containsExactly(Range.from(1, 0, 3, 0));
+
+		linter.ranges.clear();
+		change(reconciler, document, 3, Range.from(3, 0, 3, 1), "y");
+		assertThat(lines(reconciler.collectDiagnostics(document).block())).containsExactly(0);
+		assertThat(linter.ranges).containsExactly(Range.from(3, 0, 4, 0));
+
+		linter.ranges.clear();
+		reconciler.didClose(new DidCloseTextDocumentParams(new TextDocumentIdentifier("uri")));
+		assertThat(lines(reconciler.collectDiagnostics(document).block())).containsExactly(0);
+		assertThat(linter.ranges).containsExactly((Range) null);
+	}
+
+	@Test
+	public void testIncrementalLinterRandomChanges() {
+		String[] pieces = new String[] { "x", "a", "\n", "\r\n", "xa\n", "" };
+		Random random = new Random(16);
+		XLinter linter = new XLinter();
+		DefaultReconciler reconciler = new DefaultReconciler(Arrays.asList(linter));
+		TextDocument document = new TextDocument("uri", LanguageId.TXT, 1, "x\nax\n\nx");
+		int version = 1;
+		for (int round = 0; round < 500; round++) {
+			DidChangeTextDocumentParams params = new DidChangeTextDocumentParams();
+			params.setTextDocument(new VersionedTextDocumentIdentifier(++version, "uri"));
+			for (int i = random.nextInt(3) + 1; i > 0; i--) {
+				TextDocument copy = document.copy();
+				copy.apply(params);
+				int start = outsideDelimiter(copy, random.nextInt(copy.length() + 1));
+				int end = outsideDelimiter(copy, start + random.nextInt(Math.min(copy.length() - start, 5) + 1));
+				Range range = Range.from(copy.toPosition(start), copy.toPosition(end));
+				String text = pieces[random.nextInt(pieces.length)];
+				params.getContentChanges().add(new TextDocumentContentChangeEvent(range, end - start, text));
+			}
+			document.apply(params);
+			reconciler.didChange(document, params);
+			if (random.nextInt(3) == 0) {
+				List<Range> expected = linter.lint(document).map(ReconcileProblem::getRange).collectList().block();
+				PublishDiagnosticsParams actual = reconciler.collectDiagnostics(document).block();
+				assertThat(actual != null ? actual.getDiagnostics().stream().map(d -> d.getRange())
+						.collect(Collectors.toList()) : Arrays.asList())
+					.as("round %s content %s", round, document.content())
+					.containsExactlyInAnyOrderElementsOf(expected);
+			}
+		}
+		assertThat(linter.ranges).anyMatch(range -> range != null);
+	}
+
+	@Test
+	public void testIncrementalLinterSameUriInSessions() {
+		XLinter linter = new XLinter();
+		DefaultReconciler reconciler = new DefaultReconciler(Arrays.asList(linter));
+		TextDocument a1 = new TextDocument("uri", LanguageId.TXT, 1, "x\na\na");
+		assertThat(lines(reconciler.collectDiagnostics(a1).block())).containsExactly(0);
+		TextDocument a2 = changed(reconciler, a1, 2, Range.from(2, 0, 2, 1), "b");
+
+		linter.ranges.clear();
+		TextDocument b2 = new TextDocument("uri", LanguageId.TXT, 2, "a\na\na");
+		assertThat(reconciler.collectDiagnostics(b2).block()).isNull();
+		assertThat(linter.ranges).containsExactly((Range) null);
+
+		linter.ranges.clear();
+		TextDocument b3 = changed(reconciler, b2, 3, Range.from(2, 0, 2, 0), "x");
+		assertThat(lines(reconciler.collectDiagnostics(b3).block())).containsExactly(2);
+		assertThat(linter.ranges).containsExactly(Range.from(2, 0, 2, 2));
+
+		linter.ranges.clear();
+		TextDocument a3 = changed(reconciler, a2, 3, Range.from(1, 0, 1, 1), "b");
+		assertThat(lines(reconciler.collectDiagnostics(a3).block())).containsExactly(0);
+		assertThat(linter.ranges).containsExactly((Range) null);
+	}
+
+	private static TextDocument changed(Reconciler reconciler, TextDocument previous, int version, Range range,
+			String text) {
+		DidChangeTextDocumentParams params = new DidChangeTextDocumentParams();
+		params.setTextDocument(new VersionedTextDocumentIdentifier(version, previous.uri()));
+		params.getContentChanges().add(new TextDocumentContentChangeEvent(range, null, text));
+		TextDocument document = previous.copy();
+		document.apply(params);
+		reconciler.didChange(previous, document, params);
+		return document;
+	}
+
+	private static int outsideDelimiter(Document document, int offset) {
+		if (offset > 0 && offset < document.length() && document.charAt(offset - 1) == '\r'
+				&& document.charAt(offset) == '\n') {
+			return offset - 1;
+		}
+		return offset;
+	}
+
+	private static void change(Reconciler reconciler, TextDocument document, int version, Range range, String text) {
+		DidChangeTextDocumentParams params = new DidChangeTextDocumentParams();
+		params.setTextDocument(new VersionedTextDocumentIdentifier(version, document.uri()));
+		params.getContentChanges().add(new TextDocumentContentChangeEvent(range, null, text));
+		document.apply(params);
+		reconciler.didChange(document, params);
+	}
+
+	private static List<Integer> lines(PublishDiagnosticsParams params) {
+		return params.getDiagnostics().stream().map(d -> d.getRange().getStart().getLine()).sorted()
+				.collect(Collectors.toList());
+	}
+
+	private static ReconcileProblem problem() {
+		return new ReconcileProblem() {
+
+			@Override
+			public ProblemType getType() {
+				return null;
+			}
+
+			@Override
+			public Range getRange() {
+				return Range.from(0, 0, 0, 0);
+			}
+
+			@Override
+			public String getMessage() {
+				return "hi";
+			}
+		};
+	}
+
+	private static class TestLinter implements Linter {
+
+		private final Flux<ReconcileProblem> problems;
+
+		TestLinter(Flux<ReconcileProblem> problems) {
+			this.problems = problems;
+		}
+
+		@Override
+		public List<LanguageId> getSupportedLanguageIds() {
+			return Arrays.asList(LanguageId.TXT);
+		}
+
+		@Override
+		public Flux<ReconcileProblem> lint(Document document) {
+			return problems;
+		}
+	}
+
+	private static class SleepingLinter implements Linter {
+
+		private final long sleep;
+
+		SleepingLinter(long sleep) {
+			this.sleep = sleep;
+		}
+
+		@Override
+		public List<LanguageId> getSupportedLanguageIds() {
+			return Arrays.asList(LanguageId.TXT);
+		}
+
+		@Override
+		public Flux<ReconcileProblem> lint(Document document) {
+			try {
+				Thread.sleep(sleep);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return Flux.just(problem());
+		}
+	}
+
+	private static class XLinter implements IncrementalLinter {
+
+		final List<Range> ranges = new ArrayList<>();
+
+		@Override
+		public List<LanguageId> getSupportedLanguageIds() {
+			return Arrays.asList(LanguageId.TXT);
+		}
+
+		@Override
+		public Flux<ReconcileProblem> lint(Document document) {
+			ranges.add(null);
+			return lint(document, 0, document.length());
+		}
+
+		@Override
+		public Flux<ReconcileProblem> lint(Document document, Range range) {
+			ranges.add(range);
+			return lint(document, document.toOffset(range.getStart()), document.toOffset(range.getEnd()));
+		}
+
+		private Flux<ReconcileProblem> lint(Document document, int start, int end) {
+			List<ReconcileProblem> problems = new ArrayList<>();
+			for (int i = start; i < end; i++) {
+				if (document.charAt(i) == 'x') {
+					problems.add(new DefaultReconcileProblem(null, "x", document.toRange(i, 1)));
+				}
+			}
+			return Flux.fromIterable(problems);
+		}
+	}
 }
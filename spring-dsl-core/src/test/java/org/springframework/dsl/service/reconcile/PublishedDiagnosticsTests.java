@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.service.reconcile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.springframework.dsl.domain.Diagnostic;
+import org.springframework.dsl.domain.DiagnosticSeverity;
+import org.springframework.dsl.domain.PublishDiagnosticsParams;
+import org.springframework.dsl.domain.Range;
+
+/**
+ * Tests for {@link PublishedDiagnostics}.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class PublishedDiagnosticsTests {
+
+	@Test
+	public void testSkipUnchanged() {
+		PublishedDiagnostics published = new PublishedDiagnostics();
+		Diagnostic d1 = new Diagnostic(Range.from(0, 0, 0, 1), DiagnosticSeverity.Error, "code", null, "message1");
+		Diagnostic d2 = new Diagnostic(Range.from(1, 0, 1, 1), DiagnosticSeverity.Warning, null, null, "message2");
+
+		assertThat(published.update(new PublishDiagnosticsParams("uri", Arrays.asList(d1, d2)))).isTrue();
+		assertThat(published.update(new PublishDiagnosticsParams("uri", Arrays.asList(d2, d1)))).isFalse();
+		assertThat(published.update(new PublishDiagnosticsParams("uri", Arrays.asList(d1)))).isTrue();
+		assertThat(published.update(new PublishDiagnosticsParams("uri", Arrays.asList(
+				new Diagnostic(Range.from(0, 0, 0, 1), DiagnosticSeverity.Error, "code", null, "message1")))))
+			.isFalse();
+		assertThat(published.update(new PublishDiagnosticsParams("uri2", Arrays.asList(d1)))).isTrue();
+		assertThat(published.getDocumentCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void testEmptyDiagnostics() {
+		PublishedDiagnostics published = new PublishedDiagnostics();
+
+		assertThat(published.update(new PublishDiagnosticsParams("uri"))).isTrue();
+		assertThat(published.update(new PublishDiagnosticsParams("uri", null))).isFalse();
+		assertThat(published.update(new PublishDiagnosticsParams("uri"))).isFalse();
+
+		published.remove("uri");
+		assertThat(published.getDocumentCount()).isEqualTo(0);
+		assertThat(published.update(new PublishDiagnosticsParams("uri"))).isTrue();
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.service.reconcile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.dsl.document.DocumentSnapshot;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Tests for {@link ReconcileScheduler}.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class ReconcileSchedulerTests {
+
+	private ReconcileScheduler scheduler;
+
+	@After
+	public void clean() {
+		if (scheduler != null) {
+			scheduler.dispose();
+		}
+	}
+
+	@Test
+	public void testBurstReconcilesLatest() throws InterruptedException {
+		scheduler = new ReconcileScheduler(Duration.ofMillis(200));
+		List<Integer> reconciled = new CopyOnWriteArrayList<>();
+		List<Integer> published = new CopyOnWriteArrayList<>();
+		CountDownLatch latch = new CountDownLatch(1);
+
+		for (int version = 1; version <= 3; version++) {
+			scheduler.schedule(new DocumentSnapshot("uri", null, version, "content"), document -> {
+				reconciled.add(document.getVersion());
+				return Mono.just(document.getVersion());
+			}, result -> Mono.fromRunnable(() -> {
+				published.add(result);
+				latch.countDown();
+			}));
+		}
+		assertThat(scheduler.isScheduled("uri")).isTrue();
+
+		assertThat(latch.await(2, TimeUnit.SECONDS)).isTrue();
+		assertThat(reconciled).containsExactly(3);
+		assertThat(published).containsExactly(3);
+	}
+
+	@Test
+	public void testNewerVersionCancelsRunning() throws InterruptedException {
+		scheduler = new ReconcileScheduler(Duration.ZERO);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch cancelled = new CountDownLatch(1);
+		CountDownLatch published = new CountDownLatch(1);
+		List<Integer> results = new CopyOnWriteArrayList<>();
+
+		scheduler.schedule(new DocumentSnapshot("uri", null, 1, "content"),
+				document -> Mono.<Integer>never().doOnSubscribe(s -> started.countDown()).doOnCancel(cancelled::countDown),
+				result -> Mono.fromRunnable(() -> results.add(result)));
+		assertThat(started.await(2, TimeUnit.SECONDS)).isTrue();
+
+		scheduler.schedule(new DocumentSnapshot("uri", null, 2, "content"),
+				document -> Mono.just(document.getVersion()),
+				result -> Mono.fromRunnable(() -> {
+					results.add(result);
+					published.countDown();
+				}));
+		assertThat(cancelled.await(2, TimeUnit.SECONDS)).isTrue();
+		assertThat(published.await(2, TimeUnit.SECONDS)).isTrue();
+		assertThat(results).containsExactly(2);
+	}
+
+	@Test
+	public void testCancel() throws InterruptedException {
+		scheduler = new ReconcileScheduler(Duration.ofMillis(100));
+		List<Integer> results = new CopyOnWriteArrayList<>();
+
+		scheduler.schedule(new DocumentSnapshot("uri", null, 1, "content"),
+				document -> Mono.just(document.getVersion()),
+				result -> Mono.fromRunnable(() -> results.add(result)));
+		scheduler.cancel("uri");
+		assertThat(scheduler.isScheduled("uri")).isFalse();
+
+		Thread.sleep(300);
+		assertThat(results).isEmpty();
+	}
+}
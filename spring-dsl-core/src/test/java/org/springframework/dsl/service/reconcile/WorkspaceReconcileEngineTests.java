@@ -0,0 +1,214 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.service.reconcile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.dsl.document.Document;
+import org.springframework.dsl.domain.DidCloseTextDocumentParams;
+import org.springframework.dsl.domain.Position;
+import org.springframework.dsl.domain.PublishDiagnosticsParams;
+import org.springframework.dsl.model.LanguageId;
+import org.springframework.dsl.service.DefaultDslServiceRegistry;
+import org.springframework.dsl.service.DslServiceRegistry;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Tests for {@link WorkspaceReconcileEngine}.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class WorkspaceReconcileEngineTests {
+
+	private static final LanguageId X = LanguageId.languageId("x");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private GenericApplicationContext context;
+	private DslServiceRegistry registry;
+	private WorkspaceReconcileEngine engine;
+	private final List<PublishDiagnosticsParams> published = new CopyOnWriteArrayList<>();
+
+	@Before
+	public void setup() throws Exception {
+		context = new GenericApplicationContext();
+		context.registerBean(Reconciler.class, () -> new DefaultReconciler(Arrays.asList(new BadLinter())));
+		context.refresh();
+		DefaultDslServiceRegistry registry = new DefaultDslServiceRegistry();
+		registry.setApplicationContext(context);
+		this.registry = registry;
+
+		write("a.x", "bad\nok\nbad");
+		write("sub/b.x", "bad");
+		write("c.y", "bad");
+		write("d.x", "ok");
+	}
+
+	@After
+	public void clean() {
+		if (engine != null) {
+			engine.dispose();
+		}
+		context.close();
+	}
+
+	@Test
+	public void testReconcileWorkspace() throws Exception {
+		engine = createEngine();
+		engine.setParallelism(2);
+		engine.setQuietPeriod(Duration.ZERO);
+		engine.start(publisher());
+
+		await(() -> engine.getReconciledCount() == 3 && published.size() == 2);
+		assertThat(published.stream().map(p -> fileName(p)).collect(Collectors.toList()))
+			.containsExactlyInAnyOrder("a.x", "b.x");
+		assertThat(published.stream().filter(p -> fileName(p).equals("a.x")).findFirst().get().getDiagnostics())
+			.hasSize(2);
+	}
+
+	@Test
+	public void testOpenDocumentsSkipped() throws Exception {
+		engine = createEngine();
+		engine.setQuietPeriod(Duration.ZERO);
+		engine.open(new File(folder.getRoot(), "a.x").toPath().toUri().toString());
+		engine.start(publisher());
+
+		await(() -> engine.getReconciledCount() == 2 && published.size() == 1);
+		assertThat(fileName(published.get(0))).isEqualTo("b.x");
+	}
+
+	@Test
+	public void testActivityDelaysReconcile() throws Exception {
+		engine = createEngine();
+		engine.setQuietPeriod(Duration.ofMillis(500));
+		long start = System.nanoTime();
+		engine.notifyActivity();
+		engine.start(publisher());
+
+		await(() -> published.size() == 2);
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(500));
+	}
+
+	@Test
+	public void testNoCloseForDocumentOpenedWhileReconciling() throws Exception {
+		String uri = new File(folder.getRoot(), "a.x").toPath().toUri().toString();
+		List<Integer> versions = new CopyOnWriteArrayList<>();
+		List<String> closed = new CopyOnWriteArrayList<>();
+		DefaultReconciler reconciler = new DefaultReconciler(Arrays.asList(new BadLinter())) {
+
+			@Override
+			public Mono<PublishDiagnosticsParams> collectDiagnostics(Document document) {
+				versions.add(document.getVersion());
+				if (document.uri().equals(uri)) {
+					engine.open(uri);
+				}
+				return super.collectDiagnostics(document);
+			}
+
+			@Override
+			public void didClose(Document document, DidCloseTextDocumentParams params) {
+				closed.add(document.uri());
+				super.didClose(document, params);
+			}
+		};
+		GenericApplicationContext context = new GenericApplicationContext();
+		context.registerBean(Reconciler.class, () -> reconciler);
+		context.refresh();
+		DefaultDslServiceRegistry registry = new DefaultDslServiceRegistry();
+		registry.setApplicationContext(context);
+		engine = new WorkspaceReconcileEngine(registry, Collections.singletonMap("x", X),
+				Arrays.asList(folder.getRoot().toPath()));
+		engine.setQuietPeriod(Duration.ZERO);
+		engine.start(publisher());
+
+		await(() -> engine.getReconciledCount() == 3 && closed.size() == 2);
+		assertThat(versions).containsOnly(WorkspaceReconcileEngine.BACKGROUND_VERSION);
+		assertThat(closed).hasSize(2).doesNotContain(uri);
+		assertThat(published.stream().map(p -> fileName(p)).collect(Collectors.toList())).containsExactly("b.x");
+		context.close();
+	}
+
+	private WorkspaceReconcileEngine createEngine() {
+		Map<String, LanguageId> extensions = Collections.singletonMap("x", X);
+		return new WorkspaceReconcileEngine(registry, extensions, Arrays.asList(folder.getRoot().toPath()));
+	}
+
+	private Function<PublishDiagnosticsParams, Mono<Void>> publisher() {
+		return params -> Mono.fromRunnable(() -> published.add(params));
+	}
+
+	private void write(String name, String content) throws Exception {
+		File file = new File(folder.getRoot(), name);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String fileName(PublishDiagnosticsParams params) {
+		return params.getUri().substring(params.getUri().lastIndexOf('/') + 1);
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(condition.getAsBoolean()).isTrue();
+	}
+
+	private static class BadLinter implements Linter {
+
+		@Override
+		public List<LanguageId> getSupportedLanguageIds() {
+			return Arrays.asList(X);
+		}
+
+		@Override
+		public Flux<ReconcileProblem> lint(Document document) {
+			List<ReconcileProblem> problems = new ArrayList<>();
+			for (int line = 0; line < document.lineCount(); line++) {
+				int start = document.toOffset(Position.from(line, 0));
+				if (document.length() >= start + 3 && document.content(start, 3).equals("bad")) {
+					problems.add(new DefaultReconcileProblem("bad", document.toRange(start, 3)));
+				}
+			}
+			return Flux.fromIterable(problems);
+		}
+	}
+}
@@ -26,6 +26,10 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
 
 /**
@@ -36,6 +40,7 @@ import reactor.core.publisher.Mono;
  */
 public class InMemoryJsonRpcSessionStore implements JsonRpcSessionStore {
 
+	private static final Logger log = LoggerFactory.getLogger(InMemoryJsonRpcSessionStore.class);
 	private static final Duration EXPIRATION_CHECK_PERIOD = Duration.ofSeconds(60);
 	private final ConcurrentMap<String, InMemoryJsonRpcSession> sessions = new ConcurrentHashMap<>();
 	private Clock clock = Clock.system(ZoneId.of("GMT"));
@@ -58,7 +63,7 @@ public class InMemoryJsonRpcSessionStore implements JsonRpcSessionStore {
 		if (session == null) {
 			return Mono.empty();
 		} else if (session.isExpired(currentTime)) {
-			this.sessions.remove(sessionId);
+			session.invalidate();
 			return Mono.empty();
 		} else {
 			session.updateLastAccessTime(currentTime);
@@ -163,6 +168,15 @@ public class InMemoryJsonRpcSessionStore implements JsonRpcSessionStore {
 		@Override
 		public Mono<Void> invalidate() {
 			this.state.set(State.EXPIRED);
+			for (Object attribute : getAttributes().values()) {
+				if (attribute instanceof Disposable) {
+					try {
+						((Disposable) attribute).dispose();
+					} catch (RuntimeException e) {
+						log.warn("Unable to dispose session attribute {}", attribute, e);
+					}
+				}
+			}
 			getAttributes().clear();
 			InMemoryJsonRpcSessionStore.this.sessions.remove(this.id);
 			return Mono.empty();
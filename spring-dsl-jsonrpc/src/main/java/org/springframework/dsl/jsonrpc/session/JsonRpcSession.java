@@ -116,7 +116,9 @@ public interface JsonRpcSession {
 	boolean isExpired();
 
 	/**
-	 * Invalidate the current session and clear session storage.
+	 * Invalidate the current session and clear session storage. Attributes
+	 * which are {@link reactor.core.Disposable}s are disposed before those are
+	 * cleared.
 	 *
 	 * @return completion notification (success or error)
 	 */
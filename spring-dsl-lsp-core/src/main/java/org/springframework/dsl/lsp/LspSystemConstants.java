@@ -16,6 +16,9 @@
 package org.springframework.dsl.lsp;
 
 import org.springframework.dsl.service.DocumentStateTracker;
+import org.springframework.dsl.service.reconcile.PublishedDiagnostics;
+import org.springframework.dsl.service.reconcile.ReconcileScheduler;
+import org.springframework.dsl.service.reconcile.WorkspaceReconcileEngine;
 
 /**
  * Various constants used by a system.
@@ -44,4 +47,22 @@ public abstract class LspSystemConstants {
 	 * Session attribute containing added lsp client
 	 */
 	public final static String SESSION_ATTRIBUTE_LSP_CLIENT = "lspClient";
+
+	/**
+	 * Session attribute containing {@link ReconcileScheduler} if reconciles are
+	 * debounced.
+	 */
+	public final static String SESSION_ATTRIBUTE_RECONCILE_SCHEDULER = "reconcileScheduler";
+
+	/**
+	 * Session attribute containing {@link PublishedDiagnostics} used to skip
+	 * publishing unchanged diagnostics.
+	 */
+	public final static String SESSION_ATTRIBUTE_PUBLISHED_DIAGNOSTICS = "publishedDiagnostics";
+
+	/**
+	 * Session attribute containing {@link WorkspaceReconcileEngine} if
+	 * workspace is reconciled in a background.
+	 */
+	public final static String SESSION_ATTRIBUTE_WORKSPACE_RECONCILE_ENGINE = "workspaceReconcileEngine";
 }
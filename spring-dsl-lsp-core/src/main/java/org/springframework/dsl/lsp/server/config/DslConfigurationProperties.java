@@ -15,6 +15,10 @@
  */
 package org.springframework.dsl.lsp.server.config;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -77,6 +81,8 @@ public class DslConfigurationProperties {
 		private LspServerSocketMode mode = LspServerSocketMode.PROCESS;
 		private boolean forceJvmExitOnShutdown;
 		private WebSocketProperties websocket = new WebSocketProperties();
+		private DocumentProperties document = new DocumentProperties();
+		private ReconcileProperties reconcile = new ReconcileProperties();
 
 		public LspServerSocketMode getMode() {
 			return mode;
@@ -109,6 +115,178 @@ public class DslConfigurationProperties {
 		public void setWebsocket(WebSocketProperties websocket) {
 			this.websocket = websocket;
 		}
+
+		public DocumentProperties getDocument() {
+			return document;
+		}
+
+		public void setDocument(DocumentProperties document) {
+			this.document = document;
+		}
+
+		public ReconcileProperties getReconcile() {
+			return reconcile;
+		}
+
+		public void setReconcile(ReconcileProperties reconcile) {
+			this.reconcile = reconcile;
+		}
+	}
+
+	public static class ReconcileProperties {
+
+		/**
+		 * Window a document needs to stay unchanged before it is reconciled.
+		 * When not set, document changes are reconciled immediately.
+		 */
+		private Duration debounce;
+
+		/**
+		 * Number of linters run in parallel for a document. When not set,
+		 * linters are run one after another.
+		 */
+		private int parallelism;
+
+		/**
+		 * Time a single linter is allowed to run. When not set, linters are
+		 * waited until they complete.
+		 */
+		private Duration linterTimeout;
+
+		private WorkspaceReconcileProperties workspace = new WorkspaceReconcileProperties();
+
+		public Duration getDebounce() {
+			return debounce;
+		}
+
+		public void setDebounce(Duration debounce) {
+			this.debounce = debounce;
+		}
+
+		public int getParallelism() {
+			return parallelism;
+		}
+
+		public void setParallelism(int parallelism) {
+			this.parallelism = parallelism;
+		}
+
+		public Duration getLinterTimeout() {
+			return linterTimeout;
+		}
+
+		public void setLinterTimeout(Duration linterTimeout) {
+			this.linterTimeout = linterTimeout;
+		}
+
+		public WorkspaceReconcileProperties getWorkspace() {
+			return workspace;
+		}
+
+		public void setWorkspace(WorkspaceReconcileProperties workspace) {
+			this.workspace = workspace;
+		}
+	}
+
+	public static class WorkspaceReconcileProperties {
+
+		/**
+		 * Whether files under workspace roots are reconciled in a background.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Language ids keyed by file extensions of files to reconcile.
+		 */
+		private Map<String, String> extensions = new HashMap<>();
+
+		/**
+		 * Number of files reconciled at a same time.
+		 */
+		private int parallelism = 1;
+
+		/**
+		 * Time without interactive activity needed before a next file is
+		 * reconciled.
+		 */
+		private Duration quietPeriod = Duration.ofMillis(500);
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public Map<String, String> getExtensions() {
+			return extensions;
+		}
+
+		public void setExtensions(Map<String, String> extensions) {
+			this.extensions = extensions;
+		}
+
+		public int getParallelism() {
+			return parallelism;
+		}
+
+		public void setParallelism(int parallelism) {
+			this.parallelism = parallelism;
+		}
+
+		public Duration getQuietPeriod() {
+			return quietPeriod;
+		}
+
+		public void setQuietPeriod(Duration quietPeriod) {
+			this.quietPeriod = quietPeriod;
+		}
+	}
+
+	public static class DocumentProperties {
+
+		/**
+		 * Size in bytes over which {@code file:} documents are memory mapped as
+		 * read-only documents. Negative value disables mapping.
+		 */
+		private long mappedThreshold = -1;
+
+		/**
+		 * Maximum number of characters kept in closed documents before least
+		 * recently used ones are evicted. Zero disables caching.
+		 */
+		private long cacheMaxCharacters = 1000000;
+
+		/**
+		 * Whether documents having an identical content are shared between
+		 * sessions.
+		 */
+		private boolean shared = false;
+
+		public long getMappedThreshold() {
+			return mappedThreshold;
+		}
+
+		public void setMappedThreshold(long mappedThreshold) {
+			this.mappedThreshold = mappedThreshold;
+		}
+
+		public long getCacheMaxCharacters() {
+			return cacheMaxCharacters;
+		}
+
+		public void setCacheMaxCharacters(long cacheMaxCharacters) {
+			this.cacheMaxCharacters = cacheMaxCharacters;
+		}
+
+		public boolean isShared() {
+			return shared;
+		}
+
+		public void setShared(boolean shared) {
+			this.shared = shared;
+		}
 	}
 
 	public static class LspClientProperties {
@@ -20,9 +20,12 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.dsl.document.SharedDocumentStore;
 import org.springframework.dsl.jsonrpc.JsonRpcSystemConstants;
 import org.springframework.dsl.jsonrpc.config.JsonRpcJacksonConfiguration;
 import org.springframework.dsl.jsonrpc.support.DispatcherJsonRpcHandler;
@@ -30,6 +33,8 @@ import org.springframework.dsl.lsp.server.jsonrpc.LspClientArgumentResolver;
 import org.springframework.dsl.lsp.server.jsonrpc.LspDomainArgumentResolver;
 import org.springframework.dsl.lsp.server.jsonrpc.ReactorJsonRpcHandlerAdapter;
 import org.springframework.dsl.lsp.server.jsonrpc.RpcJsonRpcHandlerAdapter;
+import org.springframework.dsl.lsp.server.support.DocumentStateTrackerMetrics;
+import org.springframework.dsl.lsp.server.support.DocumentStateTrackerStatistics;
 import org.springframework.dsl.service.reconcile.DefaultReconciler;
 import org.springframework.dsl.service.reconcile.Linter;
 import org.springframework.dsl.service.reconcile.Reconciler;
@@ -47,8 +52,24 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 public class GenericLspConfiguration {
 
 	@Bean
-	public Reconciler reconciler(Optional<List<Linter>> linters) {
-		return new DefaultReconciler(linters.orElseGet(ArrayList::new));
+	public Reconciler reconciler(Optional<List<Linter>> linters, Optional<DslConfigurationProperties> properties) {
+		DefaultReconciler reconciler = new DefaultReconciler(linters.orElseGet(ArrayList::new));
+		properties.ifPresent(p -> {
+			reconciler.setParallelism(p.getLsp().getServer().getReconcile().getParallelism());
+			reconciler.setLinterTimeout(p.getLsp().getServer().getReconcile().getLinterTimeout());
+		});
+		return reconciler;
+	}
+
+	@Bean
+	public DocumentStateTrackerStatistics documentStateTrackerStatistics() {
+		return new DocumentStateTrackerStatistics();
+	}
+
+	@Bean
+	@ConditionalOnProperty(prefix = "spring.dsl.lsp.server.document", name = "shared", havingValue = "true")
+	public SharedDocumentStore sharedDocumentStore() {
+		return new SharedDocumentStore();
 	}
 
 	@Bean
@@ -71,4 +92,14 @@ public class GenericLspConfiguration {
 			@Qualifier(JsonRpcSystemConstants.JSONRPC_OBJECT_MAPPER_BEAN_NAME) ObjectMapper objectMapper) {
 		return new ReactorJsonRpcHandlerAdapter(rpcJsonRpcHandlerAdapter, objectMapper);
 	}
+
+	@Configuration
+	@ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+	public static class DocumentStateTrackerMetricsConfiguration {
+
+		@Bean
+		public DocumentStateTrackerMetrics documentStateTrackerMetrics(DocumentStateTrackerStatistics statistics) {
+			return new DocumentStateTrackerMetrics(statistics);
+		}
+	}
 }
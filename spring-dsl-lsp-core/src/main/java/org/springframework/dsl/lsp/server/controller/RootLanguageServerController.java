@@ -15,9 +15,18 @@
  */
 package org.springframework.dsl.lsp.server.controller;
 
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dsl.document.SharedDocumentStore;
 import org.springframework.dsl.domain.InitializeParams;
 import org.springframework.dsl.domain.InitializeResult;
 import org.springframework.dsl.domain.InitializedParams;
@@ -30,11 +39,19 @@ import org.springframework.dsl.jsonrpc.session.JsonRpcSession;
 import org.springframework.dsl.lsp.LspSystemConstants;
 import org.springframework.dsl.lsp.LspVersionDetector;
 import org.springframework.dsl.lsp.LspVersionDetector.LspVersion;
+import org.springframework.dsl.lsp.client.LspClient;
 import org.springframework.dsl.lsp.server.config.DslConfigurationProperties;
+import org.springframework.dsl.lsp.server.config.DslConfigurationProperties.DocumentProperties;
+import org.springframework.dsl.lsp.server.config.DslConfigurationProperties.WorkspaceReconcileProperties;
 import org.springframework.dsl.lsp.server.jsonrpc.LspSessionState;
+import org.springframework.dsl.lsp.server.support.DocumentStateTrackerStatistics;
 import org.springframework.dsl.lsp.server.support.LspExiter;
+import org.springframework.dsl.model.LanguageId;
 import org.springframework.dsl.service.DefaultDocumentStateTracker;
 import org.springframework.dsl.service.DslServiceRegistry;
+import org.springframework.dsl.service.reconcile.PublishedDiagnostics;
+import org.springframework.dsl.service.reconcile.ReconcileScheduler;
+import org.springframework.dsl.service.reconcile.WorkspaceReconcileEngine;
 import org.springframework.util.Assert;
 
 import reactor.core.publisher.Mono;
@@ -53,6 +70,8 @@ public class RootLanguageServerController {
 	private final DslServiceRegistry registry;
 	private LspExiter lspExiter = LspExiter.NOOP_LSPEXITER;
 	private DslConfigurationProperties properties;
+	private DocumentStateTrackerStatistics documentStateTrackerStatistics;
+	private SharedDocumentStore sharedDocumentStore;
 
 	/**
 	 * Instantiate a base language server controller.
@@ -76,6 +95,27 @@ public class RootLanguageServerController {
 		this.lspExiter = lspExiter;
 	}
 
+	/**
+	 * Sets the statistics where document state trackers created for sessions
+	 * are registered.
+	 *
+	 * @param documentStateTrackerStatistics the document state tracker statistics
+	 */
+	@Autowired(required = false)
+	public void setDocumentStateTrackerStatistics(DocumentStateTrackerStatistics documentStateTrackerStatistics) {
+		this.documentStateTrackerStatistics = documentStateTrackerStatistics;
+	}
+
+	/**
+	 * Sets the shared document store used by all sessions.
+	 *
+	 * @param sharedDocumentStore the shared document store
+	 */
+	@Autowired(required = false)
+	public void setSharedDocumentStore(SharedDocumentStore sharedDocumentStore) {
+		this.sharedDocumentStore = sharedDocumentStore;
+	}
+
 	@JsonRpcRequestMapping(method = "initialize")
 	@JsonRpcResponseResult
 	Mono<InitializeResult> initialize(InitializeParams params, JsonRpcSession session) {
@@ -107,22 +147,105 @@ public class RootLanguageServerController {
 			// TODO: just a conceptual tweak now to see how session is used
 			session.getAttributes().put(LspSystemConstants.SESSION_ATTRIBUTE_LSP_SESSION_STATE, LspSessionState.CREATED);
 			session.getAttributes().put(LspSystemConstants.SESSION_ATTRIBUTE_DOCUMENT_STATE_TRACKER,
-					new DefaultDocumentStateTracker());
+					createDocumentStateTracker());
 			session.getAttributes().put(LspSystemConstants.SESSION_ATTRIBUTE_LSP_VERSION, lspVersion);
+			session.getAttributes().put(LspSystemConstants.SESSION_ATTRIBUTE_PUBLISHED_DIAGNOSTICS,
+					new PublishedDiagnostics());
+			Duration debounce = properties != null ? properties.getLsp().getServer().getReconcile().getDebounce() : null;
+			if (debounce != null) {
+				session.getAttributes().put(LspSystemConstants.SESSION_ATTRIBUTE_RECONCILE_SCHEDULER,
+						new ReconcileScheduler(debounce));
+			}
+			WorkspaceReconcileEngine engine = createWorkspaceReconcileEngine(params);
+			if (engine != null) {
+				session.getAttributes().put(LspSystemConstants.SESSION_ATTRIBUTE_WORKSPACE_RECONCILE_ENGINE, engine);
+			}
 		});
 	}
 
+	private WorkspaceReconcileEngine createWorkspaceReconcileEngine(InitializeParams params) {
+		if (properties == null || !properties.getLsp().getServer().getReconcile().getWorkspace().isEnabled()) {
+			return null;
+		}
+		Path root = null;
+		try {
+			if (params.getRootUri() != null) {
+				root = Paths.get(URI.create(params.getRootUri()));
+			} else if (params.getRootPath() != null) {
+				root = Paths.get(params.getRootPath());
+			}
+		} catch (Exception e) {
+			log.warn("Unable to resolve workspace root from {} {}", params.getRootUri(), params.getRootPath(), e);
+		}
+		if (root == null) {
+			return null;
+		}
+		WorkspaceReconcileProperties workspace = properties.getLsp().getServer().getReconcile().getWorkspace();
+		Map<String, LanguageId> extensions = new HashMap<>();
+		workspace.getExtensions().forEach((extension, languageId) -> {
+			extensions.put(extension, LanguageId.languageId(languageId));
+		});
+		WorkspaceReconcileEngine engine = new WorkspaceReconcileEngine(registry, extensions,
+				Collections.singletonList(root));
+		engine.setParallelism(workspace.getParallelism());
+		engine.setQuietPeriod(workspace.getQuietPeriod());
+		return engine;
+	}
+
+	private DefaultDocumentStateTracker createDocumentStateTracker() {
+		DefaultDocumentStateTracker tracker = new DefaultDocumentStateTracker();
+		if (properties != null) {
+			DocumentProperties document = properties.getLsp().getServer().getDocument();
+			tracker.setMappedDocumentThreshold(document.getMappedThreshold());
+			tracker.setMaxCachedCharacters(document.getCacheMaxCharacters());
+		}
+		tracker.setSharedDocumentStore(sharedDocumentStore);
+		if (documentStateTrackerStatistics != null) {
+			documentStateTrackerStatistics.register(tracker);
+		}
+		return tracker;
+	}
+
 	@JsonRpcRequestMapping(method = "initialized")
 	@JsonRpcNotification
 	public void initialized(InitializedParams params, JsonRpcSession session) {
 		log.debug("initialized {}", params);
 		session.getAttributes().put(LspSystemConstants.SESSION_ATTRIBUTE_LSP_SESSION_STATE, LspSessionState.INITIALIZED);
+		WorkspaceReconcileEngine engine = session
+				.getAttribute(LspSystemConstants.SESSION_ATTRIBUTE_WORKSPACE_RECONCILE_ENGINE);
+		LspClient lspClient = session.getAttribute(LspSystemConstants.SESSION_ATTRIBUTE_LSP_CLIENT);
+		if (engine != null && lspClient != null) {
+			PublishedDiagnostics publishedDiagnostics = session
+					.getAttribute(LspSystemConstants.SESSION_ATTRIBUTE_PUBLISHED_DIAGNOSTICS);
+			engine.start(diagnostics -> publishedDiagnostics != null && !publishedDiagnostics.update(diagnostics)
+					? Mono.empty()
+					: lspClient.notification()
+						.method("textDocument/publishDiagnostics")
+						.params(diagnostics)
+						.exchange());
+		}
 	}
 
 	@JsonRpcRequestMapping(method = "shutdown")
 	@JsonRpcResponseResult
-	public Mono<Object> shutdown() {
+	public Mono<Object> shutdown(JsonRpcSession session) {
 		log.debug("shutdown");
+		ReconcileScheduler reconcileScheduler = session
+				.getAttribute(LspSystemConstants.SESSION_ATTRIBUTE_RECONCILE_SCHEDULER);
+		if (reconcileScheduler != null) {
+			reconcileScheduler.dispose();
+		}
+		WorkspaceReconcileEngine engine = session
+				.getAttribute(LspSystemConstants.SESSION_ATTRIBUTE_WORKSPACE_RECONCILE_ENGINE);
+		if (engine != null) {
+			engine.dispose();
+		}
+		// shared documents are referenced server wide until released
+		DefaultDocumentStateTracker tracker = session
+				.getAttribute(LspSystemConstants.SESSION_ATTRIBUTE_DOCUMENT_STATE_TRACKER);
+		if (tracker != null) {
+			tracker.dispose();
+		}
 		if (properties.getLsp().getServer().isForceJvmExitOnShutdown()) {
 			return Mono.defer(() -> {
 				lspExiter.exit(0);
@@ -15,14 +15,15 @@
  */
 package org.springframework.dsl.lsp.server.controller;
 
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dsl.document.Document;
 import org.springframework.dsl.domain.CompletionList;
 import org.springframework.dsl.domain.CompletionParams;
+import org.springframework.dsl.domain.Diagnostic;
 import org.springframework.dsl.domain.DidChangeTextDocumentParams;
 import org.springframework.dsl.domain.DidCloseTextDocumentParams;
 import org.springframework.dsl.domain.DidOpenTextDocumentParams;
@@ -43,11 +44,15 @@ import org.springframework.dsl.jsonrpc.annotation.JsonRpcRequestMapping;
 import org.springframework.dsl.jsonrpc.annotation.JsonRpcResponseResult;
 import org.springframework.dsl.jsonrpc.session.JsonRpcSession;
 import org.springframework.dsl.lsp.LspSystemConstants;
+import org.springframework.dsl.lsp.client.LspClient;
 import org.springframework.dsl.service.Completioner;
 import org.springframework.dsl.service.DocumentStateTracker;
 import org.springframework.dsl.service.DslServiceRegistry;
 import org.springframework.dsl.service.Hoverer;
+import org.springframework.dsl.service.reconcile.PublishedDiagnostics;
+import org.springframework.dsl.service.reconcile.ReconcileScheduler;
 import org.springframework.dsl.service.reconcile.Reconciler;
+import org.springframework.dsl.service.reconcile.WorkspaceReconcileEngine;
 import org.springframework.util.Assert;
 
 import reactor.core.publisher.Flux;
@@ -92,26 +97,30 @@ public class TextDocumentLanguageServerController {
 	public Flux<PublishDiagnosticsParams> clientDocumentOpened(DidOpenTextDocumentParams params, JsonRpcSession session) {
 		log.debug("clientDocumentOpened {}", params);
 		DocumentStateTracker documentStateTracker = getTracker(session);
+		WorkspaceReconcileEngine workspaceReconcileEngine = getWorkspaceReconcileEngine(session);
+		if (workspaceReconcileEngine != null) {
+			workspaceReconcileEngine.open(params.getTextDocument().getUri());
+		}
+		ReconcileScheduler reconcileScheduler = getReconcileScheduler(session);
+		if (reconcileScheduler != null) {
+			reconcileScheduler.cancel(params.getTextDocument().getUri());
+		}
 		return Flux.from(documentStateTracker.didOpen(params))
-				.flatMap(document -> Flux.fromIterable(registry.getReconcilers())
-					.filter(reconciler -> reconciler.getSupportedLanguageIds().stream()
-						.anyMatch(l -> l.isCompatibleWith(document.languageId()))
-					)
-					.flatMap(reconciler -> reconciler.reconcile(document))
-				)
-				.reduce((l, r) -> {
-					l.setDiagnostics(
-							Stream.concat(l.getDiagnostics().stream(), r.getDiagnostics().stream())
-								.collect(Collectors.toList()));
-					return l;
-				})
+				.flatMap(document -> reconcile(document))
 				.switchIfEmpty(Mono.just(new PublishDiagnosticsParams(params.getTextDocument().getUri())))
-				.flux();
+				.filter(diagnostics -> isChanged(session, diagnostics));
 	}
 
 	/**
 	 * Method handling {@code LSP client didChange} request and dispatching into
 	 * {@link Reconciler} if available.
+	 * <p>
+	 * If session has a {@link ReconcileScheduler}, reconcile is scheduled and
+	 * diagnostics are published later via a {@link LspClient} only for a latest
+	 * version of a document.
+	 * <p>
+	 * Diagnostics equal to ones last published for a document are not
+	 * published again.
 	 *
 	 * @param params the {@link DidChangeTextDocumentParams}
 	 * @param session the {@link JsonRpcSession}
@@ -121,21 +130,27 @@ public class TextDocumentLanguageServerController {
 	public Flux<PublishDiagnosticsParams> clientDocumentChanged(DidChangeTextDocumentParams params, JsonRpcSession session) {
 		log.debug("clientDocumentChanged {}", params);
 		DocumentStateTracker documentStateTracker = getTracker(session);
+		notifyActivity(session);
+		ReconcileScheduler reconcileScheduler = getReconcileScheduler(session);
+		LspClient lspClient = session.getAttribute(LspSystemConstants.SESSION_ATTRIBUTE_LSP_CLIENT);
+		// changes are applied to a document this session has, not to a same uri in other sessions
+		Document previous = documentStateTracker.getDocument(params.getTextDocument().getUri());
+		if (reconcileScheduler != null && lspClient != null) {
+			return Flux.from(documentStateTracker.didChange(params))
+					.doOnNext(document -> didChange(previous, document, params))
+					.doOnNext(document -> reconcileScheduler.schedule(document, this::reconcile,
+							diagnostics -> !isChanged(session, diagnostics) ? Mono.empty()
+								: lspClient.notification()
+									.method("textDocument/publishDiagnostics")
+									.params(diagnostics)
+									.exchange()))
+					.thenMany(Flux.empty());
+		}
 		return Flux.from(documentStateTracker.didChange(params))
-				.flatMap(document -> Flux.fromIterable(registry.getReconcilers())
-					.filter(reconciler -> reconciler.getSupportedLanguageIds().stream()
-						.anyMatch(l -> l.isCompatibleWith(document.languageId()))
-					)
-					.flatMap(reconciler -> reconciler.reconcile(document))
-				)
-				.reduce((l, r) -> {
-					l.setDiagnostics(
-							Stream.concat(l.getDiagnostics().stream(), r.getDiagnostics().stream())
-								.collect(Collectors.toList()));
-					return l;
-				})
+				.doOnNext(document -> didChange(previous, document, params))
+				.flatMap(document -> reconcile(document))
 				.switchIfEmpty(Mono.just(new PublishDiagnosticsParams(params.getTextDocument().getUri())))
-				.flux();
+				.filter(diagnostics -> isChanged(session, diagnostics));
 	}
 
 	/**
@@ -150,6 +165,27 @@ public class TextDocumentLanguageServerController {
 	public Mono<Void> clientDocumentClosed(DidCloseTextDocumentParams params, JsonRpcSession session) {
 		log.debug("clientDocumentClosed {}", params);
 		DocumentStateTracker documentStateTracker = getTracker(session);
+		WorkspaceReconcileEngine workspaceReconcileEngine = getWorkspaceReconcileEngine(session);
+		if (workspaceReconcileEngine != null) {
+			workspaceReconcileEngine.close(params.getTextDocument().getUri());
+		}
+		ReconcileScheduler reconcileScheduler = getReconcileScheduler(session);
+		if (reconcileScheduler != null) {
+			reconcileScheduler.cancel(params.getTextDocument().getUri());
+		}
+		// only state kept for this session's document is dropped
+		Document document = documentStateTracker.getDocument(params.getTextDocument().getUri());
+		if (document != null) {
+			registry.getReconcilers(document.languageId()).forEach(reconciler -> reconciler.didClose(document, params));
+			registry.invalidate(document);
+		} else {
+			registry.getReconcilers().forEach(reconciler -> reconciler.didClose(params));
+		}
+		PublishedDiagnostics publishedDiagnostics = session
+				.getAttribute(LspSystemConstants.SESSION_ATTRIBUTE_PUBLISHED_DIAGNOSTICS);
+		if (publishedDiagnostics != null) {
+			publishedDiagnostics.remove(params.getTextDocument().getUri());
+		}
 		return Flux.from(documentStateTracker.didClose(params))
 				.then();
 	}
@@ -212,12 +248,11 @@ public class TextDocumentLanguageServerController {
 	public Mono<Hover> hover(TextDocumentPositionParams params, JsonRpcSession session) {
 		log.debug("hover {}", params);
 		DocumentStateTracker documentStateTracker = getTracker(session);
+		notifyActivity(session);
 		Document document = documentStateTracker.getDocument(params.getTextDocument().getUri());
 		Position position = params.getPosition();
 
-		return Flux.fromIterable(registry.getHoverers())
-			.filter(hoverer -> hoverer.getSupportedLanguageIds().stream()
-					.anyMatch(l -> l.isCompatibleWith(document.languageId())))
+		return Flux.fromIterable(registry.getHoverers(document.languageId()))
 			.next()
 			.flatMap(hoverer -> hoverer.hover(document, position));
 	}
@@ -237,6 +272,7 @@ public class TextDocumentLanguageServerController {
 		//       not sure if there are clients which only supports CompletionItem[]
 		log.debug("completion {}", params);
 		DocumentStateTracker documentStateTracker = getTracker(session);
+		notifyActivity(session);
 		Document document = documentStateTracker.getDocument(params.getTextDocument().getUri());
 		Position position = params.getPosition();
 
@@ -265,6 +301,7 @@ public class TextDocumentLanguageServerController {
 	public Mono<DocumentSymbol[]> documentSymbol(DocumentSymbolParams params, JsonRpcSession session) {
 		log.debug("documentSymbol {}", params);
 		DocumentStateTracker documentStateTracker = getTracker(session);
+		notifyActivity(session);
 		Document document = documentStateTracker.getDocument(params.getTextDocument().getUri());
 
 		return Flux.fromIterable(registry.getSymbolizers(document.languageId()))
@@ -285,6 +322,7 @@ public class TextDocumentLanguageServerController {
 	public Mono<WorkspaceEdit> rename(RenameParams params, JsonRpcSession session) {
 		log.debug("rename {}", params);
 		DocumentStateTracker documentStateTracker = getTracker(session);
+		notifyActivity(session);
 		Document document = documentStateTracker.getDocument(params.getTextDocument().getUri());
 
 		return Flux.fromIterable(registry.getRenamers(document.languageId()))
@@ -292,6 +330,64 @@ public class TextDocumentLanguageServerController {
 				.next();
 	}
 
+	private void didChange(Document previous, Document document, DidChangeTextDocumentParams params) {
+		if (previous != null && previous != document) {
+			registry.invalidate(previous);
+		}
+		registry.getReconcilers(document.languageId())
+				.forEach(reconciler -> reconciler.didChange(previous, document, params));
+	}
+
+	private Mono<PublishDiagnosticsParams> reconcile(Document document) {
+		return Flux.fromIterable(registry.getReconcilers(document.languageId()))
+				.flatMap(reconciler -> reconciler.collectDiagnostics(document))
+				.collectList()
+				.map(results -> merge(document, results));
+	}
+
+	private static PublishDiagnosticsParams merge(Document document, List<PublishDiagnosticsParams> results) {
+		if (results.isEmpty()) {
+			return new PublishDiagnosticsParams(document.uri());
+		}
+		if (results.size() == 1) {
+			return results.get(0);
+		}
+		int size = 0;
+		for (PublishDiagnosticsParams params : results) {
+			size += params.getDiagnostics().size();
+		}
+		List<Diagnostic> diagnostics = new ArrayList<>(size);
+		for (PublishDiagnosticsParams params : results) {
+			diagnostics.addAll(params.getDiagnostics());
+		}
+		return new PublishDiagnosticsParams(document.uri(), diagnostics);
+	}
+
+	private static boolean isChanged(JsonRpcSession session, PublishDiagnosticsParams diagnostics) {
+		PublishedDiagnostics publishedDiagnostics = session
+				.getAttribute(LspSystemConstants.SESSION_ATTRIBUTE_PUBLISHED_DIAGNOSTICS);
+		if (publishedDiagnostics == null || publishedDiagnostics.update(diagnostics)) {
+			return true;
+		}
+		log.debug("Skipping publish of unchanged diagnostics for {}", diagnostics.getUri());
+		return false;
+	}
+
+	private static void notifyActivity(JsonRpcSession session) {
+		WorkspaceReconcileEngine workspaceReconcileEngine = getWorkspaceReconcileEngine(session);
+		if (workspaceReconcileEngine != null) {
+			workspaceReconcileEngine.notifyActivity();
+		}
+	}
+
+	private static WorkspaceReconcileEngine getWorkspaceReconcileEngine(JsonRpcSession session) {
+		return session.getAttribute(LspSystemConstants.SESSION_ATTRIBUTE_WORKSPACE_RECONCILE_ENGINE);
+	}
+
+	private static ReconcileScheduler getReconcileScheduler(JsonRpcSession session) {
+		return session.getAttribute(LspSystemConstants.SESSION_ATTRIBUTE_RECONCILE_SCHEDULER);
+	}
+
 	private static DocumentStateTracker getTracker(JsonRpcSession session) {
 		return session.getRequiredAttribute(LspSystemConstants.SESSION_ATTRIBUTE_DOCUMENT_STATE_TRACKER);
 	}
@@ -92,6 +92,8 @@ public class ReactorJsonRpcHandlerAdapter implements BiFunction<NettyInbound, Ne
 		Map<String, Disposable> disposables = new HashMap<>();
 
 		in.context().addHandlerLast(new LspJsonRpcDecoder());
+		String sessionId = in.context().channel().id().asLongText();
+		in.context().onClose(() -> rpcHandler.invalidateSession(sessionId).subscribe());
 		out.context().addHandlerLast(new LspJsonRpcEncoder());
 
 		// we can only have one subscriber to NettyInbound, so need to dispatch
@@ -42,4 +42,15 @@ public interface RpcHandler {
 	default Mono<Void> handle(JsonRpcInputMessage request, JsonRpcOutputMessage response) {
 		return handle(request, response, null);
 	}
+
+	/**
+	 * Invalidate a session with a given id, i.e. when a connection of a
+	 * session is closed.
+	 *
+	 * @param sessionId the session id
+	 * @return indicates completion of invalidation
+	 */
+	default Mono<Void> invalidateSession(String sessionId) {
+		return Mono.empty();
+	}
 }
@@ -22,6 +22,7 @@ import org.springframework.dsl.jsonrpc.JsonRpcInputMessage;
 import org.springframework.dsl.jsonrpc.JsonRpcOutputMessage;
 import org.springframework.dsl.jsonrpc.ServerJsonRpcExchange;
 import org.springframework.dsl.jsonrpc.session.DefaultJsonRpcSessionManager;
+import org.springframework.dsl.jsonrpc.session.JsonRpcSession;
 import org.springframework.dsl.jsonrpc.session.JsonRpcSession.JsonRpcSessionCustomizer;
 import org.springframework.dsl.jsonrpc.session.JsonRpcSessionManager;
 import org.springframework.dsl.jsonrpc.support.DefaultServerJsonRpcExchange;
@@ -59,6 +60,15 @@ public class RpcJsonRpcHandlerAdapter implements RpcHandler {
 				.then(Mono.defer(response::setComplete));
 	}
 
+	@Override
+	public Mono<Void> invalidateSession(String sessionId) {
+		if (sessionManager instanceof DefaultJsonRpcSessionManager) {
+			return ((DefaultJsonRpcSessionManager) sessionManager).getSessionStore().retrieveSession(sessionId)
+					.flatMap(JsonRpcSession::invalidate);
+		}
+		return Mono.empty();
+	}
+
 	/**
 	 * Gets the session manager.
 	 *
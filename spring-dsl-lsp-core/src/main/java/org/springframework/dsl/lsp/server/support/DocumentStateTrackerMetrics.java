@@ -0,0 +1,56 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.lsp.server.support;
+
+import org.springframework.util.Assert;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * {@link MeterBinder} exposing gauges of {@link DocumentStateTrackerStatistics}.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class DocumentStateTrackerMetrics implements MeterBinder {
+
+	private final DocumentStateTrackerStatistics statistics;
+
+	/**
+	 * Instantiates a new document state tracker metrics.
+	 *
+	 * @param statistics the statistics
+	 */
+	public DocumentStateTrackerMetrics(DocumentStateTrackerStatistics statistics) {
+		Assert.notNull(statistics, "statistics must be set");
+		this.statistics = statistics;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("spring.dsl.documents.tracked", statistics, DocumentStateTrackerStatistics::getDocumentCount)
+				.description("Number of tracked documents")
+				.register(registry);
+		Gauge.builder("spring.dsl.documents.closed", statistics, DocumentStateTrackerStatistics::getClosedDocumentCount)
+				.description("Number of cached closed documents")
+				.register(registry);
+		Gauge.builder("spring.dsl.documents.characters", statistics, DocumentStateTrackerStatistics::getCharacterCount)
+				.description("Number of characters in tracked documents")
+				.register(registry);
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.lsp.server.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.springframework.dsl.service.DefaultDocumentStateTracker;
+import org.springframework.util.Assert;
+
+/**
+ * Aggregates statistics from {@link DefaultDocumentStateTracker}s created for
+ * {@code LSP} sessions. Trackers are held weakly so that they go away together
+ * with their sessions.
+ *
+ * @author Janne Valkealahti
+ * @see DocumentStateTrackerMetrics
+ *
+ */
+public class DocumentStateTrackerStatistics {
+
+	private final Set<DefaultDocumentStateTracker> trackers = Collections
+			.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+	/**
+	 * Register a tracker to be included in statistics.
+	 *
+	 * @param tracker the tracker
+	 */
+	public void register(DefaultDocumentStateTracker tracker) {
+		Assert.notNull(tracker, "tracker must be set");
+		trackers.add(tracker);
+	}
+
+	/**
+	 * Gets the number of documents tracked in all sessions.
+	 *
+	 * @return the number of documents
+	 */
+	public long getDocumentCount() {
+		long count = 0;
+		for (DefaultDocumentStateTracker tracker : getTrackers()) {
+			count += tracker.getDocumentCount();
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the number of closed documents cached in all sessions.
+	 *
+	 * @return the number of closed documents
+	 */
+	public long getClosedDocumentCount() {
+		long count = 0;
+		for (DefaultDocumentStateTracker tracker : getTrackers()) {
+			count += tracker.getClosedDocumentCount();
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the number of characters in documents tracked in all sessions.
+	 *
+	 * @return the number of characters
+	 */
+	public long getCharacterCount() {
+		long count = 0;
+		for (DefaultDocumentStateTracker tracker : getTrackers()) {
+			count += tracker.getCharacterCount();
+		}
+		return count;
+	}
+
+	private List<DefaultDocumentStateTracker> getTrackers() {
+		synchronized (trackers) {
+			return new ArrayList<>(trackers);
+		}
+	}
+}
@@ -15,6 +15,24 @@
  */
 package org.springframework.dsl.lsp.server.controller;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.dsl.document.SharedDocumentStore;
+import org.springframework.dsl.domain.DidOpenTextDocumentParams;
+import org.springframework.dsl.domain.InitializeParams;
+import org.springframework.dsl.domain.TextDocumentItem;
+import org.springframework.dsl.jsonrpc.session.InMemoryJsonRpcSessionStore;
+import org.springframework.dsl.jsonrpc.session.JsonRpcSession;
+import org.springframework.dsl.lsp.LspSystemConstants;
+import org.springframework.dsl.lsp.server.config.DslConfigurationProperties;
+import org.springframework.dsl.model.LanguageId;
+import org.springframework.dsl.service.DefaultDocumentStateTracker;
+import org.springframework.dsl.service.DefaultDslServiceRegistry;
+
 /**
  * Tests for {@link RootLanguageServerController}.
  *
@@ -23,6 +41,53 @@ package org.springframework.dsl.lsp.server.controller;
  */
 public class RootLanguageServerControllerTests {
 
+	private AnnotationConfigApplicationContext context;
+	private SharedDocumentStore store;
+	private RootLanguageServerController controller;
+
+	@Before
+	public void setup() {
+		context = new AnnotationConfigApplicationContext(Config.class);
+		DefaultDslServiceRegistry registry = new DefaultDslServiceRegistry();
+		registry.setApplicationContext(context);
+		store = new SharedDocumentStore();
+		controller = new RootLanguageServerController(registry, new DslConfigurationProperties());
+		controller.setSharedDocumentStore(store);
+	}
+
+	@After
+	public void clean() {
+		context.close();
+	}
+
+	@Test
+	public void testShutdownReleasesSharedDocuments() {
+		JsonRpcSession session = new InMemoryJsonRpcSessionStore().createSession("1").block();
+		openDocument(session);
+		assertThat(store.getDocumentCount()).isEqualTo(1);
+
+		controller.shutdown(session).block();
+		assertThat(store.getDocumentCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void testSessionInvalidateReleasesSharedDocuments() {
+		JsonRpcSession session = new InMemoryJsonRpcSessionStore().createSession("1").block();
+		openDocument(session);
+		assertThat(store.getDocumentCount()).isEqualTo(1);
+
+		session.invalidate().block();
+		assertThat(store.getDocumentCount()).isEqualTo(0);
+	}
+
+	private void openDocument(JsonRpcSession session) {
+		controller.initialize(new InitializeParams(), session).block();
+		DefaultDocumentStateTracker tracker = session
+				.getAttribute(LspSystemConstants.SESSION_ATTRIBUTE_DOCUMENT_STATE_TRACKER);
+		TextDocumentItem textDocumentItem = new TextDocumentItem("uri1", LanguageId.TXT.getIdentifier(), 0, "1");
+		tracker.didOpen(new DidOpenTextDocumentParams(textDocumentItem)).block();
+	}
+
 	static class Config {
 
 	}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.dsl.lsp.server.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+import org.springframework.dsl.domain.DidCloseTextDocumentParams;
+import org.springframework.dsl.domain.DidOpenTextDocumentParams;
+import org.springframework.dsl.domain.TextDocumentIdentifier;
+import org.springframework.dsl.domain.TextDocumentItem;
+import org.springframework.dsl.model.LanguageId;
+import org.springframework.dsl.service.DefaultDocumentStateTracker;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests for {@link DocumentStateTrackerMetrics}.
+ *
+ * @author Janne Valkealahti
+ *
+ */
+public class DocumentStateTrackerMetricsTests {
+
+	@Test
+	public void testGauges() {
+		DocumentStateTrackerStatistics statistics = new DocumentStateTrackerStatistics();
+		MeterRegistry registry = new SimpleMeterRegistry();
+		new DocumentStateTrackerMetrics(statistics).bindTo(registry);
+
+		DefaultDocumentStateTracker tracker1 = new DefaultDocumentStateTracker();
+		DefaultDocumentStateTracker tracker2 = new DefaultDocumentStateTracker();
+		statistics.register(tracker1);
+		statistics.register(tracker2);
+		tracker1.didOpen(new DidOpenTextDocumentParams(
+				new TextDocumentItem("uri1", LanguageId.TXT.getIdentifier(), 0, "123")));
+		tracker2.didOpen(new DidOpenTextDocumentParams(
+				new TextDocumentItem("uri1", LanguageId.TXT.getIdentifier(), 0, "12345")));
+		tracker2.didClose(new DidCloseTextDocumentParams(new TextDocumentIdentifier("uri1")));
+
+		assertThat(registry.get("spring.dsl.documents.tracked").gauge().value()).isEqualTo(2);
+		assertThat(registry.get("spring.dsl.documents.closed").gauge().value()).isEqualTo(1);
+		assertThat(registry.get("spring.dsl.documents.characters").gauge().value()).isEqualTo(8);
+	}
+}
@@ -15,50 +15,39 @@
  */
 package demo.dotdsl;
 
-import java.util.ArrayList;
 import java.util.List;
 
-import org.antlr.v4.runtime.CharStreams;
-import org.springframework.dsl.antlr.AntlrFactory;
+import org.antlr.v4.runtime.ParserRuleContext;
 import org.springframework.dsl.antlr.AntlrParseResult;
-import org.springframework.dsl.antlr.support.AbstractAntlrErrorListener;
-import org.springframework.dsl.antlr.support.AbstractAntlrParseResultFunction;
+import org.springframework.dsl.antlr.IncrementalAntlrFactory;
+import org.springframework.dsl.antlr.support.AbstractIncrementalAntlrParseResultFunction;
 import org.springframework.dsl.document.Document;
 import org.springframework.dsl.service.reconcile.ReconcileProblem;
 
-import reactor.core.publisher.Mono;
-
 /**
- * {@link AntlrParseResult} function for {@code dot} language.
+ * {@link AntlrParseResult} function for {@code dot} language. Changed
+ * statements are reparsed alone from a previous version of a document.
  *
  * @author Janne Valkealahti
  *
  */
 //tag::snippet1[]
 public class DOTAntlrParseResultFunction
-		extends AbstractAntlrParseResultFunction<Object, DOTLexer, DOTParser> {
+		extends AbstractIncrementalAntlrParseResultFunction<Object, DOTLexer, DOTParser> {
 
-	public DOTAntlrParseResultFunction(AntlrFactory<DOTLexer, DOTParser> antlrFactory) {
+	public DOTAntlrParseResultFunction(IncrementalAntlrFactory<DOTLexer, DOTParser> antlrFactory) {
 		super(antlrFactory);
 	}
 
 	@Override
-	public Mono<? extends AntlrParseResult<Object>> apply(Document document) {
-		return Mono.defer(() -> {
-			List<ReconcileProblem> errors = new ArrayList<>();
-			DOTParser parser = getParser(CharStreams.fromString(document.content()));
-			parser.removeErrorListeners();
-			parser.addErrorListener(new DOTErrorListener(errors));
-			parser.graph();
-			return Mono.just(AntlrParseResult.from(errors));
-		});
+	protected ParserRuleContext parseTree(DOTParser parser) {
+		return parser.graph();
 	}
 
-	private static class DOTErrorListener extends AbstractAntlrErrorListener {
-
-		public DOTErrorListener(List<ReconcileProblem> errors) {
-			super(errors);
-		}
+	@Override
+	protected AntlrParseResult<Object> createResult(Document document, ParserRuleContext tree,
+			List<ReconcileProblem> problems) {
+		return AntlrParseResult.from(problems);
 	}
 }
 //end::snippet1[]
@@ -15,12 +15,18 @@
  */
 package demo.dotdsl;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.TokenStream;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.dsl.antlr.AntlrFactory;
 import org.springframework.dsl.antlr.AntlrParseService;
+import org.springframework.dsl.antlr.AntlrPredictionPolicy;
+import org.springframework.dsl.antlr.IncrementalAntlrFactory;
+import org.springframework.dsl.antlr.support.AntlrDfaCache;
 import org.springframework.dsl.antlr.support.DefaultAntlrParseService;
 import org.springframework.dsl.model.LanguageId;
 import org.springframework.dsl.service.Completioner;
@@ -38,8 +44,8 @@ public class DOTLanguageConfiguration {
 	public final static LanguageId LANGUAGEID = LanguageId.languageId("dot", "Dot Language");
 
 	@Bean
-	public AntlrFactory<DOTLexer, DOTParser> dotAntlrFactory() {
-		return new AntlrFactory<DOTLexer, DOTParser>() {
+	public IncrementalAntlrFactory<DOTLexer, DOTParser> dotAntlrFactory() {
+		return new IncrementalAntlrFactory<DOTLexer, DOTParser>() {
 
 			@Override
 			public DOTParser createParser(TokenStream tokenStream) {
@@ -50,6 +56,11 @@ public class DOTLanguageConfiguration {
 			public DOTLexer createLexer(CharStream input) {
 				return new DOTLexer(input);
 			}
+
+			@Override
+			public Set<Integer> getRestartableRules() {
+				return Collections.singleton(DOTParser.RULE_stmt);
+			}
 		};
 	}
 
@@ -58,9 +69,21 @@ public class DOTLanguageConfiguration {
 		return new DefaultAntlrParseService<>();
 	}
 
+	@Bean
+	public AntlrDfaCache<DOTLexer, DOTParser> dotAntlrDfaCache() {
+		AntlrDfaCache<DOTLexer, DOTParser> cache = new AntlrDfaCache<>(dotAntlrFactory(), DOTParser::graph);
+		cache.setSamples(Arrays.asList(
+				"digraph G {\n  node [shape=box];\n  a -> b -> c;\n  b -> d [label=\"x\"];\n}\n",
+				"strict graph {\n  rankdir=LR;\n  subgraph cluster_0 { a; b }\n  a -- b:n;\n}\n"));
+		return cache;
+	}
+
 	@Bean
 	public DOTAntlrParseResultFunction dotAntlrParseResultFunction() {
-		return new DOTAntlrParseResultFunction(dotAntlrFactory());
+		DOTAntlrParseResultFunction function = new DOTAntlrParseResultFunction(dotAntlrFactory());
+		function.setPredictionPolicy(AntlrPredictionPolicy.SLL_THEN_LL);
+		function.setDfaCache(dotAntlrDfaCache());
+		return function;
 	}
 
 	@Bean
@@ -15,11 +15,18 @@
  */
 package demo.wordcheckdsl;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import org.springframework.dsl.document.Document;
 import org.springframework.dsl.document.DocumentRegion;
+import org.springframework.dsl.document.DocumentRegionCursor;
+import org.springframework.dsl.domain.Range;
 import org.springframework.dsl.service.reconcile.DefaultReconcileProblem;
+import org.springframework.dsl.service.reconcile.IncrementalLinter;
 import org.springframework.dsl.service.reconcile.Linter;
 import org.springframework.dsl.service.reconcile.ProblemSeverity;
 import org.springframework.dsl.service.reconcile.ProblemType;
@@ -28,7 +35,8 @@ import org.springframework.dsl.service.reconcile.ReconcileProblem;
 import reactor.core.publisher.Flux;
 
 /**
- * A {@link Linter} for a {@code wordcheck} language.
+ * A {@link Linter} for a {@code wordcheck} language. Words are checked one
+ * by one, so it is an {@link IncrementalLinter} linting only changed lines.
  *
  * @author Janne Valkealahti
  * @author Kris De Volder
@@ -36,22 +44,61 @@ import reactor.core.publisher.Flux;
  *
  */
 //tag::snippet1[]
-public class WordcheckLanguageLinter extends WordcheckLanguageSupport implements Linter {
+public class WordcheckLanguageLinter extends WordcheckLanguageSupport implements IncrementalLinter {
 
 	private static final Pattern SPACE = Pattern.compile("[^\\w]+");
+	private volatile Words words;
 
 	@Override
 	public Flux<ReconcileProblem> lint(Document document) {
-		return Flux.defer(() -> Flux.fromArray(new DocumentRegion(document).split(SPACE)))
-				.filter(w -> w.length() > 0)
-				.filter(w -> !getProperties().getWords().contains(w.toString()))
-				.map(this::problem);
+		return lint(new DocumentRegion(document));
+	}
+
+	@Override
+	public Flux<ReconcileProblem> lint(Document document, Range range) {
+		return lint(new DocumentRegion(document, range));
+	}
+
+	private Flux<ReconcileProblem> lint(DocumentRegion region) {
+		return Flux.defer(() -> {
+			Set<String> words = getWords();
+			List<ReconcileProblem> problems = new ArrayList<>();
+			DocumentRegionCursor cursor = region.tokenize(SPACE);
+			while (cursor.next()) {
+				if (cursor.length() > 0 && !words.contains(cursor)) {
+					problems.add(problem(cursor.toRegion()));
+				}
+			}
+			return Flux.fromIterable(problems);
+		});
+	}
+
+	private Set<String> getWords() {
+		// words are hashed again only when properties get a new list
+		List<String> source = getProperties().getWords();
+		Words words = this.words;
+		if (words == null || words.source != source) {
+			words = new Words(source);
+			this.words = words;
+		}
+		return words.set;
 	}
 
 	private ReconcileProblem problem(DocumentRegion region) {
 		return new DefaultReconcileProblem(PROBLEM, "Bad word '" + region.toString() + "'", region.toRange());
 	}
 
+	private static class Words {
+
+		final List<String> source;
+		final Set<String> set;
+
+		Words(List<String> source) {
+			this.source = source;
+			this.set = new HashSet<>(source);
+		}
+	}
+
 	private static ProblemType PROBLEM = new ProblemType() {
 
 		@Override
@@ -24,6 +24,7 @@ import java.util.stream.Collectors;
 import org.junit.Test;
 import org.springframework.dsl.document.Document;
 import org.springframework.dsl.document.TextDocument;
+import org.springframework.dsl.domain.Range;
 import org.springframework.dsl.model.LanguageId;
 import org.springframework.dsl.service.reconcile.ReconcileProblem;
 
@@ -79,4 +80,16 @@ public class WordcheckLanguageLinterTests {
 		assertThat(problem.getRange().getEnd().getLine()).isEqualTo(3);
 		assertThat(problem.getRange().getEnd().getCharacter()).isEqualTo(3);
 	}
+
+	@Test
+	public void testLintRange() {
+		WordcheckLanguageLinter linter = new WordcheckLanguageLinter();
+		linter.getProperties().setWords(Arrays.asList("jack"));
+
+		Document document = new TextDocument("fakeuri", LanguageId.TXT, 0, "jack\nxxx\njack\nddd\njack");
+		List<ReconcileProblem> problems = linter.lint(document, Range.from(2, 0, 4, 0)).toStream()
+				.collect(Collectors.toList());
+		assertThat(problems).hasSize(1);
+		assertThat(problems.get(0).getRange()).isEqualTo(Range.from(3, 0, 3, 3));
+	}
 }
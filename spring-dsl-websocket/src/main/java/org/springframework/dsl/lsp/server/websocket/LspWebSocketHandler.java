@@ -154,6 +154,7 @@ public class LspWebSocketHandler implements WebSocketHandler {
 					.doOnSuccess(aVoid -> log.debug("Handling completed with success"))
 					.subscribe();
 			})
+			.doFinally(signal -> rpcHandler.invalidateSession(session.getId()).subscribe())
 			.then();
 	}
 